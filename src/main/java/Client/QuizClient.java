@@ -1,8 +1,17 @@
 package Client;
 
+import Server.FrameCompression;
+import Server.SocketTransport;
+import Server.Transport;
+
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -10,15 +19,89 @@ import java.util.Scanner;
  * CODE~MESSAGE~ where the tilde '~' acts as a separator between successive codes and messages sent from the server.
  * The codes are MSG, NAME, PLAYAGAIN and QUESTION, each of which are followed by one or more lines of text in the
  * MESSAGE field. The client is responsible for interpreting these codes by printing their messages to the console and
- * sending user input back to the server where applicable.
+ * sending user input back to the server where applicable. A server may also send HEARTBEAT followed by an interval in
+ * milliseconds, after which the client sends HEARTBEAT back at that interval so the server knows it is still there.
+ * A server which is full sends BUSY followed by a number of seconds before closing the connection, after which the
+ * client waits that long and tries again. A server offering COMPRESS is answered with COMPRESS, after which frames
+ * may arrive compressed inside ZIP frames, which the client unpacks before interpreting them (see FrameCompression).
+ * A player who enters TOP instead of answering PLAYAGAIN is asked for a window, which is sent as TOP~WINDOW~, and the
+ * ranking the server sends back as TOP~RANKING~ is printed. A player who enters TOPIC instead is asked for a topic,
+ * which is sent as TOPIC~WORDS~, or TOPIC~ANY~ if they enter nothing. A server offering CONTINUOUS is answered with
+ * CONTINUOUS, after which the server sends the next question straight after every answer instead of asking
+ * PLAYAGAIN, and the player quits by entering the code sent with the offer, such as QUIT, instead of an answer.
+ * A server offering BATCH asks the player whether to play in batches, and if so is answered with BATCH and the size
+ * offered. Questions then arrive as QUESTIONS~N~ followed by N QUESTION frames, which the player answers one by one
+ * before all the answers are sent together, such as 2~0~3 sent as 2 0 3~.
+ * A player who enters SPECTATE as their name becomes a spectator, who plays no questions and is sent BOARD~TOP3~
+ * whenever the top 3 changes, which is printed until the connection closes. Spectators send no heartbeats.
+ * A server offering RANKS is answered with RANKS, after which the top 3 is sent in full as BOARD once and then only as
+ * RANKS with the lines which changed, such as RANKS~6\n3 Alice:   4\n~, or no lines at all if none did. The client
+ * keeps its own copy of the board, which it updates with each RANKS and prints.
  */
 public class QuizClient {
 
+    /**
+     * Reads tokens from the server, unpacking the frames held in ZIP frames
+     */
+    private class TokenReader {
+
+        private Scanner socketScan;
+        private Deque<String> unpacked;
+        private FrameCompression compression;
+
+        TokenReader(Scanner socketScan){
+            this.socketScan = socketScan;
+            unpacked = new ArrayDeque<>();
+        }
+
+        void acceptCompression(){
+            compression = new FrameCompression(FrameCompression.DEFAULT_THRESHOLD);
+        }
+
+        boolean hasNext(){
+            return !unpacked.isEmpty() || socketScan.hasNext();
+        }
+
+        String next(){
+            if(unpacked.isEmpty()){
+                String token = socketScan.next();
+                if(compression == null || !token.equals(FrameCompression.CODE_ZIP)){
+                    return token;
+                }
+                String[] tokens = compression.decompress(socketScan.next()).split(DELIMITER, -1);
+                //the frames end with a delimiter, which leaves an empty last token
+                unpacked.addAll(Arrays.asList(tokens).subList(0, tokens.length - 1));
+            }
+            return unpacked.poll();
+        }
+
+        void close(){
+            if(compression != null){
+                compression.close();
+            }
+        }
+    }
+
     final String DELIMITER = "~";
     final String CODE_MSG = "MSG";
     final String CODE_NAME = "NAME";
     final String CODE_PLAYAGAIN = "PLAYAGAIN";
     final String CODE_QUESTION = "QUESTION";
+    final String CODE_HEARTBEAT = "HEARTBEAT";
+    final String CODE_BUSY = "BUSY";
+    final String CODE_TOP = "TOP";
+    final String CODE_TOPIC = "TOPIC";
+    final String ANY_TOPIC = "ANY";
+    final String CODE_CONTINUOUS = "CONTINUOUS";
+    final String CODE_BATCH = "BATCH";
+    final String CODE_QUESTIONS = "QUESTIONS";
+    final String CODE_SPECTATE = "SPECTATE";
+    final String CODE_BOARD = "BOARD";
+    final String CODE_RANKS = "RANKS";
+    final int MAX_RETRIES = 5;
+
+    private int retryAfterSeconds;
+    private volatile boolean spectating;
 
     /**
      * Establishes a connection to Client.QuizClient through a Socket.
@@ -31,11 +114,31 @@ public class QuizClient {
      * @throws IOException if IP address or port number are invalid or do not exist
      */
      public void openSocket(String addr, int port) throws IOException {
-         try(Socket s = new Socket(addr, port)){
+         play(new SocketTransport(new Socket(addr, port)));
+     }
 
-             PrintWriter out = new PrintWriter(s.getOutputStream());
-             Scanner socketScan = new Scanner(s.getInputStream());
-             socketScan.useDelimiter(DELIMITER);
+    /**
+     * Plays a session over a Transport which is already connected to a QuizService, such as a SocketTransport or one
+     * end of a PipeTransport, exactly as openSocket does over a Socket. The transport is closed once the server ends
+     * the session.
+     * @param transport the connection to the QuizService
+     * @throws IOException if the connection fails
+     */
+     public void play(Transport transport) throws IOException {
+         retryAfterSeconds = 0;
+         spectating = false;
+         try{
+             PrintWriter out = new PrintWriter(transport.getOutputStream());
+             Scanner scanner = new Scanner(transport.getInputStream());
+             scanner.useDelimiter(DELIMITER);
+             TokenReader socketScan = new TokenReader(scanner);
+             //the code with which to quit continuous play, or null while PLAYAGAIN is asked after every answer
+             String quitCode = null;
+             //the answers to a batch of questions, which are sent once all of them are answered
+             StringBuilder batchAnswers = new StringBuilder();
+             int batchRemaining = 0;
+             //the client's copy of the top 3 line by line, once it has accepted rank updates
+             List<String> board = null;
 
              while(socketScan.hasNext()){
                  String serverCode = socketScan.next().toUpperCase();
@@ -45,25 +148,178 @@ public class QuizClient {
                          break;
                      case CODE_NAME:
                          System.out.println(socketScan.next());
-                         out.print(getInput() + DELIMITER);
+                         String name = getInput();
+                         //the server is never read from again, so heartbeats would only fill its buffer
+                         spectating = name.equalsIgnoreCase(CODE_SPECTATE);
+                         out.print((spectating ? CODE_SPECTATE : name) + DELIMITER);
                          out.flush();
                          break;
+                     case CODE_BOARD:
+                         String top3 = socketScan.next();
+                         if(board != null){
+                             board.clear();
+                             board.addAll(Arrays.asList(top3.split("\n")));
+                         }
+                         System.out.println(top3);
+                         break;
+                     case CODE_RANKS:
+                         String ranks = socketScan.next();
+                         if(board == null){
+                             //the offer, which is made before the name
+                             board = new ArrayList<>();
+                             out.print(CODE_RANKS + DELIMITER);
+                             out.flush();
+                         }
+                         else{
+                             updateBoard(board, ranks);
+                             System.out.println(String.join("\n", board));
+                         }
+                         break;
                      case CODE_PLAYAGAIN:
                          System.out.println(socketScan.next());
-                         String input = getInput().toUpperCase();
-                         out.print(input + DELIMITER);
+                         out.print(request(getInput().toUpperCase()) + DELIMITER);
                          out.flush();
                          break;
                      case CODE_QUESTION:
                          System.out.println(socketScan.next());
-                         out.print(getInput() + DELIMITER);
+                         String input = getInput();
+                         if(quitCode != null){
+                             input = input.equalsIgnoreCase(quitCode) ? quitCode : request(input);
+                         }
+                         if(batchRemaining > 0 && !input.contains(DELIMITER) && !input.equals(quitCode)){
+                             batchAnswers.append(batchAnswers.length() == 0 ? "" : " ").append(input);
+                             if(--batchRemaining > 0){
+                                 break;
+                             }
+                             input = batchAnswers.toString();
+                         }
+                         else{
+                             //a request or quitting leaves the batch, which the server repeats after a request
+                             batchRemaining = 0;
+                         }
+                         out.print(input + DELIMITER);
+                         out.flush();
+                         break;
+                     case CODE_QUESTIONS:
+                         batchRemaining = Integer.parseInt(socketScan.next());
+                         batchAnswers.setLength(0);
+                         System.out.println("Here are your next " + batchRemaining + " questions, your answers are sent once you have answered them all");
+                         break;
+                     case CODE_TOP:
+                         System.out.println(socketScan.next());
+                         break;
+                     case CODE_HEARTBEAT:
+                         startHeartbeat(out, Long.parseLong(socketScan.next()));
+                         break;
+                     case CODE_BUSY:
+                         retryAfterSeconds = Integer.parseInt(socketScan.next());
+                         break;
+                     case CODE_CONTINUOUS:
+                         quitCode = socketScan.next();
+                         System.out.println("Questions will keep coming until you enter " + quitCode);
+                         out.print(CODE_CONTINUOUS + DELIMITER);
+                         out.flush();
+                         break;
+                     case CODE_BATCH:
+                         String size = socketScan.next();
+                         System.out.println("Questions can be sent " + size + " at a time, which is faster on a slow connection. Play in batches? (Y/N)");
+                         if(getInput().equalsIgnoreCase("Y")){
+                             out.print(CODE_BATCH + DELIMITER + size + DELIMITER);
+                             out.flush();
+                         }
+                         break;
+                     case FrameCompression.CODE_COMPRESS:
+                         socketScan.next();
+                         socketScan.acceptCompression();
+                         out.print(FrameCompression.CODE_COMPRESS + DELIMITER);
                          out.flush();
                          break;
                  }
              }
+             socketScan.close();
+         }
+         finally {
+             transport.close();
          }
      }
 
+    /**
+     * Turns TOP and TOPIC into requests by asking the player for the window or topic, which may be entered instead of
+     * answering PLAYAGAIN or, in continuous play, instead of answering a question
+     * @param input what the player entered
+     * @return the frames to send, without the final delimiter, which are the input itself if it is not a request
+     */
+    private String request(String input){
+        if(input.equalsIgnoreCase(CODE_TOP)){
+            System.out.println("Best streaks of the last 5M, 1H or 24H?");
+            return CODE_TOP + DELIMITER + getInput().toUpperCase();
+        }
+        if(input.equalsIgnoreCase(CODE_TOPIC)){
+            System.out.println("Which topic? Press enter for any topic");
+            String topic = getLine().replace(DELIMITER, " ").trim();
+            return CODE_TOPIC + DELIMITER + (topic.isEmpty() ? ANY_TOPIC : topic);
+        }
+        return input;
+    }
+
+    /**
+     * Applies the lines of a RANKS update to the client's copy of the board
+     * @param board the board, line by line
+     * @param ranks the message of the update: the number of lines followed by each line which changed and its index,
+     *              or nothing if no line changed
+     */
+    private void updateBoard(List<String> board, String ranks){
+        if(ranks.isEmpty()){
+            return;
+        }
+        String[] lines = ranks.split("\n");
+        int size = Integer.parseInt(lines[0]);
+        while(board.size() > size){
+            board.remove(board.size() - 1);
+        }
+        while(board.size() < size){
+            board.add("");
+        }
+        for(int i = 1; i < lines.length; i++){
+            int space = lines[i].indexOf(' ');
+            board.set(Integer.parseInt(lines[i].substring(0, space)), lines[i].substring(space + 1));
+        }
+    }
+
+    /**
+     * Starts a daemon thread which sends HEARTBEAT to the server at the given interval until the connection closes.
+     * Every message is written with a single print, which PrintWriter makes atomic, so a heartbeat never splits a response.
+     * @param out the PrintWriter connected to the server
+     * @param intervalMillis how often to send a heartbeat
+     */
+     public void startHeartbeat(PrintWriter out, long intervalMillis){
+         Thread heartbeat = new Thread(() -> {
+             try{
+                 while(!out.checkError()){
+                     Thread.sleep(intervalMillis);
+                     if(spectating){
+                         break;
+                     }
+                     out.print(CODE_HEARTBEAT + DELIMITER);
+                     out.flush();
+                 }
+             }
+             catch(InterruptedException e){
+                 Thread.currentThread().interrupt();
+             }
+         });
+         heartbeat.setDaemon(true);
+         heartbeat.start();
+     }
+
+    /**
+     * Retrieves how long the server asked the client to wait before reconnecting
+     * @return the number of seconds to wait, or 0 if the last connection was not turned away
+     */
+     public int getRetryAfterSeconds(){
+         return retryAfterSeconds;
+     }
+
     /**
      * gets user input from console in the form of a String
      * @return a String containing user input
@@ -75,6 +331,15 @@ public class QuizClient {
          return input;
      }
 
+    /**
+     * Reads a whole line from the console, which may be empty or hold several words
+     * @return the line entered, without its line separator
+     */
+    private String getLine(){
+        Scanner consoleScan = new Scanner(System.in);
+        return consoleScan.hasNextLine() ? consoleScan.nextLine() : "";
+    }
+
     /**
      * Checks if a String from user input via console is an integer, and if so converts it to type int
      * so that it may be passed to Socket constructor as the port argument
@@ -91,7 +356,8 @@ public class QuizClient {
 
     /**
      * A simple driver method that constructs a Client.QuizClient object and requests user input via console to obtain
-     * a valid IP address and port number of a QuizServer with which to connect;
+     * a valid IP address and port number of a QuizServer with which to connect. If the server is busy, the client waits
+     * as long as the server asks and reconnects, up to MAX_RETRIES times.
      * @param args Command line arguments are not used for this method
      * @throws IOException if IP address or Port number do not exist or are invalid
      */
@@ -106,6 +372,15 @@ public class QuizClient {
         System.out.println("Please enter the port for the Quiz Server");
         port = quizClient.parsePort();
         quizClient.openSocket(addr, port);
+        for(int retries = 0; quizClient.getRetryAfterSeconds() > 0 && retries < quizClient.MAX_RETRIES; retries++){
+            try{
+                Thread.sleep(quizClient.getRetryAfterSeconds() * 1000L);
+            }
+            catch(InterruptedException e){
+                return;
+            }
+            quizClient.openSocket(addr, port);
+        }
 
     }
 }
@@ -0,0 +1,157 @@
+package QuizQuestion;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AdaptiveLimiter bounds the number of outstanding upstream requests using an AIMD (additive increase,
+ * multiplicative decrease) limit driven by observed latency. Every request that completes faster than the latency
+ * threshold grows the limit by roughly one per limit's worth of requests, while a slow request, error or timeout
+ * cuts the limit by the backoff ratio. Threads that cannot get a slot wait up to a bounded time and then give up,
+ * so a slow upstream causes callers to fall back instead of piling up.
+ * All methods utilize the lock-try-finally-unlock idiom used throughout the project.
+ */
+public class AdaptiveLimiter {
+
+    private final int MIN_LIMIT;
+    private final int MAX_LIMIT;
+    private final long LATENCY_THRESHOLD_NANOS;
+    private final double BACKOFF_RATIO = 0.5;
+
+    private double limit;
+    private int inFlight;
+    private Lock limiterLock;
+    private Condition slotAvailable;
+
+    /**
+     * Constructs an AdaptiveLimiter
+     * @param initialLimit the starting number of concurrent requests allowed
+     * @param minLimit the limit will never drop below this value
+     * @param maxLimit the limit will never grow above this value
+     * @param latencyThresholdMillis requests slower than this are treated as a sign of congestion
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis){
+        MIN_LIMIT = minLimit;
+        MAX_LIMIT = maxLimit;
+        LATENCY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        limit = initialLimit;
+        inFlight = 0;
+        limiterLock = new ReentrantLock();
+        slotAvailable = limiterLock.newCondition();
+    }
+
+    /**
+     * Attempts to reserve a slot for an upstream request, waiting up to the given time for one to become free.
+     * Every successful acquire must be followed by exactly one call to onSuccess, onDropped or onIgnored.
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout argument
+     * @return true if a slot was reserved, false if the wait timed out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        limiterLock.lock();
+        try{
+            while(inFlight >= (int) limit){
+                if(remaining <= 0){
+                    return false;
+                }
+                remaining = slotAvailable.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        }
+        finally {
+            limiterLock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot after a request completed, growing the limit if it was fast or shrinking it if it was slow
+     * @param latencyNanos how long the request took
+     */
+    public void onSuccess(long latencyNanos){
+        limiterLock.lock();
+        try{
+            if(latencyNanos > LATENCY_THRESHOLD_NANOS){
+                decrease();
+            }
+            else if(inFlight >= (int) limit / 2){
+                //only grow when the current limit is actually being used
+                limit = Math.min(MAX_LIMIT, limit + 1.0 / limit);
+            }
+            release();
+        }
+        finally {
+            limiterLock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot after a request failed or timed out, shrinking the limit
+     */
+    public void onDropped(){
+        limiterLock.lock();
+        try{
+            decrease();
+            release();
+        }
+        finally {
+            limiterLock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot after a request was cancelled before it completed, leaving the limit unchanged
+     */
+    public void onIgnored(){
+        limiterLock.lock();
+        try{
+            release();
+        }
+        finally {
+            limiterLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the current concurrency limit
+     * @return the number of concurrent requests currently allowed
+     */
+    public int getLimit(){
+        limiterLock.lock();
+        try{
+            return (int) limit;
+        }
+        finally {
+            limiterLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of requests currently outstanding
+     * @return the in-flight count
+     */
+    public int getInFlight(){
+        limiterLock.lock();
+        try{
+            return inFlight;
+        }
+        finally {
+            limiterLock.unlock();
+        }
+    }
+
+    //must be called while holding limiterLock
+    private void decrease(){
+        limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+    }
+
+    //must be called while holding limiterLock
+    private void release(){
+        inFlight--;
+        slotAvailable.signalAll();
+    }
+}
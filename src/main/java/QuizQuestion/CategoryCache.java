@@ -0,0 +1,99 @@
+package QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, thread-safe cache of playable Jeopardy categories that were recently retrieved from the upstream.
+ * When the cache is full the oldest entry is overwritten. The cache is used to keep serving questions while the
+ * upstream is slow or unavailable.
+ */
+public class CategoryCache {
+
+    private final int CAPACITY;
+
+    private JeopardyCategory[] categories;
+    private int size;
+    private int next;
+    private Random r;
+    private Lock cacheLock;
+
+    /**
+     * Constructs an empty CategoryCache
+     * @param capacity the maximum number of categories held
+     */
+    public CategoryCache(int capacity){
+        CAPACITY = capacity;
+        categories = new JeopardyCategory[capacity];
+        size = 0;
+        next = 0;
+        r = new Random();
+        cacheLock = new ReentrantLock();
+    }
+
+    /**
+     * Adds a category to the cache, replacing the oldest entry if the cache is full
+     * @param category a playable category
+     */
+    public void put(JeopardyCategory category){
+        cacheLock.lock();
+        try{
+            categories[next] = category;
+            next = (next + 1) % CAPACITY;
+            size = Math.min(CAPACITY, size + 1);
+        }
+        finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves a random category from the cache
+     * @return a random cached category, or null if the cache is empty
+     */
+    public JeopardyCategory random(){
+        cacheLock.lock();
+        try{
+            return size == 0 ? null : categories[r.nextInt(size)];
+        }
+        finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of categories currently cached
+     * @return the number of cached categories
+     */
+    public int size(){
+        cacheLock.lock();
+        try{
+            return size;
+        }
+        finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the cached categories, for example to save them in a CategorySnapshot
+     * @return the cached categories, oldest first
+     */
+    public List<JeopardyCategory> toList(){
+        cacheLock.lock();
+        try{
+            List<JeopardyCategory> list = new ArrayList<>(size);
+            int oldest = size < CAPACITY ? 0 : next;
+            for(int i = 0; i < size; i++){
+                list.add(categories[(oldest + i) % CAPACITY]);
+            }
+            return list;
+        }
+        finally {
+            cacheLock.unlock();
+        }
+    }
+}
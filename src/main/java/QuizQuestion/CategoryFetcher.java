@@ -0,0 +1,662 @@
+package QuizQuestion;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * CategoryFetcher is the single, shared gateway through which every QuizGenerator retrieves Jeopardy categories.
+ * Calls to the upstream are guarded by an AdaptiveLimiter, which bounds the number of outstanding requests, and a
+ * CircuitBreaker, which stops calling the upstream altogether once it is failing or too slow. Whenever the upstream
+ * cannot be used the fetcher falls back to a CategoryCache of recently retrieved categories and, when the cache is
+ * still empty, to a built-in offline category, so a session always receives a playable category promptly.
+ * Because any playable category will do, the fetcher can optionally hedge a slow request by racing it against a
+ * request for a different category, see enableHedging.
+ * Every playable category the fetcher sees is also added to a CategoryIndex, which keeps growing towards the whole
+ * corpus, so that a player can ask for categories on a topic, see fetch(String). Clues of a chosen Difficulty are
+ * taken from a TieredQuestionSupply which refills itself through this fetcher, see getSupply.
+ * The upstream is the first QuestionSource of a SourceRouter, to which further sources such as a CorpusSource can be
+ * registered with their own priority and weight, see getSources. Categories are then drawn from whichever source the
+ * router picks, failing over to the others when it is failing or slow, before the cache is used.
+ * A registered CorpusSource can be replaced while sessions are playing, see reloadCorpus; a session which takes a
+ * snapshot when it starts keeps drawing from the corpus it started with, see snapshot.
+ */
+public class CategoryFetcher {
+
+    //the example category from http://jservice.io/api/category?id=5666 used when nothing else is available
+    public static final String OFFLINE_CATEGORY = "{\"id\":5666,\"title\":\"grub, shrub or beelzebub\",\"clues_count\":5,\"clues\":[{\"id\":45766,\"answer\":\"Shrub\",\"question\":\"Azalea\",\"value\":200,\"airdate\":\"2000-12-14T12:00:00.000Z\",\"category_id\":5666,\"game_id\":null,\"invalid_count\":null},{\"id\":45760,\"answer\":\"Grub\",\"question\":\"Antipasto\",\"value\":100,\"airdate\":\"2000-12-14T12:00:00.000Z\",\"category_id\":5666,\"game_id\":null,\"invalid_count\":null},{\"id\":45772,\"answer\":\"Beelzebub\",\"question\":\"Old Horny\",\"value\":300,\"airdate\":\"2000-12-14T12:00:00.000Z\",\"category_id\":5666,\"game_id\":null,\"invalid_count\":null},{\"id\":45778,\"answer\":\"Beelzebub (Biblical term)\",\"question\":\"Azalel\",\"value\":400,\"airdate\":\"2000-12-14T12:00:00.000Z\",\"category_id\":5666,\"game_id\":null,\"invalid_count\":null},{\"id\":45784,\"answer\":\"Grub (rabbit stew)\",\"question\":\"Hasenpfeffer\",\"value\":500,\"airdate\":\"2000-12-14T12:00:00.000Z\",\"category_id\":5666,\"game_id\":null,\"invalid_count\":null}]}";
+
+    //the name of the upstream among the sources of the router
+    public static final String UPSTREAM_SOURCE = "jservice";
+
+    private static final int CACHE_CAPACITY = 256;
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 250;
+    private static final int LATENCY_WINDOW = 512;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final double MAX_HEDGE_TOKENS = 10;
+
+    private static CategoryFetcher defaultFetcher;
+
+    private final String categoryURI;
+    private final Duration timeout;
+    private final JeopardyCategory offlineCategory;
+
+    private AdaptiveLimiter limiter;
+    private CircuitBreaker breaker;
+    private CategoryCache cache;
+    private volatile CategoryIndex index;
+    private TieredQuestionSupply supply;
+    private ClueStats stats;
+    private LatencyTracker latencies;
+    private SourceRouter sources;
+
+    private volatile boolean hedging;
+    private volatile double hedgePercentile;
+    private volatile double hedgeBudgetRatio;
+    private double hedgeTokens;
+    private Lock budgetLock;
+    private Lock reloadLock;
+
+    private AtomicLong upstreamCalls;
+    private AtomicLong upstreamFailures;
+    private AtomicLong fallbacks;
+    private AtomicLong hedges;
+    private AtomicLong hedgeWins;
+    private AtomicLong warmServes;
+    private AtomicLong warmHits;
+
+    /**
+     * Retrieves the fetcher shared by all QuizGenerators that were not given one explicitly
+     * @return the default CategoryFetcher, connected to jService
+     */
+    public static synchronized CategoryFetcher getDefault(){
+        if(defaultFetcher == null){
+            defaultFetcher = new CategoryFetcher(CategoryGenerator.DEFAULT_CATEGORY_URI, CategoryGenerator.DEFAULT_TIMEOUT);
+        }
+        return defaultFetcher;
+    }
+
+    /**
+     * Constructs a CategoryFetcher with default limiter and breaker settings
+     * @param categoryURI the base URI to which a category id is appended
+     * @param timeout the maximum time to wait for a single upstream response
+     */
+    public CategoryFetcher(String categoryURI, Duration timeout){
+        this(categoryURI, timeout,
+                new AdaptiveLimiter(10, 1, 200, timeout.toMillis() / 2),
+                new CircuitBreaker(20, 0.5, timeout.toMillis() / 2, 5000));
+    }
+
+    /**
+     * Constructs a CategoryFetcher with the given limiter and breaker
+     * @param categoryURI the base URI to which a category id is appended
+     * @param timeout the maximum time to wait for a single upstream response
+     * @param limiter bounds the number of outstanding upstream requests
+     * @param breaker stops upstream requests while the upstream is unhealthy
+     */
+    public CategoryFetcher(String categoryURI, Duration timeout, AdaptiveLimiter limiter, CircuitBreaker breaker){
+        this.categoryURI = categoryURI;
+        this.timeout = timeout;
+        this.limiter = limiter;
+        this.breaker = breaker;
+        cache = new CategoryCache(CACHE_CAPACITY);
+        index = new CategoryIndex(false);
+        supply = new TieredQuestionSupply(this, TieredQuestionSupply.DEFAULT_TIER_CAPACITY);
+        stats = new ClueStats(ClueStats.DEFAULT_FOLD_INTERVAL_MILLIS);
+        latencies = new LatencyTracker(LATENCY_WINDOW);
+        sources = new SourceRouter(timeout.toMillis() / 2);
+        //the upstream is guarded by the limiter and breaker of this fetcher rather than by one of the router's
+        sources.register(new Upstream(), 0, 1, null);
+        budgetLock = new ReentrantLock();
+        reloadLock = new ReentrantLock();
+        offlineCategory = new JeopardyCategory(OFFLINE_CATEGORY);
+        index.add(offlineCategory);
+        upstreamCalls = new AtomicLong();
+        upstreamFailures = new AtomicLong();
+        fallbacks = new AtomicLong();
+        hedges = new AtomicLong();
+        hedgeWins = new AtomicLong();
+        warmServes = new AtomicLong();
+        warmHits = new AtomicLong();
+    }
+
+    /**
+     * Fills the cache with categories saved before a restart, see CategorySnapshot. The next fetches, one per loaded
+     * category, are served straight from the cache so that the first players after a restart do not all wait on the
+     * upstream at once; after that the upstream is tried first again. The clues of the categories also fill the tiers
+     * of the TieredQuestionSupply, so sessions with a Difficulty start warm too.
+     * @param categories the categories to load, which must be playable
+     */
+    public void warmStart(List<JeopardyCategory> categories){
+        for(JeopardyCategory category : categories){
+            cache.put(category);
+            index.add(category);
+            supply.offer(category);
+        }
+        warmServes.set(categories.size());
+    }
+
+    /**
+     * The corpus and index a session started with, see snapshot
+     */
+    public static class Snapshot {
+
+        private final SourceRouter.Snapshot sources;
+        private final CategoryIndex index;
+
+        private Snapshot(SourceRouter.Snapshot sources, CategoryIndex index){
+            this.sources = sources;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Pins the versions of the corpora registered with the router and the CategoryIndex, so that a session which
+     * started before a reload finishes on the corpus it started with, see fetch(Snapshot) and reloadCorpus
+     * @return the Snapshot, which the session holds until it ends
+     */
+    public Snapshot snapshot(){
+        return new Snapshot(sources.snapshot(), index);
+    }
+
+    /**
+     * Retrieves a Jeopardy category from the sources of the router, of which the upstream is tried when it is
+     * healthy and a slot is free, or otherwise from the cache or the offline category. Categories retrieved from the
+     * cache or offline are always playable, while a category retrieved from a source may not be and should be
+     * checked with JeopardyCategory.isPlayable.
+     * @return a JeopardyCategory, never null
+     */
+    public JeopardyCategory fetch(){
+        return fetchFrom(null);
+    }
+
+    /**
+     * Retrieves a Jeopardy category as fetch does, but from the corpora as they were when the snapshot was taken.
+     * Categories drawn from a corpus since replaced are neither cached nor indexed, as the reload took them out.
+     * @param snapshot the snapshot the session took when it started
+     * @return a JeopardyCategory, never null
+     */
+    public JeopardyCategory fetch(Snapshot snapshot){
+        if(snapshot.sources.isCurrent()){
+            return fetch();
+        }
+        return fetchFrom(snapshot.sources);
+    }
+
+    /**
+     * Retrieves a category from the sources of the router, or those of the snapshot if it is not null, see fetch
+     */
+    private JeopardyCategory fetchFrom(SourceRouter.Snapshot pinned){
+        JeopardyCategory result = null;
+        if(warmServes.get() > 0 && warmServes.getAndDecrement() > 0){
+            result = cache.random();
+            if(result != null){
+                warmHits.incrementAndGet();
+                return result;
+            }
+        }
+        result = pinned == null ? sources.fetch() : sources.fetch(pinned);
+        if(pinned == null && result != null && result.isPlayable()){
+            cache.put(result);
+            index.add(result);
+        }
+        if(result == null){
+            fallbacks.incrementAndGet();
+            result = cache.random();
+        }
+        return result == null ? offlineCategory : result;
+    }
+
+    /**
+     * Retrieves a random category on a topic from the categories retrieved so far. The upstream can only be asked for
+     * categories by number, so categories on a topic become available as the index grows.
+     * @param topic one or more words, each of which may be the start of a word in a category title
+     * @return a playable category on the topic, or null if none has been retrieved yet
+     */
+    public JeopardyCategory fetch(String topic){
+        return index.random(topic);
+    }
+
+    /**
+     * Retrieves a random category on a topic from the CategoryIndex the session started with, see fetch(String)
+     * @param snapshot the snapshot the session took when it started
+     * @param topic one or more words, each of which may be the start of a word in a category title
+     * @return a playable category on the topic, or null if none had been retrieved
+     */
+    public JeopardyCategory fetch(Snapshot snapshot, String topic){
+        return snapshot.index == index ? fetch(topic) : snapshot.index.random(topic);
+    }
+
+    /**
+     * Replaces the categories of a corpus registered with this fetcher by those of a file, read-copy-update style,
+     * without pausing any session. The file is read, and a new CategoryIndex is built from the offline category, the
+     * cached categories and the new corpus, on the calling thread while turns keep using the current corpus and
+     * index. Both are then published, and turns which already started finish on the old ones, as do sessions holding a
+     * snapshot, see snapshot. They are released once nothing refers to them, but for the few categories of the old
+     * corpus still cached. Categories indexed in the
+     * meantime, and upstream categories no longer cached, are indexed again when they are next retrieved. Reloads are
+     * applied one at a time.
+     * @param corpus a CorpusSource registered with this fetcher's SourceRouter
+     * @param file a corpus file, see CorpusSource for its formats
+     * @return the Version of the corpus published
+     * @throws IOException if the file cannot be read, in which case the current corpus and index are kept
+     */
+    public CorpusSource.Version reloadCorpus(CorpusSource corpus, Path file) throws IOException {
+        //only other reloads wait on this lock, turns never take it
+        reloadLock.lock();
+        try{
+            List<JeopardyCategory> categories = CorpusSource.read(file);
+            CategoryIndex next = new CategoryIndex(false);
+            next.add(offlineCategory);
+            //cached categories of the corpus being replaced are not carried over, they may be what the reload corrects
+            Set<JeopardyCategory> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+            replaced.addAll(corpus.getVersion().getCategories());
+            for(JeopardyCategory category : cache.toList()){
+                if(!replaced.contains(category)){
+                    next.add(category);
+                }
+            }
+            for(JeopardyCategory category : categories){
+                if(category.isPlayable()){
+                    next.add(category);
+                }
+            }
+            index = next;
+            return corpus.publish(categories);
+        }
+        finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * The upstream as a QuestionSource, which fails its requests at once when the breaker rejects them or no slot
+     * is free. A hedged request completes once the primary or the hedge has won, see fetchUpstream.
+     */
+    private class Upstream implements QuestionSource {
+
+        public String getName(){
+            return UPSTREAM_SOURCE;
+        }
+
+        public CompletableFuture<JeopardyCategory> fetch(){
+            if(!breaker.allowRequest()){
+                return CompletableFuture.failedFuture(new IllegalStateException("the upstream breaker is open"));
+            }
+            if(!acquireSlot()){
+                //the upstream was never called, so this says nothing about its health, only give back a probe it held
+                breaker.recordIgnored();
+                return CompletableFuture.failedFuture(new IllegalStateException("no upstream slot is free"));
+            }
+            return fetchUpstream();
+        }
+    }
+
+    private boolean acquireSlot(){
+        try{
+            return limiter.acquire(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Starts an upstream request, which is hedged when hedging is enabled: once the primary request has been
+     * outstanding for the hedge percentile of recent latency, a request for another category is raced against it if
+     * the budget, the breaker and the limiter allow. Nothing waits on the calling thread, and cancelling the returned
+     * future cancels both requests. Must only be called after a slot was acquired and the breaker allowed the request.
+     * @return a future completing with the category, or with null if the requests failed
+     */
+    private CompletableFuture<JeopardyCategory> fetchUpstream(){
+        CategoryGenerator catGen = new CategoryGenerator(categoryURI, timeout);
+        int primaryID = catGen.nextCategoryID();
+        CompletableFuture<JeopardyCategory> primary = attempt(catGen, primaryID);
+        if(!hedging){
+            return primary;
+        }
+        earnHedgeToken();
+
+        long hedgeDelay = latencies.size() < MIN_HEDGE_SAMPLES ? 0 : latencies.percentile(hedgePercentile);
+        if(hedgeDelay == 0){
+            return primary;
+        }
+        CompletableFuture<JeopardyCategory> result = new CompletableFuture<>();
+        //whichever comes first, the primary completing or the hedge delay passing, decides whether to hedge
+        AtomicInteger decided = new AtomicInteger();
+        primary.whenComplete((category, error) -> {
+            if(decided.compareAndSet(0, 1)){
+                result.complete(category);
+            }
+        });
+        CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS).execute(() -> {
+            //a request the caller already gave up on is not worth a hedge
+            if(decided.compareAndSet(0, 1) && !result.isDone()){
+                hedge(catGen, primaryID, primary, result);
+            }
+        });
+        //cancel whichever request lost, this is a no-op for the winner
+        result.whenComplete((category, error) -> primary.cancel(true));
+        return result;
+    }
+
+    /**
+     * Races a hedge against a primary request which is slower than usual, if the budget, the breaker and the limiter
+     * allow one, and completes the result with the first playable category
+     */
+    private void hedge(CategoryGenerator catGen, int primaryID, CompletableFuture<JeopardyCategory> primary,
+                       CompletableFuture<JeopardyCategory> result){
+        if(!takeHedgeToken() || !breaker.allowRequest()){
+            primary.whenComplete((category, error) -> result.complete(category));
+            return;
+        }
+        if(!acquireHedgeSlot()){
+            breaker.recordIgnored();
+            primary.whenComplete((category, error) -> result.complete(category));
+            return;
+        }
+        hedges.incrementAndGet();
+        int hedgeID = catGen.nextCategoryID();
+        while(hedgeID == primaryID){
+            hedgeID = catGen.nextCategoryID();
+        }
+        CompletableFuture<JeopardyCategory> hedge = attempt(new CategoryGenerator(categoryURI, timeout), hedgeID);
+        result.whenComplete((category, error) -> hedge.cancel(true));
+        firstPlayable(primary, hedge).whenComplete((category, error) -> {
+            if(category != null && hedge.isDone() && !hedge.isCancelled() && hedge.join() == category){
+                hedgeWins.incrementAndGet();
+            }
+            result.complete(category);
+        });
+    }
+
+    /**
+     * Starts an asynchronous upstream request for a category. The limiter, breaker and latency tracker are updated
+     * when the request completes, or released without penalty if the returned future is cancelled first.
+     * @param catGen the generator used to send the request
+     * @param id the category id to request
+     * @return a future completing with the category, or with null if the request failed or could not be parsed
+     */
+    private CompletableFuture<JeopardyCategory> attempt(CategoryGenerator catGen, int id){
+        upstreamCalls.incrementAndGet();
+        CompletableFuture<JeopardyCategory> result = new CompletableFuture<>();
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> exchange = catGen.connectAsync(id);
+
+        exchange.whenComplete((response, error) -> {
+            long latency = System.nanoTime() - start;
+            if(error instanceof CancellationException || result.isCancelled()){
+                limiter.onIgnored();
+                breaker.recordIgnored();
+                return;
+            }
+            JeopardyCategory category = null;
+            if(error == null && response.statusCode() == 200){
+                limiter.onSuccess(latency);
+                breaker.recordSuccess(latency);
+                latencies.record(latency);
+                category = parse(response.body());
+            }
+            else{
+                upstreamFailures.incrementAndGet();
+                limiter.onDropped();
+                breaker.recordFailure();
+            }
+            result.complete(category);
+        });
+        //abandon the request when the caller gives up on it
+        result.whenComplete((category, error) -> {
+            if(result.isCancelled()){
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private JeopardyCategory parse(String rawResponse){
+        try{
+            return new JeopardyCategory(rawResponse);
+        }
+        catch(IllegalArgumentException e){
+            //a badly formatted category is the upstream's data, not a sign that it is unhealthy
+            return null;
+        }
+    }
+
+    /**
+     * Combines two attempts, completing with the first playable category, or once both have completed with whichever
+     * category was retrieved (possibly null)
+     */
+    private CompletableFuture<JeopardyCategory> firstPlayable(CompletableFuture<JeopardyCategory> first,
+                                                              CompletableFuture<JeopardyCategory> second){
+        CompletableFuture<JeopardyCategory> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        AtomicReference<JeopardyCategory> unplayable = new AtomicReference<>();
+        BiConsumer<JeopardyCategory, Throwable> onComplete = (category, error) -> {
+            if(category != null && category.isPlayable()){
+                winner.complete(category);
+                return;
+            }
+            if(category != null){
+                unplayable.set(category);
+            }
+            if(remaining.decrementAndGet() == 0){
+                winner.complete(unplayable.get());
+            }
+        };
+        first.whenComplete(onComplete);
+        second.whenComplete(onComplete);
+        return winner;
+    }
+
+    private boolean acquireHedgeSlot(){
+        try{
+            return limiter.acquire(0, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Every primary request earns a fraction of a hedge token and every hedge spends a whole token, so at most
+     * the budget ratio of requests (plus a small burst) are hedges.
+     */
+    private void earnHedgeToken(){
+        budgetLock.lock();
+        try{
+            hedgeTokens = Math.min(MAX_HEDGE_TOKENS, hedgeTokens + hedgeBudgetRatio);
+        }
+        finally {
+            budgetLock.unlock();
+        }
+    }
+
+    /**
+     * Spends a hedge token, see earnHedgeToken
+     * @return true if a hedge may be sent
+     */
+    private boolean takeHedgeToken(){
+        budgetLock.lock();
+        try{
+            if(hedgeTokens >= 1){
+                hedgeTokens--;
+                return true;
+            }
+            return false;
+        }
+        finally {
+            budgetLock.unlock();
+        }
+    }
+
+    /**
+     * Enables hedged requests: when an upstream request has not completed after the given percentile of recent
+     * latency, a second request for a different category is sent and the first playable category wins, while the
+     * other request is cancelled. Hedging is disabled by default.
+     * @param percentile a fraction between 0 and 1 of recent latency after which to hedge, for example 0.9
+     * @param budgetRatio the maximum fraction of primary requests which may be hedged, for example 0.1
+     */
+    public void enableHedging(double percentile, double budgetRatio){
+        hedgePercentile = percentile;
+        hedgeBudgetRatio = budgetRatio;
+        hedging = true;
+    }
+
+    /**
+     * Disables hedged requests
+     */
+    public void disableHedging(){
+        hedging = false;
+    }
+
+    /**
+     * Retrieves the limiter guarding upstream requests
+     * @return the AdaptiveLimiter
+     */
+    public AdaptiveLimiter getLimiter(){
+        return limiter;
+    }
+
+    /**
+     * Retrieves the breaker guarding upstream requests
+     * @return the CircuitBreaker
+     */
+    public CircuitBreaker getBreaker(){
+        return breaker;
+    }
+
+    /**
+     * Retrieves the cache of recently retrieved categories
+     * @return the CategoryCache
+     */
+    public CategoryCache getCache(){
+        return cache;
+    }
+
+    /**
+     * Retrieves the index of every playable category retrieved so far, or since the last corpus reload
+     * @return the CategoryIndex
+     */
+    public CategoryIndex getIndex(){
+        return index;
+    }
+
+    /**
+     * Retrieves the supply of clues by Difficulty, which is filled from this fetcher
+     * @return the TieredQuestionSupply
+     */
+    public TieredQuestionSupply getSupply(){
+        return supply;
+    }
+
+    /**
+     * Retrieves the statistics of the answers to the clues of this fetcher's categories, which QuizGenerators use to
+     * skip clues
+     * @return the ClueStats
+     */
+    public ClueStats getStats(){
+        return stats;
+    }
+
+    /**
+     * Retrieves the router of the sources categories are drawn from, the first of which is the upstream, with their
+     * metrics. Further sources are registered with it.
+     * @return the SourceRouter
+     */
+    public SourceRouter getSources(){
+        return sources;
+    }
+
+    /**
+     * Retrieves the number of requests sent to the upstream
+     * @return the number of upstream calls
+     */
+    public long getUpstreamCalls(){
+        return upstreamCalls.get();
+    }
+
+    /**
+     * Retrieves the number of upstream requests that failed or timed out
+     * @return the number of upstream failures
+     */
+    public long getUpstreamFailures(){
+        return upstreamFailures.get();
+    }
+
+    /**
+     * Retrieves the number of fetches served from the cache or offline category instead of the upstream
+     * @return the number of fallbacks
+     */
+    public long getFallbacks(){
+        return fallbacks.get();
+    }
+
+    /**
+     * Retrieves the number of fetches served from categories loaded by warmStart
+     * @return the number of warm fetches
+     */
+    public long getWarmHits(){
+        return warmHits.get();
+    }
+
+    /**
+     * Retrieves the number of hedge requests sent
+     * @return the number of hedges
+     */
+    public long getHedges(){
+        return hedges.get();
+    }
+
+    /**
+     * Retrieves the number of hedge requests which returned the winning category
+     * @return the number of hedges that won
+     */
+    public long getHedgeWins(){
+        return hedgeWins.get();
+    }
+
+    /**
+     * Retrieves the tracker of recent upstream latency
+     * @return the LatencyTracker
+     */
+    public LatencyTracker getLatencies(){
+        return latencies;
+    }
+
+    /**
+     * Summarizes the fetcher metrics on a single line
+     * @return a line of text describing limit, in-flight count, breaker state and counters
+     */
+    public String report(){
+        return "limit=" + limiter.getLimit()
+                + " inFlight=" + limiter.getInFlight()
+                + " breaker=" + breaker.getState()
+                + " opened=" + breaker.getTimesOpened()
+                + " calls=" + getUpstreamCalls()
+                + " failures=" + getUpstreamFailures()
+                + " fallbacks=" + getFallbacks()
+                + " hedges=" + getHedges()
+                + " hedgeWins=" + getHedgeWins()
+                + " warmHits=" + getWarmHits()
+                + " cached=" + cache.size()
+                + " tiers(depth/taken/starved)=" + supply.report()
+                + " sources=" + sources.report();
+    }
+}
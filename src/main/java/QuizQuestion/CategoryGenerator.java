@@ -7,17 +7,29 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Produces a raw JSON response String associated with a Jeopardy category
  * by connecting to a random category from the jService API and saving the raw JSON response in a string
  * this can then be accessed using the method getRawResponse so that other classes such as JeopardyCategory may process it.
+ * A single HttpClient is shared by every CategoryGenerator, and every request is bounded by a timeout so that a slow
+ * upstream can never hold a calling thread indefinitely.
  */
 public class CategoryGenerator {
 
-    private final String CATEGORY_URI = "http://jservice.io/api/category?id=";
-    private final int CATEGORY_BOUND = 18410;
+    public static final String DEFAULT_CATEGORY_URI = "http://jservice.io/api/category?id=";
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+    public static final int CATEGORY_BOUND = 18410;
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(DEFAULT_TIMEOUT)
+            .build();
+
+    private final String categoryURI;
+    private final Duration timeout;
 
     private Random r;
     private String rawResponse;
@@ -27,6 +39,17 @@ public class CategoryGenerator {
      * Constructs an empty CategoryGenerator with instance fields initialized
      */
     public CategoryGenerator(){
+        this(DEFAULT_CATEGORY_URI, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Constructs an empty CategoryGenerator which connects to a given category URI, such as a local stand-in server
+     * @param categoryURI the base URI to which a category id is appended
+     * @param timeout the maximum time to wait for a response before giving up
+     */
+    public CategoryGenerator(String categoryURI, Duration timeout){
+        this.categoryURI = categoryURI;
+        this.timeout = timeout;
         rawResponse = "";
         r = new Random();
         categoryID = 0;
@@ -38,27 +61,74 @@ public class CategoryGenerator {
      * This is achieved by generating a random int within the bounds of jService's category ID numbers (from 1 to 18410 inclusive)
      * and appending this random ID to the base URI stored in the final int CATEGORY_URI.
      * The response will be in JSON format and is stored in the rawResponse instance field
+     * @return true if a response was received with status 200, or false on an error or timeout
      */
-    public void connect(){
-        try {
-            HttpClient client = HttpClient.newBuilder().build();
-
-            categoryID = r.nextInt(CATEGORY_BOUND) + 1;
-            String uri = CATEGORY_URI + categoryID;
-            HttpRequest request = HttpRequest.newBuilder().uri(new URI(uri)).GET().build();
+    public boolean connect(){
+        return connect(nextCategoryID());
+    }
 
-            HttpResponse<String> response = client.send(request,
+    /**
+     * Establishes a connection to a specific jService category, see connect()
+     * @param id the id of the category to retrieve
+     * @return true if a response was received with status 200, or false on an error or timeout
+     */
+    public boolean connect(int id){
+        boolean result = false;
+        rawResponse = "";
+        try {
+            categoryID = id;
+            HttpResponse<String> response = CLIENT.send(buildRequest(id),
                     HttpResponse.BodyHandlers.ofString(Charset.defaultCharset()));
 
-            rawResponse = response.body();
-
+            if(response.statusCode() == 200){
+                rawResponse = response.body();
+                result = true;
+            }
         } catch(IOException f) {
-            f.printStackTrace();
+            //includes HttpTimeoutException, which is expected whenever the upstream is slow, the caller sees false
         }catch (InterruptedException e ) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
         } catch (URISyntaxException e) {
             e.printStackTrace();
         }
+        return result;
+    }
+
+    /**
+     * Starts an asynchronous request for a specific jService category without blocking the calling thread.
+     * Cancelling the returned future abandons the request.
+     * @param id the id of the category to retrieve
+     * @return a future completing with the response, or exceptionally on an error or timeout
+     */
+    public CompletableFuture<HttpResponse<String>> connectAsync(int id){
+        categoryID = id;
+        try {
+            return CLIENT.sendAsync(buildRequest(id), HttpResponse.BodyHandlers.ofString(Charset.defaultCharset()));
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Generates a random category id within the bounds of jService's category ID numbers (from 1 to 18410 inclusive)
+     * @return a random category id
+     */
+    public int nextCategoryID(){
+        return r.nextInt(CATEGORY_BOUND) + 1;
+    }
+
+    /**
+     * Builds a GET request for the given category, bounded by this generator's timeout
+     * @param id the id of the category to retrieve
+     * @return the request
+     * @throws URISyntaxException if the configured category URI is invalid
+     */
+    private HttpRequest buildRequest(int id) throws URISyntaxException {
+        return HttpRequest.newBuilder()
+                .uri(new URI(categoryURI + id))
+                .timeout(timeout)
+                .GET()
+                .build();
     }
 
     /**
@@ -68,4 +138,12 @@ public class CategoryGenerator {
     public String getRawResponse() {
         return rawResponse;
     }
+
+    /**
+     * Accesses the id of the most recently requested category
+     * @return the category id
+     */
+    public int getCategoryID() {
+        return categoryID;
+    }
 }
@@ -0,0 +1,236 @@
+package QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An inverted index of Jeopardy categories by the words of their titles, and optionally of their clues, used to find
+ * categories on a topic a player asked for.
+ * Titles are split into lower case words at every character which is not a letter or a digit. Each word maps to the
+ * sorted list of categories whose title contains it, and the words are kept in a sorted map so that every word
+ * starting with a prefix is found with one range lookup. A topic matches the categories whose title has, for every
+ * word of the topic, a word starting with it, so "river" finds "RIVERS OF EUROPE" and "world riv" finds
+ * "WORLD RIVERS". When clues are indexed too, categories are matched on their clues only if no title matches.
+ * Categories are added one at a time as they are cached, and a category which was already added is ignored, so the
+ * index grows towards the whole corpus without ever being rebuilt. The index is thread-safe: lookups share a read
+ * lock and additions take the write lock, following the lock-try-finally-unlock idiom.
+ */
+public class CategoryIndex {
+
+    /**
+     * The categories containing one word, in the order they were added
+     */
+    private static class Postings {
+        private int[] categories = new int[2];
+        private int size;
+
+        void add(int category){
+            if(size > 0 && categories[size - 1] == category){
+                return;
+            }
+            if(size == categories.length){
+                categories = Arrays.copyOf(categories, size * 2);
+            }
+            categories[size++] = category;
+        }
+
+        void addTo(BitSet matches){
+            for(int i = 0; i < size; i++){
+                matches.set(categories[i]);
+            }
+        }
+    }
+
+    private final boolean INDEX_CLUES;
+
+    private List<JeopardyCategory> categories;
+    //categories are identified by their first clue, since many jService categories share a title such as POTPOURRI
+    private Map<Integer, Integer> byFirstClue;
+    private NavigableMap<String, Postings> titleWords;
+    private NavigableMap<String, Postings> clueWords;
+    private ReadWriteLock indexLock;
+
+    /**
+     * Constructs an empty CategoryIndex
+     * @param indexClues whether to also index the questions and answers of each category, which takes several times
+     *                   the memory of indexing titles alone
+     */
+    public CategoryIndex(boolean indexClues){
+        INDEX_CLUES = indexClues;
+        categories = new ArrayList<>();
+        byFirstClue = new HashMap<>();
+        titleWords = new TreeMap<>();
+        clueWords = new TreeMap<>();
+        indexLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adds a category to the index, unless it was already added
+     * @param category a playable category
+     * @return true if the category was added
+     */
+    public boolean add(JeopardyCategory category){
+        indexLock.writeLock().lock();
+        try{
+            int id = categories.size();
+            if(byFirstClue.putIfAbsent(category.getClueIds().get(0), id) != null){
+                return false;
+            }
+            categories.add(category);
+            addWords(titleWords, category.getName(), id);
+            if(INDEX_CLUES){
+                for(int i = 0; i < category.getQuestions().size(); i++){
+                    addWords(clueWords, category.getQuestions().get(i), id);
+                    addWords(clueWords, category.getAnswers().get(i), id);
+                }
+            }
+            return true;
+        }
+        finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds every category on a topic
+     * @param topic one or more words, each of which may be the start of a word
+     * @return the matching categories in the order they were added, empty if none match or the topic has no words
+     */
+    public List<JeopardyCategory> search(String topic){
+        indexLock.readLock().lock();
+        try{
+            BitSet matches = match(topic);
+            List<JeopardyCategory> result = new ArrayList<>(matches.cardinality());
+            for(int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)){
+                result.add(categories.get(i));
+            }
+            return result;
+        }
+        finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the categories on a topic
+     * @param topic one or more words, each of which may be the start of a word
+     * @return the number of matching categories
+     */
+    public int count(String topic){
+        indexLock.readLock().lock();
+        try{
+            return match(topic).cardinality();
+        }
+        finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a random category on a topic
+     * @param topic one or more words, each of which may be the start of a word
+     * @return a random matching category, or null if none match
+     */
+    public JeopardyCategory random(String topic){
+        indexLock.readLock().lock();
+        try{
+            BitSet matches = match(topic);
+            int count = matches.cardinality();
+            if(count == 0){
+                return null;
+            }
+            int i = matches.nextSetBit(0);
+            for(int skip = ThreadLocalRandom.current().nextInt(count); skip > 0; skip--){
+                i = matches.nextSetBit(i + 1);
+            }
+            return categories.get(i);
+        }
+        finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of categories in the index
+     * @return the number of distinct categories added
+     */
+    public int size(){
+        indexLock.readLock().lock();
+        try{
+            return categories.size();
+        }
+        finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower case words at every character which is not a letter or a digit
+     * @param text the text to split
+     * @return the words of the text, in order, possibly repeated
+     */
+    public static List<String> words(String text){
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for(int i = 0; i <= text.length(); i++){
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if(wordChar && start < 0){
+                start = i;
+            }
+            else if(!wordChar && start >= 0){
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static void addWords(NavigableMap<String, Postings> index, String text, int id){
+        if(text == null){
+            return;
+        }
+        for(String word : words(text)){
+            index.computeIfAbsent(word, w -> new Postings()).add(id);
+        }
+    }
+
+    private BitSet match(String topic){
+        List<String> prefixes = words(topic);
+        BitSet matches = match(titleWords, prefixes);
+        if(matches.isEmpty() && INDEX_CLUES){
+            matches = match(clueWords, prefixes);
+        }
+        return matches;
+    }
+
+    private BitSet match(NavigableMap<String, Postings> index, List<String> prefixes){
+        BitSet matches = new BitSet();
+        for(int p = 0; p < prefixes.size(); p++){
+            String prefix = prefixes.get(p);
+            BitSet withPrefix = new BitSet();
+            for(Postings postings : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()){
+                postings.addTo(withPrefix);
+            }
+            if(p == 0){
+                matches = withPrefix;
+            }
+            else{
+                matches.and(withPrefix);
+            }
+            if(matches.isEmpty()){
+                break;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,114 @@
+package QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how long a CategoryIndex takes to add categories and to find a random category on a topic, over a corpus
+ * the size of jService's, with titles only and with clues indexed too. Titles and clues are made of words drawn from
+ * a vocabulary with a skewed distribution, so that some words, and many short prefixes, match thousands of
+ * categories as common title words do. Lookups are made for whole words, for prefixes of one to three letters and
+ * for two words, and their median, 99th percentile and maximum latency are printed.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class CategoryIndexBenchmark {
+
+    private static final int CATEGORIES = CategoryGenerator.CATEGORY_BOUND;
+    private static final int CLUES = 5;
+    private static final int VOCABULARY = 5000;
+    private static final int LOOKUPS = 20_000;
+    private static final int ROUNDS = 3;
+
+    private static String[] vocabulary(Random random){
+        String[] words = new String[VOCABULARY];
+        for(int i = 0; i < VOCABULARY; i++){
+            char[] word = new char[3 + random.nextInt(7)];
+            for(int c = 0; c < word.length; c++){
+                word[c] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(word);
+        }
+        return words;
+    }
+
+    /**
+     * Picks a word, the first words of the vocabulary far more often than the last
+     */
+    private static String word(String[] words, Random random){
+        double skewed = Math.pow(random.nextDouble(), 3);
+        return words[(int) (skewed * words.length)];
+    }
+
+    private static String text(String[] words, Random random, int length){
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < length; i++){
+            text.append(i == 0 ? "" : " ").append(word(words, random));
+        }
+        return text.toString();
+    }
+
+    private static void lookups(String label, CategoryIndex index, String[] topics){
+        long[] nanos = new long[topics.length];
+        int found = 0;
+        for(int i = 0; i < topics.length; i++){
+            long start = System.nanoTime();
+            if(index.random(topics[i]) != null){
+                found++;
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("  %-12s p50 %7.1f us  p99 %7.1f us  max %8.1f us  (%d%% found)%n", label,
+                nanos[nanos.length / 2] / 1000.0, nanos[nanos.length * 99 / 100] / 1000.0,
+                nanos[nanos.length - 1] / 1000.0, found * 100 / topics.length);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     */
+    public static void main(String[] args){
+        Random random = new Random(39);
+        String[] words = vocabulary(random);
+        List<JeopardyCategory> corpus = new ArrayList<>(CATEGORIES);
+        for(int c = 0; c < CATEGORIES; c++){
+            List<String> questions = new ArrayList<>(CLUES);
+            List<String> answers = new ArrayList<>(CLUES);
+            List<Integer> ids = new ArrayList<>(CLUES);
+            for(int i = 0; i < CLUES; i++){
+                questions.add(text(words, random, 12));
+                answers.add(text(words, random, 2));
+                ids.add(c * CLUES + i);
+            }
+            corpus.add(new JeopardyCategory(text(words, random, 1 + random.nextInt(4)), questions, answers, ids));
+        }
+
+        String[] wholeWords = new String[LOOKUPS];
+        String[] prefixes = new String[LOOKUPS];
+        String[] twoWords = new String[LOOKUPS];
+        for(int i = 0; i < LOOKUPS; i++){
+            wholeWords[i] = word(words, random);
+            prefixes[i] = wholeWords[i].substring(0, 1 + random.nextInt(3));
+            twoWords[i] = word(words, random) + " " + word(words, random);
+        }
+
+        for(boolean indexClues : new boolean[]{false, true}){
+            for(int round = 0; round < ROUNDS; round++){
+                CategoryIndex index = new CategoryIndex(indexClues);
+                long start = System.nanoTime();
+                for(JeopardyCategory category : corpus){
+                    index.add(category);
+                }
+                long addNanos = System.nanoTime() - start;
+                System.out.printf("%s, round %d: %d categories added in %d ms, %.1f us per category%n",
+                        indexClues ? "titles and clues" : "titles", round, index.size(), addNanos / 1_000_000,
+                        addNanos / 1000.0 / index.size());
+                lookups("whole word", index, wholeWords);
+                lookups("prefix", index, prefixes);
+                lookups("two words", index, twoWords);
+            }
+        }
+    }
+}
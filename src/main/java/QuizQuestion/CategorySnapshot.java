@@ -0,0 +1,119 @@
+package QuizQuestion;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves categories to and loads them from a compact binary file, so that a restarted server can serve its first
+ * players from the categories it had cached before shutting down instead of all of them waiting on the upstream.
+ * The file holds a magic number, a format version and a count, followed by each category's name and its
+ * question/answer pairs with their clue ids and values, every string stored as a length and its UTF-8 bytes.
+ * Version 1 files, which have neither clue ids nor values, and version 2 files, which have no values, are still read.
+ * Files are written to a temporary file which then replaces the old file, so a crash never leaves half a snapshot,
+ * and are read through a memory mapping rather than being copied onto the heap first.
+ */
+public class CategorySnapshot {
+
+    private static final int MAGIC = 0x52525143;
+    private static final short VERSION = 3;
+    private static final short VERSION_WITHOUT_VALUES = 2;
+    private static final short VERSION_WITHOUT_IDS = 1;
+
+    /**
+     * Saves categories to a file, replacing the file if it exists
+     * @param categories the categories to save
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(List<JeopardyCategory> categories, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))){
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(categories.size());
+            for(JeopardyCategory category : categories){
+                writeString(out, category.getName());
+                List<String> questions = category.getQuestions();
+                List<String> answers = category.getAnswers();
+                List<Integer> clueIds = category.getClueIds();
+                List<Integer> values = category.getValues();
+                out.writeShort(questions.size());
+                for(int i = 0; i < questions.size(); i++){
+                    writeString(out, questions.get(i));
+                    writeString(out, answers.get(i));
+                    out.writeInt(clueIds.get(i));
+                    out.writeInt(values.get(i));
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the categories saved in a file
+     * @param file the file to read
+     * @return the saved categories, oldest first
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static List<JeopardyCategory> load(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < 10 || buffer.getInt() != MAGIC){
+                throw new IOException("not a category snapshot: " + file);
+            }
+            short version = buffer.getShort();
+            if(version != VERSION && version != VERSION_WITHOUT_VALUES && version != VERSION_WITHOUT_IDS){
+                throw new IOException("not a category snapshot: " + file);
+            }
+            int count = buffer.getInt();
+            List<JeopardyCategory> categories = new ArrayList<>(count);
+            for(int c = 0; c < count; c++){
+                String name = readString(buffer);
+                int clues = buffer.getShort();
+                List<String> questions = new ArrayList<>(clues);
+                List<String> answers = new ArrayList<>(clues);
+                List<Integer> clueIds = new ArrayList<>(clues);
+                List<Integer> values = new ArrayList<>(clues);
+                for(int i = 0; i < clues; i++){
+                    questions.add(readString(buffer));
+                    answers.add(readString(buffer));
+                    if(version != VERSION_WITHOUT_IDS){
+                        clueIds.add(buffer.getInt());
+                    }
+                    values.add(version == VERSION ? buffer.getInt() : 0);
+                }
+                categories.add(version == VERSION_WITHOUT_IDS
+                        ? new JeopardyCategory(name, questions, answers)
+                        : new JeopardyCategory(name, questions, answers, clueIds, values));
+            }
+            return categories;
+        }
+        catch(RuntimeException e){
+            //a truncated or corrupted file underflows the buffer
+            throw new IOException("corrupted category snapshot: " + file, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer){
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
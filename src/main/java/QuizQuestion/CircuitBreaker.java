@@ -0,0 +1,189 @@
+package QuizQuestion;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A circuit breaker guarding calls to an upstream service. The outcome of the most recent calls is kept in a small
+ * ring buffer; once enough calls have been recorded and the share of failed or slow calls crosses its threshold the
+ * breaker OPENs and rejects calls outright. After the open duration elapses a single probe call is let through
+ * (HALF_OPEN); if it succeeds the breaker CLOSEs again, otherwise it re-opens.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The possible states of a CircuitBreaker
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int WINDOW_SIZE;
+    private final double FAILURE_RATE_THRESHOLD;
+    private final long SLOW_CALL_NANOS;
+    private final long OPEN_DURATION_NANOS;
+
+    private State state;
+    private boolean[] badCalls;
+    private int recorded;
+    private int next;
+    private int badCount;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long timesOpened;
+    private Lock breakerLock;
+
+    /**
+     * Constructs a closed CircuitBreaker
+     * @param windowSize the number of recent calls considered, also the minimum number of calls before tripping
+     * @param failureRateThreshold the fraction (0 to 1) of failed or slow calls at which the breaker opens
+     * @param slowCallMillis calls slower than this count against the breaker even if they succeed
+     * @param openDurationMillis how long the breaker stays open before allowing a probe
+     */
+    public CircuitBreaker(int windowSize, double failureRateThreshold, long slowCallMillis, long openDurationMillis){
+        WINDOW_SIZE = windowSize;
+        FAILURE_RATE_THRESHOLD = failureRateThreshold;
+        SLOW_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        OPEN_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        state = State.CLOSED;
+        badCalls = new boolean[windowSize];
+        breakerLock = new ReentrantLock();
+    }
+
+    /**
+     * Determines whether a call may be made to the upstream right now. A true result must be followed by exactly one
+     * call to recordSuccess, recordFailure or recordIgnored.
+     * @return true if the call is permitted, false if the caller should fall back
+     */
+    public boolean allowRequest(){
+        breakerLock.lock();
+        try{
+            switch (state){
+                case OPEN:
+                    if(System.nanoTime() - openedAt < OPEN_DURATION_NANOS){
+                        return false;
+                    }
+                    state = State.HALF_OPEN;
+                    probeInFlight = true;
+                    return true;
+                case HALF_OPEN:
+                    if(probeInFlight){
+                        return false;
+                    }
+                    probeInFlight = true;
+                    return true;
+                default:
+                    return true;
+            }
+        }
+        finally {
+            breakerLock.unlock();
+        }
+    }
+
+    /**
+     * Records a completed call
+     * @param latencyNanos how long the call took, slow calls are recorded as bad
+     */
+    public void recordSuccess(long latencyNanos){
+        record(latencyNanos > SLOW_CALL_NANOS);
+    }
+
+    /**
+     * Records a failed or timed out call
+     */
+    public void recordFailure(){
+        record(true);
+    }
+
+    /**
+     * Records that a permitted call was abandoned before it completed, which says nothing about the upstream
+     */
+    public void recordIgnored(){
+        breakerLock.lock();
+        try{
+            probeInFlight = false;
+        }
+        finally {
+            breakerLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the current state of the breaker
+     * @return CLOSED, OPEN or HALF_OPEN
+     */
+    public State getState(){
+        breakerLock.lock();
+        try{
+            return state;
+        }
+        finally {
+            breakerLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of times this breaker has opened
+     * @return the number of times the breaker tripped
+     */
+    public long getTimesOpened(){
+        breakerLock.lock();
+        try{
+            return timesOpened;
+        }
+        finally {
+            breakerLock.unlock();
+        }
+    }
+
+    private void record(boolean bad){
+        breakerLock.lock();
+        try{
+            if(state == State.HALF_OPEN){
+                probeInFlight = false;
+                if(bad){
+                    open();
+                }
+                else{
+                    close();
+                }
+                return;
+            }
+            if(state == State.OPEN){
+                //a call admitted before the breaker opened has finished, it tells us nothing new
+                return;
+            }
+            if(recorded == WINDOW_SIZE && badCalls[next]){
+                badCount--;
+            }
+            badCalls[next] = bad;
+            if(bad){
+                badCount++;
+            }
+            next = (next + 1) % WINDOW_SIZE;
+            recorded = Math.min(WINDOW_SIZE, recorded + 1);
+
+            if(recorded == WINDOW_SIZE && badCount >= FAILURE_RATE_THRESHOLD * WINDOW_SIZE){
+                open();
+            }
+        }
+        finally {
+            breakerLock.unlock();
+        }
+    }
+
+    //must be called while holding breakerLock
+    private void open(){
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        timesOpened++;
+    }
+
+    //must be called while holding breakerLock
+    private void close(){
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        badCount = 0;
+    }
+}
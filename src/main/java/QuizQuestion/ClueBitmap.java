@@ -0,0 +1,226 @@
+package QuizQuestion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A compressed set of clue ids, used to remember which clues a player has already seen.
+ * Ids are split into a high and a low 16 bits. Ids sharing their high bits are kept together in one container, which
+ * is a sorted array of low bits while it holds few ids and a 65536 bit bitmap once it holds more than 4096, so a
+ * container never takes more than 8KB and a sparse container takes 2 bytes per id. jService clue ids are below
+ * 2^18, so the clues of a whole session fall into a handful of containers: a few thousand seen clues take a few
+ * kilobytes, and the set stays below 40KB however many clues are seen.
+ * Adding and looking up an id costs a binary search over the containers and one within a container, both bounded.
+ * A ClueBitmap belongs to a single session or player and is not thread-safe.
+ */
+public class ClueBitmap {
+
+    private static final int INITIAL_CONTAINERS = 2;
+    private static final int INITIAL_ARRAY = 8;
+    //past this many ids an array container would take more than a bitmap container's 8KB
+    private static final int MAX_ARRAY = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys;
+    private int[] cardinalities;
+    //for each container exactly one of these is set
+    private char[][] arrays;
+    private long[][] bitmaps;
+    private int containers;
+    private int cardinality;
+
+    /**
+     * Constructs an empty ClueBitmap
+     */
+    public ClueBitmap(){
+        keys = new char[INITIAL_CONTAINERS];
+        cardinalities = new int[INITIAL_CONTAINERS];
+        arrays = new char[INITIAL_CONTAINERS][];
+        bitmaps = new long[INITIAL_CONTAINERS][];
+    }
+
+    /**
+     * Adds a clue id to the set
+     * @param id the clue id
+     * @return true if the id was added, or false if it was already in the set
+     */
+    public boolean add(int id){
+        char high = (char) (id >>> 16);
+        char low = (char) id;
+        int c = Arrays.binarySearch(keys, 0, containers, high);
+        if(c < 0){
+            c = -c - 1;
+            insertContainer(c, high);
+        }
+        boolean added;
+        if(bitmaps[c] != null){
+            long[] bitmap = bitmaps[c];
+            long bit = 1L << low;
+            added = (bitmap[low >>> 6] & bit) == 0;
+            bitmap[low >>> 6] |= bit;
+        }
+        else{
+            added = addToArray(c, low);
+        }
+        if(added){
+            cardinalities[c]++;
+            cardinality++;
+        }
+        return added;
+    }
+
+    /**
+     * Determines whether a clue id is in the set
+     * @param id the clue id
+     * @return true if the id has been added
+     */
+    public boolean contains(int id){
+        int c = Arrays.binarySearch(keys, 0, containers, (char) (id >>> 16));
+        if(c < 0){
+            return false;
+        }
+        char low = (char) id;
+        if(bitmaps[c] != null){
+            return (bitmaps[c][low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(arrays[c], 0, cardinalities[c], low) >= 0;
+    }
+
+    /**
+     * Retrieves the number of ids in the set
+     * @return the number of distinct ids added
+     */
+    public int cardinality(){
+        return cardinality;
+    }
+
+    /**
+     * Removes every id from the set, keeping its containers' storage
+     */
+    public void clear(){
+        for(int c = 0; c < containers; c++){
+            arrays[c] = null;
+            bitmaps[c] = null;
+        }
+        containers = 0;
+        cardinality = 0;
+    }
+
+    /**
+     * Estimates the memory taken by the ids, excluding object headers
+     * @return the number of bytes in the arrays holding the ids
+     */
+    public long sizeInBytes(){
+        long bytes = keys.length * 2L + cardinalities.length * 4L;
+        for(int c = 0; c < containers; c++){
+            bytes += bitmaps[c] != null ? BITMAP_WORDS * 8L : arrays[c].length * 2L;
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the set, so that a player's seen clues can be kept between sessions
+     * @param out where to write the set
+     * @throws IOException if the set cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(containers);
+        for(int c = 0; c < containers; c++){
+            out.writeChar(keys[c]);
+            out.writeInt(cardinalities[c]);
+            if(bitmaps[c] != null){
+                for(long word : bitmaps[c]){
+                    out.writeLong(word);
+                }
+            }
+            else{
+                for(int i = 0; i < cardinalities[c]; i++){
+                    out.writeChar(arrays[c][i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a set written by writeTo
+     * @param in where to read the set from
+     * @return the set that was written
+     * @throws IOException if the set cannot be read
+     */
+    public static ClueBitmap readFrom(DataInput in) throws IOException {
+        ClueBitmap set = new ClueBitmap();
+        int count = in.readInt();
+        for(int c = 0; c < count; c++){
+            set.insertContainer(c, in.readChar());
+            int n = in.readInt();
+            if(n > MAX_ARRAY){
+                long[] bitmap = new long[BITMAP_WORDS];
+                for(int i = 0; i < BITMAP_WORDS; i++){
+                    bitmap[i] = in.readLong();
+                }
+                set.arrays[c] = null;
+                set.bitmaps[c] = bitmap;
+            }
+            else{
+                char[] array = new char[Math.max(n, INITIAL_ARRAY)];
+                for(int i = 0; i < n; i++){
+                    array[i] = in.readChar();
+                }
+                set.arrays[c] = array;
+            }
+            set.cardinalities[c] = n;
+            set.cardinality += n;
+        }
+        return set;
+    }
+
+    private void insertContainer(int c, char high){
+        if(containers == keys.length){
+            int capacity = containers * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            bitmaps = Arrays.copyOf(bitmaps, capacity);
+        }
+        int moved = containers - c;
+        System.arraycopy(keys, c, keys, c + 1, moved);
+        System.arraycopy(cardinalities, c, cardinalities, c + 1, moved);
+        System.arraycopy(arrays, c, arrays, c + 1, moved);
+        System.arraycopy(bitmaps, c, bitmaps, c + 1, moved);
+        keys[c] = high;
+        cardinalities[c] = 0;
+        arrays[c] = new char[INITIAL_ARRAY];
+        bitmaps[c] = null;
+        containers++;
+    }
+
+    private boolean addToArray(int c, char low){
+        char[] array = arrays[c];
+        int n = cardinalities[c];
+        int i = Arrays.binarySearch(array, 0, n, low);
+        if(i >= 0){
+            return false;
+        }
+        if(n == MAX_ARRAY){
+            //convert to a bitmap, which is smaller from here on
+            long[] bitmap = new long[BITMAP_WORDS];
+            for(int j = 0; j < n; j++){
+                bitmap[array[j] >>> 6] |= 1L << array[j];
+            }
+            bitmap[low >>> 6] |= 1L << low;
+            arrays[c] = null;
+            bitmaps[c] = bitmap;
+            return true;
+        }
+        i = -i - 1;
+        if(n == array.length){
+            array = Arrays.copyOf(array, Math.min(n + (n >> 1), MAX_ARRAY));
+            arrays[c] = array;
+        }
+        System.arraycopy(array, i, array, i + 1, n - i);
+        array[i] = low;
+        return true;
+    }
+}
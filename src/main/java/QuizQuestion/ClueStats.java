@@ -0,0 +1,383 @@
+package QuizQuestion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts how often each clue, and each category, is answered and how often correctly, and folds the counts into a
+ * difficulty score which QuizGenerator uses to skip clues nobody or everybody answers correctly.
+ * Answers are recorded into striped counters: each thread is hashed to one of several stripes, and each stripe is an
+ * open addressing table of clue ids whose attempts and correct answers are packed into one long, so recording an answer
+ * is a single atomic add into a table which other threads rarely touch, and takes no lock. A stripe with no room left
+ * near a clue's slot drops the answer and counts it instead.
+ * Periodically the stripes are folded, on a single thread, into an immutable sorted snapshot of the totals and their
+ * scores, which is published for lookups by binary search. The score of a clue is the percentage of its answers that
+ * were wrong, from 0 for a clue everybody answers to 100 for one nobody does, and is only known once the clue has
+ * MIN_ATTEMPTS answers. Categories are counted the same way, keyed by the hash of their name.
+ * The folded totals can be saved and loaded, so that a restarted server keeps what it learnt; counting then carries on
+ * from the loaded totals.
+ */
+public class ClueStats implements Runnable {
+
+    public static final long DEFAULT_FOLD_INTERVAL_MILLIS = 10_000;
+    public static final int DEFAULT_STRIPE_CAPACITY = 1 << 14;
+    public static final int MIN_ATTEMPTS = 20;
+    //clues scoring outside these bounds are skipped
+    public static final int MIN_SCORE = 5;
+    public static final int MAX_SCORE = 95;
+    public static final int UNKNOWN = -1;
+
+    private static final int MAGIC = 0x43535453;
+    private static final short VERSION = 1;
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final long ATTEMPT = 1L << 32;
+    //a key is only looked for this far from its slot, so a full stripe costs no more than this to give up on
+    private static final int MAX_PROBES = 32;
+
+    /**
+     * Striped counters of attempts and correct answers by key
+     */
+    private static class Counters {
+        private final AtomicIntegerArray[] keys;
+        private final AtomicLongArray[] counts;
+        private final int mask;
+
+        Counters(int stripes, int capacity){
+            keys = new AtomicIntegerArray[stripes];
+            counts = new AtomicLongArray[stripes];
+            mask = capacity - 1;
+            for(int s = 0; s < stripes; s++){
+                keys[s] = new AtomicIntegerArray(capacity);
+                counts[s] = new AtomicLongArray(capacity);
+                for(int i = 0; i < capacity; i++){
+                    keys[s].set(i, EMPTY);
+                }
+            }
+        }
+
+        /**
+         * Adds an answer to the stripe of the calling thread
+         * @return false if the stripe has no room for the key
+         */
+        boolean add(int key, boolean correct){
+            if(key == EMPTY){
+                key++;
+            }
+            int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 40) & (keys.length - 1);
+            AtomicIntegerArray stripeKeys = keys[stripe];
+            int slot = key * 0x9E3779B9;
+            slot ^= slot >>> 16;
+            for(int probe = 0; probe < MAX_PROBES && probe <= mask; probe++){
+                int index = (slot + probe) & mask;
+                int current = stripeKeys.get(index);
+                if(current == EMPTY){
+                    if(stripeKeys.compareAndSet(index, EMPTY, key)){
+                        current = key;
+                    }
+                    else{
+                        current = stripeKeys.get(index);
+                    }
+                }
+                if(current == key){
+                    counts[stripe].getAndAdd(index, correct ? ATTEMPT + 1 : ATTEMPT);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds the counts of every stripe to totals, keyed by key
+         */
+        void sumInto(Map<Integer, long[]> totals){
+            for(int s = 0; s < keys.length; s++){
+                for(int i = 0; i <= mask; i++){
+                    int key = keys[s].get(i);
+                    if(key == EMPTY){
+                        continue;
+                    }
+                    long count = counts[s].get(i);
+                    long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+                    total[0] += count >>> 32;
+                    total[1] += count & 0xFFFFFFFFL;
+                }
+            }
+        }
+    }
+
+    /**
+     * An immutable table of totals and scores, sorted by key
+     */
+    private static class Scores {
+        static final Scores NONE = new Scores(new HashMap<>());
+
+        final int[] keys;
+        final long[] attempts;
+        final long[] correct;
+        final byte[] scores;
+
+        Scores(Map<Integer, long[]> totals){
+            keys = totals.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            attempts = new long[keys.length];
+            correct = new long[keys.length];
+            scores = new byte[keys.length];
+            for(int i = 0; i < keys.length; i++){
+                long[] total = totals.get(keys[i]);
+                attempts[i] = total[0];
+                correct[i] = total[1];
+                scores[i] = (byte) (total[0] < MIN_ATTEMPTS ? UNKNOWN : 100 - total[1] * 100 / total[0]);
+            }
+        }
+
+        int indexOf(int key){
+            return Arrays.binarySearch(keys, key == EMPTY ? key + 1 : key);
+        }
+
+        void addTo(Map<Integer, long[]> totals){
+            for(int i = 0; i < keys.length; i++){
+                long[] total = totals.computeIfAbsent(keys[i], k -> new long[2]);
+                total[0] += attempts[i];
+                total[1] += correct[i];
+            }
+        }
+    }
+
+    private final long FOLD_INTERVAL_MILLIS;
+
+    private Counters clueCounters;
+    private Counters categoryCounters;
+    private AtomicLong dropped;
+    //the totals loaded from a file, to which the counters are added
+    private Scores loadedClues;
+    private Scores loadedCategories;
+    private volatile Scores clues;
+    private volatile Scores categories;
+    private Lock foldLock;
+
+    /**
+     * Constructs empty ClueStats, with a stripe per available processor, rounded up to a power of two
+     * @param foldIntervalMillis how often run folds the counters
+     */
+    public ClueStats(long foldIntervalMillis){
+        this(foldIntervalMillis, Runtime.getRuntime().availableProcessors(), DEFAULT_STRIPE_CAPACITY);
+    }
+
+    /**
+     * Constructs empty ClueStats
+     * @param foldIntervalMillis how often run folds the counters
+     * @param stripes the minimum number of stripes, rounded up to a power of two
+     * @param stripeCapacity the number of clues, and separately of categories, each stripe can count, a power of two
+     */
+    public ClueStats(long foldIntervalMillis, int stripes, int stripeCapacity){
+        if(Integer.bitCount(stripeCapacity) != 1){
+            throw new IllegalArgumentException("The stripe capacity must be a power of two: " + stripeCapacity);
+        }
+        FOLD_INTERVAL_MILLIS = foldIntervalMillis;
+        int count = 1;
+        while(count < stripes){
+            count <<= 1;
+        }
+        clueCounters = new Counters(count, stripeCapacity);
+        categoryCounters = new Counters(count, stripeCapacity);
+        dropped = new AtomicLong();
+        loadedClues = Scores.NONE;
+        loadedCategories = Scores.NONE;
+        clues = Scores.NONE;
+        categories = Scores.NONE;
+        foldLock = new ReentrantLock();
+    }
+
+    /**
+     * Records an answer to a clue
+     * @param clueId the id of the clue
+     * @param category the name of the clue's category
+     * @param correct true if the answer was correct
+     */
+    public void record(int clueId, String category, boolean correct){
+        if(!clueCounters.add(clueId, correct)){
+            dropped.incrementAndGet();
+        }
+        if(!categoryCounters.add(category.hashCode(), correct)){
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Folds the counters once per interval until interrupted
+     */
+    public void run(){
+        try{
+            while(!Thread.currentThread().isInterrupted()){
+                Thread.sleep(FOLD_INTERVAL_MILLIS);
+                fold();
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds up the counters of every stripe and the loaded totals, and publishes the totals and scores
+     */
+    public void fold(){
+        foldLock.lock();
+        try{
+            Map<Integer, long[]> totals = new HashMap<>();
+            clueCounters.sumInto(totals);
+            loadedClues.addTo(totals);
+            clues = new Scores(totals);
+            totals.clear();
+            categoryCounters.sumInto(totals);
+            loadedCategories.addTo(totals);
+            categories = new Scores(totals);
+        }
+        finally {
+            foldLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the difficulty score of a clue, as of the last fold
+     * @param clueId the id of the clue
+     * @return the percentage of answers which were wrong, or UNKNOWN if the clue has fewer than MIN_ATTEMPTS answers
+     */
+    public int getScore(int clueId){
+        return scoreOf(clues, clueId);
+    }
+
+    /**
+     * Retrieves the difficulty score of a category, as of the last fold
+     * @param category the name of the category
+     * @return the percentage of answers which were wrong, or UNKNOWN if the category has fewer than MIN_ATTEMPTS answers
+     */
+    public int getCategoryScore(String category){
+        return scoreOf(categories, category.hashCode());
+    }
+
+    /**
+     * Tells whether a clue should not be asked, because nearly everybody or nearly nobody answers it correctly
+     * @param clueId the id of the clue
+     * @return true if its score is known and below MIN_SCORE or above MAX_SCORE
+     */
+    public boolean isSkipped(int clueId){
+        int score = getScore(clueId);
+        return score != UNKNOWN && (score < MIN_SCORE || score > MAX_SCORE);
+    }
+
+    /**
+     * Retrieves the number of answers to a clue, as of the last fold
+     * @param clueId the id of the clue
+     * @return the number of answers
+     */
+    public long getAttempts(int clueId){
+        Scores current = clues;
+        int index = current.indexOf(clueId);
+        return index < 0 ? 0 : current.attempts[index];
+    }
+
+    /**
+     * Retrieves the number of correct answers to a clue, as of the last fold
+     * @param clueId the id of the clue
+     * @return the number of correct answers
+     */
+    public long getCorrect(int clueId){
+        Scores current = clues;
+        int index = current.indexOf(clueId);
+        return index < 0 ? 0 : current.correct[index];
+    }
+
+    /**
+     * Retrieves the number of clues answered, as of the last fold
+     * @return the number of clues with at least one answer
+     */
+    public int size(){
+        return clues.keys.length;
+    }
+
+    /**
+     * Retrieves the number of answers not counted because a stripe was full
+     * @return the number of dropped answers, counted once for the clue and once for the category
+     */
+    public long getDropped(){
+        return dropped.get();
+    }
+
+    /**
+     * Folds the counters and saves the totals to a file, replacing the file if it exists
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        fold();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))){
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeScores(out, clues);
+            writeScores(out, categories);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the totals saved in a file, to which the answers counted since are added, and folds them
+     * @param file the file to read
+     * @throws IOException if the file cannot be read or does not hold statistics
+     */
+    public void load(Path file) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+            if(in.readInt() != MAGIC || in.readShort() != VERSION){
+                throw new IOException("not clue statistics: " + file);
+            }
+            Scores loaded = readScores(in);
+            Scores loadedByCategory = readScores(in);
+            foldLock.lock();
+            try{
+                loadedClues = loaded;
+                loadedCategories = loadedByCategory;
+            }
+            finally {
+                foldLock.unlock();
+            }
+        }
+        fold();
+    }
+
+    private static int scoreOf(Scores scores, int key){
+        int index = scores.indexOf(key);
+        return index < 0 ? UNKNOWN : scores.scores[index];
+    }
+
+    private static void writeScores(DataOutputStream out, Scores scores) throws IOException {
+        out.writeInt(scores.keys.length);
+        for(int i = 0; i < scores.keys.length; i++){
+            out.writeInt(scores.keys[i]);
+            out.writeLong(scores.attempts[i]);
+            out.writeLong(scores.correct[i]);
+        }
+    }
+
+    private static Scores readScores(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<Integer, long[]> totals = new HashMap<>();
+        for(int i = 0; i < count; i++){
+            totals.put(in.readInt(), new long[]{in.readLong(), in.readLong()});
+        }
+        return new Scores(totals);
+    }
+}
@@ -0,0 +1,132 @@
+package QuizQuestion;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Measures the throughput of the answer path with 1, 2, 4 and 8 threads when no statistics are kept, when every answer
+ * is recorded in ClueStats, and, for comparison, when every answer is counted in a single HashMap behind a lock. Each
+ * answer evaluates a question and appends its result, as QuizService does, for one of 20k clues in 4k categories.
+ * While ClueStats are kept they are folded every 100 ms on another thread, as the server does every few seconds.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class ClueStatsBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8};
+    private static final int CLUES = 20_000;
+    private static final int CLUES_PER_CATEGORY = 5;
+    private static final long MEASURE_MILLIS = 2000;
+    private static final long FOLD_MILLIS = 100;
+
+    /**
+     * What the answer path does with each answer besides evaluating it
+     */
+    private interface Recorder {
+        void record(int clueId, String category, boolean correct);
+    }
+
+    /**
+     * Counts answers in one map behind one lock
+     */
+    private static class LockedRecorder implements Recorder {
+        private final Map<Integer, long[]> counts = new HashMap<>();
+        private final Lock lock = new ReentrantLock();
+
+        public void record(int clueId, String category, boolean correct){
+            lock.lock();
+            try{
+                long[] count = counts.computeIfAbsent(clueId, k -> new long[2]);
+                count[0]++;
+                if(correct){
+                    count[1]++;
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static double run(int threadCount, Recorder recorder, MultipleChoiceQuestion[] questions,
+                              String[] categories) throws InterruptedException {
+        AtomicLong answers = new AtomicLong();
+        Thread[] threads = new Thread[threadCount];
+        long end = System.nanoTime() + MEASURE_MILLIS * 1_000_000;
+        for(int t = 0; t < threadCount; t++){
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                StringBuilder frames = new StringBuilder();
+                long count = 0;
+                while((count & 1023) != 0 || System.nanoTime() < end){
+                    int clue = random.nextInt(CLUES);
+                    boolean correct = questions[clue].evaluate(random.nextInt(4));
+                    frames.setLength(0);
+                    if(correct){
+                        frames.append("MSG~That's correct!\n~");
+                    }
+                    else{
+                        frames.append("MSG~Sorry, that's not it! The correct answer is ");
+                        questions[clue].appendCorrect(frames);
+                        frames.append("\n~");
+                    }
+                    if(recorder != null){
+                        recorder.record(clue, categories[clue / CLUES_PER_CATEGORY], correct);
+                    }
+                    count++;
+                }
+                answers.addAndGet(count);
+            });
+        }
+        long start = System.nanoTime();
+        for(Thread thread : threads){
+            thread.start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        return answers.get() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        MultipleChoiceQuestion[] questions = new MultipleChoiceQuestion[CLUES];
+        String[] categories = new String[CLUES / CLUES_PER_CATEGORY];
+        for(int i = 0; i < CLUES; i++){
+            questions[i] = new MultipleChoiceQuestion();
+            questions[i].setQuestionText("Question " + i);
+            questions[i].addChoice("Answer " + i, true);
+            for(int j = 1; j < 4; j++){
+                questions[i].addChoice("Answer " + (i + j), false);
+            }
+        }
+        for(int i = 0; i < categories.length; i++){
+            categories[i] = "Category " + i;
+        }
+
+        for(int round = 0; round < 2; round++){
+            for(int threads : THREADS){
+                double none = run(threads, null, questions, categories);
+
+                ClueStats stats = new ClueStats(FOLD_MILLIS);
+                Thread folder = new Thread(stats);
+                folder.start();
+                double striped = run(threads, stats::record, questions, categories);
+                folder.interrupt();
+                folder.join();
+
+                double locked = run(threads, new LockedRecorder(), questions, categories);
+                System.out.printf("%d threads: no stats %6.2f M answers/s, ClueStats %6.2f M answers/s (%5.1f%%), " +
+                                "locked map %6.2f M answers/s (%5.1f%%), %d clues folded%n", threads, none / 1e6,
+                        striped / 1e6, 100 * striped / none, locked / 1e6, 100 * locked / none, stats.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package QuizQuestion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Measures the latency of turns, each generating one question from a corpus of 20,000 categories, while the corpus is
+ * reloaded from its file over and over. Three modes run in turn on 4 threads: no reloads, reloads published through
+ * CategoryFetcher.reloadCorpus, and reloads which instead hold every turn off while they run, as a server which had to
+ * stop serving to swap its questions would. The p50, p99 and longest turn of each mode, and the reloads done and
+ * their mean duration, are printed.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class CorpusReloadBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int CATEGORIES = 20_000;
+    private static final int CLUES = 5;
+    private static final long RUN_MILLIS = 3000;
+    private static final int MAX_TURNS = 2_000_000;
+
+    private static volatile boolean running;
+
+    /**
+     * Writes a trivia dump of the benchmark's corpus
+     */
+    private static void writeDump(Path file) throws IOException {
+        try(BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+            out.write("category\tvalue\tquestion\tanswer\n");
+            for(int c = 0; c < CATEGORIES; c++){
+                for(int q = 1; q <= CLUES; q++){
+                    out.write("CATEGORY " + c + "\t$" + q * 200 + "\tThe clue " + q + " of category " + c
+                            + "\tanswer " + c + "-" + q + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs turns on several threads for the run time while a reload thread, if any, reloads the corpus
+     * @param fetcher the fetcher the turns draw from
+     * @param reload what the reload thread does, repeatedly, or null for no reloads
+     * @param turnLock a lock which every turn holds for reading, or null
+     * @return the latency of every turn in nanoseconds
+     */
+    private static long[] run(CategoryFetcher fetcher, Runnable reload, ReadWriteLock turnLock)
+            throws InterruptedException {
+        long[][] latencies = new long[THREADS][MAX_TURNS / THREADS];
+        int[] counts = new int[THREADS];
+        running = true;
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            int thread = t;
+            threads.add(new Thread(() -> {
+                QuizGenerator generator = new QuizGenerator(fetcher);
+                while(running && counts[thread] < latencies[thread].length){
+                    long start = System.nanoTime();
+                    if(turnLock != null){
+                        turnLock.readLock().lock();
+                    }
+                    try{
+                        generator.generateQuestion();
+                    }
+                    finally {
+                        if(turnLock != null){
+                            turnLock.readLock().unlock();
+                        }
+                    }
+                    latencies[thread][counts[thread]++] = System.nanoTime() - start;
+                }
+            }));
+        }
+        if(reload != null){
+            threads.add(new Thread(() -> {
+                while(running){
+                    reload.run();
+                }
+            }));
+        }
+        for(Thread thread : threads){
+            thread.start();
+        }
+        Thread.sleep(RUN_MILLIS);
+        running = false;
+        for(Thread thread : threads){
+            thread.join();
+        }
+        int total = 0;
+        for(int count : counts){
+            total += count;
+        }
+        long[] all = new long[total];
+        int next = 0;
+        for(int t = 0; t < THREADS; t++){
+            System.arraycopy(latencies[t], 0, all, next, counts[t]);
+            next += counts[t];
+        }
+        return all;
+    }
+
+    private static void print(String mode, long[] latencies, long reloads, long reloadNanos){
+        long p50 = LatencyTracker.percentile(latencies, 0.5) / 1000;
+        long p99 = LatencyTracker.percentile(latencies, 0.99) / 1000;
+        long max = LatencyTracker.percentile(latencies, 1.0) / 1000;
+        String mean = reloads == 0 ? "" : " meanReload=" + reloadNanos / reloads / 1_000_000 + "ms";
+        System.out.println(mode + ": turns=" + latencies.length + " p50=" + p50 + "us p99=" + p99 + "us max=" + max
+                + "us reloads=" + reloads + mean);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if the corpus cannot be written or read
+     * @throws InterruptedException if interrupted while waiting for the benchmark threads
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dump = Files.createTempFile("corpus", ".tsv");
+        try{
+            writeDump(dump);
+            //the corpus is tried before an upstream which is never reachable
+            CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(200));
+            CorpusSource corpus = CorpusSource.load(dump);
+            fetcher.getSources().register(corpus, -1, 1);
+            System.out.println(CATEGORIES + " categories, " + THREADS + " turn threads, " + RUN_MILLIS + "ms per mode");
+
+            //warm up
+            run(fetcher, null, null);
+
+            print("no reloads      ", run(fetcher, null, null), 0, 0);
+
+            long[] reloads = new long[2];
+            Runnable published = () -> {
+                long start = System.nanoTime();
+                try{
+                    fetcher.reloadCorpus(corpus, dump);
+                }
+                catch(IOException e){
+                    e.printStackTrace();
+                }
+                reloads[0]++;
+                reloads[1] += System.nanoTime() - start;
+            };
+            long[] latencies = run(fetcher, published, null);
+            print("read-copy-update", latencies, reloads[0], reloads[1]);
+
+            ReadWriteLock turnLock = new ReentrantReadWriteLock();
+            long[] stopped = new long[2];
+            Runnable stopping = () -> {
+                long start = System.nanoTime();
+                turnLock.writeLock().lock();
+                try{
+                    fetcher.reloadCorpus(corpus, dump);
+                }
+                catch(IOException e){
+                    e.printStackTrace();
+                }
+                finally {
+                    turnLock.writeLock().unlock();
+                }
+                stopped[0]++;
+                stopped[1] += System.nanoTime() - start;
+                //turns get the lock back between reloads
+                Thread.yield();
+            };
+            print("stop and swap   ", run(fetcher, stopping, turnLock), stopped[0], stopped[1]);
+        }
+        finally {
+            Files.delete(dump);
+        }
+    }
+}
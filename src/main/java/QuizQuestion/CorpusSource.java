@@ -0,0 +1,300 @@
+package QuizQuestion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A QuestionSource drawing random categories from a corpus held in memory, loaded from a local file so that questions
+ * can still be asked when no upstream is reachable. Three formats are read, by the extension of the file:
+ * - .tsv, a trivia dump with a header line naming its tab-separated columns, of which category, question and answer
+ *   are required and value is optional; the rows of a category need not be adjacent.
+ * - .jsonl, one jService category response per line, as returned by http://jservice.io/api/category?id=5666.
+ * - anything else, a CategorySnapshot such as the quiz-categories.bin the server saves when it stops.
+ * Only playable categories are kept. Requests complete before fetch returns, as nothing is retrieved remotely.
+ * The corpus can be replaced while it is in use, read-copy-update style: a new corpus is read and filtered into a
+ * Version on the thread reloading it, without holding any lock a request needs, and is then published with a single
+ * volatile write. A request reads the current Version once, so it never sees a corpus half replaced, and requests
+ * already running finish on the Version they started with. A session pins the Version it started with, see pin, and
+ * keeps drawing from it until it ends. The old Version is released once nothing refers to it.
+ */
+public class CorpusSource implements QuestionSource {
+
+    private static final String CATEGORY_COLUMN = "category";
+    private static final String QUESTION_COLUMN = "question";
+    private static final String ANSWER_COLUMN = "answer";
+    private static final String VALUE_COLUMN = "value";
+
+    /**
+     * An immutable version of the corpus, which stays usable by whoever holds it after a newer one is published. A
+     * Version is itself a QuestionSource, drawing random categories from this version only, see CorpusSource.pin.
+     */
+    public static class Version implements QuestionSource {
+
+        private final String name;
+        private final long number;
+        private final List<JeopardyCategory> categories;
+
+        private Version(String name, long number, List<JeopardyCategory> categories){
+            this.name = name;
+            this.number = number;
+            this.categories = categories;
+        }
+
+        /**
+         * @return the name of the corpus this is a version of
+         */
+        public String getName(){
+            return name;
+        }
+
+        /**
+         * @return the number of this version, 1 for the corpus the source was constructed with
+         */
+        public long getNumber(){
+            return number;
+        }
+
+        /**
+         * @return the playable categories of this version, which cannot be modified
+         */
+        public List<JeopardyCategory> getCategories(){
+            return categories;
+        }
+
+        /**
+         * Picks a random category of this version
+         * @return a completed future holding the category, or null if this version has no playable categories
+         */
+        public CompletableFuture<JeopardyCategory> fetch(){
+            if(categories.isEmpty()){
+                return CompletableFuture.completedFuture(null);
+            }
+            int pick = ThreadLocalRandom.current().nextInt(categories.size());
+            return CompletableFuture.completedFuture(categories.get(pick));
+        }
+    }
+
+    private final String name;
+    private volatile Version current;
+    private Lock publishLock;
+
+    /**
+     * Constructs a CorpusSource from categories already in memory
+     * @param name the name of the source, used in reports
+     * @param categories the corpus, of which only the playable categories are kept
+     */
+    public CorpusSource(String name, List<JeopardyCategory> categories){
+        this.name = name;
+        publishLock = new ReentrantLock();
+        current = new Version(name, 1, playable(categories));
+    }
+
+    /**
+     * Keeps the playable categories of a corpus, in a list which cannot be modified
+     */
+    private static List<JeopardyCategory> playable(List<JeopardyCategory> categories){
+        List<JeopardyCategory> playable = new ArrayList<>(categories.size());
+        for(JeopardyCategory category : categories){
+            if(category.isPlayable()){
+                playable.add(category);
+            }
+        }
+        return Collections.unmodifiableList(playable);
+    }
+
+    /**
+     * Loads a CorpusSource from a file, named after the file, in the format given by its extension
+     * @param file a .tsv trivia dump, a .jsonl file of jService categories or a CategorySnapshot
+     * @return the source
+     * @throws IOException if the file cannot be read or is not in the format of its extension
+     */
+    public static CorpusSource load(Path file) throws IOException {
+        return new CorpusSource(file.getFileName().toString(), read(file));
+    }
+
+    /**
+     * Reads the categories of a corpus file in the format given by its extension, see load
+     * @param file a .tsv trivia dump, a .jsonl file of jService categories or a CategorySnapshot
+     * @return the categories read, playable or not
+     * @throws IOException if the file cannot be read or is not in the format of its extension
+     */
+    public static List<JeopardyCategory> read(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        if(fileName.endsWith(".tsv")){
+            return readTsv(file);
+        }
+        else if(fileName.endsWith(".jsonl")){
+            return readJsonLines(file);
+        }
+        return CategorySnapshot.load(file);
+    }
+
+    /**
+     * Replaces the corpus with the playable categories given. The new Version is built before the current one is
+     * replaced, so requests are never held up, and requests already running finish on the old one. Concurrent
+     * publications are applied one at a time, so version numbers always increase.
+     * @param categories the new corpus
+     * @return the Version published
+     */
+    public Version publish(List<JeopardyCategory> categories){
+        //filtered outside the lock, only the version number is taken under it
+        List<JeopardyCategory> playable = playable(categories);
+        Version next;
+        publishLock.lock();
+        try{
+            next = new Version(name, current.getNumber() + 1, playable);
+            current = next;
+        }
+        finally {
+            publishLock.unlock();
+        }
+        return next;
+    }
+
+    /**
+     * Reads a corpus file on the calling thread and publishes its categories, see publish. The file need not be the
+     * one this source was loaded from, nor in the same format.
+     * @param file a .tsv trivia dump, a .jsonl file of jService categories or a CategorySnapshot
+     * @return the Version published
+     * @throws IOException if the file cannot be read, in which case the current Version is kept
+     */
+    public Version reload(Path file) throws IOException {
+        return publish(read(file));
+    }
+
+    /**
+     * Retrieves the Version of the corpus requests are currently served from
+     * @return the current Version
+     */
+    public Version getVersion(){
+        return current;
+    }
+
+    /**
+     * Reads a trivia dump of tab-separated rows, grouping the rows into categories in the order they first appear
+     */
+    private static List<JeopardyCategory> readTsv(Path file) throws IOException {
+        Map<String, List<String[]>> rows = new LinkedHashMap<>();
+        int category;
+        int question;
+        int answer;
+        int value;
+        try(BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+            String header = in.readLine();
+            if(header == null){
+                throw new IOException("empty trivia dump: " + file);
+            }
+            List<String> columns = Arrays.asList(header.trim().toLowerCase().split("\t"));
+            category = columns.indexOf(CATEGORY_COLUMN);
+            question = columns.indexOf(QUESTION_COLUMN);
+            answer = columns.indexOf(ANSWER_COLUMN);
+            value = columns.indexOf(VALUE_COLUMN);
+            if(category == -1 || question == -1 || answer == -1){
+                throw new IOException("trivia dump without category, question and answer columns: " + file);
+            }
+            int width = Math.max(category, Math.max(question, answer)) + 1;
+            String line;
+            while((line = in.readLine()) != null){
+                String[] fields = line.split("\t", -1);
+                if(fields.length < width){
+                    //a blank or truncated line, dumps often end with one
+                    continue;
+                }
+                rows.computeIfAbsent(fields[category], k -> new ArrayList<>()).add(fields);
+            }
+        }
+
+        List<JeopardyCategory> categories = new ArrayList<>(rows.size());
+        for(Map.Entry<String, List<String[]>> entry : rows.entrySet()){
+            List<String> questions = new ArrayList<>();
+            List<String> answers = new ArrayList<>();
+            List<Integer> values = new ArrayList<>();
+            for(String[] fields : entry.getValue()){
+                questions.add(fields[question]);
+                answers.add(fields[answer]);
+                values.add(value == -1 || value >= fields.length ? 0 : parseValue(fields[value]));
+            }
+            categories.add(new JeopardyCategory(entry.getKey(), questions, answers,
+                    JeopardyCategory.deriveClueIds(entry.getKey(), questions), values));
+        }
+        return categories;
+    }
+
+    /**
+     * Parses a dollar value such as 400 or $1,200, 0 if there is none
+     */
+    private static int parseValue(String field){
+        String digits = field.replace("$", "").replace(",", "").trim();
+        try{
+            return digits.isEmpty() ? 0 : Integer.parseInt(digits);
+        }
+        catch(NumberFormatException e){
+            return 0;
+        }
+    }
+
+    /**
+     * Reads one jService category per line, skipping lines which are not categories
+     */
+    private static List<JeopardyCategory> readJsonLines(Path file) throws IOException {
+        List<JeopardyCategory> categories = new ArrayList<>();
+        for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)){
+            if(line.isBlank()){
+                continue;
+            }
+            try{
+                categories.add(new JeopardyCategory(line));
+            }
+            catch(IllegalArgumentException e){
+                System.out.println("Skipped a category of " + file + ": " + e.getMessage());
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Retrieves the name of this source
+     * @return the name given to the constructor, or the name of the file it was loaded from
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Retrieves the number of playable categories in the current Version of the corpus
+     * @return the number of categories
+     */
+    public int size(){
+        return current.getCategories().size();
+    }
+
+    /**
+     * Picks a random category of the current Version of the corpus
+     * @return a completed future holding the category, or null if the corpus has no playable categories
+     */
+    public CompletableFuture<JeopardyCategory> fetch(){
+        //read once, so a reload in the meantime cannot change the list between the size and the pick
+        return current.fetch();
+    }
+
+    /**
+     * Retrieves the current Version, from which a session keeps drawing categories after newer ones are published
+     * @return the current Version
+     */
+    public QuestionSource pin(){
+        return current;
+    }
+}
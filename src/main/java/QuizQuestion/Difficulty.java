@@ -0,0 +1,80 @@
+package QuizQuestion;
+
+/**
+ * The difficulty tiers of Jeopardy clues, judged from their dollar value. Clue values doubled in 2001, from 100-500
+ * to 200-1000, so a tier is only an approximation of the row a clue was played in: a 400 clue is the second row of a
+ * newer game or the fourth row of an older one. Clues without a value, such as daily doubles, are MEDIUM.
+ * A session asks for harder tiers as the player's streak grows, see forStreak.
+ */
+public enum Difficulty {
+
+    EASY(0, 200, 0),
+    MEDIUM(300, 600, 3),
+    HARD(800, Integer.MAX_VALUE, 6);
+
+    private final int minValue;
+    private final int maxValue;
+    private final int minStreak;
+
+    Difficulty(int minValue, int maxValue, int minStreak){
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.minStreak = minStreak;
+    }
+
+    /**
+     * Retrieves the lowest clue value in this tier
+     * @return the lowest value in dollars
+     */
+    public int getMinValue(){
+        return minValue;
+    }
+
+    /**
+     * Retrieves the highest clue value in this tier
+     * @return the highest value in dollars
+     */
+    public int getMaxValue(){
+        return maxValue;
+    }
+
+    /**
+     * Retrieves the streak from which a player is asked questions of this tier
+     * @return the lowest streak for this tier
+     */
+    public int getMinStreak(){
+        return minStreak;
+    }
+
+    /**
+     * Finds the tier of a clue
+     * @param value the clue's value in dollars, 0 if it has none
+     * @return the tier whose values include the value, MEDIUM for clues without a value or between tiers
+     */
+    public static Difficulty of(int value){
+        if(value <= 0){
+            return MEDIUM;
+        }
+        for(Difficulty tier : values()){
+            if(value >= tier.minValue && value <= tier.maxValue){
+                return tier;
+            }
+        }
+        return MEDIUM;
+    }
+
+    /**
+     * Finds the tier of questions to ask a player on a streak
+     * @param streak the number of questions the player has answered correctly in a row
+     * @return the hardest tier the streak has reached
+     */
+    public static Difficulty forStreak(int streak){
+        Difficulty result = EASY;
+        for(Difficulty tier : values()){
+            if(streak >= tier.minStreak){
+                result = tier;
+            }
+        }
+        return result;
+    }
+}
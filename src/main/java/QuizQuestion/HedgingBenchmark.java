@@ -0,0 +1,90 @@
+package QuizQuestion;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the latency of QuizGenerator.generateQuestion against a StandInCategoryServer with a slow tail,
+ * with and without hedged upstream requests, and prints the p50 and p99 generation latency of each mode.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class HedgingBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int QUESTIONS_PER_THREAD = 250;
+    private static final int WARMUP_QUESTIONS = 200;
+
+    private static final long BASE_LATENCY_MILLIS = 5;
+    private static final long TAIL_LATENCY_MILLIS = 250;
+    private static final double TAIL_RATE = 0.05;
+
+    private static final double HEDGE_PERCENTILE = 0.9;
+    private static final double HEDGE_BUDGET = 0.1;
+
+    /**
+     * Generates questions on several threads and records how long each one took
+     * @param fetcher the fetcher used by every generator
+     * @return the latency of each generated question in nanoseconds
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private static long[] run(CategoryFetcher fetcher) throws InterruptedException {
+        QuizGenerator warmup = new QuizGenerator(fetcher);
+        for(int i = 0; i < WARMUP_QUESTIONS; i++){
+            warmup.generateQuestion();
+        }
+
+        long[] latencies = new long[THREADS * QUESTIONS_PER_THREAD];
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            int offset = t * QUESTIONS_PER_THREAD;
+            Thread thread = new Thread(() -> {
+                QuizGenerator generator = new QuizGenerator(fetcher);
+                for(int i = 0; i < QUESTIONS_PER_THREAD; i++){
+                    long start = System.nanoTime();
+                    generator.generateQuestion();
+                    latencies[offset + i] = System.nanoTime() - start;
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        return latencies;
+    }
+
+    private static void print(String mode, long[] latencies, CategoryFetcher fetcher){
+        long p50 = LatencyTracker.percentile(latencies, 0.5) / 1000;
+        long p99 = LatencyTracker.percentile(latencies, 0.99) / 1000;
+        System.out.println(mode + ": p50=" + p50 + "us p99=" + p99 + "us  " + fetcher.report());
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if the stand-in server cannot be started
+     * @throws InterruptedException if interrupted while waiting for the benchmark threads
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StandInCategoryServer standIn = new StandInCategoryServer();
+        standIn.setBaseLatency(BASE_LATENCY_MILLIS);
+        standIn.setTailLatency(TAIL_LATENCY_MILLIS, TAIL_RATE);
+        standIn.start();
+
+        System.out.println("Stand-in latency: " + BASE_LATENCY_MILLIS + "ms, plus " + TAIL_LATENCY_MILLIS
+                + "ms for " + (int) (TAIL_RATE * 100) + "% of requests. " + THREADS * QUESTIONS_PER_THREAD
+                + " questions on " + THREADS + " threads.");
+
+        CategoryFetcher plain = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofSeconds(1));
+        print("without hedging", run(plain), plain);
+
+        CategoryFetcher hedged = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofSeconds(1));
+        hedged.enableHedging(HEDGE_PERCENTILE, HEDGE_BUDGET);
+        print("with hedging   ", run(hedged), hedged);
+
+        standIn.stop();
+    }
+}
@@ -0,0 +1,75 @@
+package QuizQuestion;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A QuestionSource retrieving random categories from a server shaped like jService, such as a mirror of it or a
+ * StandInCategoryServer. Unlike the upstream of a CategoryFetcher it has no limiter of its own, the SourceRouter it
+ * is registered with guards it with a CircuitBreaker.
+ */
+public class JServiceSource implements QuestionSource {
+
+    private final String name;
+    private final String categoryURI;
+    private final Duration timeout;
+
+    /**
+     * Constructs a JServiceSource
+     * @param name the name of the source, used in reports
+     * @param categoryURI the base URI to which a category id is appended
+     * @param timeout the maximum time to wait for a single response
+     */
+    public JServiceSource(String name, String categoryURI, Duration timeout){
+        this.name = name;
+        this.categoryURI = categoryURI;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Retrieves the name of this source
+     * @return the name given to the constructor
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Requests a random category, see CategoryGenerator.connectAsync. Cancelling the returned future abandons the
+     * request.
+     * @return a future completing with the category, or with null if the response was not a category, or
+     * exceptionally on an error, timeout or status other than 200
+     */
+    public CompletableFuture<JeopardyCategory> fetch(){
+        CategoryGenerator catGen = new CategoryGenerator(categoryURI, timeout);
+        int id = catGen.nextCategoryID();
+        CompletableFuture<JeopardyCategory> result = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> exchange = catGen.connectAsync(id);
+        exchange.whenComplete((response, error) -> {
+            if(error != null){
+                result.completeExceptionally(error);
+            }
+            else if(response.statusCode() != 200){
+                result.completeExceptionally(new IllegalStateException("category " + id + ": status "
+                        + response.statusCode()));
+            }
+            else{
+                try{
+                    result.complete(new JeopardyCategory(response.body()));
+                }
+                catch(IllegalArgumentException e){
+                    //a badly formatted category is the source's data, not a sign that it is unhealthy
+                    result.complete(null);
+                }
+            }
+        });
+        //abandon the request when the router gives up on it
+        result.whenComplete((category, error) -> {
+            if(result.isCancelled()){
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+}
@@ -6,6 +6,7 @@ import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,6 +19,11 @@ public class JeopardyCategory {
     private final String QUESTIONS = "clues";
     private final String QUESTION = "question";
     private final String ANSWER = "answer";
+    private final String CLUE_ID = "id";
+    private final String VALUE = "value";
+
+    //a multiple choice question needs one correct and three incorrect answers
+    private final int MIN_ANSWERS = 4;
 
     //a few error messages
     public static final String CAST_ERROR_MSG = "cast to JSONObject Fail";
@@ -30,6 +36,10 @@ public class JeopardyCategory {
     //questions.get(0) has answer located at answers.get(0)
     private List<String> questions;
     private List<String> answers;
+    //the id of each clue, aligned with questions
+    private List<Integer> clueIds;
+    //the dollar value of each clue, aligned with questions, 0 where jService has none
+    private List<Integer> values;
 
     /**
      * Construct a Jeopardy Category from
@@ -40,6 +50,44 @@ public class JeopardyCategory {
         parseJSONResponse(jsonString);
     }
 
+    /**
+     * Construct a Jeopardy Category from its parts, for example when reading categories back from a CategorySnapshot
+     * @param categoryName the name of the category
+     * @param questions the questions of the category
+     * @param answers the answers of the category, aligned with questions
+     */
+    public JeopardyCategory(String categoryName, List<String> questions, List<String> answers) {
+        this(categoryName, questions, answers, deriveClueIds(categoryName, questions));
+    }
+
+    /**
+     * Construct a Jeopardy Category from its parts, including the id of each clue
+     * @param categoryName the name of the category
+     * @param questions the questions of the category
+     * @param answers the answers of the category, aligned with questions
+     * @param clueIds the ids of the clues of the category, aligned with questions
+     */
+    public JeopardyCategory(String categoryName, List<String> questions, List<String> answers, List<Integer> clueIds) {
+        this(categoryName, questions, answers, clueIds, new ArrayList<>(Collections.nCopies(questions.size(), 0)));
+    }
+
+    /**
+     * Construct a Jeopardy Category from its parts, including the id and value of each clue
+     * @param categoryName the name of the category
+     * @param questions the questions of the category
+     * @param answers the answers of the category, aligned with questions
+     * @param clueIds the ids of the clues of the category, aligned with questions
+     * @param values the dollar values of the clues of the category, aligned with questions, 0 where unknown
+     */
+    public JeopardyCategory(String categoryName, List<String> questions, List<String> answers, List<Integer> clueIds,
+                            List<Integer> values) {
+        this.categoryName = categoryName;
+        this.questions = questions;
+        this.answers = answers;
+        this.clueIds = clueIds;
+        this.values = values;
+    }
+
 
     /**
      * Retrieve the category name
@@ -65,6 +113,33 @@ public class JeopardyCategory {
         return answers;
     }
 
+    /**
+     * retrieve the ids of the clues of this category, which identify a clue across categories and restarts
+     * @return the id of each clue (aligned with questions)
+     */
+    public List< Integer > getClueIds() {
+        return clueIds;
+    }
+
+    /**
+     * retrieve the dollar values of the clues of this category, from which their Difficulty is judged
+     * @return the value of each clue (aligned with questions), 0 where jService has none
+     */
+    public List< Integer > getValues() {
+        return values;
+    }
+
+    /**
+     * Determines whether a multiple choice question can be built from this category. In rare cases the jService API
+     * has categories with duplicate answers to questions, or too few clues to provide four distinct choices.
+     * @return true if there are at least 4 distinct answers and as many distinct questions as distinct answers
+     */
+    public boolean isPlayable() {
+        long distinctQuestions = questions.stream().distinct().count();
+        long distinctAnswers = answers.stream().distinct().count();
+        return distinctAnswers >= MIN_ANSWERS && distinctQuestions == distinctAnswers;
+    }
+
     /**
      * Populate the Category Name and Questions and Answers from a JService API response to the /category API call
      * for example this method parses a repsonse from this url: http://jservice.io/api/category?id=5666
@@ -108,6 +183,8 @@ public class JeopardyCategory {
         //erase whatever was here before
         questions = new ArrayList<>();
         answers = new ArrayList<>();
+        clueIds = new ArrayList<>();
+        values = new ArrayList<>();
         for (Object obj : array) {
             JSONObject jsonObject = (JSONObject) obj;
             if (jsonObject == null) {
@@ -117,7 +194,27 @@ public class JeopardyCategory {
             String a = (String) jsonObject.get(ANSWER);
             questions.add(q);
             answers.add(a);
+            Object id = jsonObject.get(CLUE_ID);
+            clueIds.add(id instanceof Number ? ((Number) id).intValue() : deriveClueId(categoryName, q));
+            //daily doubles and final jeopardy clues have no value
+            Object value = jsonObject.get(VALUE);
+            values.add(value instanceof Number ? ((Number) value).intValue() : 0);
+        }
+    }
+
+    /**
+     * Derives ids for clues whose jService id is not known, from the category name and the question text
+     */
+    static List<Integer> deriveClueIds(String categoryName, List<String> questions) {
+        List<Integer> ids = new ArrayList<>(questions.size());
+        for (String question : questions) {
+            ids.add(deriveClueId(categoryName, question));
         }
+        return ids;
+    }
+
+    private static int deriveClueId(String categoryName, String question) {
+        return (categoryName + '\n' + question).hashCode() & Integer.MAX_VALUE;
     }
 
     //simple demo of this class
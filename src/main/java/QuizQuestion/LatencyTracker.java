@@ -0,0 +1,91 @@
+package QuizQuestion;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a sliding window of the most recent latency samples so that percentiles of recent latency can be computed.
+ * Samples are stored in a ring buffer, so old samples are forgotten and memory use is fixed.
+ */
+public class LatencyTracker {
+
+    private final int WINDOW_SIZE;
+
+    private long[] samples;
+    private int size;
+    private int next;
+    private Lock trackerLock;
+
+    /**
+     * Constructs an empty LatencyTracker
+     * @param windowSize the number of most recent samples considered
+     */
+    public LatencyTracker(int windowSize){
+        WINDOW_SIZE = windowSize;
+        samples = new long[windowSize];
+        trackerLock = new ReentrantLock();
+    }
+
+    /**
+     * Records a latency sample, replacing the oldest sample once the window is full
+     * @param latencyNanos the latency in nanoseconds
+     */
+    public void record(long latencyNanos){
+        trackerLock.lock();
+        try{
+            samples[next] = latencyNanos;
+            next = (next + 1) % WINDOW_SIZE;
+            size = Math.min(WINDOW_SIZE, size + 1);
+        }
+        finally {
+            trackerLock.unlock();
+        }
+    }
+
+    /**
+     * Computes a percentile of the recorded samples
+     * @param percentile a fraction between 0 and 1, for example 0.95 for the 95th percentile
+     * @return the latency in nanoseconds at the given percentile, or 0 if there are no samples
+     */
+    public long percentile(double percentile){
+        long[] sorted;
+        trackerLock.lock();
+        try{
+            sorted = Arrays.copyOf(samples, size);
+        }
+        finally {
+            trackerLock.unlock();
+        }
+        return percentile(sorted, percentile);
+    }
+
+    /**
+     * Retrieves the number of samples currently in the window
+     * @return the number of samples
+     */
+    public int size(){
+        trackerLock.lock();
+        try{
+            return size;
+        }
+        finally {
+            trackerLock.unlock();
+        }
+    }
+
+    /**
+     * Computes a percentile of an array of samples using the nearest-rank method. The array is sorted in place.
+     * @param samples the samples
+     * @param percentile a fraction between 0 and 1
+     * @return the sample at the given percentile, or 0 if the array is empty
+     */
+    public static long percentile(long[] samples, double percentile){
+        if(samples.length == 0){
+            return 0;
+        }
+        Arrays.sort(samples);
+        int rank = (int) Math.ceil(percentile * samples.length) - 1;
+        return samples[Math.max(0, Math.min(samples.length - 1, rank))];
+    }
+}
@@ -1,6 +1,6 @@
 package QuizQuestion;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents a single multiple choice question with 4 possible answers of which only 1 is correct.
@@ -11,22 +11,22 @@ import java.util.Random;
  */
 public class MultipleChoiceQuestion implements Quizable{
 
-    private final String ROW_DIVIDER = "%%%%%%%%%%%%%%%%%%%%%%%%%\n";
+    public static final String ROW_DIVIDER = "%%%%%%%%%%%%%%%%%%%%%%%%%\n";
     private final int MAX_ANSWERS = 4;
 
-    private Random r;
     private String question;
     private String[] answers;
     private String correctAnswer;
+    private int correctIndex;
 
     /**
      * Constructs an empty MultipleChoiceQuestion
      */
     public MultipleChoiceQuestion (){
-        r = new Random();
         question = "";
         answers = new String[MAX_ANSWERS];
         correctAnswer = "";
+        correctIndex = -1;
     }
 
     /**
@@ -46,11 +46,12 @@ public class MultipleChoiceQuestion implements Quizable{
         int randomIndex;
         boolean done = false;
         do{
-            randomIndex = r.nextInt(MAX_ANSWERS);
+            randomIndex = ThreadLocalRandom.current().nextInt(MAX_ANSWERS);
             if(answers[randomIndex] == null){
                 answers[randomIndex] = choice;
                 if(correct){
                     correctAnswer = randomIndex + ": " + choice;
+                    correctIndex = randomIndex;
                 }
                 done = true;
             }
@@ -74,23 +75,43 @@ public class MultipleChoiceQuestion implements Quizable{
      */
     public boolean evaluate(int guess) {
         boolean result = false;
-        if (guess < 0 || guess > 3){
+        if (guess < 0 || guess > 3 || correctIndex < 0){
             result = false;
         }
-        else result = answers[guess].equals(correctAnswer.substring(3));
+        else result = answers[correctIndex].equals(answers[guess]);
         return result;
     }
 
+    /**
+     * Appends the text of the correct answer to a StringBuilder, the same text as correct returns but without
+     * creating a new String
+     * @param out the StringBuilder to append to
+     */
+    public void appendCorrect(StringBuilder out){
+        if(correctIndex >= 0){
+            out.append(correctIndex).append(": ").append(answers[correctIndex]);
+        }
+    }
+
     /**
      * Converts the multiple choice question into a multi-line string containing the question and all possible answers
      * @return a mulit-line string of text representing a multiple choice question
      */
     public String toString(){
-        String result = ROW_DIVIDER + question + "\n" + ROW_DIVIDER;
+        StringBuilder result = new StringBuilder();
+        appendTo(result);
+        return result.toString();
+    }
 
+    /**
+     * Appends the same multi-line text as toString to a StringBuilder, without creating a new String
+     * @param out the StringBuilder to append to
+     */
+    public void appendTo(StringBuilder out){
+        out.append(ROW_DIVIDER).append(question).append('\n').append(ROW_DIVIDER);
         for(int i = 0; i < MAX_ANSWERS; i++){
-            result = result + i + ": " + answers[i] + "\n";
+            out.append(i).append(": ").append(answers[i]).append('\n');
         }
-        return result + ROW_DIVIDER;
+        out.append(ROW_DIVIDER);
     }
 }
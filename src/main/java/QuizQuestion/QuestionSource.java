@@ -0,0 +1,34 @@
+package QuizQuestion;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A provider of Jeopardy categories, such as jService over HTTP or a local corpus file. Sources are registered with a
+ * SourceRouter, which decides which source each category is drawn from and fails over between them.
+ * A request must complete, or fail, within a bounded time of its own, and cancelling the returned future should
+ * abandon it, since the router cancels the requests it no longer needs.
+ */
+public interface QuestionSource {
+
+    /**
+     * Retrieves the name of this source, used in reports
+     * @return a short name such as "jservice"
+     */
+    String getName();
+
+    /**
+     * Starts a request for a category without blocking the calling thread
+     * @return a future completing with a category, which may not be playable, or with null or exceptionally if none
+     * could be retrieved
+     */
+    CompletableFuture<JeopardyCategory> fetch();
+
+    /**
+     * Retrieves a source which keeps serving what this source serves now, for a session which must finish on the
+     * categories it started with while this source is replaced, see CorpusSource
+     * @return a source whose categories never change, which is this source unless its categories can be replaced
+     */
+    default QuestionSource pin(){
+        return this;
+    }
+}
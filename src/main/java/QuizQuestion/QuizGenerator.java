@@ -1,7 +1,7 @@
 package QuizQuestion;
 
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -9,19 +9,57 @@ import java.util.stream.Collectors;
  * The generateQuestion method is used to generate a new category and construct a MultipleChoiceQuestion object
  * from within that category. Access methods are provided - getCategory returns a String describing the category
  * of the current question, while getQuestion returns a MultipleChoiceQuestion object.
+ * A QuizGenerator may be given a ClueBitmap of the clues its player has already seen, in which case it skips those
+ * clues and adds every clue it asks to the bitmap. A QuizGenerator given a topic asks questions from categories on
+ * that topic, for as long as the CategoryFetcher has any. A QuizGenerator given a Difficulty, and no topic, takes its
+ * clues from the CategoryFetcher's TieredQuestionSupply instead of from a random category. Clues which the
+ * CategoryFetcher's ClueStats show nearly everybody or nearly nobody answers correctly are skipped like seen clues.
+ * A QuizGenerator keeps drawing categories from the corpus it was constructed with when the corpus is reloaded, so
+ * that a session finishes on the corpus it started with, see CategoryFetcher.snapshot.
  * Additionally a main method has been included for demonstration and testing purposes.
  */
 public class QuizGenerator {
 
+    //how many categories to look through for a fresh clue before settling for a seen or skipped one
+    private final int MAX_UNSEEN_ATTEMPTS = 8;
+
     private String category;
     private MultipleChoiceQuestion question;
+    private int clueId;
+    private CategoryFetcher fetcher;
+    private CategoryFetcher.Snapshot corpus;
+    private ClueBitmap seen;
+    private String topic;
+    private Difficulty difficulty;
 
     /**
-     * Constructs an empty QuizGenerator
+     * Constructs an empty QuizGenerator which retrieves categories through the shared default CategoryFetcher
      */
     public QuizGenerator(){
+        this(CategoryFetcher.getDefault());
+    }
+
+    /**
+     * Constructs an empty QuizGenerator which retrieves categories through the given CategoryFetcher
+     * @param fetcher the source of Jeopardy categories
+     */
+    public QuizGenerator(CategoryFetcher fetcher){
+        this(fetcher, null);
+    }
+
+    /**
+     * Constructs an empty QuizGenerator which retrieves categories through the given CategoryFetcher and avoids
+     * asking the clues in seen
+     * @param fetcher the source of Jeopardy categories
+     * @param seen the clues already asked, which this generator adds to, or null to ask clues at random
+     */
+    public QuizGenerator(CategoryFetcher fetcher, ClueBitmap seen){
         category = "";
         question = null;
+        clueId = -1;
+        this.fetcher = fetcher;
+        corpus = fetcher.snapshot();
+        this.seen = seen;
     }
 
     /**
@@ -40,51 +78,156 @@ public class QuizGenerator {
         return question;
     }
 
+    /**
+     * Retrieves the topic questions are asked on
+     * @return the topic, or null if questions are asked on any topic
+     */
+    public String getTopic(){
+        return topic;
+    }
+
+    /**
+     * Sets the topic of the next questions, which are asked from categories on any topic if none match
+     * @param topic one or more words, each of which may be the start of a word in a category title, or null to ask
+     *              questions on any topic
+     */
+    public void setTopic(String topic){
+        this.topic = topic;
+    }
+
+    /**
+     * Retrieves the difficulty questions are asked at
+     * @return the tier, or null if clues are asked regardless of their value
+     */
+    public Difficulty getDifficulty(){
+        return difficulty;
+    }
+
+    /**
+     * Sets the difficulty of the next questions, which are asked from random categories if the tier is null or a
+     * topic is set
+     * @param difficulty the tier of the next questions, or null to ask clues regardless of their value
+     */
+    public void setDifficulty(Difficulty difficulty){
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Retrieves the id of the clue of the current question
+     * @return the clue id, or -1 before the first question is generated
+     */
+    public int getClueId(){
+        return clueId;
+    }
+
     /**
      * Generates a random question from within a randomly selected category from the jService API.
-     * After retrieving a category from the CategoryGenerator class in JSON format, this method uses the
-     * JeopardyCategory class to parse the JSON file, store the category in an instance variable and storing
-     * the associated questions and answers in local List<String> variables (which are index aligned).
+     * When a topic is set the category is chosen among the categories on that topic which the CategoryFetcher has
+     * indexed, or among all categories if none match. Otherwise, when a Difficulty is set, the clue is taken from the
+     * CategoryFetcher's TieredQuestionSupply, and a random category is only used if the supply has no clues at all.
+     * After retrieving a JeopardyCategory from the CategoryFetcher, this method stores the category in an instance
+     * variable and stores the associated questions and answers in local List<String> variables (which are index aligned).
      * Because in rare cases the jService API has categories with duplicate answers to questions,
-     * The lists of questions and answers are filtered using streams and checked to ensure the number of
-     * distinct questions and corresponding answers are the same. If they are not the same it indicates
-     * there were some repetitions, so a new category is retrieved.
+     * categories which are not playable are skipped and a new category is retrieved. The CategoryFetcher falls back to
+     * cached or offline categories when the jService API is slow or unavailable, so this never waits on it for long.
      * A question at a random index is then chosen and recorded in a the MultipleChoiceQuestion object of the class's
      * instance field (called question) along with the corresponding correct answer.
+     * The clues of the category are tried from the random index onwards and the first clue which this generator has
+     * not seen and the ClueStats do not skip is chosen; if there is none another category is retrieved, up to
+     * MAX_UNSEEN_ATTEMPTS categories, after which a seen or skipped clue is asked rather than waiting any longer.
      * To ensure the correct answer is not added to the question object in duplicate, the entry is removed from the
      * local answers List object. Three incorrect answers are then selected at random and added to the question object.
      * Again, to avoid adding duplicates the incorrect answer is removed from the local answers List Object as it is added
      * to the question object.
      */
     public void generateQuestion(){
+        if(topic == null && difficulty != null && generateTieredQuestion()){
+            return;
+        }
 
         List<String> questions = null;
         List<String> answers = null;
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int questionIndex = 0;
+        int attempts = 0;
 
         boolean done = false;
         while(!done){
-            CategoryGenerator catGen =  new CategoryGenerator();
-            catGen.connect();
-
-            JeopardyCategory jCat = new JeopardyCategory(catGen.getRawResponse());
+            JeopardyCategory jCat = topic == null ? null : fetcher.fetch(corpus, topic);
+            if(jCat == null){
+                jCat = fetcher.fetch(corpus);
+            }
 
-            category = jCat.getName();
-            questions = jCat.getQuestions().stream()
-                    .distinct()
-                    .collect(Collectors.toList());
-            answers = jCat.getAnswers().stream()
-                    .distinct()
-                    .collect(Collectors.toList());
+            if(jCat != null && jCat.isPlayable()){
+                category = jCat.getName();
+                questions = jCat.getQuestions().stream()
+                        .distinct()
+                        .collect(Collectors.toList());
+                answers = jCat.getAnswers().stream()
+                        .distinct()
+                        .collect(Collectors.toList());
+                questionIndex = r.nextInt(questions.size());
+                clueId = clueIdOf(jCat, questions.get(questionIndex));
+                done = false;
 
-            if(questions.size() == answers.size()){
-                done = true;
+                //try the clues from the random index onwards, a category has only a handful of clues
+                for(int i = 0; !done && i < questions.size(); i++){
+                    int index = (questionIndex + i) % questions.size();
+                    int id = clueIdOf(jCat, questions.get(index));
+                    if(isFresh(id)){
+                        questionIndex = index;
+                        clueId = id;
+                        done = true;
+                    }
+                }
+                done = done || ++attempts == MAX_UNSEEN_ATTEMPTS;
             }
         }
+        if(seen != null){
+            seen.add(clueId);
+        }
+        setQuestion(questions, answers, questionIndex);
+    }
 
-        question = new MultipleChoiceQuestion();
-        Random r = new Random();
+    /**
+     * Generates a question from a clue of the current difficulty, taken from the CategoryFetcher's
+     * TieredQuestionSupply. Clues which have been seen or are skipped by the ClueStats are passed over, up to
+     * MAX_UNSEEN_ATTEMPTS clues, and left in the supply for other sessions.
+     * @return true if a question was generated, or false if the supply had no clues at all
+     */
+    private boolean generateTieredQuestion(){
+        TieredQuestionSupply.Clue clue = fetcher.getSupply().take(difficulty, this::isFresh, MAX_UNSEEN_ATTEMPTS);
+        if(clue == null){
+            return false;
+        }
+
+        JeopardyCategory jCat = clue.getCategory();
+        category = jCat.getName();
+        List<String> questions = jCat.getQuestions().stream()
+                .distinct()
+                .collect(Collectors.toList());
+        List<String> answers = jCat.getAnswers().stream()
+                .distinct()
+                .collect(Collectors.toList());
+        String questionText = jCat.getQuestions().get(clue.getIndex());
+        clueId = clueIdOf(jCat, questionText);
+        if(seen != null){
+            seen.add(clueId);
+        }
+        setQuestion(questions, answers, questions.indexOf(questionText));
+        return true;
+    }
 
-        int questionIndex = r.nextInt(questions.size());
+    /**
+     * Records the question at an index in the MultipleChoiceQuestion instance field along with its correct answer
+     * and three incorrect answers, all chosen at random from the distinct answers of the category
+     * @param questions the distinct questions of the category
+     * @param answers the distinct answers of the category, aligned with questions, from which the answers used are removed
+     * @param questionIndex the index of the question to ask
+     */
+    private void setQuestion(List<String> questions, List<String> answers, int questionIndex){
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        question = new MultipleChoiceQuestion();
 
         question.setQuestionText(questions.get(questionIndex));
         question.addChoice(answers.get(questionIndex), true);
@@ -101,6 +244,20 @@ public class QuizGenerator {
         }
     }
 
+    /**
+     * Tells whether a clue may be asked without settling: it has not been seen, and is not skipped by the ClueStats
+     */
+    private boolean isFresh(int id){
+        return (seen == null || !seen.contains(id)) && !fetcher.getStats().isSkipped(id);
+    }
+
+    /**
+     * Finds the id of a clue of a category from its question, the first clue asking it if the question is repeated
+     */
+    private static int clueIdOf(JeopardyCategory jCat, String questionText){
+        return jCat.getClueIds().get(jCat.getQuestions().indexOf(questionText));
+    }
+
     /**
      * This main method is provided for testing and demonstration purposes only, it generates and prints 10 quiz questions
      * @param args not used here
@@ -0,0 +1,103 @@
+package QuizQuestion;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the memory taken by a ClueBitmap of seen clues per session, and the time QuizGenerator.generateQuestion
+ * takes with and without skipping seen clues, at 100k concurrent sessions which have each seen 0, 500, 2000 and 5000
+ * clues. Questions are drawn from a corpus of 50k categories of 5 clues each, with ids like jService's, served from
+ * memory so that only selection is timed.
+ * Run with a heap large enough for every session's bitmap, for example -Xmx3g.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class SeenClueBenchmark {
+
+    private static final int SESSIONS = 100_000;
+    private static final int[] SEEN_COUNTS = {0, 500, 2000, 5000};
+    private static final int CATEGORIES = 50_000;
+    private static final int CLUES = 5;
+    private static final int SELECTIONS = 1_000_000;
+
+    /**
+     * Serves categories of an in-memory corpus at random
+     */
+    private static class CorpusFetcher extends CategoryFetcher {
+        private final List<JeopardyCategory> corpus;
+
+        CorpusFetcher(List<JeopardyCategory> corpus){
+            super("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(100));
+            this.corpus = corpus;
+        }
+
+        @Override
+        public JeopardyCategory fetch(){
+            return corpus.get(ThreadLocalRandom.current().nextInt(corpus.size()));
+        }
+    }
+
+    private static long usedMemory(){
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     */
+    public static void main(String[] args){
+        List<JeopardyCategory> corpus = new ArrayList<>(CATEGORIES);
+        for(int c = 0; c < CATEGORIES; c++){
+            List<String> questions = new ArrayList<>(CLUES);
+            List<String> answers = new ArrayList<>(CLUES);
+            List<Integer> ids = new ArrayList<>(CLUES);
+            for(int i = 0; i < CLUES; i++){
+                questions.add("question " + c + "-" + i);
+                answers.add("answer " + c + "-" + i);
+                ids.add(c * CLUES + i);
+            }
+            corpus.add(new JeopardyCategory("category " + c, questions, answers, ids));
+        }
+        CategoryFetcher fetcher = new CorpusFetcher(corpus);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for(int seenCount : SEEN_COUNTS){
+            long before = usedMemory();
+            ClueBitmap[] seen = new ClueBitmap[SESSIONS];
+            for(int s = 0; s < SESSIONS; s++){
+                seen[s] = new ClueBitmap();
+                while(seen[s].cardinality() < seenCount){
+                    seen[s].add(random.nextInt(CATEGORIES * CLUES));
+                }
+            }
+            long bytes = usedMemory() - before;
+
+            QuizGenerator[] tracked = new QuizGenerator[SESSIONS];
+            for(int s = 0; s < SESSIONS; s++){
+                tracked[s] = new QuizGenerator(fetcher, seen[s]);
+            }
+            QuizGenerator untracked = new QuizGenerator(fetcher);
+
+            //every selection adds a clue, so the sessions end up with slightly more than seenCount
+            long start = System.nanoTime();
+            for(int i = 0; i < SELECTIONS; i++){
+                untracked.generateQuestion();
+            }
+            long untrackedNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for(int i = 0; i < SELECTIONS; i++){
+                tracked[i % SESSIONS].generateQuestion();
+            }
+            long trackedNanos = System.nanoTime() - start;
+
+            System.out.printf("%5d seen: %8.1f bytes/session, untracked %5.2f us/question, tracked %5.2f us/question%n",
+                    seenCount, (double) bytes / SESSIONS, untrackedNanos / 1000.0 / SELECTIONS,
+                    trackedNanos / 1000.0 / SELECTIONS);
+        }
+    }
+}
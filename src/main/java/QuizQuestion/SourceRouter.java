@@ -0,0 +1,482 @@
+package QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Draws categories from several QuestionSources, chosen by priority and weight as DNS SRV records are: the sources
+ * with the lowest priority are tried first, and among sources of equal priority one is picked at random in proportion
+ * to its weight, scaled by the share of its recent requests which returned a playable category and by how its median
+ * latency compares with the failover delay. Every source is guarded by a CircuitBreaker, so a source which keeps
+ * failing or is slower than the failover delay is skipped until it recovers.
+ * When the source chosen fails the next one is tried at once, and when it has not completed after the failover delay
+ * the next one is started alongside it; the first playable category wins and the requests still running are
+ * cancelled. The calls, failures, failovers, latency and yield of each source are kept in its Route.
+ */
+public class SourceRouter {
+
+    private static final int BREAKER_WINDOW = 20;
+    private static final double BREAKER_FAILURE_RATE = 0.5;
+    private static final long BREAKER_OPEN_MILLIS = 5000;
+    private static final int LATENCY_WINDOW = 128;
+    private static final Snapshot EMPTY_SNAPSHOT = new Snapshot(Collections.emptyMap());
+
+    private final long FAILOVER_NANOS;
+
+    private volatile List<Route> routes;
+    private Lock routesLock;
+
+    /**
+     * A source registered with a SourceRouter, with the metrics of the requests sent to it
+     */
+    public static class Route {
+
+        private final QuestionSource source;
+        private final int priority;
+        private final double weight;
+        private final CircuitBreaker breaker;
+        private final LatencyTracker latencies;
+
+        private AtomicLong calls;
+        private AtomicLong completed;
+        private AtomicLong playable;
+        private AtomicLong failures;
+        private AtomicLong failovers;
+
+        private Route(QuestionSource source, int priority, double weight, CircuitBreaker breaker){
+            this.source = source;
+            this.priority = priority;
+            this.weight = weight;
+            this.breaker = breaker;
+            latencies = new LatencyTracker(LATENCY_WINDOW);
+            calls = new AtomicLong();
+            completed = new AtomicLong();
+            playable = new AtomicLong();
+            failures = new AtomicLong();
+            failovers = new AtomicLong();
+        }
+
+        /**
+         * Sends a request to the source if its breaker allows it. The returned future completes only once the
+         * outcome has been recorded, and cancelling it cancels the request.
+         * @param source the source of the route, or the version of it a session pinned
+         * @return the request, or null if the breaker rejected it
+         */
+        private CompletableFuture<JeopardyCategory> attempt(QuestionSource source){
+            if(breaker != null && !breaker.allowRequest()){
+                return null;
+            }
+            calls.incrementAndGet();
+            long start = System.nanoTime();
+            CompletableFuture<JeopardyCategory> request;
+            try{
+                request = source.fetch();
+            }
+            catch(RuntimeException e){
+                request = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<JeopardyCategory> result = new CompletableFuture<>();
+            CompletableFuture<JeopardyCategory> sent = request;
+            request.whenComplete((category, error) -> {
+                if(sent.isCancelled()){
+                    if(breaker != null){
+                        breaker.recordIgnored();
+                    }
+                    result.cancel(true);
+                    return;
+                }
+                long latency = System.nanoTime() - start;
+                completed.incrementAndGet();
+                if(error != null){
+                    failures.incrementAndGet();
+                    if(breaker != null){
+                        breaker.recordFailure();
+                    }
+                    result.completeExceptionally(error);
+                    return;
+                }
+                //the source answered, even if it had no category to give
+                latencies.record(latency);
+                if(breaker != null){
+                    breaker.recordSuccess(latency);
+                }
+                if(category == null){
+                    failures.incrementAndGet();
+                }
+                else if(category.isPlayable()){
+                    playable.incrementAndGet();
+                }
+                result.complete(category);
+            });
+            //abandon the request when the router gives up on it
+            result.whenComplete((category, error) -> {
+                if(result.isCancelled()){
+                    sent.cancel(true);
+                }
+            });
+            return result;
+        }
+
+        /**
+         * Scores the route for picking among the routes of its priority: its weight, times its smoothed yield,
+         * divided by one plus its median latency in units of the failover delay
+         */
+        private double score(long failoverNanos){
+            double yield = (playable.get() + 1.0) / (completed.get() + 1.0);
+            double median = latencies.size() == 0 ? 0 : latencies.percentile(0.5);
+            return weight * yield / (1 + median / failoverNanos);
+        }
+
+        /**
+         * Retrieves the source of this route
+         * @return the QuestionSource
+         */
+        public QuestionSource getSource(){
+            return source;
+        }
+
+        /**
+         * Retrieves the priority of the source, lower priorities are tried first
+         * @return the priority
+         */
+        public int getPriority(){
+            return priority;
+        }
+
+        /**
+         * Retrieves the weight of the source among the sources of its priority
+         * @return the weight
+         */
+        public double getWeight(){
+            return weight;
+        }
+
+        /**
+         * Retrieves the breaker guarding the source
+         * @return the CircuitBreaker, or null if the source guards itself
+         */
+        public CircuitBreaker getBreaker(){
+            return breaker;
+        }
+
+        /**
+         * Retrieves the tracker of the latency of the requests the source answered
+         * @return the LatencyTracker
+         */
+        public LatencyTracker getLatencies(){
+            return latencies;
+        }
+
+        /**
+         * Retrieves the number of requests sent to the source
+         * @return the number of calls
+         */
+        public long getCalls(){
+            return calls.get();
+        }
+
+        /**
+         * Retrieves the number of requests which returned a playable category
+         * @return the number of playable categories
+         */
+        public long getPlayable(){
+            return playable.get();
+        }
+
+        /**
+         * Retrieves the number of requests which failed or returned no category
+         * @return the number of failures
+         */
+        public long getFailures(){
+            return failures.get();
+        }
+
+        /**
+         * Retrieves the number of times the next source was started because this one was slower than the failover
+         * delay
+         * @return the number of failovers
+         */
+        public long getFailovers(){
+            return failovers.get();
+        }
+
+        /**
+         * Retrieves the share of the requests which completed, rather than being cancelled, that returned a playable
+         * category
+         * @return the yield between 0 and 1, or 0 before any request completed
+         */
+        public double getYield(){
+            long done = completed.get();
+            return done == 0 ? 0 : (double) playable.get() / done;
+        }
+
+        /**
+         * Summarizes the metrics of the route
+         * @return the name, priority, weight, calls, yield, median latency, failovers and breaker state of the source
+         */
+        public String report(){
+            return source.getName() + "(priority=" + priority
+                    + " weight=" + weight
+                    + " calls=" + getCalls()
+                    + " yield=" + Math.round(getYield() * 100) + "%"
+                    + " p50=" + TimeUnit.NANOSECONDS.toMillis(latencies.percentile(0.5)) + "ms"
+                    + " failovers=" + getFailovers()
+                    + (breaker == null ? "" : " breaker=" + breaker.getState()) + ")";
+        }
+    }
+
+    /**
+     * The sources a session started with, see snapshot. Only the sources whose categories have since been replaced
+     * differ from those of the routes, so a snapshot of sources which are never replaced holds nothing.
+     */
+    public static class Snapshot {
+
+        private final Map<Route, QuestionSource> pinned;
+
+        private Snapshot(Map<Route, QuestionSource> pinned){
+            this.pinned = pinned;
+        }
+
+        /**
+         * Retrieves the source to send a request of this snapshot to, the pinned source of the route if it has one
+         */
+        private QuestionSource sourceOf(Route route){
+            QuestionSource source = pinned.get(route);
+            return source == null ? route.source : source;
+        }
+
+        /**
+         * Checks whether the routes still serve what they served when this snapshot was taken
+         * @return true if no source pinned by this snapshot has been replaced since
+         */
+        public boolean isCurrent(){
+            for(Map.Entry<Route, QuestionSource> entry : pinned.entrySet()){
+                if(entry.getKey().source.pin() != entry.getValue()){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Constructs a SourceRouter without sources
+     * @param failoverMillis how long to wait on a source before also trying the next one, which is also the latency
+     *                       above which calls count against a source's breaker
+     */
+    public SourceRouter(long failoverMillis){
+        FAILOVER_NANOS = TimeUnit.MILLISECONDS.toNanos(failoverMillis);
+        routes = Collections.emptyList();
+        routesLock = new ReentrantLock();
+    }
+
+    /**
+     * Registers a source guarded by a new CircuitBreaker
+     * @param source the source
+     * @param priority sources with lower priorities are tried first
+     * @param weight the share of requests the source receives among the sources of its priority, relative to theirs
+     * @return the route of the source, which holds its metrics
+     */
+    public Route register(QuestionSource source, int priority, double weight){
+        return register(source, priority, weight, new CircuitBreaker(BREAKER_WINDOW, BREAKER_FAILURE_RATE,
+                TimeUnit.NANOSECONDS.toMillis(FAILOVER_NANOS), BREAKER_OPEN_MILLIS));
+    }
+
+    /**
+     * Registers a source guarded by the given breaker
+     * @param source the source
+     * @param priority sources with lower priorities are tried first
+     * @param weight the share of requests the source receives among the sources of its priority, relative to theirs
+     * @param breaker the breaker guarding the source, or null if the source guards itself and fails its requests
+     *                while it is unhealthy
+     * @return the route of the source, which holds its metrics
+     * @throws IllegalArgumentException if the weight is negative
+     */
+    public Route register(QuestionSource source, int priority, double weight, CircuitBreaker breaker){
+        if(weight < 0){
+            throw new IllegalArgumentException("negative weight " + weight + " for " + source.getName());
+        }
+        Route route = new Route(source, priority, weight, breaker);
+        routesLock.lock();
+        try{
+            List<Route> updated = new ArrayList<>(routes);
+            updated.add(route);
+            updated.sort(Comparator.comparingInt(Route::getPriority));
+            routes = Collections.unmodifiableList(updated);
+        }
+        finally {
+            routesLock.unlock();
+        }
+        return route;
+    }
+
+    /**
+     * Retrieves the registered sources
+     * @return the routes of the sources, lowest priority first
+     */
+    public List<Route> getRoutes(){
+        return routes;
+    }
+
+    /**
+     * Pins what every source serves now, see QuestionSource.pin, so that a session can keep drawing the same
+     * categories from them while sources such as a CorpusSource are replaced. Sources registered later are used as
+     * they are.
+     * @return the Snapshot
+     */
+    public Snapshot snapshot(){
+        Map<Route, QuestionSource> pinned = new IdentityHashMap<>();
+        for(Route route : routes){
+            QuestionSource source = route.source.pin();
+            if(source != route.source){
+                pinned.put(route, source);
+            }
+        }
+        return new Snapshot(pinned);
+    }
+
+    /**
+     * Draws a category from the sources, failing over from a source which fails or is slow to the next, see the
+     * class description. Returns as soon as a playable category is retrieved.
+     * @return a playable category, or otherwise a category which is not playable, or null if no source returned
+     * a category or the calling thread was interrupted
+     */
+    public JeopardyCategory fetch(){
+        return fetch(EMPTY_SNAPSHOT);
+    }
+
+    /**
+     * Draws a category as fetch does, from the sources as they were when the snapshot was taken
+     * @param snapshot the sources a session started with
+     * @return a playable category, or otherwise a category which is not playable, or null if no source returned
+     * a category or the calling thread was interrupted
+     */
+    public JeopardyCategory fetch(Snapshot snapshot){
+        List<Route> order = order();
+        BlockingQueue<CompletableFuture<JeopardyCategory>> completed = new LinkedBlockingQueue<>();
+        List<CompletableFuture<JeopardyCategory>> running = new ArrayList<>();
+        JeopardyCategory unplayable = null;
+        Route last = null;
+        CompletableFuture<JeopardyCategory> lastRequest = null;
+        int next = 0;
+        long deadline = 0;
+        try{
+            while(true){
+                if(running.isEmpty() || (next < order.size() && System.nanoTime() - deadline >= 0)){
+                    //nothing is running, or the last source started is slow: start the next one its breaker allows
+                    CompletableFuture<JeopardyCategory> request = null;
+                    Route route = null;
+                    while(request == null && next < order.size()){
+                        route = order.get(next++);
+                        request = route.attempt(snapshot.sourceOf(route));
+                    }
+                    if(request != null){
+                        if(lastRequest != null && !lastRequest.isDone()){
+                            last.failovers.incrementAndGet();
+                        }
+                        CompletableFuture<JeopardyCategory> started = request;
+                        running.add(started);
+                        started.whenComplete((category, error) -> completed.add(started));
+                        last = route;
+                        lastRequest = started;
+                        deadline = System.nanoTime() + FAILOVER_NANOS;
+                    }
+                    else if(running.isEmpty()){
+                        return unplayable;
+                    }
+                }
+
+                CompletableFuture<JeopardyCategory> done = next < order.size()
+                        ? completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                        : completed.take();
+                if(done == null){
+                    //the failover delay passed
+                    continue;
+                }
+                running.remove(done);
+                JeopardyCategory category = done.isCompletedExceptionally() ? null : done.join();
+                if(category != null && category.isPlayable()){
+                    return category;
+                }
+                if(category != null){
+                    unplayable = category;
+                }
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return unplayable;
+        }
+        finally {
+            for(CompletableFuture<JeopardyCategory> request : running){
+                request.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Orders the sources in which they are tried for one fetch: by priority, and within a priority by weighted random
+     * picks among the sources not yet picked
+     */
+    private List<Route> order(){
+        List<Route> sorted = routes;
+        List<Route> order = new ArrayList<>(sorted.size());
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int start = 0;
+        while(start < sorted.size()){
+            int end = start;
+            while(end < sorted.size() && sorted.get(end).getPriority() == sorted.get(start).getPriority()){
+                end++;
+            }
+            List<Route> group = new ArrayList<>(sorted.subList(start, end));
+            List<Double> scores = new ArrayList<>(group.size());
+            double total = 0;
+            for(Route route : group){
+                double score = route.score(FAILOVER_NANOS);
+                scores.add(score);
+                total += score;
+            }
+            while(!group.isEmpty()){
+                int pick = 0;
+                if(total > 0){
+                    double target = r.nextDouble() * total;
+                    while(pick < group.size() - 1 && target >= scores.get(pick)){
+                        target -= scores.get(pick);
+                        pick++;
+                    }
+                }
+                order.add(group.remove(pick));
+                total -= scores.remove(pick);
+            }
+            start = end;
+        }
+        return order;
+    }
+
+    /**
+     * Summarizes the metrics of every source on a single line
+     * @return the report of each route, lowest priority first
+     */
+    public String report(){
+        StringBuilder report = new StringBuilder();
+        for(Route route : routes){
+            if(report.length() > 0){
+                report.append(' ');
+            }
+            report.append(route.report());
+        }
+        return report.toString();
+    }
+}
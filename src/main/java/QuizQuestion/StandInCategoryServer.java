@@ -0,0 +1,183 @@
+package QuizQuestion;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A local stand-in for the jService /api/category endpoint, used for testing and benchmarking without depending on
+ * the real jService API. Every category id produces a synthetic, playable category with five clues.
+ * Latency and failures can be injected at runtime: every response is delayed by the base latency, a fraction of
+ * responses are additionally delayed by the tail latency, and a fraction of requests fail with HTTP status 500.
+ * Additionally a main method has been included for demonstration purposes.
+ */
+public class StandInCategoryServer {
+
+    private final String CATEGORY_PATH = "/api/category";
+    private final int CLUES_PER_CATEGORY = 5;
+
+    static {
+        //without TCP_NODELAY the headers and body are written separately and each response waits on a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private volatile long baseLatencyMillis;
+    private volatile long tailLatencyMillis;
+    private volatile double tailRate;
+    private volatile double failureRate;
+
+    /**
+     * Constructs a StandInCategoryServer on an ephemeral local port, with no injected latency or failures.
+     * The server does not accept requests until start is called.
+     * @throws IOException if the server socket cannot be opened
+     */
+    public StandInCategoryServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(CATEGORY_PATH, this::handle);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start(){
+        server.start();
+    }
+
+    /**
+     * Stops the server, abandoning any delayed responses
+     */
+    public void stop(){
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Retrieves the base URI to which a category id may be appended, for use with CategoryGenerator
+     * @return the category URI of this server
+     */
+    public String getCategoryURI(){
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CATEGORY_PATH + "?id=";
+    }
+
+    /**
+     * Sets the latency added to every response
+     * @param millis the delay in milliseconds
+     */
+    public void setBaseLatency(long millis){
+        baseLatencyMillis = millis;
+    }
+
+    /**
+     * Sets the extra latency added to a random fraction of responses
+     * @param millis the extra delay in milliseconds
+     * @param rate the fraction (0 to 1) of responses which are delayed
+     */
+    public void setTailLatency(long millis, double rate){
+        tailLatencyMillis = millis;
+        tailRate = rate;
+    }
+
+    /**
+     * Sets the fraction of requests which fail with HTTP status 500
+     * @param rate the fraction (0 to 1) of failing requests
+     */
+    public void setFailureRate(double rate){
+        failureRate = rate;
+    }
+
+    /**
+     * Builds the synthetic jService style JSON for a category id
+     * @param id the category id
+     * @return the raw JSON category
+     */
+    public String categoryJSON(int id){
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":").append(id)
+                .append(",\"title\":\"stand-in category ").append(id)
+                .append("\",\"clues_count\":").append(CLUES_PER_CATEGORY)
+                .append(",\"clues\":[");
+        for(int i = 0; i < CLUES_PER_CATEGORY; i++){
+            if(i > 0){
+                json.append(',');
+            }
+            json.append("{\"id\":").append(id * CLUES_PER_CATEGORY + i)
+                    .append(",\"answer\":\"answer ").append(id).append('-').append(i)
+                    .append("\",\"question\":\"question ").append(id).append('-').append(i)
+                    .append("\",\"value\":").append((i + 1) * 100)
+                    .append(",\"category_id\":").append(id).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try{
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = baseLatencyMillis;
+            if(random.nextDouble() < tailRate){
+                delay += tailLatencyMillis;
+            }
+            if(delay > 0){
+                Thread.sleep(delay);
+            }
+            if(random.nextDouble() < failureRate){
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            String query = exchange.getRequestURI().getQuery();
+            int id = Integer.parseInt(query.substring(query.indexOf('=') + 1));
+            byte[] body = categoryJSON(id).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream out = exchange.getResponseBody()){
+                out.write(body);
+            }
+        }
+        catch(InterruptedException | RuntimeException e){
+            exchange.sendResponseHeaders(500, -1);
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * This main method is provided for demonstration purposes only. It generates questions through a
+     * CategoryFetcher while the stand-in server becomes slow, fails, and recovers, printing the fetcher metrics.
+     * @param args not used here
+     * @throws IOException if the server socket cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the breaker to allow a probe
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StandInCategoryServer standIn = new StandInCategoryServer();
+        standIn.start();
+        CategoryFetcher fetcher = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofMillis(500),
+                new AdaptiveLimiter(10, 1, 200, 200), new CircuitBreaker(20, 0.5, 200, 1000));
+        QuizGenerator generator = new QuizGenerator(fetcher);
+
+        String[] phases = {"healthy", "slow", "failing", "recovered"};
+        for(String phase : phases){
+            standIn.setBaseLatency(phase.equals("slow") ? 400 : 5);
+            standIn.setFailureRate(phase.equals("failing") ? 1.0 : 0.0);
+            long start = System.nanoTime();
+            for(int i = 0; i < 50; i++){
+                generator.generateQuestion();
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(phase + ": 50 questions in " + millis + "ms, " + fetcher.report());
+            Thread.sleep(1000);
+        }
+        standIn.stop();
+    }
+}
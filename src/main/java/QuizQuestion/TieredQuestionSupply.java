@@ -0,0 +1,313 @@
+package QuizQuestion;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+/**
+ * A supply of clues partitioned by Difficulty, shared by every QuizGenerator of a CategoryFetcher, from which a
+ * session takes a clue of the tier it wants in constant time.
+ * Each tier is a bounded ring of clues with its own lock, so taking from or refilling one tier never waits on another.
+ * Tiers are refilled from the CategoryFetcher on a background refiller, never on the thread taking a clue, so a take
+ * only ever polls rings and never waits on the upstream: whenever a take leaves a tier below a quarter full it asks
+ * for one category to be fetched, and whenever a tier is empty it counts a starvation, asks for up to
+ * MAX_REFILL_FETCHES categories to be fetched until one has a clue of that tier, and meanwhile serves the nearest tier
+ * which has clues. At most one refill of a supply is in flight at a time, and asking while one is running does nothing.
+ * Every clue of a fetched category goes to the ring of its tier, or is dropped if that ring is full, so refilling one
+ * tier also tops up the others. A tier the corpus cannot supply, such as HARD while only older games with values up
+ * to 500 are cached, keeps being served from the nearest tier, and its starvations show how often that happened.
+ * A session which has to pass over some clues, such as those its player has already seen, says which clues it accepts
+ * when taking one, and the clues it passes over stay in their ring for the other sessions.
+ */
+public class TieredQuestionSupply {
+
+    public static final int DEFAULT_TIER_CAPACITY = 1024;
+    private static final int MAX_REFILL_FETCHES = 4;
+
+    //the refiller shared by every supply which was not given one, a daemon so that it never keeps the JVM alive
+    private static final ExecutorService REFILLER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "question-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A clue of a category, identified by its index in the category's questions
+     */
+    public static class Clue {
+        private final JeopardyCategory category;
+        private final int index;
+
+        Clue(JeopardyCategory category, int index){
+            this.category = category;
+            this.index = index;
+        }
+
+        /**
+         * Retrieves the category of the clue
+         * @return the category, whose other answers are used as incorrect choices
+         */
+        public JeopardyCategory getCategory(){
+            return category;
+        }
+
+        /**
+         * Retrieves the position of the clue in its category
+         * @return the index of the clue in the category's questions, answers, ids and values
+         */
+        public int getIndex(){
+            return index;
+        }
+
+        /**
+         * Retrieves the id of the clue
+         * @return the clue id
+         */
+        public int getId(){
+            return category.getClueIds().get(index);
+        }
+    }
+
+    /**
+     * The ring of clues of one Difficulty
+     */
+    private static class Tier {
+        private final Clue[] ring;
+        private int head;
+        private int size;
+        private final Lock lock = new ReentrantLock();
+        private final AtomicLong starvations = new AtomicLong();
+        private final AtomicLong taken = new AtomicLong();
+
+        Tier(int capacity){
+            ring = new Clue[capacity];
+        }
+    }
+
+    private final int TIER_CAPACITY;
+
+    private CategoryFetcher fetcher;
+    private Executor refiller;
+    private AtomicBoolean refilling;
+    private Tier[] tiers;
+
+    /**
+     * Constructs an empty TieredQuestionSupply, which fills itself from a CategoryFetcher on the shared background
+     * refiller as clues are taken
+     * @param fetcher the source of categories
+     * @param tierCapacity the maximum number of clues held in each tier
+     */
+    public TieredQuestionSupply(CategoryFetcher fetcher, int tierCapacity){
+        this(fetcher, tierCapacity, REFILLER);
+    }
+
+    /**
+     * Constructs an empty TieredQuestionSupply, which fills itself from a CategoryFetcher on the given refiller as clues
+     * are taken
+     * @param fetcher the source of categories
+     * @param tierCapacity the maximum number of clues held in each tier
+     * @param refiller runs the refills, which fetch from the CategoryFetcher
+     */
+    public TieredQuestionSupply(CategoryFetcher fetcher, int tierCapacity, Executor refiller){
+        TIER_CAPACITY = tierCapacity;
+        this.fetcher = fetcher;
+        this.refiller = refiller;
+        refilling = new AtomicBoolean();
+        tiers = new Tier[Difficulty.values().length];
+        for(int i = 0; i < tiers.length; i++){
+            tiers[i] = new Tier(tierCapacity);
+        }
+    }
+
+    /**
+     * Takes a clue of a tier, asking for the tier to be refilled in the background if it runs low. This never fetches.
+     * @param difficulty the tier wanted
+     * @return a clue of that tier, or of the nearest tier with clues while the tier is empty, or null if no tier has
+     * any
+     */
+    public Clue take(Difficulty difficulty){
+        return take(difficulty, id -> true, 0);
+    }
+
+    /**
+     * Takes a clue of a tier which a session accepts, see take(Difficulty). Up to maxSkipped clues at the front of the
+     * ring are checked for one the session accepts, and the clues passed over stay in the ring. If none of them is
+     * accepted the clue at the front is taken anyway, so a session is never kept waiting.
+     * @param difficulty the tier wanted
+     * @param accept tells from the id of a clue whether the session accepts it
+     * @param maxSkipped the most clues passed over before one is taken regardless
+     * @return a clue of that tier, or of the nearest tier with clues while the tier is empty, or null if no tier has
+     * any
+     */
+    public Clue take(Difficulty difficulty, IntPredicate accept, int maxSkipped){
+        Tier tier = tiers[difficulty.ordinal()];
+        Clue clue = poll(tier, accept, maxSkipped);
+        if(clue == null){
+            tier.starvations.incrementAndGet();
+            requestRefill(tier);
+            //a refiller which runs refills at once may already have refilled the tier
+            clue = poll(tier, accept, maxSkipped);
+            //serve the nearest tier, harder before easier
+            for(int distance = 1; distance < tiers.length && clue == null; distance++){
+                int harder = difficulty.ordinal() + distance;
+                int easier = difficulty.ordinal() - distance;
+                if(harder < tiers.length){
+                    clue = poll(tiers[harder], accept, maxSkipped);
+                }
+                if(clue == null && easier >= 0){
+                    clue = poll(tiers[easier], accept, maxSkipped);
+                }
+            }
+        }
+        else if(depth(difficulty) < TIER_CAPACITY / 4){
+            requestRefill(null);
+        }
+        if(clue != null){
+            tier.taken.incrementAndGet();
+        }
+        return clue;
+    }
+
+    /**
+     * Adds the clues of a category to the rings of their tiers, dropping those whose ring is full
+     * @param category a playable category
+     */
+    public void offer(JeopardyCategory category){
+        for(int i = 0; i < category.getQuestions().size(); i++){
+            Tier tier = tiers[Difficulty.of(category.getValues().get(i)).ordinal()];
+            tier.lock.lock();
+            try{
+                if(tier.size < tier.ring.length){
+                    tier.ring[(tier.head + tier.size) % tier.ring.length] = new Clue(category, i);
+                    tier.size++;
+                }
+            }
+            finally {
+                tier.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of clues waiting in a tier
+     * @param difficulty the tier
+     * @return the number of clues in the tier's ring
+     */
+    public int depth(Difficulty difficulty){
+        return size(tiers[difficulty.ordinal()]);
+    }
+
+    /**
+     * Retrieves the number of times a tier was empty when a clue was taken from it
+     * @param difficulty the tier
+     * @return the number of starvations of the tier
+     */
+    public long getStarvations(Difficulty difficulty){
+        return tiers[difficulty.ordinal()].starvations.get();
+    }
+
+    /**
+     * Retrieves the number of clues taken for a tier, including clues served from the nearest tier
+     * @param difficulty the tier
+     * @return the number of clues taken
+     */
+    public long getTaken(Difficulty difficulty){
+        return tiers[difficulty.ordinal()].taken.get();
+    }
+
+    /**
+     * Summarizes the depth, takes and starvations of every tier
+     * @return text such as EASY=10/200/1 MEDIUM=...
+     */
+    public String report(){
+        StringBuilder report = new StringBuilder();
+        for(Difficulty difficulty : Difficulty.values()){
+            report.append(report.length() == 0 ? "" : " ").append(difficulty).append('=')
+                    .append(depth(difficulty)).append('/').append(getTaken(difficulty))
+                    .append('/').append(getStarvations(difficulty));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Starts a refill on the refiller unless one is already in flight. The refill fetches one category, or, for a
+     * starved tier, up to MAX_REFILL_FETCHES categories until the tier has a clue.
+     * @param starved the tier which was empty, or null if a tier is only running low
+     */
+    private void requestRefill(Tier starved){
+        if(!refilling.compareAndSet(false, true)){
+            return;
+        }
+        try{
+            refiller.execute(() -> {
+                try{
+                    for(int i = 0; i < MAX_REFILL_FETCHES; i++){
+                        refill();
+                        if(starved == null || size(starved) > 0){
+                            break;
+                        }
+                    }
+                }
+                finally {
+                    refilling.set(false);
+                }
+            });
+        }
+        catch(RuntimeException e){
+            //the refiller rejected the refill, a later take asks again
+            refilling.set(false);
+        }
+    }
+
+    private void refill(){
+        JeopardyCategory category = fetcher.fetch();
+        if(category != null && category.isPlayable()){
+            offer(category);
+        }
+    }
+
+    private int size(Tier tier){
+        tier.lock.lock();
+        try{
+            return tier.size;
+        }
+        finally {
+            tier.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the first accepted clue among the first maxSkipped + 1 clues of a ring, or the clue at the front if none
+     * is accepted. The clue at the front takes the place of the one removed, so the others keep their places.
+     */
+    private Clue poll(Tier tier, IntPredicate accept, int maxSkipped){
+        tier.lock.lock();
+        try{
+            if(tier.size == 0){
+                return null;
+            }
+            int slot = tier.head;
+            for(int i = 0; i <= maxSkipped && i < tier.size; i++){
+                int next = (tier.head + i) % tier.ring.length;
+                if(accept.test(tier.ring[next].getId())){
+                    slot = next;
+                    break;
+                }
+            }
+            Clue clue = tier.ring[slot];
+            tier.ring[slot] = tier.ring[tier.head];
+            tier.ring[tier.head] = null;
+            tier.head = (tier.head + 1) % tier.ring.length;
+            tier.size--;
+            return clue;
+        }
+        finally {
+            tier.lock.unlock();
+        }
+    }
+}
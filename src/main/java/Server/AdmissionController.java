@@ -0,0 +1,241 @@
+package Server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Decides what happens to every connection accepted by a QuizServer, so that a burst of clients cannot exhaust the
+ * server's threads and memory at the expense of players already in a game. A connection is
+ * - turned away if its IP address has opened too many connections recently (see IpTokenBuckets),
+ * - started straight away if fewer than the maximum number of sessions are running,
+ * - otherwise held in a bounded queue and started when a running session finishes,
+ * - otherwise, or once it has waited in the queue too long, turned away.
+ * A connection which is turned away receives MSG~...~BUSY~N~, asking it to retry in N seconds, and is closed.
+ */
+public class AdmissionController {
+
+    /**
+     * A connection waiting in the queue for a session to finish
+     */
+    private static class Queued {
+        final Socket socket;
+        final long deadline;
+
+        Queued(Socket socket, long deadline){
+            this.socket = socket;
+            this.deadline = deadline;
+        }
+    }
+
+    private final int MAX_SESSIONS;
+    private final int QUEUE_CAPACITY;
+    private final long QUEUE_TIMEOUT_NANOS;
+    private final int RETRY_AFTER_SECONDS;
+
+    private Function<Socket, Runnable> sessions;
+    private ServerMetrics metrics;
+    private IpTokenBuckets buckets;
+    private Deque<Queued> queue;
+    private int running;
+    private Lock admissionLock;
+
+    /**
+     * Constructs an AdmissionController
+     * @param config the server settings, from which the session, queue and per IP limits are taken
+     * @param metrics the metrics in which queued and rejected connections are counted
+     * @param sessions creates the session for an admitted connection, for example a QuizService
+     */
+    public AdmissionController(ServerConfig config, ServerMetrics metrics, Function<Socket, Runnable> sessions){
+        MAX_SESSIONS = config.getMaxSessions();
+        QUEUE_CAPACITY = config.getQueueCapacity();
+        QUEUE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(config.getQueueTimeoutMillis());
+        RETRY_AFTER_SECONDS = config.getRetryAfterSeconds();
+        this.sessions = sessions;
+        this.metrics = metrics;
+        if(config.getPerIpConnectionsPerSecond() > 0){
+            buckets = new IpTokenBuckets(config.getIpTableSize(), config.getPerIpBurst(),
+                    config.getPerIpConnectionsPerSecond());
+        }
+        queue = new ArrayDeque<>();
+        admissionLock = new ReentrantLock();
+    }
+
+    /**
+     * Admits, queues or turns away a newly accepted connection
+     * @param socket the accepted connection
+     */
+    public void offer(Socket socket){
+        if(buckets != null && !buckets.tryAcquire(socket.getInetAddress())){
+            metrics.connectionRateLimited();
+            long seconds = TimeUnit.MILLISECONDS.toSeconds(buckets.millisUntilToken(socket.getInetAddress()) + 999);
+            reject(socket, Math.max(1, seconds));
+            return;
+        }
+        boolean start = false;
+        boolean queued = false;
+        List<Socket> expired;
+        admissionLock.lock();
+        try{
+            expired = expireQueued(System.nanoTime());
+            if(running < MAX_SESSIONS){
+                running++;
+                start = true;
+            }
+            else if(queue.size() < QUEUE_CAPACITY){
+                queue.addLast(new Queued(socket, System.nanoTime() + QUEUE_TIMEOUT_NANOS));
+                queued = true;
+            }
+        }
+        finally {
+            admissionLock.unlock();
+        }
+        rejectExpired(expired);
+        if(start){
+            start(socket);
+        }
+        else if(queued){
+            metrics.connectionQueued();
+        }
+        else{
+            metrics.connectionRejected();
+            reject(socket, RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Retrieves the number of sessions currently admitted
+     * @return the number of running sessions
+     */
+    public int getRunning(){
+        admissionLock.lock();
+        try{
+            return running;
+        }
+        finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of connections waiting for a session to finish
+     * @return the length of the queue
+     */
+    public int getQueueLength(){
+        admissionLock.lock();
+        try{
+            return queue.size();
+        }
+        finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * Starts the session of an admitted connection on its own thread, which hands its place to the next queued
+     * connection once the session finishes
+     */
+    private void start(Socket socket){
+        Runnable session = sessions.apply(socket);
+        Thread t = new Thread(() -> {
+            try{
+                session.run();
+            }
+            finally {
+                finished();
+            }
+        });
+        t.start();
+    }
+
+    private void finished(){
+        Queued next = null;
+        List<Socket> expired;
+        admissionLock.lock();
+        try{
+            expired = expireQueued(System.nanoTime());
+            next = queue.pollFirst();
+            if(next == null){
+                running--;
+            }
+        }
+        finally {
+            admissionLock.unlock();
+        }
+        rejectExpired(expired);
+        if(next != null){
+            start(next.socket);
+        }
+    }
+
+    /**
+     * Removes the queued connections past their deadline, which is checked whenever a connection arrives or a session
+     * finishes. The caller must hold the admission lock, and turns the connections away once it has released it, see
+     * rejectExpired, so that no socket is written to under the lock.
+     */
+    private List<Socket> expireQueued(long now){
+        List<Socket> expired = Collections.emptyList();
+        while(!queue.isEmpty() && now - queue.peekFirst().deadline > 0){
+            if(expired.isEmpty()){
+                expired = new ArrayList<>();
+            }
+            expired.add(queue.pollFirst().socket);
+        }
+        return expired;
+    }
+
+    /**
+     * Turns away the connections expireQueued removed from the queue. The caller must not hold the admission lock.
+     */
+    private void rejectExpired(List<Socket> expired){
+        for(Socket socket : expired){
+            metrics.connectionRejected();
+            reject(socket, RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Tells a client the server is busy and closes its connection
+     * @param socket the connection to turn away
+     * @param retryAfterSeconds how long the client should wait before connecting again
+     */
+    static void reject(Socket socket, long retryAfterSeconds){
+        try{
+            OutputStream out = socket.getOutputStream();
+            out.write(busyMessage(retryAfterSeconds).getBytes(Charset.defaultCharset()));
+            out.flush();
+        }
+        catch(IOException e){
+            //the client is being turned away either way
+        }
+        finally {
+            try{
+                socket.close();
+            }
+            catch(IOException e){
+                //nothing more to do
+            }
+        }
+    }
+
+    /**
+     * Constructs the frames which turn a client away. Older clients print the MSG frame and ignore the BUSY frame.
+     * @param retryAfterSeconds how long the client should wait before connecting again
+     * @return the frames to send
+     */
+    static String busyMessage(long retryAfterSeconds){
+        return QuizService.CODE_MSG + QuizService.DELIMITER
+                + "The server is busy, please retry in " + retryAfterSeconds + " seconds" + QuizService.DELIMITER
+                + QuizService.CODE_BUSY + QuizService.DELIMITER + retryAfterSeconds + QuizService.DELIMITER;
+    }
+}
@@ -0,0 +1,148 @@
+package Server;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Scanner;
+
+/**
+ * Measures how many questions per second a single connection is asked over links with simulated round trip times
+ * of 50, 200 and 500 ms, in classic play, in continuous play, and in continuous play with batches of 5 and 10
+ * questions. The client is a bot which answers immediately, connected to a QuizServer through a DelayProxy, and
+ * questions are generated from the offline category, so the result reflects the number of round trips per question.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class BatchPlayBenchmark {
+
+    private static final long[] ROUND_TRIP_MILLIS = {50, 200, 500};
+    private static final int[] BATCH_SIZES = {5, 10};
+    private static final long MEASURE_MILLIS = 5000;
+
+    /**
+     * A bot player which answers 0 to every question and Y to every PLAYAGAIN prompt, accepts continuous play if
+     * asked to and asks for batches of the given size, counting the questions it is asked
+     */
+    private static class Bot implements Runnable {
+
+        private final Socket socket;
+        private final boolean continuous;
+        private final int batch;
+        private volatile long questions;
+
+        Bot(Socket socket, boolean continuous, int batch){
+            this.socket = socket;
+            this.continuous = continuous;
+            this.batch = batch;
+        }
+
+        public void run(){
+            try{
+                Scanner in = new Scanner(socket.getInputStream());
+                in.useDelimiter(QuizService.DELIMITER);
+                PrintWriter out = new PrintWriter(socket.getOutputStream());
+                StringBuilder answers = new StringBuilder();
+                int remaining = 0;
+                while(in.hasNext()){
+                    String code = in.next();
+                    String message = in.next();
+                    switch (code){
+                        case QuizService.CODE_CONTINUOUS:
+                            if(!continuous){
+                                continue;
+                            }
+                            out.print(QuizService.CODE_CONTINUOUS + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_BATCH:
+                            if(batch == 1){
+                                continue;
+                            }
+                            out.print(QuizService.CODE_BATCH + QuizService.DELIMITER + batch + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_NAME:
+                            out.print("bot" + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_PLAYAGAIN:
+                            out.print(QuizService.CONTINUE + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_QUESTIONS:
+                            remaining = Integer.parseInt(message);
+                            answers.setLength(0);
+                            continue;
+                        case QuizService.CODE_QUESTION:
+                            questions++;
+                            answers.append(answers.length() == 0 ? "" : " ").append('0');
+                            if(--remaining > 0){
+                                continue;
+                            }
+                            out.print(answers + QuizService.DELIMITER);
+                            answers.setLength(0);
+                            break;
+                        default:
+                            continue;
+                    }
+                    out.flush();
+                }
+            }
+            catch(IOException e){
+                //the benchmark is over
+            }
+        }
+    }
+
+    private static void run(QuizServer server, long roundTripMillis, boolean continuous, int batch)
+            throws IOException, InterruptedException {
+        try(DelayProxy proxy = new DelayProxy(server.getLocalPort(), roundTripMillis)){
+            Bot bot = new Bot(proxy.connect(), continuous, batch);
+            new Thread(bot).start();
+            //let the handshake and the first questions pass before measuring
+            Thread.sleep(10 * roundTripMillis);
+
+            long startQuestions = bot.questions;
+            long start = System.nanoTime();
+            Thread.sleep(MEASURE_MILLIS);
+            long questions = bot.questions - startQuestions;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            String mode = batch > 1 ? "batches of " + batch : continuous ? "continuous" : "classic";
+            System.out.printf("%3d ms round trip, %-13s %7.2f questions/s per connection%n", roundTripMillis, mode,
+                    questions / seconds);
+        }
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if a socket cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the benchmark
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setHeartbeatIntervalMillis(0);
+        config.setContinuousPlay(true);
+        config.setMaxBatchSize(BATCH_SIZES[BATCH_SIZES.length - 1]);
+        //an unreachable upstream, so every question comes from the offline category
+        config.setCategoryURI("http://127.0.0.1:1/api/category?id=");
+        QuizServer server = new QuizServer(config, new LeaderBoard());
+        new Thread(() -> {
+            try{
+                server.openServer();
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }).start();
+        while(server.getLocalPort() == -1){
+            Thread.sleep(10);
+        }
+
+        for(long roundTripMillis : ROUND_TRIP_MILLIS){
+            run(server, roundTripMillis, false, 1);
+            run(server, roundTripMillis, true, 1);
+            for(int batch : BATCH_SIZES){
+                run(server, roundTripMillis, true, batch);
+            }
+        }
+        server.stop();
+        System.exit(0);
+    }
+}
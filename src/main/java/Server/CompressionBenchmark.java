@@ -0,0 +1,102 @@
+package Server;
+
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.MultipleChoiceQuestion;
+import QuizQuestion.QuizGenerator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the bytes sent and the CPU time spent per turn of a QuizService with and without FrameCompression.
+ * Each turn consists of the frames a QuizService writes: the leaderboard, the wait message, the question, the result
+ * and the PLAYAGAIN prompt. Questions are generated from the offline category, which is real jService text.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class CompressionBenchmark {
+
+    private static final int TURNS = 1000;
+    private static final int ROUNDS = 20;
+
+    /**
+     * Builds the frames of a number of turns, each entry being the frames a QuizService writes with one print
+     */
+    private static List<String> turns(int count){
+        LeaderBoard leaderBoard = new LeaderBoard();
+        String[] players = {"Benjamin", "Katherine", "Alexander", "Maximilian", "Genevieve"};
+        for(int i = 0; i < players.length; i++){
+            leaderBoard.update(players[i], i * 3);
+        }
+        //an unreachable upstream, so every question comes from the offline category
+        CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(100));
+        QuizGenerator quizGen = new QuizGenerator(fetcher);
+        List<String> frames = new ArrayList<>();
+        for(int i = 0; i < count; i++){
+            quizGen.generateQuestion();
+            MultipleChoiceQuestion q = quizGen.getQuestion();
+            frames.add(QuizService.CODE_MSG + QuizService.DELIMITER + leaderBoard.prettyPrintTop3()
+                    + "\nYour current Streak is: " + (i % 7) + "\n" + QuizService.DELIMITER);
+            frames.add(QuizService.sendMessage(QuizService.WAIT));
+            frames.add(QuizService.sendMessage(QuizService.CATEGORY) + quizGen.getCategory() + "\n"
+                    + q.toString() + QuizService.DELIMITER);
+            frames.add(i % 2 == 0 ? QuizService.sendMessage(QuizService.CORRECT)
+                    : QuizService.sendMessage(QuizService.INCORRECT) + q.correct() + "\n" + QuizService.DELIMITER);
+            frames.add(QuizService.sendMessage(QuizService.CODE_PLAYAGAIN));
+        }
+        return frames;
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     */
+    public static void main(String[] args){
+        List<String> frames = turns(TURNS);
+        ThreadMXBean cpu = ManagementFactory.getThreadMXBean();
+
+        long plainBytes = 0;
+        for(String frame : frames){
+            plainBytes += frame.length();
+        }
+        System.out.printf("plain:      %6.1f bytes/turn%n", (double) plainBytes / TURNS);
+
+        for(int threshold : new int[]{0, 64, FrameCompression.DEFAULT_THRESHOLD, 256}){
+            FrameCompression server = new FrameCompression(threshold);
+            FrameCompression client = new FrameCompression(threshold);
+            List<String> sent = new ArrayList<>(frames.size());
+            long compressNanos = 0;
+            long decompressNanos = 0;
+            for(int round = 0; round < ROUNDS; round++){
+                sent.clear();
+                long start = cpu.getCurrentThreadCpuTime();
+                for(String frame : frames){
+                    sent.add(server.compress(frame));
+                }
+                long middle = cpu.getCurrentThreadCpuTime();
+                for(String frame : sent){
+                    if(frame.startsWith(FrameCompression.CODE_ZIP + QuizService.DELIMITER)){
+                        client.decompress(frame.substring(4, frame.length() - 1));
+                    }
+                }
+                //the first half of the rounds warm up the JIT
+                if(round >= ROUNDS / 2){
+                    compressNanos += middle - start;
+                    decompressNanos += cpu.getCurrentThreadCpuTime() - middle;
+                }
+            }
+            long sentBytes = 0;
+            for(String frame : sent){
+                sentBytes += frame.length();
+            }
+            int measured = TURNS * (ROUNDS - ROUNDS / 2);
+            System.out.printf("threshold %3d: %6.1f bytes/turn (%4.1f%%), server %5.1f us/turn, client %5.1f us/turn%n",
+                    threshold, (double) sentBytes / TURNS, 100.0 * sentBytes / plainBytes,
+                    compressNanos / 1000.0 / measured, decompressNanos / 1000.0 / measured);
+            server.close();
+            client.close();
+        }
+    }
+}
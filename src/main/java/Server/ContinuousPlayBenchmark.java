@@ -0,0 +1,125 @@
+package Server;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Scanner;
+
+/**
+ * Measures how many questions per second a single connection is asked over a link with a simulated round trip time
+ * of 50 ms, in classic play, where every answer is followed by a PLAYAGAIN prompt, and in continuous play, where the
+ * next question comes with the result. The client is a bot which answers immediately, connected to a QuizServer
+ * through a DelayProxy. Questions are generated from the offline category, so the result reflects the number of
+ * round trips per question rather than the server.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class ContinuousPlayBenchmark {
+
+    private static final long ROUND_TRIP_MILLIS = 50;
+    private static final long MEASURE_MILLIS = 5000;
+
+    /**
+     * A bot player which answers 0 to every question and Y to every PLAYAGAIN prompt, and accepts continuous play
+     * if asked to, counting the questions it is asked
+     */
+    private static class Bot implements Runnable {
+
+        private final Socket socket;
+        private final boolean continuous;
+        private volatile long questions;
+
+        Bot(Socket socket, boolean continuous){
+            this.socket = socket;
+            this.continuous = continuous;
+        }
+
+        public void run(){
+            try{
+                Scanner in = new Scanner(socket.getInputStream());
+                in.useDelimiter(QuizService.DELIMITER);
+                PrintWriter out = new PrintWriter(socket.getOutputStream());
+                while(in.hasNext()){
+                    String code = in.next();
+                    in.next();
+                    switch (code){
+                        case QuizService.CODE_CONTINUOUS:
+                            if(!continuous){
+                                continue;
+                            }
+                            out.print(QuizService.CODE_CONTINUOUS + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_NAME:
+                            out.print((continuous ? "continuous" : "classic") + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_PLAYAGAIN:
+                            out.print(QuizService.CONTINUE + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_QUESTION:
+                            questions++;
+                            out.print("0" + QuizService.DELIMITER);
+                            break;
+                        default:
+                            continue;
+                    }
+                    out.flush();
+                }
+            }
+            catch(IOException e){
+                //the benchmark is over
+            }
+        }
+    }
+
+    private static void run(QuizServer server, boolean continuous) throws IOException, InterruptedException {
+        try(DelayProxy proxy = new DelayProxy(server.getLocalPort(), ROUND_TRIP_MILLIS)){
+            Socket client = proxy.connect();
+            Bot bot = new Bot(client, continuous);
+            new Thread(bot).start();
+            //let the handshake and the first questions pass before measuring
+            Thread.sleep(10 * ROUND_TRIP_MILLIS);
+
+            long startQuestions = bot.questions;
+            long start = System.nanoTime();
+            Thread.sleep(MEASURE_MILLIS);
+            long questions = bot.questions - startQuestions;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-10s play over a %d ms round trip: %6.2f questions/s per connection, %5.1f ms per " +
+                    "question%n", continuous ? "continuous" : "classic", ROUND_TRIP_MILLIS, questions / seconds,
+                    seconds * 1000 / questions);
+        }
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if a socket cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the benchmark
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setHeartbeatIntervalMillis(0);
+        config.setContinuousPlay(true);
+        //an unreachable upstream, so every question comes from the offline category
+        config.setCategoryURI("http://127.0.0.1:1/api/category?id=");
+        QuizServer server = new QuizServer(config, new LeaderBoard());
+        new Thread(() -> {
+            try{
+                server.openServer();
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }).start();
+        while(server.getLocalPort() == -1){
+            Thread.sleep(10);
+        }
+
+        for(int round = 0; round < 2; round++){
+            run(server, false);
+            run(server, true);
+        }
+        server.stop();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,118 @@
+package Server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Simulates a slow link to a server by forwarding every connection made through it, delivering every chunk of bytes
+ * half a round trip after it was read, in each direction. Chunks are delayed independently, so a client may have
+ * several in flight as it would on a real link.
+ * This class is provided for benchmarking purposes only, see ContinuousPlayBenchmark and BatchPlayBenchmark.
+ */
+class DelayProxy implements Closeable {
+
+    /**
+     * A chunk of bytes in flight and the time it is delivered at
+     */
+    private static class Chunk {
+        private final byte[] bytes;
+        private final long due;
+
+        Chunk(byte[] bytes, long due){
+            this.bytes = bytes;
+            this.due = due;
+        }
+    }
+
+    private final long DELAY_NANOS;
+
+    private int targetPort;
+    private ServerSocket proxy;
+    private List<Socket> sockets;
+
+    /**
+     * Constructs a DelayProxy to a server on this host
+     * @param targetPort the port of the server
+     * @param roundTripMillis the round trip time to simulate
+     * @throws IOException if the proxy's socket cannot be opened
+     */
+    DelayProxy(int targetPort, long roundTripMillis) throws IOException {
+        DELAY_NANOS = roundTripMillis * 500_000;
+        this.targetPort = targetPort;
+        proxy = new ServerSocket(0);
+        sockets = new ArrayList<>();
+    }
+
+    /**
+     * Opens a connection to the server through the proxy
+     * @return the client's end of the connection
+     * @throws IOException if the connection cannot be made
+     */
+    Socket connect() throws IOException {
+        Socket client = new Socket("127.0.0.1", proxy.getLocalPort());
+        Socket accepted = proxy.accept();
+        Socket upstream = new Socket("127.0.0.1", targetPort);
+        sockets.add(client);
+        sockets.add(accepted);
+        sockets.add(upstream);
+        pipe(accepted.getInputStream(), upstream.getOutputStream());
+        pipe(upstream.getInputStream(), accepted.getOutputStream());
+        return client;
+    }
+
+    /**
+     * Closes the proxy and every connection made through it
+     * @throws IOException if a socket cannot be closed
+     */
+    public void close() throws IOException {
+        proxy.close();
+        for(Socket socket : sockets){
+            socket.close();
+        }
+    }
+
+    private void pipe(InputStream from, OutputStream to){
+        BlockingQueue<Chunk> inFlight = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            try{
+                int read;
+                while((read = from.read(buffer)) != -1){
+                    inFlight.put(new Chunk(Arrays.copyOf(buffer, read), System.nanoTime() + DELAY_NANOS));
+                }
+            }
+            catch(IOException | InterruptedException e){
+                //the connection is closed
+            }
+        });
+        Thread writer = new Thread(() -> {
+            try{
+                while(true){
+                    Chunk chunk = inFlight.take();
+                    long wait = chunk.due - System.nanoTime();
+                    if(wait > 0){
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    }
+                    to.write(chunk.bytes);
+                    to.flush();
+                }
+            }
+            catch(IOException | InterruptedException e){
+                //the connection is closed
+            }
+        });
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+        reader.start();
+        writer.start();
+    }
+}
@@ -0,0 +1,147 @@
+package Server;
+
+import QuizQuestion.MultipleChoiceQuestion;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Optional compression of protocol frames, negotiated per connection. A server which supports it sends COMPRESS~N~
+ * before NAME, where N is its size threshold; a client which also supports it answers COMPRESS~ before its name.
+ * From then on any frames of at least N bytes which are written together are deflated and sent as a single
+ * ZIP~PAYLOAD~ frame, where PAYLOAD is the Base64 encoding of the deflated frames, so it never contains the delimiter.
+ * Smaller frames are sent as they are. Clients which do not answer the offer keep receiving plain frames.
+ * Every payload is deflated on its own with a preset dictionary of the text which repeats in every turn (the
+ * greeting, prompts, question dividers and the leaderboard header), so that even a single question compresses well.
+ * The server and client must use the same dictionary, which is why both use this class.
+ * A FrameCompression is used by a single connection and is not thread-safe.
+ */
+public class FrameCompression {
+
+    public static final String CODE_COMPRESS = "COMPRESS";
+    public static final String CODE_ZIP = "ZIP";
+    public static final int DEFAULT_THRESHOLD = 64;
+
+    //zlib favours matches near the end of the dictionary, so the most frequent text comes last
+    private static final byte[] DICTIONARY = (QuizService.GREETING
+            + "Please enter your name:\n"
+            + QuizService.sendMessage(QuizService.GOODBYE)
+            + QuizService.sendMessage(QuizService.CORRECT)
+            + QuizService.sendMessage(QuizService.INCORRECT)
+            + QuizService.sendMessage(QuizService.WAIT)
+            + QuizService.sendMessage(QuizService.CODE_PLAYAGAIN)
+            + QuizService.CODE_MSG + QuizService.DELIMITER + LeaderBoard.LEADERBOARD_HEADER
+            + LeaderBoard.COLUMN_SPACER + "1\n" + LeaderBoard.COLUMN_SPACER + "0\n"
+            + "\nYour current Streak is: 0\n" + QuizService.DELIMITER
+            + QuizService.sendMessage(QuizService.CATEGORY) + "\n" + MultipleChoiceQuestion.ROW_DIVIDER
+            + "?\n" + MultipleChoiceQuestion.ROW_DIVIDER + "0: \n1: \n2: \n3: \n" + MultipleChoiceQuestion.ROW_DIVIDER
+            + QuizService.DELIMITER).getBytes(StandardCharsets.UTF_8);
+
+    private final int THRESHOLD;
+
+    private Deflater deflater;
+    private Inflater inflater;
+    private byte[] buffer;
+    private long plainBytes;
+    private long sentBytes;
+
+    /**
+     * Constructs a FrameCompression
+     * @param threshold the size in bytes below which frames are sent as they are
+     */
+    public FrameCompression(int threshold){
+        THRESHOLD = threshold;
+        deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        inflater = new Inflater();
+        buffer = new byte[1024];
+    }
+
+    /**
+     * Compresses frames about to be sent, unless they are below the threshold or would not get smaller
+     * @param frames one or more frames in the CODE~MESSAGE~ pattern
+     * @return a ZIP frame holding the frames, or the frames themselves
+     */
+    public String compress(String frames){
+        byte[] plain = frames.getBytes(StandardCharsets.UTF_8);
+        plainBytes += plain.length;
+        if(plain.length < THRESHOLD){
+            sentBytes += plain.length;
+            return frames;
+        }
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(plain);
+        deflater.finish();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(plain.length / 2);
+        while(!deflater.finished()){
+            deflated.write(buffer, 0, deflater.deflate(buffer));
+        }
+        String zipped = CODE_ZIP + QuizService.DELIMITER
+                + Base64.getEncoder().encodeToString(deflated.toByteArray()) + QuizService.DELIMITER;
+        if(zipped.length() >= plain.length){
+            sentBytes += plain.length;
+            return frames;
+        }
+        sentBytes += zipped.length();
+        return zipped;
+    }
+
+    /**
+     * Restores the frames held by the payload of a ZIP frame
+     * @param payload the MESSAGE part of a ZIP frame
+     * @return the frames which were compressed
+     * @throws IllegalArgumentException if the payload is not a valid compressed payload
+     */
+    public String decompress(String payload){
+        byte[] deflated = Base64.getDecoder().decode(payload);
+        inflater.reset();
+        inflater.setInput(deflated);
+        ByteArrayOutputStream plain = new ByteArrayOutputStream(deflated.length * 4);
+        try{
+            while(!inflater.finished()){
+                int n = inflater.inflate(buffer);
+                if(n == 0){
+                    if(inflater.needsDictionary()){
+                        inflater.setDictionary(DICTIONARY);
+                    }
+                    else if(inflater.needsInput()){
+                        throw new IllegalArgumentException("truncated ZIP payload");
+                    }
+                }
+                plain.write(buffer, 0, n);
+            }
+        }
+        catch(DataFormatException e){
+            throw new IllegalArgumentException("invalid ZIP payload", e);
+        }
+        return new String(plain.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retrieves the number of bytes passed to compress
+     * @return the number of bytes before compression
+     */
+    public long getPlainBytes(){
+        return plainBytes;
+    }
+
+    /**
+     * Retrieves the number of bytes returned by compress, which is what was actually sent
+     * @return the number of bytes after compression
+     */
+    public long getSentBytes(){
+        return sentBytes;
+    }
+
+    /**
+     * Releases the native memory held by the compressor, after which it must not be used
+     */
+    public void close(){
+        deflater.end();
+        inflater.end();
+    }
+}
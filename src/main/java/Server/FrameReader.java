@@ -0,0 +1,170 @@
+package Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the ~ delimited tokens sent by a client without creating objects for each token, unlike a Scanner, which
+ * matches a regular expression and creates a String for every token. Bytes are read into a reusable buffer, and the
+ * current token can be compared, parsed as a number, or converted to a String only where one is really needed, such
+ * as a player's name. Tokens are compared as bytes, so the protocol words compared against must be ASCII.
+ * A FrameReader is used by a single session thread and is not thread-safe.
+ */
+public class FrameReader {
+
+    private static final byte DELIMITER = '~';
+    private static final int BUFFER_SIZE = 8192;
+
+    private InputStream in;
+    private Charset charset;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private byte[] token;
+    private int tokenLength;
+
+    /**
+     * Constructs a FrameReader
+     * @param in the stream of bytes sent by the client
+     * @param charset the charset in which the client encodes its responses
+     */
+    public FrameReader(InputStream in, Charset charset){
+        this.in = in;
+        this.charset = charset;
+        buffer = new byte[BUFFER_SIZE];
+        token = new byte[64];
+    }
+
+    /**
+     * Reads the next token, which then becomes the current token
+     * @throws NoSuchElementException if the client closed the connection, like Scanner.next
+     */
+    public void next(){
+        tokenLength = 0;
+        while(true){
+            if(position == limit && !fill()){
+                throw new NoSuchElementException();
+            }
+            byte b = buffer[position++];
+            if(b == DELIMITER){
+                return;
+            }
+            if(tokenLength == token.length){
+                byte[] larger = new byte[token.length * 2];
+                System.arraycopy(token, 0, larger, 0, tokenLength);
+                token = larger;
+            }
+            token[tokenLength++] = b;
+        }
+    }
+
+    /**
+     * Compares the current token to a protocol word
+     * @param word an ASCII word, such as HEARTBEAT
+     * @return true if the current token is exactly the word
+     */
+    public boolean is(String word){
+        if(word.length() != tokenLength){
+            return false;
+        }
+        for(int i = 0; i < tokenLength; i++){
+            if(token[i] != word.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the current token to a protocol word, ignoring case
+     * @param word an ASCII word, such as Y
+     * @return true if the current token is the word in upper or lower case
+     */
+    public boolean isIgnoreCase(String word){
+        if(word.length() != tokenLength){
+            return false;
+        }
+        for(int i = 0; i < tokenLength; i++){
+            if(Character.toUpperCase(token[i]) != Character.toUpperCase(word.charAt(i))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the current token as a non-negative whole number, such as the answer to a question
+     * @return the number, or -1 if the token is empty, contains anything but digits or is too large
+     */
+    public int asNumber(){
+        return parse(0, tokenLength);
+    }
+
+    /**
+     * Parses the current token as whole numbers separated by spaces or commas, such as the answers to a batch of
+     * questions. Each number is parsed like asNumber.
+     * @param numbers the array to fill with the numbers, of which those beyond its length are counted but not kept
+     * @return the count of numbers in the token, 0 if it is empty
+     */
+    public int asNumbers(int[] numbers){
+        int count = 0;
+        int start = 0;
+        while(start < tokenLength){
+            int end = start;
+            while(end < tokenLength && token[end] != ' ' && token[end] != ','){
+                end++;
+            }
+            if(end > start){
+                if(count < numbers.length){
+                    numbers[count] = parse(start, end);
+                }
+                count++;
+            }
+            start = end + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Converts the current token to a String
+     * @return the current token
+     */
+    public String asString(){
+        return new String(token, 0, tokenLength, charset);
+    }
+
+    private boolean fill(){
+        try{
+            limit = in.read(buffer);
+            position = 0;
+            if(limit <= 0){
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+        catch(IOException e){
+            //like a Scanner, a failed read is treated as the end of input
+            limit = 0;
+            position = 0;
+            return false;
+        }
+    }
+
+    private int parse(int start, int end){
+        if(end == start || end - start > 9){
+            return -1;
+        }
+        int number = 0;
+        for(int i = start; i < end; i++){
+            int digit = token[i] - '0';
+            if(digit < 0 || digit > 9){
+                return -1;
+            }
+            number = number * 10 + digit;
+        }
+        return number;
+    }
+}
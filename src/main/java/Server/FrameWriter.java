@@ -0,0 +1,99 @@
+package Server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writes frames to a client without creating objects for each frame. Frames are appended to a reusable StringBuilder,
+ * then encoded through a reusable CharsetEncoder into a reusable byte buffer and written with a single write per
+ * send. If the client accepted compression, the frames are compressed first, which does create objects.
+ * A FrameWriter is used by a single session thread and is not thread-safe.
+ */
+public class FrameWriter {
+
+    private OutputStream out;
+    private StringBuilder frames;
+    private char[] chars;
+    private CharBuffer charBuffer;
+    private ByteBuffer byteBuffer;
+    private CharsetEncoder encoder;
+    private FrameCompression compression;
+
+    /**
+     * Constructs a FrameWriter
+     * @param out the stream of bytes to the client
+     * @param charset the charset in which frames are encoded for the client
+     */
+    public FrameWriter(OutputStream out, Charset charset){
+        this.out = out;
+        frames = new StringBuilder(1024);
+        chars = new char[1024];
+        charBuffer = CharBuffer.wrap(chars);
+        byteBuffer = ByteBuffer.allocate(4096);
+        //like a PrintWriter, characters the charset cannot encode are replaced
+        encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Retrieves the StringBuilder to which the frames of the next send are appended
+     * @return the pending frames
+     */
+    public StringBuilder frames(){
+        return frames;
+    }
+
+    /**
+     * Compresses the frames of every following send, see FrameCompression
+     * @param compression the compressor of this connection
+     */
+    public void compress(FrameCompression compression){
+        this.compression = compression;
+    }
+
+    /**
+     * Appends a frame to the pending frames and sends them
+     * @param frame a frame in the CODE~MESSAGE~ pattern
+     * @throws IOException if the frames cannot be written
+     */
+    public void send(String frame) throws IOException {
+        frames.append(frame);
+        send();
+    }
+
+    /**
+     * Sends the pending frames to the client, which leaves no frames pending
+     * @throws IOException if the frames cannot be written
+     */
+    public void send() throws IOException {
+        if(compression != null){
+            String zipped = compression.compress(frames.toString());
+            frames.setLength(0);
+            frames.append(zipped);
+        }
+        int length = frames.length();
+        if(length > chars.length){
+            chars = new char[Math.max(length, chars.length * 2)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        int maxBytes = (int) Math.ceil(length * (double) encoder.maxBytesPerChar());
+        if(maxBytes > byteBuffer.capacity()){
+            byteBuffer = ByteBuffer.allocate(Math.max(maxBytes, byteBuffer.capacity() * 2));
+        }
+        frames.getChars(0, length, chars, 0);
+        frames.setLength(0);
+        charBuffer.clear().limit(length);
+        byteBuffer.clear();
+        encoder.reset();
+        encoder.encode(charBuffer, byteBuffer, true);
+        encoder.flush(byteBuffer);
+        out.write(byteBuffer.array(), 0, byteBuffer.position());
+        out.flush();
+    }
+}
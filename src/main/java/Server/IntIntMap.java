@@ -0,0 +1,212 @@
+package Server;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative int keys to int values, such as player ids to streaks, which stores both in plain int arrays
+ * instead of boxing them into a HashMap's entries. Keys are found by open addressing with linear probing, and removed
+ * by shifting the following keys back, so no tombstones are left behind.
+ * An IntIntMap is not thread-safe, its owner guards it with a lock.
+ */
+public class IntIntMap {
+
+    /**
+     * The key of an empty slot
+     */
+    public static final int EMPTY = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    /**
+     * Constructs an empty IntIntMap
+     */
+    public IntIntMap(){
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty IntIntMap with room for a number of keys before it needs to grow
+     * @param expected the number of keys expected
+     */
+    public IntIntMap(int expected){
+        int capacity = MIN_CAPACITY;
+        while(capacity * 3 / 4 < expected){
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value
+     * @param key a key of at least 0
+     * @param value the value
+     * @param missing the value to return if the key was not in the map
+     * @return the previous value of the key, or missing
+     */
+    public int put(int key, int value, int missing){
+        if(key < 0){
+            throw new IllegalArgumentException("negative key: " + key);
+        }
+        int slot = slotOf(key);
+        if(keys[slot] == key){
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size > resizeAt){
+            grow();
+        }
+        return missing;
+    }
+
+    /**
+     * Replaces the value of a key which is already in the map
+     * @param key the key
+     * @param value the new value
+     * @return true if the key was in the map, false if nothing changed
+     */
+    public boolean replace(int key, int value){
+        if(key < 0){
+            return false;
+        }
+        int slot = slotOf(key);
+        if(keys[slot] != key){
+            return false;
+        }
+        values[slot] = value;
+        return true;
+    }
+
+    /**
+     * Retrieves the value of a key
+     * @param key the key
+     * @param missing the value to return if the key is not in the map
+     * @return the value of the key, or missing
+     */
+    public int get(int key, int missing){
+        if(key < 0){
+            return missing;
+        }
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    /**
+     * Checks whether a key is in the map
+     * @param key the key
+     * @return true if the map holds a value for the key
+     */
+    public boolean containsKey(int key){
+        return key >= 0 && keys[slotOf(key)] == key;
+    }
+
+    /**
+     * Removes a key and its value
+     * @param key the key
+     * @return true if the key was in the map
+     */
+    public boolean remove(int key){
+        if(key < 0){
+            return false;
+        }
+        int slot = slotOf(key);
+        if(keys[slot] != key){
+            return false;
+        }
+        //shift back any key which probed past the freed slot, so every key stays reachable from its home slot
+        int free = slot;
+        int next = (free + 1) & mask;
+        while(keys[next] != EMPTY){
+            int home = hash(keys[next]);
+            if(((next - home) & mask) >= ((next - free) & mask)){
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Retrieves the number of keys in the map
+     * @return the number of keys
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Retrieves the number of slots, for iterating over the map with keyAt and valueAt
+     * @return the number of slots
+     */
+    public int capacity(){
+        return keys.length;
+    }
+
+    /**
+     * Retrieves the key in a slot
+     * @param slot a slot from 0 to capacity - 1
+     * @return the key, or EMPTY if the slot is empty
+     */
+    public int keyAt(int slot){
+        return keys[slot];
+    }
+
+    /**
+     * Retrieves the value in a slot
+     * @param slot a slot from 0 to capacity - 1 whose key is not EMPTY
+     * @return the value
+     */
+    public int valueAt(int slot){
+        return values[slot];
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it would be inserted
+     */
+    private int slotOf(int key){
+        int slot = hash(key);
+        while(keys[slot] != key && keys[slot] != EMPTY){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int hash(int key){
+        //ids are small and sequential, so spread them over the table with a Fibonacci multiplier
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity){
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeAt = capacity * 3 / 4;
+    }
+
+    private void grow(){
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldKeys[i] != EMPTY){
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package Server;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed-size table of token buckets, one per client IP address, which caps how quickly each address may open new
+ * connections. Each bucket holds up to a burst of tokens and refills at a steady rate; a connection takes one token.
+ * The table is three parallel arrays indexed by a hash of the address, so it never allocates after construction.
+ * An address is looked up among a few neighbouring slots; when they are all taken, the slot refilled longest ago is
+ * reused, since an address which has been quiet that long has usually refilled its whole burst anyway.
+ * IPv6 addresses are folded into a 64 bit hash, so two of them may rarely share a bucket.
+ */
+public class IpTokenBuckets {
+
+    private static final int PROBES = 8;
+
+    private final double BURST;
+    private final double TOKENS_PER_NANO;
+
+    private long[] keys;
+    private float[] tokens;
+    private long[] refilled;
+    private int mask;
+    private Lock tableLock;
+
+    /**
+     * Constructs an IpTokenBuckets table
+     * @param size the number of addresses tracked at once, rounded up to a power of two
+     * @param burst the number of connections an address may open at once
+     * @param connectionsPerSecond the rate at which an address's tokens refill
+     */
+    public IpTokenBuckets(int size, int burst, double connectionsPerSecond){
+        int capacity = Integer.highestOneBit(Math.max(PROBES, size - 1)) << 1;
+        BURST = burst;
+        TOKENS_PER_NANO = connectionsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        keys = new long[capacity];
+        tokens = new float[capacity];
+        refilled = new long[capacity];
+        mask = capacity - 1;
+        tableLock = new ReentrantLock();
+    }
+
+    /**
+     * Takes a token for a new connection from an address
+     * @param address the address of the client
+     * @return true if the connection may proceed, false if the address has used up its tokens
+     */
+    public boolean tryAcquire(InetAddress address){
+        return tryAcquire(keyOf(address), System.nanoTime());
+    }
+
+    /**
+     * Calculates how long an address must wait until it has a token again
+     * @param address the address of the client
+     * @return the wait in milliseconds, 0 if the address has a token now
+     */
+    public long millisUntilToken(InetAddress address){
+        tableLock.lock();
+        try{
+            int slot = slotOf(keyOf(address), System.nanoTime());
+            double missing = 1 - tokens[slot];
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / TOKENS_PER_NANO / TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        finally {
+            tableLock.unlock();
+        }
+    }
+
+    boolean tryAcquire(long key, long now){
+        tableLock.lock();
+        try{
+            int slot = slotOf(key, now);
+            if(tokens[slot] < 1){
+                return false;
+            }
+            tokens[slot]--;
+            return true;
+        }
+        finally {
+            tableLock.unlock();
+        }
+    }
+
+    /**
+     * Finds or claims the slot of a key and refills its bucket, the caller must hold the table lock
+     */
+    private int slotOf(long key, long now){
+        int home = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        home ^= home >>> 16;
+        int oldest = home & mask;
+        for(int i = 0; i < PROBES; i++){
+            int slot = (home + i) & mask;
+            if(keys[slot] == key){
+                tokens[slot] = (float) Math.min(BURST, tokens[slot] + (now - refilled[slot]) * TOKENS_PER_NANO);
+                refilled[slot] = now;
+                return slot;
+            }
+            if(keys[slot] == 0){
+                oldest = slot;
+                break;
+            }
+            if(refilled[slot] - refilled[oldest] < 0){
+                oldest = slot;
+            }
+        }
+        keys[oldest] = key;
+        tokens[oldest] = (float) BURST;
+        refilled[oldest] = now;
+        return oldest;
+    }
+
+    /**
+     * Encodes an address as a non-zero key, IPv4 addresses exactly and IPv6 addresses folded into the upper half
+     */
+    private static long keyOf(InetAddress address){
+        byte[] bytes = address.getAddress();
+        if(address instanceof Inet4Address){
+            return (1L << 32) | (((bytes[0] & 0xFFL) << 24) | ((bytes[1] & 0xFFL) << 16) | ((bytes[2] & 0xFFL) << 8) | (bytes[3] & 0xFFL));
+        }
+        long hash = 1125899906842597L;
+        for(byte b : bytes){
+            hash = 31 * hash + b;
+        }
+        return hash | (1L << 62);
+    }
+}
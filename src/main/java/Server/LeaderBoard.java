@@ -1,30 +1,41 @@
 package Server;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
 
 /**
  * Leaderboard is a thread-safe class which keeps track of multiple users' quiz score streaks in real time.
  * All methods utilize a basic lock-try-finally-unlock idiom to avoid race conditions and provide thread safety.
+ * Every player has a compact int id from a PlayerRegistry, which keeps their name once, and streaks are kept in an
+ * IntIntMap keyed by id, so updating a streak neither boxes it nor hashes the player's name. Players who join get an id
+ * of their own, so two players sharing a name no longer overwrite each other's streak; players updated by name share
+ * one id per name, as before.
  */
 public class LeaderBoard implements Scorable{
 
-    private final String LEADERBOARD_HEADER = "************************\n* Top 3 Active Streaks *\n************************\n";
-    private final String COLUMN_SPACER = ":   ";
-    private Map<String, Integer> leaderBoard;
+    static final String LEADERBOARD_HEADER = "************************\n* Top 3 Active Streaks *\n************************\n";
+    static final String COLUMN_SPACER = ":   ";
+    private PlayerRegistry players;
+    private IntIntMap streaks;
+    private Map<String, Integer> idsByName;
     private Lock leaderBoardLock;
 
+    //reused by appendTop3 while holding the lock
+    private int[] topIds;
+    private int[] topStreaks;
+
     /**
      * Constructs an empty LeaderBoard
      */
     public LeaderBoard(){
-        leaderBoard = new HashMap<>();
+        players = new PlayerRegistry();
+        streaks = new IntIntMap();
+        idsByName = new HashMap<>();
         leaderBoardLock = new ReentrantLock();
+        topIds = new int[3];
+        topStreaks = new int[3];
     }
 
     /**
@@ -35,7 +46,23 @@ public class LeaderBoard implements Scorable{
     public void update(String name, int streak) {
         leaderBoardLock.lock();
         try{
-            leaderBoard.put(name, streak);
+            updateByName(name, streak);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streaks of several users while acquiring the lock only once
+     * @param streaks the current number of correct answers in a row, keyed by user
+     */
+    public void updateAll(Map<String, Integer> streaks) {
+        leaderBoardLock.lock();
+        try{
+            for(Map.Entry<String, Integer> entry : streaks.entrySet()){
+                updateByName(entry.getKey(), entry.getValue());
+            }
         }
         finally {
             leaderBoardLock.unlock();
@@ -49,7 +76,11 @@ public class LeaderBoard implements Scorable{
     public void delete(String name) {
         leaderBoardLock.lock();
         try{
-            leaderBoard.remove(name);
+            Integer id = idsByName.remove(name);
+            if(id != null){
+                streaks.remove(id);
+                players.release(id);
+            }
         }
         finally {
             leaderBoardLock.unlock();
@@ -65,7 +96,10 @@ public class LeaderBoard implements Scorable{
         int result = 0;
         leaderBoardLock.lock();
         try{
-            result = leaderBoard.getOrDefault(name, 0);
+            Integer id = idsByName.get(name);
+            if(id != null){
+                result = streaks.get(id, 0);
+            }
         }
         finally {
             leaderBoardLock.unlock();
@@ -74,28 +108,151 @@ public class LeaderBoard implements Scorable{
     }
 
     /**
-     * Convert the Leaderboard into a snazzy String containing the Top 3 users with their active streaks
-     * this is done by creating a stream from the keySet of the leaderBoard Map and sorting them into a list
-     * such that the index of each name in the list correspond to the top 3 players by streak in descending order.
+     * Adds a player with a streak of 0 under an id of their own
+     * @param name the player's name, which need not be unique
+     * @return the player's id
+     */
+    public int join(String name) {
+        leaderBoardLock.lock();
+        try{
+            int id = players.register(name);
+            streaks.put(id, 0, 0);
+            return id;
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streak of a player who joined, which does nothing once they have left
+     * @param id the player's id
+     * @param streak The current number of correct answers in a row
+     */
+    public void update(int id, int streak) {
+        leaderBoardLock.lock();
+        try{
+            streaks.replace(id, streak);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streaks of several players who joined while acquiring the lock only once
+     * @param ids the players' ids
+     * @param streaks the current number of correct answers in a row of the player at the same index
+     * @param count the number of players to update, from the start of both arrays
+     */
+    public void updateAll(int[] ids, int[] streaks, int count) {
+        leaderBoardLock.lock();
+        try{
+            for(int i = 0; i < count; i++){
+                this.streaks.replace(ids[i], streaks[i]);
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the active streak of a player who joined
+     * @param id the player's id
+     * @return the current active streak of the player, or 0 if no player has the id
+     */
+    public int get(int id) {
+        leaderBoardLock.lock();
+        try{
+            return streaks.get(id, 0);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a player who joined, after which their id may be given to another player
+     * @param id the player's id
+     */
+    public void leave(int id) {
+        leaderBoardLock.lock();
+        try{
+            if(streaks.remove(id)){
+                players.release(id);
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the name of a player
+     * @param id the player's id
+     * @return the player's name, or null if no player has the id
+     */
+    public String nameOf(int id) {
+        leaderBoardLock.lock();
+        try{
+            return players.nameOf(id);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Convert the Leaderboard into a snazzy String containing the Top 3 users with their active streaks,
+     * built by appendTop3
      * @return a text version of the top 3 streaks
      */
     public String prettyPrintTop3() {
-        String result = LEADERBOARD_HEADER;
+        StringBuilder result = new StringBuilder(LEADERBOARD_HEADER.length() + 64);
+        appendTop3(result);
+        return result.toString();
+    }
+
+    /**
+     * Appends the text of prettyPrintTop3 to a StringBuilder. Instead of sorting every user, a single pass over the
+     * streaks keeps the best 3 seen so far, so no objects are created. Ties go to the player with the lower id, who
+     * usually joined first.
+     * @param out the StringBuilder to append to
+     */
+    public void appendTop3(StringBuilder out) {
+        out.append(LEADERBOARD_HEADER);
         leaderBoardLock.lock();
         try {
-            Set<String> keySet = leaderBoard.keySet();
-            List<String> top3 = keySet.stream()
-                    .sorted((n, m) -> leaderBoard.get(m) - leaderBoard.get(n)) //sort in descending order
-                    .limit(3)
-                    .collect(Collectors.toList());
-            for (int i = 0; i < top3.size(); i++){
-                result = result + top3.get(i) + COLUMN_SPACER + leaderBoard.get(top3.get(i)) + "\n";
+            int count = 0;
+            for (int slot = 0; slot < streaks.capacity(); slot++){
+                int id = streaks.keyAt(slot);
+                if (id == IntIntMap.EMPTY){
+                    continue;
+                }
+                int streak = streaks.valueAt(slot);
+                int position = count;
+                while (position > 0 && (topStreaks[position - 1] < streak
+                        || (topStreaks[position - 1] == streak && topIds[position - 1] > id))){
+                    position--;
+                }
+                if (position < 3){
+                    for (int i = Math.min(count, 2); i > position; i--){
+                        topIds[i] = topIds[i - 1];
+                        topStreaks[i] = topStreaks[i - 1];
+                    }
+                    topIds[position] = id;
+                    topStreaks[position] = streak;
+                    count = Math.min(count + 1, 3);
+                }
+            }
+            for (int i = 0; i < count; i++){
+                out.append(players.nameOf(topIds[i])).append(COLUMN_SPACER).append(topStreaks[i]).append('\n');
             }
         }
         finally {
             leaderBoardLock.unlock();
         }
-        return result;
     }
 
     /**
@@ -103,6 +260,24 @@ public class LeaderBoard implements Scorable{
      * @return the number of users saved in the LeaderBoard
      */
     public int size(){
-        return leaderBoard.size();
+        leaderBoardLock.lock();
+        try{
+            return streaks.size();
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates a streak by name, giving the name an id if it has none. The caller must hold the lock.
+     */
+    private void updateByName(String name, int streak){
+        Integer id = idsByName.get(name);
+        if(id == null){
+            id = players.register(name);
+            idsByName.put(name, id);
+        }
+        streaks.put(id, streak, 0);
     }
 }
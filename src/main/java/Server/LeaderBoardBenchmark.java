@@ -0,0 +1,85 @@
+package Server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of Scorable.update from 1 to 32 threads for LeaderBoard, ShardedLeaderBoard and a
+ * WindowedLeaderBoard around a ShardedLeaderBoard.
+ * Every thread updates random players from a shared pool with random streaks, and prints the top 3 once per 100
+ * updates as a QuizService would once per turn.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class LeaderBoardBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final int PLAYERS = 100_000;
+    private static final long MEASURE_MILLIS = 1000;
+    private static final int UPDATES_PER_PRINT = 100;
+
+    private static double run(Scorable leaderBoard, int threadCount, String[] names) throws InterruptedException {
+        for(String name : names){
+            leaderBoard.update(name, 0);
+        }
+        LongAdder updates = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < threadCount; t++){
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                while(running.get()){
+                    leaderBoard.update(names[random.nextInt(names.length)], random.nextInt(50));
+                    if(++count % UPDATES_PER_PRINT == 0){
+                        leaderBoard.prettyPrintTop3();
+                    }
+                }
+                updates.add(count);
+            });
+            threads.add(thread);
+        }
+        long start = System.nanoTime();
+        for(Thread thread : threads){
+            thread.start();
+        }
+        Thread.sleep(MEASURE_MILLIS);
+        running.set(false);
+        for(Thread thread : threads){
+            thread.join();
+        }
+        return updates.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws InterruptedException if interrupted while waiting for the benchmark threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String[] names = new String[PLAYERS];
+        for(int i = 0; i < PLAYERS; i++){
+            names[i] = "player" + i;
+        }
+        System.out.println(Runtime.getRuntime().availableProcessors() + " available processors, "
+                + PLAYERS + " players");
+        System.out.println("threads      LeaderBoard  ShardedLeaderBoard  WindowedLeaderBoard   (updates/s)");
+
+        Supplier<Scorable> plain = LeaderBoard::new;
+        Supplier<Scorable> sharded = () -> new ShardedLeaderBoard(32);
+        Supplier<Scorable> windowed = () -> new WindowedLeaderBoard(new ShardedLeaderBoard(32));
+        //warm up every implementation before measuring
+        run(plain.get(), 4, names);
+        run(sharded.get(), 4, names);
+        run(windowed.get(), 4, names);
+        for(int threads : THREAD_COUNTS){
+            double plainRate = run(plain.get(), threads, names);
+            double shardedRate = run(sharded.get(), threads, names);
+            double windowedRate = run(windowed.get(), threads, names);
+            System.out.printf("%7d %16.0f %19.0f %20.0f%n", threads, plainRate, shardedRate, windowedRate);
+        }
+    }
+}
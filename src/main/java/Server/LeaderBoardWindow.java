@@ -0,0 +1,72 @@
+package Server;
+
+/**
+ * The windows of time over which a WindowedLeaderBoard ranks the best streaks, each made up of a number of time
+ * buckets. A window always includes the bucket of the current time, so the last hour is the current minute and the
+ * 59 minutes before it, and the last day is the current hour and the 23 hours before it.
+ * A client asks for a window with TOP~CODE~, for example TOP~1H~.
+ */
+public enum LeaderBoardWindow {
+
+    FIVE_MINUTES("5M", "5 Minutes", WindowedLeaderBoard.MINUTE_MILLIS, 5),
+    HOUR("1H", "Hour", WindowedLeaderBoard.MINUTE_MILLIS, 60),
+    DAY("24H", "24 Hours", WindowedLeaderBoard.HOUR_MILLIS, 24);
+
+    private final String code;
+    private final String description;
+    private final long bucketMillis;
+    private final int buckets;
+
+    LeaderBoardWindow(String code, String description, long bucketMillis, int buckets){
+        this.code = code;
+        this.description = description;
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Retrieves the code a client sends to ask for this window
+     * @return the code, such as 1H
+     */
+    public String getCode(){
+        return code;
+    }
+
+    /**
+     * Retrieves the text shown in the header of this window's ranking
+     * @return the description, such as Hour
+     */
+    public String getDescription(){
+        return description;
+    }
+
+    /**
+     * Retrieves the length of each bucket in this window
+     * @return the length of a bucket in milliseconds
+     */
+    public long getBucketMillis(){
+        return bucketMillis;
+    }
+
+    /**
+     * Retrieves the number of buckets in this window, including the bucket of the current time
+     * @return the number of buckets
+     */
+    public int getBuckets(){
+        return buckets;
+    }
+
+    /**
+     * Finds the window a client asked for
+     * @param in a FrameReader whose current token is the code of a window
+     * @return the window, or null if the token is not the code of any window
+     */
+    static LeaderBoardWindow read(FrameReader in){
+        for(LeaderBoardWindow window : values()){
+            if(in.isIgnoreCase(window.code)){
+                return window;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,590 @@
+package Server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A Scorable for millions of players, which keeps every player's record in a fixed-size slot outside the Java heap,
+ * either in a memory-mapped file or in direct memory, so that however many players there are the garbage collector
+ * never has to trace them.
+ * The region holds a header, the records and a hash index from name to record:
+ * - the header holds a magic number, a format version, the capacity, the number of players, the high-water mark of
+ *   used records and the head of the list of free records,
+ * - a record is RECORD_SIZE bytes: its state, the player's streak, the hash of their name and up to MAX_NAME_BYTES of
+ *   their name in UTF-8, longer names being cut short,
+ * - the index is an open-addressing table of record number + 1, 0 meaning empty, so that a new file full of zeros is
+ *   an empty index. Only players updated by name are in the index, since players who join are found by their id,
+ *   which is their record number.
+ * Since the region is the leaderboard, a mapped file survives the server stopping, and is opened again as it was left.
+ * Players who joined belonged to sessions which ended with the server, so they are removed when the file is opened.
+ * The exact top 3 is found from a short list of the best TOP_CANDIDATES records kept on the heap, which is only rebuilt
+ * by scanning every record once too many of its players have dropped out of it.
+ */
+public class MappedLeaderBoard implements Scorable {
+
+    public static final int RECORD_SIZE = 64;
+    public static final int MAX_NAME_BYTES = RECORD_SIZE - 14;
+
+    private static final int MAGIC = 0x5252514C;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int TOP_CANDIDATES = 32;
+
+    //header offsets
+    private static final int CAPACITY = 8;
+    private static final int SIZE = 12;
+    private static final int HIGH_WATER = 16;
+    private static final int FREE_HEAD = 20;
+
+    //record offsets, relative to the start of the record
+    private static final int STATE = 0;
+    private static final int STREAK = 4;
+    private static final int HASH = 8;
+    private static final int NAME_LENGTH = 12;
+    private static final int NAME = 14;
+
+    //record states
+    private static final int FREE = 0;
+    private static final int NAMED = 1;
+    private static final int JOINED = 2;
+
+    private final int CAPACITY_RECORDS;
+
+    private FileChannel channel;
+    private ByteBuffer region;
+    private int indexStart;
+    private int indexMask;
+    private Lock leaderBoardLock;
+
+    //the best records in ranking order, exactly the top candidateCount of all records
+    private int[] candidateIds;
+    private int[] candidateStreaks;
+    private int candidateCount;
+
+    /**
+     * Constructs an empty MappedLeaderBoard in direct memory, which is lost when the server stops
+     * @param capacity the maximum number of players
+     */
+    public MappedLeaderBoard(int capacity){
+        CAPACITY_RECORDS = capacity;
+        region = ByteBuffer.allocateDirect(regionSize(capacity));
+        init(true);
+    }
+
+    /**
+     * Opens a MappedLeaderBoard kept in a file, creating the file if it does not exist
+     * @param file the file holding the leaderboard
+     * @param capacity the maximum number of players, which must match the capacity of an existing file
+     * @throws IOException if the file cannot be opened or is not a leaderboard of the given capacity
+     */
+    public MappedLeaderBoard(Path file, int capacity) throws IOException {
+        CAPACITY_RECORDS = capacity;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        if(!created && channel.size() != regionSize(capacity)){
+            channel.close();
+            throw new IOException("not a leaderboard of capacity " + capacity + ": " + file);
+        }
+        region = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize(capacity));
+        if(!created && (region.getInt(0) != MAGIC || region.getShort(4) != VERSION
+                || region.getInt(CAPACITY) != capacity)){
+            channel.close();
+            throw new IOException("not a leaderboard of capacity " + capacity + ": " + file);
+        }
+        init(created);
+    }
+
+    private static int regionSize(int capacity){
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE + 4L * indexSlots(capacity);
+        if(size > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("capacity too large for one region: " + capacity);
+        }
+        return (int) size;
+    }
+
+    private static int indexSlots(int capacity){
+        //at most half full, so probes stay short
+        int slots = 16;
+        while(slots < capacity * 2L){
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    private void init(boolean created){
+        leaderBoardLock = new ReentrantLock();
+        indexStart = HEADER_SIZE + CAPACITY_RECORDS * RECORD_SIZE;
+        indexMask = indexSlots(CAPACITY_RECORDS) - 1;
+        candidateIds = new int[TOP_CANDIDATES];
+        candidateStreaks = new int[TOP_CANDIDATES];
+        if(created){
+            region.putInt(0, MAGIC);
+            region.putShort(4, VERSION);
+            region.putInt(CAPACITY, CAPACITY_RECORDS);
+            region.putInt(SIZE, 0);
+            region.putInt(HIGH_WATER, 0);
+            region.putInt(FREE_HEAD, -1);
+        }
+        else{
+            int highWater = region.getInt(HIGH_WATER);
+            for(int id = 0; id < highWater; id++){
+                if(state(id) == JOINED){
+                    freeRecord(id);
+                }
+            }
+        }
+        rebuildCandidates();
+    }
+
+    @Override
+    public void update(String name, int streak) {
+        byte[] bytes = nameBytes(name);
+        leaderBoardLock.lock();
+        try{
+            int id = find(bytes);
+            if(id < 0){
+                id = allocate(NAMED, bytes);
+                insertIndex(id);
+            }
+            setStreak(id, streak);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streaks of several users while acquiring the lock only once
+     * @param streaks the current number of correct answers in a row, keyed by user
+     */
+    @Override
+    public void updateAll(Map<String, Integer> streaks) {
+        leaderBoardLock.lock();
+        try{
+            for(Map.Entry<String, Integer> entry : streaks.entrySet()){
+                update(entry.getKey(), entry.getValue());
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String name) {
+        byte[] bytes = nameBytes(name);
+        leaderBoardLock.lock();
+        try{
+            int id = find(bytes);
+            if(id >= 0){
+                removeIndex(id);
+                freeRecord(id);
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    @Override
+    public int get(String name) {
+        byte[] bytes = nameBytes(name);
+        leaderBoardLock.lock();
+        try{
+            int id = find(bytes);
+            return id < 0 ? 0 : region.getInt(recordStart(id) + STREAK);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a player with a streak of 0 under an id of their own, which is the number of their record
+     * @param name the player's name, which need not be unique
+     * @return the player's id
+     * @throws IllegalStateException if the leaderboard is full
+     */
+    @Override
+    public int join(String name) {
+        byte[] bytes = nameBytes(name);
+        leaderBoardLock.lock();
+        try{
+            int id = allocate(JOINED, bytes);
+            setStreak(id, 0);
+            return id;
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    @Override
+    public void update(int id, int streak) {
+        leaderBoardLock.lock();
+        try{
+            if(state(id) == JOINED){
+                setStreak(id, streak);
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streaks of several players who joined while acquiring the lock only once
+     * @param ids the players' ids
+     * @param streaks the current number of correct answers in a row of the player at the same index
+     * @param count the number of players to update, from the start of both arrays
+     */
+    @Override
+    public void updateAll(int[] ids, int[] streaks, int count) {
+        leaderBoardLock.lock();
+        try{
+            for(int i = 0; i < count; i++){
+                if(state(ids[i]) == JOINED){
+                    setStreak(ids[i], streaks[i]);
+                }
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    @Override
+    public int get(int id) {
+        leaderBoardLock.lock();
+        try{
+            return state(id) == JOINED ? region.getInt(recordStart(id) + STREAK) : 0;
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    @Override
+    public void leave(int id) {
+        leaderBoardLock.lock();
+        try{
+            if(state(id) == JOINED){
+                freeRecord(id);
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    @Override
+    public String nameOf(int id) {
+        leaderBoardLock.lock();
+        try{
+            if(state(id) != JOINED){
+                return null;
+            }
+            int start = recordStart(id);
+            byte[] bytes = new byte[region.getShort(start + NAME_LENGTH)];
+            for(int i = 0; i < bytes.length; i++){
+                bytes[i] = region.get(start + NAME + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    @Override
+    public String prettyPrintTop3() {
+        StringBuilder result = new StringBuilder(LeaderBoard.LEADERBOARD_HEADER.length() + 64);
+        appendTop3(result);
+        return result.toString();
+    }
+
+    /**
+     * Appends the text of prettyPrintTop3 to a StringBuilder, without creating objects for names which are ASCII
+     * @param out the StringBuilder to append to
+     */
+    @Override
+    public void appendTop3(StringBuilder out) {
+        out.append(LeaderBoard.LEADERBOARD_HEADER);
+        leaderBoardLock.lock();
+        try{
+            if(candidateCount < 3 && candidateCount < size()){
+                rebuildCandidates();
+            }
+            for(int i = 0; i < Math.min(3, candidateCount); i++){
+                appendName(candidateIds[i], out);
+                out.append(LeaderBoard.COLUMN_SPACER).append(candidateStreaks[i]).append('\n');
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the total number of users currently stored in the MappedLeaderBoard
+     * @return the number of users
+     */
+    public int size(){
+        leaderBoardLock.lock();
+        try{
+            return region.getInt(SIZE);
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    /**
+     * Writes any changes still in memory to the file and closes it, after which the leaderboard must not be used.
+     * Changes reach the file even if the server stops without closing it, unless the machine itself goes down.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        leaderBoardLock.lock();
+        try{
+            if(channel != null){
+                ((MappedByteBuffer) region).force();
+                channel.close();
+            }
+        }
+        finally {
+            leaderBoardLock.unlock();
+        }
+    }
+
+    private static byte[] nameBytes(String name){
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length <= MAX_NAME_BYTES){
+            return bytes;
+        }
+        //cut the name short without splitting a character
+        int length = MAX_NAME_BYTES;
+        while((bytes[length] & 0xC0) == 0x80){
+            length--;
+        }
+        byte[] cut = new byte[length];
+        System.arraycopy(bytes, 0, cut, 0, length);
+        return cut;
+    }
+
+    private static int hash(byte[] bytes){
+        int h = 1;
+        for(byte b : bytes){
+            h = 31 * h + b;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private int recordStart(int id){
+        return HEADER_SIZE + id * RECORD_SIZE;
+    }
+
+    private int state(int id){
+        if(id < 0 || id >= region.getInt(HIGH_WATER)){
+            return FREE;
+        }
+        return region.getInt(recordStart(id) + STATE);
+    }
+
+    /**
+     * Takes a free record, or the next never used record, and stores a name in it. The caller must hold the lock.
+     */
+    private int allocate(int state, byte[] bytes){
+        int id = region.getInt(FREE_HEAD);
+        if(id >= 0){
+            //a free record's streak field holds the next free record
+            region.putInt(FREE_HEAD, region.getInt(recordStart(id) + STREAK));
+        }
+        else{
+            id = region.getInt(HIGH_WATER);
+            if(id == CAPACITY_RECORDS){
+                throw new IllegalStateException("the leaderboard is full, its capacity is " + CAPACITY_RECORDS);
+            }
+            region.putInt(HIGH_WATER, id + 1);
+        }
+        int start = recordStart(id);
+        region.putInt(start + STATE, state);
+        region.putInt(start + STREAK, Integer.MIN_VALUE);
+        region.putInt(start + HASH, hash(bytes));
+        region.putShort(start + NAME_LENGTH, (short) bytes.length);
+        for(int i = 0; i < bytes.length; i++){
+            region.put(start + NAME + i, bytes[i]);
+        }
+        region.putInt(SIZE, region.getInt(SIZE) + 1);
+        return id;
+    }
+
+    /**
+     * Returns a record to the free list and drops it from the candidates. The caller must hold the lock.
+     */
+    private void freeRecord(int id){
+        int start = recordStart(id);
+        region.putInt(start + STATE, FREE);
+        region.putInt(start + STREAK, region.getInt(FREE_HEAD));
+        region.putInt(FREE_HEAD, id);
+        region.putInt(SIZE, region.getInt(SIZE) - 1);
+        removeCandidate(id);
+    }
+
+    /**
+     * Finds the record of a player updated by name. The caller must hold the lock.
+     * @return the record, or -1 if the name is not in the index
+     */
+    private int find(byte[] bytes){
+        int h = hash(bytes);
+        for(int slot = h & indexMask; ; slot = (slot + 1) & indexMask){
+            int entry = region.getInt(indexStart + slot * 4);
+            if(entry == 0){
+                return -1;
+            }
+            int id = entry - 1;
+            if(region.getInt(recordStart(id) + HASH) == h && nameEquals(id, bytes)){
+                return id;
+            }
+        }
+    }
+
+    private boolean nameEquals(int id, byte[] bytes){
+        int start = recordStart(id);
+        if(region.getShort(start + NAME_LENGTH) != bytes.length){
+            return false;
+        }
+        for(int i = 0; i < bytes.length; i++){
+            if(region.get(start + NAME + i) != bytes[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insertIndex(int id){
+        int slot = region.getInt(recordStart(id) + HASH) & indexMask;
+        while(region.getInt(indexStart + slot * 4) != 0){
+            slot = (slot + 1) & indexMask;
+        }
+        region.putInt(indexStart + slot * 4, id + 1);
+    }
+
+    private void removeIndex(int id){
+        int slot = region.getInt(recordStart(id) + HASH) & indexMask;
+        while(region.getInt(indexStart + slot * 4) != id + 1){
+            slot = (slot + 1) & indexMask;
+        }
+        //shift back any entry which probed past the freed slot, as in IntIntMap
+        int free = slot;
+        int next = (free + 1) & indexMask;
+        int entry;
+        while((entry = region.getInt(indexStart + next * 4)) != 0){
+            int home = region.getInt(recordStart(entry - 1) + HASH) & indexMask;
+            if(((next - home) & indexMask) >= ((next - free) & indexMask)){
+                region.putInt(indexStart + free * 4, entry);
+                free = next;
+            }
+            next = (next + 1) & indexMask;
+        }
+        region.putInt(indexStart + free * 4, 0);
+    }
+
+    /**
+     * Sets a player's streak and keeps the candidates exact. The caller must hold the lock.
+     */
+    private void setStreak(int id, int streak){
+        int start = recordStart(id);
+        if(region.getInt(start + STREAK) == streak){
+            return;
+        }
+        region.putInt(start + STREAK, streak);
+        removeCandidate(id);
+        //the candidates are the exact top candidateCount of the other records, so the player can only be added where
+        //they rank above the last candidate, or anywhere if every record is a candidate
+        boolean complete = candidateCount == region.getInt(SIZE) - 1;
+        if(complete || (candidateCount > 0 && ranksBefore(id, streak,
+                candidateIds[candidateCount - 1], candidateStreaks[candidateCount - 1]))){
+            insertCandidate(id, streak);
+        }
+    }
+
+    private static boolean ranksBefore(int id, int streak, int otherId, int otherStreak){
+        return streak > otherStreak || (streak == otherStreak && id < otherId);
+    }
+
+    private void insertCandidate(int id, int streak){
+        int position = candidateCount;
+        while(position > 0 && ranksBefore(id, streak, candidateIds[position - 1], candidateStreaks[position - 1])){
+            position--;
+        }
+        if(position >= TOP_CANDIDATES){
+            return;
+        }
+        for(int i = Math.min(candidateCount, TOP_CANDIDATES - 1); i > position; i--){
+            candidateIds[i] = candidateIds[i - 1];
+            candidateStreaks[i] = candidateStreaks[i - 1];
+        }
+        candidateIds[position] = id;
+        candidateStreaks[position] = streak;
+        candidateCount = Math.min(TOP_CANDIDATES, candidateCount + 1);
+    }
+
+    private void removeCandidate(int id){
+        for(int i = 0; i < candidateCount; i++){
+            if(candidateIds[i] == id){
+                for(int j = i; j < candidateCount - 1; j++){
+                    candidateIds[j] = candidateIds[j + 1];
+                    candidateStreaks[j] = candidateStreaks[j + 1];
+                }
+                candidateCount--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scans every record for the best TOP_CANDIDATES. The caller must hold the lock, or be the constructor.
+     */
+    private void rebuildCandidates(){
+        candidateCount = 0;
+        int highWater = region.getInt(HIGH_WATER);
+        for(int id = 0; id < highWater; id++){
+            int start = recordStart(id);
+            if(region.getInt(start + STATE) != FREE){
+                int streak = region.getInt(start + STREAK);
+                if(candidateCount < TOP_CANDIDATES || ranksBefore(id, streak,
+                        candidateIds[candidateCount - 1], candidateStreaks[candidateCount - 1])){
+                    insertCandidate(id, streak);
+                }
+            }
+        }
+    }
+
+    private void appendName(int id, StringBuilder out){
+        int start = recordStart(id);
+        int length = region.getShort(start + NAME_LENGTH);
+        for(int i = 0; i < length; i++){
+            if(region.get(start + NAME + i) < 0){
+                //not ASCII, so decode the whole name
+                byte[] bytes = new byte[length];
+                for(int j = 0; j < length; j++){
+                    bytes[j] = region.get(start + NAME + j);
+                }
+                out.append(new String(bytes, StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        for(int i = 0; i < length; i++){
+            out.append((char) region.get(start + NAME + i));
+        }
+    }
+}
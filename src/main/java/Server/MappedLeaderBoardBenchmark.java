@@ -0,0 +1,127 @@
+package Server;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares GC pauses and update throughput of a LeaderBoard on the heap with a MappedLeaderBoard in direct memory and
+ * in a memory-mapped file, at 1M and 10M players. While one thread updates random players and prints the top 3 once
+ * per 100 updates, as QuizServices would, another thread creates short-lived garbage, as the rest of a server does,
+ * so that the collector runs. Every pause is recorded from the collector's notifications, and a full collection is timed at the end.
+ * Run with a heap large enough for 10M players on the heap, for example -Xmx3g.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class MappedLeaderBoardBenchmark {
+
+    private static final int[] PLAYER_COUNTS = {1_000_000, 10_000_000};
+    private static final long MEASURE_MILLIS = 5000;
+    private static final int UPDATES_PER_PRINT = 100;
+
+    private static final AtomicLong pauses = new AtomicLong();
+    private static final AtomicLong pauseMillis = new AtomicLong();
+    private static final AtomicLong maxPauseMillis = new AtomicLong();
+
+    private static void listenForPauses(){
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()){
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if(notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)){
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    long duration = info.getGcInfo().getDuration();
+                    pauses.incrementAndGet();
+                    pauseMillis.addAndGet(duration);
+                    maxPauseMillis.accumulateAndGet(duration, Math::max);
+                }
+            }, null, null);
+        }
+    }
+
+    private static void run(String label, Scorable leaderBoard, int[] ids) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread garbage = new Thread(() -> {
+            List<byte[]> recent = new ArrayList<>();
+            while(running.get()){
+                recent.add(new byte[1024]);
+                if(recent.size() == 1000){
+                    recent = new ArrayList<>();
+                }
+            }
+        });
+        StringBuilder frames = new StringBuilder();
+        pauses.set(0);
+        pauseMillis.set(0);
+        maxPauseMillis.set(0);
+        garbage.start();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long updates = 0;
+        long start = System.nanoTime();
+        long end = start + MEASURE_MILLIS * 1_000_000;
+        while(System.nanoTime() < end){
+            leaderBoard.update(ids[random.nextInt(ids.length)], random.nextInt(50));
+            if(++updates % UPDATES_PER_PRINT == 0){
+                frames.setLength(0);
+                leaderBoard.appendTop3(frames);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        garbage.join();
+
+        long fullStart = System.nanoTime();
+        System.gc();
+        long fullMillis = (System.nanoTime() - fullStart) / 1_000_000;
+        System.out.printf("%-18s %10d players %12.0f updates/s %6d pauses %8d ms paused %6d ms max %6d ms full GC%n",
+                label, ids.length, updates / seconds, pauses.get(), pauseMillis.get(), maxPauseMillis.get(), fullMillis);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if the temporary file for the MappedLeaderBoard cannot be created
+     * @throws InterruptedException if interrupted while waiting for the garbage thread
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        listenForPauses();
+        for(int players : PLAYER_COUNTS){
+            int[] ids = new int[players];
+
+            LeaderBoard heap = new LeaderBoard();
+            for(int i = 0; i < players; i++){
+                ids[i] = heap.join("player" + i);
+            }
+            run("LeaderBoard", heap, ids);
+            heap = null;
+            System.gc();
+
+            MappedLeaderBoard direct = new MappedLeaderBoard(players);
+            for(int i = 0; i < players; i++){
+                ids[i] = direct.join("player" + i);
+            }
+            run("Mapped (direct)", direct, ids);
+            direct = null;
+            System.gc();
+
+            Path file = Files.createTempFile("leaderboard", ".bin");
+            Files.delete(file);
+            MappedLeaderBoard mapped = new MappedLeaderBoard(file, players);
+            for(int i = 0; i < players; i++){
+                ids[i] = mapped.join("player" + i);
+            }
+            run("Mapped (file)", mapped, ids);
+            mapped.close();
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package Server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OutboundPump writes the frames queued on OutboundQueues to their sockets, so that the threads producing frames, such
+ * as sessions, rooms and the SpectatorHub, never block on a client which is slow to read. A queue with frames to write
+ * is scheduled on the pump once, and is drained by whichever pump thread takes it next, which writes its frames in
+ * order. A thread blocked writing to a client which stopped reading is freed once the SessionReaper closes that socket
+ * after the write timeout, see OutboundQueue.
+ * Once the pump is stopped, queues still scheduled are drained by the pump threads before they exit, and queues
+ * scheduled after that are drained by the thread producing their frames, as if they were written directly.
+ * Since a queue is scheduled at most once at a time, the scheduled queues are linked through the queues themselves,
+ * so scheduling a queue creates no objects.
+ */
+public class OutboundPump {
+
+    private final int THREADS;
+
+    private List<Thread> threads;
+    private Lock pumpLock;
+    private Condition waiting;
+
+    //guarded by the lock, linked through OutboundQueue.nextScheduled
+    private OutboundQueue head;
+    private OutboundQueue tail;
+    private int size;
+    private volatile boolean stopped;
+
+    /**
+     * Constructs an OutboundPump, which writes nothing until it is started
+     * @param threadCount the number of threads which drain queues
+     */
+    public OutboundPump(int threadCount){
+        THREADS = threadCount;
+        threads = new ArrayList<>();
+        pumpLock = new ReentrantLock();
+        waiting = pumpLock.newCondition();
+    }
+
+    /**
+     * Starts the pump's threads, which are daemon threads
+     */
+    public void start(){
+        for(int i = 0; i < THREADS; i++){
+            Thread thread = new Thread(this::pump, "outbound-pump-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the pump's threads once they have drained the queues already scheduled
+     */
+    public void stop(){
+        stopped = true;
+        for(Thread thread : threads){
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Schedules a queue which has frames to write, which must be done only once until it is drained
+     * @param queue the queue
+     */
+    void schedule(OutboundQueue queue){
+        if(stopped){
+            queue.drain();
+            return;
+        }
+        add(queue);
+        //the pump threads may have exited between the check and the add
+        if(stopped && remove(queue)){
+            queue.drain();
+        }
+    }
+
+    /**
+     * Adds a queue at the back of the scheduled queues and wakes a pump thread
+     */
+    private void add(OutboundQueue queue){
+        pumpLock.lock();
+        try{
+            queue.nextScheduled = null;
+            if(tail == null){
+                head = queue;
+            }
+            else{
+                tail.nextScheduled = queue;
+            }
+            tail = queue;
+            size++;
+            waiting.signal();
+        }
+        finally {
+            pumpLock.unlock();
+        }
+    }
+
+    /**
+     * Takes the queue at the front of the scheduled queues, waiting for one if there is none
+     * @throws InterruptedException if the pump is stopped while waiting
+     */
+    private OutboundQueue take() throws InterruptedException {
+        pumpLock.lock();
+        try{
+            while(head == null){
+                waiting.await();
+            }
+            return unlinkHead();
+        }
+        finally {
+            pumpLock.unlock();
+        }
+    }
+
+    /**
+     * Takes the queue at the front of the scheduled queues
+     * @return the queue, or null if none is scheduled
+     */
+    private OutboundQueue poll(){
+        pumpLock.lock();
+        try{
+            return head == null ? null : unlinkHead();
+        }
+        finally {
+            pumpLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a queue from the scheduled queues
+     * @return true if the queue was still scheduled
+     */
+    private boolean remove(OutboundQueue queue){
+        pumpLock.lock();
+        try{
+            OutboundQueue previous = null;
+            for(OutboundQueue current = head; current != null; current = current.nextScheduled){
+                if(current == queue){
+                    if(previous == null){
+                        head = current.nextScheduled;
+                    }
+                    else{
+                        previous.nextScheduled = current.nextScheduled;
+                    }
+                    if(tail == current){
+                        tail = previous;
+                    }
+                    current.nextScheduled = null;
+                    size--;
+                    return true;
+                }
+                previous = current;
+            }
+            return false;
+        }
+        finally {
+            pumpLock.unlock();
+        }
+    }
+
+    /**
+     * Unlinks the queue at the front, which must be called while holding the lock with a queue scheduled
+     */
+    private OutboundQueue unlinkHead(){
+        OutboundQueue queue = head;
+        head = queue.nextScheduled;
+        if(head == null){
+            tail = null;
+        }
+        queue.nextScheduled = null;
+        size--;
+        return queue;
+    }
+
+    /**
+     * Drains scheduled queues until stopped, then drains the queues left and exits
+     */
+    private void pump(){
+        try{
+            while(!stopped){
+                take().drain();
+            }
+        }
+        catch(InterruptedException e){
+            //stopped, the queues left are drained below
+        }
+        OutboundQueue queue;
+        while((queue = poll()) != null){
+            queue.drain();
+        }
+    }
+
+    /**
+     * Retrieves the number of queues waiting for a pump thread
+     * @return the number of scheduled queues
+     */
+    public int size(){
+        pumpLock.lock();
+        try{
+            return size;
+        }
+        finally {
+            pumpLock.unlock();
+        }
+    }
+}
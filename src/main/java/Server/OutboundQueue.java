@@ -0,0 +1,459 @@
+package Server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OutboundQueue is the bounded queue of frames waiting to be written to one client. It is the OutputStream of a
+ * connection whose writes go through an OutboundPump: everything written between two flushes becomes one frame, which
+ * is queued and written by a pump thread, so the thread producing it never blocks on a client which is slow to read.
+ * A client which falls behind is dealt with by two policies:
+ * - Leaderboard updates offered with offerLatest are stale once a newer one is queued, so a newer update replaces the
+ *   queued one, and once the queue holds more than its capacity in bytes, queued updates are dropped first.
+ * - If the queue still overflows after that, the client is a slow consumer: the frames queued for it are discarded and
+ *   its connection is closed, which ends its session.
+ * A write which the client does not take within the write timeout is also treated as a slow consumer: the queue
+ * registers with the SessionReaper, which closes the connection and so frees the pump thread blocked on it.
+ * Frames are written into buffers the queue reuses: a flush hands the buffer written so far to the queued frame and
+ * carries on in a spare buffer of a frame already written, so a connection which keeps up creates no objects per frame.
+ * Closing the queue writes the frames already queued before the connection is closed. The number of bytes queued over
+ * every connection, the deepest queue, dropped frames and slow consumers disconnected are counted in ServerMetrics.
+ */
+public class OutboundQueue extends OutputStream {
+
+    /**
+     * A frame waiting to be written, whose bytes are the first length bytes of its buffer. A frame flushed by the
+     * session owns its buffer and is reused once written, while the buffer of a frame offered with offerLatest may be
+     * shared with other queues and is never written to.
+     */
+    private static class Frame {
+        byte[] bytes;
+        int length;
+        boolean replaceable;
+        boolean pooled;
+    }
+
+    //a pump thread moves on to another queue after this many frames, so one busy client cannot hog it
+    private static final int FRAMES_PER_TURN = 16;
+    //how many written frames are kept for reuse, enough for the frames of several turns
+    private static final int SPARE_FRAMES = 8;
+    private static final int INITIAL_FRAME_BYTES = 1024;
+
+    private final int CAPACITY;
+
+    private Transport transport;
+    private OutputStream out;
+    private OutboundPump pump;
+    private SessionReaper.Handle handle;
+    private ServerMetrics metrics;
+    private ReentrantLock lock;
+    private volatile long writeTimeoutMillis;
+
+    //the next queue scheduled on the pump after this one, guarded by the pump's lock
+    OutboundQueue nextScheduled;
+
+    //guarded by the lock
+    private byte[] pending;
+    private int pendingLength;
+    private ArrayDeque<Frame> spares;
+    private ArrayDeque<Frame> frames;
+    private int depth;
+    private boolean scheduled;
+    private boolean closing;
+    private boolean closed;
+
+    /**
+     * Constructs an OutboundQueue for a connection
+     * @param socket the client's connection, which is closed when the queue is
+     * @param pump the pump on which the queue is drained
+     * @param config the server settings, from which the capacity and the write timeout are taken
+     * @param reaper the reaper which closes the socket once a write has been blocked for the write timeout, or null for
+     *               no write timeout
+     * @param metrics the metrics in which queued bytes, dropped frames and slow consumers are counted
+     * @throws IOException if the connection is already closed
+     */
+    public OutboundQueue(Socket socket, OutboundPump pump, ServerConfig config, SessionReaper reaper,
+                         ServerMetrics metrics) throws IOException {
+        this(new SocketTransport(socket), pump, config, reaper, metrics);
+    }
+
+    /**
+     * Constructs an OutboundQueue for a connection
+     * @param transport the client's connection, which is closed when the queue is
+     * @param pump the pump on which the queue is drained
+     * @param config the server settings, from which the capacity and the write timeout are taken
+     * @param reaper the reaper which closes the connection once a write has been blocked for the write timeout, or null
+     *               for no write timeout
+     * @param metrics the metrics in which queued bytes, dropped frames and slow consumers are counted
+     * @throws IOException if the connection is already closed
+     */
+    public OutboundQueue(Transport transport, OutboundPump pump, ServerConfig config, SessionReaper reaper,
+                         ServerMetrics metrics) throws IOException {
+        CAPACITY = config.getOutboundQueueBytes();
+        writeTimeoutMillis = config.getOutboundWriteTimeoutMillis();
+        this.transport = transport;
+        this.out = transport.getOutputStream();
+        this.pump = pump;
+        this.metrics = metrics;
+        lock = new ReentrantLock();
+        pending = new byte[INITIAL_FRAME_BYTES];
+        spares = new ArrayDeque<>();
+        frames = new ArrayDeque<>();
+        if(reaper != null){
+            handle = reaper.register(transport);
+        }
+    }
+
+    /**
+     * Appends a byte to the frame being written, which is queued on the next flush
+     * @param b the byte
+     */
+    @Override
+    public void write(int b){
+        lock.lock();
+        try{
+            ensurePending(1);
+            pending[pendingLength++] = (byte) b;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends bytes to the frame being written, which is queued on the next flush
+     * @param b the bytes
+     * @param off the offset of the first byte
+     * @param len the number of bytes
+     */
+    @Override
+    public void write(byte[] b, int off, int len){
+        lock.lock();
+        try{
+            ensurePending(len);
+            System.arraycopy(b, off, pending, pendingLength, len);
+            pendingLength += len;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grows the buffer of the frame being written to hold more bytes, which must be called while holding the lock
+     */
+    private void ensurePending(int more){
+        if(pendingLength + more > pending.length){
+            pending = Arrays.copyOf(pending, Math.max(pendingLength + more, pending.length * 2));
+        }
+    }
+
+    /**
+     * Queues everything written since the last flush as one frame. The frame takes the buffer it was written in, and
+     * the next frame is written in the buffer of a spare frame, so nothing is copied.
+     * @throws IOException if the queue is closed, for example because the client was disconnected as a slow consumer
+     */
+    @Override
+    public void flush() throws IOException {
+        Frame frame;
+        lock.lock();
+        try{
+            if(pendingLength == 0){
+                return;
+            }
+            frame = spares.poll();
+            if(frame == null){
+                frame = new Frame();
+                frame.pooled = true;
+            }
+            byte[] spare = frame.bytes;
+            frame.bytes = pending;
+            frame.length = pendingLength;
+            pending = spare == null ? new byte[INITIAL_FRAME_BYTES] : spare;
+            pendingLength = 0;
+        }
+        finally {
+            lock.unlock();
+        }
+        if(!offer(frame)){
+            throw new SocketException("Connection closed");
+        }
+    }
+
+    /**
+     * Queues a frame which is stale once a newer one is offered, such as a leaderboard update. It replaces the frame
+     * offered before it if that is still queued, and is dropped first if the client falls behind.
+     * @param frame the encoded frame
+     * @return false if the queue is closed, for example because the client was disconnected as a slow consumer
+     */
+    public boolean offerLatest(byte[] frame){
+        Frame latest = new Frame();
+        latest.bytes = frame;
+        latest.length = frame.length;
+        latest.replaceable = true;
+        return offer(latest);
+    }
+
+    /**
+     * Queues a frame, applying the overflow policies, and schedules the queue on the pump if it was empty
+     * @param frame the frame
+     * @return false if the queue is closed
+     */
+    private boolean offer(Frame frame){
+        boolean schedule = false;
+        boolean overflow = false;
+        lock.lock();
+        try{
+            if(closing || closed){
+                return false;
+            }
+            if(frame.replaceable){
+                dropReplaceable();
+            }
+            if(depth + frame.length > CAPACITY){
+                dropReplaceable();
+                //a frame larger than the whole queue is still let through once the queue is empty
+                if(depth + frame.length > CAPACITY && depth > 0){
+                    abort();
+                    overflow = true;
+                }
+            }
+            if(!overflow){
+                frames.add(frame);
+                depth += frame.length;
+                metrics.bytesQueued(frame.length, depth);
+                if(!scheduled){
+                    scheduled = true;
+                    schedule = true;
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        if(overflow){
+            finish();
+            metrics.slowConsumerDisconnected();
+            return false;
+        }
+        if(schedule){
+            pump.schedule(this);
+        }
+        return true;
+    }
+
+    /**
+     * Drops every queued frame which is replaceable, which must be called while holding the lock
+     */
+    private void dropReplaceable(){
+        Iterator<Frame> queued = frames.iterator();
+        while(queued.hasNext()){
+            Frame frame = queued.next();
+            if(frame.replaceable){
+                queued.remove();
+                depth -= frame.length;
+                metrics.bytesDequeued(frame.length);
+                metrics.frameDropped();
+            }
+        }
+    }
+
+    /**
+     * Marks the queue closed and discards its frames, which must be called while holding the lock. The caller must then
+     * call finish, once it has released the lock.
+     */
+    private void abort(){
+        closed = true;
+        frames.clear();
+        metrics.bytesDequeued(depth);
+        depth = 0;
+    }
+
+    /**
+     * Writes queued frames to the client in order, until the queue is empty or this pump thread has had its turn. The
+     * frame being written still counts towards the depth of the queue until the write returns. Called by the pump.
+     */
+    void drain(){
+        for(int written = 0; ; written++){
+            Frame frame = null;
+            boolean finish = false;
+            boolean yield = false;
+            lock.lock();
+            try{
+                if(closed){
+                    scheduled = false;
+                    return;
+                }
+                if(written == FRAMES_PER_TURN && !frames.isEmpty()){
+                    //still scheduled, the queue goes to the back of the pump's line
+                    yield = true;
+                }
+                else{
+                    frame = frames.poll();
+                    if(frame == null){
+                        scheduled = false;
+                        if(!closing){
+                            return;
+                        }
+                        closed = true;
+                        finish = true;
+                    }
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+            if(finish){
+                finish();
+                return;
+            }
+            if(yield){
+                pump.schedule(this);
+                return;
+            }
+            if(!write(frame)){
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes a single frame to the client, closing the queue if the write fails
+     * @param frame the frame
+     * @return true if the frame was written
+     */
+    private boolean write(Frame frame){
+        try{
+            if(handle != null){
+                handle.expectWithin(writeTimeoutMillis);
+            }
+            out.write(frame.bytes, 0, frame.length);
+            out.flush();
+            if(handle != null){
+                handle.received();
+            }
+        }
+        catch(IOException e){
+            boolean aborted = false;
+            lock.lock();
+            try{
+                if(!closed){
+                    abort();
+                    aborted = true;
+                }
+                scheduled = false;
+            }
+            finally {
+                lock.unlock();
+            }
+            //a write the reaper gave up on was to a slow consumer, any other failure is a client which went away
+            if(aborted && finish()){
+                metrics.slowConsumerDisconnected();
+            }
+            return false;
+        }
+        lock.lock();
+        try{
+            if(!closed){
+                depth -= frame.length;
+                metrics.bytesDequeued(frame.length);
+            }
+            if(frame.pooled && spares.size() < SPARE_FRAMES){
+                spares.add(frame);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Unregisters from the reaper and closes the connection, which is done once by the thread which closed the queue
+     * @return true if the connection was closed by the reaper because a write timed out
+     */
+    private boolean finish(){
+        boolean reaped = handle != null && handle.close();
+        try{
+            transport.close();
+        }
+        catch(IOException e){
+            //the connection is being abandoned either way
+        }
+        return reaped;
+    }
+
+    /**
+     * Closes the queue once the frames already queued, and anything written since the last flush, have been written to
+     * the client, and then closes the connection. Nothing can be queued after this.
+     */
+    @Override
+    public void close(){
+        try{
+            flush();
+        }
+        catch(IOException e){
+            //already closed
+        }
+        boolean finish = false;
+        lock.lock();
+        try{
+            if(closing || closed){
+                return;
+            }
+            closing = true;
+            if(!scheduled){
+                closed = true;
+                finish = true;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        if(finish){
+            finish();
+        }
+    }
+
+    /**
+     * Changes the time the client has to take each frame, for connections which take frames at a pace of their own
+     * @param writeTimeoutMillis the time allowed for each write, or 0 for no write timeout
+     */
+    public void setWriteTimeoutMillis(long writeTimeoutMillis){
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    /**
+     * Retrieves the number of bytes queued and not yet written, including the frame being written
+     * @return the depth of the queue in bytes
+     */
+    public int depth(){
+        lock.lock();
+        try{
+            return depth;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether the queue is closed, after which nothing more is written to the client
+     * @return true if closed
+     */
+    public boolean isClosed(){
+        lock.lock();
+        try{
+            return closed;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A Transport whose two ends are in the same JVM, for driving sessions without sockets, for example to benchmark the
+ * game loop apart from the network or to run thousands of sessions in one process. Constructing a PipeTransport
+ * creates both ends: one end is given to the client, such as a bot or a QuizClient, and its peer to a QuizService.
+ * Each direction is a bounded buffer of bytes. Like a socket, a write blocks while the buffer is full until the other
+ * end reads, and a read blocks until bytes arrive or the other end closes, after which it returns the end of the
+ * stream once the bytes already written have been read. Closing an end makes its own blocked reads return the end of
+ * the stream, and makes writes on either end towards it fail. Either end may be used from any thread.
+ */
+public class PipeTransport implements Transport {
+
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    /**
+     * The bytes flowing in one direction, written by one end and read by the other
+     */
+    private static class Pipe {
+
+        private final byte[] buffer;
+        private final ReentrantLock lock;
+        private final Condition readable;
+        private final Condition writable;
+        private int head;
+        private int count;
+        private boolean writerClosed;
+        private boolean readerClosed;
+
+        Pipe(int capacity){
+            buffer = new byte[capacity];
+            lock = new ReentrantLock();
+            readable = lock.newCondition();
+            writable = lock.newCondition();
+        }
+
+        int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0){
+                return 0;
+            }
+            lock.lock();
+            try{
+                while(count == 0 && !writerClosed && !readerClosed){
+                    readable.await();
+                }
+                if(readerClosed || count == 0){
+                    return -1;
+                }
+                int n = Math.min(len, count);
+                int first = Math.min(n, buffer.length - head);
+                System.arraycopy(buffer, head, b, off, first);
+                System.arraycopy(buffer, 0, b, off + first, n - first);
+                head = (head + n) % buffer.length;
+                count -= n;
+                writable.signalAll();
+                return n;
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void write(byte[] b, int off, int len) throws IOException {
+            lock.lock();
+            try{
+                while(len > 0){
+                    while(count == buffer.length && !writerClosed && !readerClosed){
+                        writable.await();
+                    }
+                    if(writerClosed){
+                        throw new IOException("Pipe closed");
+                    }
+                    if(readerClosed){
+                        throw new IOException("Broken pipe");
+                    }
+                    int n = Math.min(len, buffer.length - count);
+                    int tail = (head + count) % buffer.length;
+                    int first = Math.min(n, buffer.length - tail);
+                    System.arraycopy(b, off, buffer, tail, first);
+                    System.arraycopy(b, off + first, buffer, 0, n - first);
+                    count += n;
+                    off += n;
+                    len -= n;
+                    readable.signalAll();
+                }
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        int available(){
+            lock.lock();
+            try{
+                return readerClosed ? 0 : count;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void closeWriter(){
+            lock.lock();
+            try{
+                writerClosed = true;
+                readable.signalAll();
+                writable.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void closeReader(){
+            lock.lock();
+            try{
+                readerClosed = true;
+                readable.signalAll();
+                writable.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final Pipe inbound;
+    private final Pipe outbound;
+    private final PipeTransport peer;
+    private final InputStream in;
+    private final OutputStream out;
+    private volatile boolean closed;
+
+    /**
+     * Constructs an end of a transport, and its peer, with buffers of the default capacity
+     */
+    public PipeTransport(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an end of a transport, and its peer
+     * @param capacity the number of bytes each direction buffers before writes block
+     */
+    public PipeTransport(int capacity){
+        this(new Pipe(capacity), new Pipe(capacity), null);
+    }
+
+    private PipeTransport(Pipe inbound, Pipe outbound, PipeTransport peer){
+        this.inbound = inbound;
+        this.outbound = outbound;
+        this.peer = peer == null ? new PipeTransport(outbound, inbound, this) : peer;
+        in = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return inbound.read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return inbound.read(b, off, len);
+            }
+
+            @Override
+            public int available(){
+                return inbound.available();
+            }
+
+            @Override
+            public void close(){
+                PipeTransport.this.close();
+            }
+        };
+        out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                outbound.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                outbound.write(b, off, len);
+            }
+
+            @Override
+            public void close(){
+                PipeTransport.this.close();
+            }
+        };
+    }
+
+    /**
+     * Retrieves the other end of this transport
+     * @return the peer, whose input is this end's output and the other way around
+     */
+    public PipeTransport getPeer(){
+        return peer;
+    }
+
+    public InputStream getInputStream() throws IOException {
+        if(closed){
+            throw new IOException("Transport closed");
+        }
+        return in;
+    }
+
+    public OutputStream getOutputStream() throws IOException {
+        if(closed){
+            throw new IOException("Transport closed");
+        }
+        return out;
+    }
+
+    public void close(){
+        closed = true;
+        outbound.closeWriter();
+        inbound.closeReader();
+    }
+
+    public boolean isClosed(){
+        return closed;
+    }
+}
@@ -0,0 +1,88 @@
+package Server;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares the memory per player and the update throughput at 1M players of a LeaderBoard keyed by player id with the
+ * HashMap keyed by name, with boxed streaks, which LeaderBoard used before players had ids.
+ * Names are created before either is measured, since both keep the same name Strings.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class PlayerIdBenchmark {
+
+    private static final int PLAYERS = 1_000_000;
+    private static final int UPDATES = 20_000_000;
+    private static final int ROUNDS = 3;
+
+    private static long usedMemory(){
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     */
+    public static void main(String[] args){
+        String[] names = new String[PLAYERS];
+        for(int i = 0; i < PLAYERS; i++){
+            names[i] = "player" + i;
+        }
+        //the same random players and streaks for both
+        int[] players = new int[UPDATES];
+        int[] streaks = new int[UPDATES];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = 0; i < UPDATES; i++){
+            players[i] = random.nextInt(PLAYERS);
+            streaks[i] = random.nextInt(1000);
+        }
+
+        long before = usedMemory();
+        Map<String, Integer> byName = new HashMap<>();
+        Lock lock = new ReentrantLock();
+        for(String name : names){
+            byName.put(name, 0);
+        }
+        long nameBytes = usedMemory() - before;
+
+        before = usedMemory();
+        LeaderBoard byId = new LeaderBoard();
+        int[] ids = new int[PLAYERS];
+        for(int i = 0; i < PLAYERS; i++){
+            ids[i] = byId.join(names[i]);
+        }
+        long idBytes = usedMemory() - before - 4L * PLAYERS;
+
+        System.out.printf("memory: HashMap<String, Integer> %5.1f bytes/player, LeaderBoard by id %5.1f bytes/player%n",
+                (double) nameBytes / PLAYERS, (double) idBytes / PLAYERS);
+
+        for(int round = 0; round < ROUNDS; round++){
+            long start = System.nanoTime();
+            for(int i = 0; i < UPDATES; i++){
+                lock.lock();
+                try{
+                    byName.put(names[players[i]], streaks[i]);
+                }
+                finally {
+                    lock.unlock();
+                }
+            }
+            long nameNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for(int i = 0; i < UPDATES; i++){
+                byId.update(ids[players[i]], streaks[i]);
+            }
+            long idNanos = System.nanoTime() - start;
+            System.out.printf("round %d: HashMap<String, Integer> %5.1f M updates/s, LeaderBoard by id %5.1f M updates/s%n",
+                    round, UPDATES * 1e3 / nameNanos, UPDATES * 1e3 / idNanos);
+        }
+    }
+}
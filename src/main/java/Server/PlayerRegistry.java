@@ -0,0 +1,87 @@
+package Server;
+
+/**
+ * Assigns each player a compact int id when they join and keeps their name once, in a table indexed by id, so a
+ * leaderboard can key its streaks by id rather than by name. Players who share a name get different ids and so are
+ * never mistaken for each other. The ids of players who leave are handed out again, which keeps the ids, and so the
+ * table, as small as the number of players at the busiest moment.
+ * A PlayerRegistry is not thread-safe, its owner guards it with a lock.
+ */
+public class PlayerRegistry {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names;
+    private int[] freeIds;
+    private int freeCount;
+    private int nextId;
+    private int size;
+
+    /**
+     * Constructs an empty PlayerRegistry
+     */
+    public PlayerRegistry(){
+        names = new String[INITIAL_CAPACITY];
+        freeIds = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Registers a player under a new id
+     * @param name the player's name, which need not be unique
+     * @return the player's id, which stays theirs until they are released
+     */
+    public int register(String name){
+        int id;
+        if(freeCount > 0){
+            id = freeIds[--freeCount];
+        }
+        else{
+            id = nextId++;
+            if(id == names.length){
+                String[] larger = new String[names.length * 2];
+                System.arraycopy(names, 0, larger, 0, names.length);
+                names = larger;
+            }
+        }
+        names[id] = name;
+        size++;
+        return id;
+    }
+
+    /**
+     * Retrieves the name of a player
+     * @param id the player's id
+     * @return the player's name, or null if no player has the id
+     */
+    public String nameOf(int id){
+        return id >= 0 && id < nextId ? names[id] : null;
+    }
+
+    /**
+     * Releases a player's id, which may then be given to a new player
+     * @param id the id of a player who is leaving
+     * @return true if a player had the id
+     */
+    public boolean release(int id){
+        if(nameOf(id) == null){
+            return false;
+        }
+        names[id] = null;
+        if(freeCount == freeIds.length){
+            int[] larger = new int[freeIds.length * 2];
+            System.arraycopy(freeIds, 0, larger, 0, freeIds.length);
+            freeIds = larger;
+        }
+        freeIds[freeCount++] = id;
+        size--;
+        return true;
+    }
+
+    /**
+     * Retrieves the number of registered players
+     * @return the number of players with an id
+     */
+    public int size(){
+        return size;
+    }
+}
@@ -0,0 +1,336 @@
+package Server;
+
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.ClueBitmap;
+import QuizQuestion.MultipleChoiceQuestion;
+import QuizQuestion.QuizGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A QuizRoom plays rounds of the quiz with many RoomMembers at once. Each round one MultipleChoiceQuestion is generated
+ * and encoded once, and the same bytes are sent to every member who is ready. Answers are collected concurrently by the
+ * members' own threads until every participant has answered or the round window closes, and then all streaks are
+ * updated on the LeaderBoard in a single bulk update, keyed by the ids under which the members joined it, so members
+ * sharing a name keep separate streaks. The room uses the same CODE~MESSAGE~ protocol as QuizService, so the
+ * QuizClient is unchanged: after each round every participant is asked PLAYAGAIN, and a member who answers Y is ready
+ * for the next round.
+ * Member state is guarded by a lock and a condition, following the lock-try-finally-unlock idiom.
+ */
+public class QuizRoom implements Runnable {
+
+    private final String STREAK_MESSAGE = "\nYour current Streak is: ";
+
+    private final int CAPACITY;
+    private final long LOBBY_NANOS;
+    private final long ROUND_NANOS;
+
+    private Scorable leaderBoard;
+    private QuizGenerator generator;
+    private List<RoomMember> members;
+    private int ready;
+    private int pending;
+    private boolean closed;
+    private long roundsPlayed;
+    private Lock roomLock;
+    private Condition changed;
+
+    /**
+     * Constructs an empty QuizRoom. The room plays rounds once its run method is started on a thread.
+     * @param capacity the maximum number of members
+     * @param leaderBoard the persistent record of all users' streaks
+     * @param fetcher the source of categories for this room's questions
+     * @param lobbyMillis once one member is ready, how long to wait for the others before starting a round
+     * @param roundMillis how long members have to answer each question
+     */
+    public QuizRoom(int capacity, Scorable leaderBoard, CategoryFetcher fetcher, long lobbyMillis, long roundMillis){
+        CAPACITY = capacity;
+        LOBBY_NANOS = TimeUnit.MILLISECONDS.toNanos(lobbyMillis);
+        ROUND_NANOS = TimeUnit.MILLISECONDS.toNanos(roundMillis);
+        this.leaderBoard = leaderBoard;
+        generator = new QuizGenerator(fetcher, new ClueBitmap());
+        members = new ArrayList<>();
+        roomLock = new ReentrantLock();
+        changed = roomLock.newCondition();
+    }
+
+    /**
+     * Adds a member to the room and asks them whether they are ready to play
+     * @param member a member who has entered their name
+     * @return true if the member joined, or false if the room is full or closed
+     */
+    public boolean tryAdd(RoomMember member){
+        if(!add(member)){
+            return false;
+        }
+        welcome(member);
+        return true;
+    }
+
+    /**
+     * Adds a member to the room without sending them anything, so that the caller can pick a room under a lock of
+     * its own and welcome the member once it has released it
+     * @param member a member who has entered their name
+     * @return true if the member joined, or false if the room is full or closed
+     */
+    boolean add(RoomMember member){
+        roomLock.lock();
+        try{
+            if(closed || members.size() >= CAPACITY){
+                return false;
+            }
+            members.add(member);
+            member.state = RoomMember.State.WAITING_READY;
+            return true;
+        }
+        finally {
+            roomLock.unlock();
+        }
+    }
+
+    /**
+     * Puts a member who was added to the room on the leaderboard and asks them whether they are ready to play
+     * @param member a member added to this room
+     */
+    void welcome(RoomMember member){
+        leaderBoard.update(member.getPlayer(), 0);
+        member.send(RoomMember.encode(QuizService.sendMessage(QuizService.CODE_PLAYAGAIN)));
+    }
+
+    /**
+     * Handles a response received from a member, according to the member's state in the current round
+     * @param member the member who sent the response
+     * @param response the response
+     * @return false if the member declined to play again and should leave, true otherwise
+     */
+    public boolean receive(RoomMember member, String response){
+        roomLock.lock();
+        try{
+            switch (member.state){
+                case WAITING_READY:
+                    if(!QuizService.playAgain(response)){
+                        return false;
+                    }
+                    member.state = RoomMember.State.READY;
+                    ready++;
+                    changed.signalAll();
+                    break;
+                case ANSWERING:
+                    member.answer = response;
+                    member.state = RoomMember.State.ANSWERED;
+                    pending--;
+                    changed.signalAll();
+                    break;
+                case LATE:
+                    //the answer to a question whose round already closed, the next response is to PLAYAGAIN
+                    member.state = RoomMember.State.WAITING_READY;
+                    break;
+                default:
+                    //not expecting anything from this member right now
+                    break;
+            }
+            return true;
+        }
+        finally {
+            roomLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a member from the room and the leaderboard. The room closes once its last member leaves.
+     * @param member the member who is leaving
+     */
+    public void leave(RoomMember member){
+        boolean removed;
+        roomLock.lock();
+        try{
+            removed = members.remove(member);
+            if(removed){
+                if(member.state == RoomMember.State.ANSWERING){
+                    pending--;
+                }
+                else if(member.state == RoomMember.State.READY){
+                    ready--;
+                }
+                member.state = RoomMember.State.LEFT;
+                if(members.isEmpty()){
+                    closed = true;
+                }
+                changed.signalAll();
+            }
+        }
+        finally {
+            roomLock.unlock();
+        }
+        //the id may belong to someone else once the member has left
+        if(removed){
+            leaderBoard.leave(member.getPlayer());
+        }
+    }
+
+    /**
+     * Plays rounds until the room closes. Each round waits for ready members, broadcasts a single question, collects
+     * answers until all participants answered or the round window closes, and sends every participant their result,
+     * the leaderboard and a PLAYAGAIN prompt.
+     */
+    public void run() {
+        try{
+            List<RoomMember> participants;
+            while((participants = awaitParticipants()) != null){
+                playRound(participants);
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until at least one member is ready, and then until every member is ready or the lobby window has passed
+     * @return the members taking part in the next round, now waiting for the question, or null if the room closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private List<RoomMember> awaitParticipants() throws InterruptedException {
+        roomLock.lock();
+        try{
+            while(!closed && ready == 0){
+                changed.await();
+            }
+            long remaining = LOBBY_NANOS;
+            while(!closed && ready < members.size() && remaining > 0){
+                remaining = changed.awaitNanos(remaining);
+            }
+            if(closed){
+                return null;
+            }
+            List<RoomMember> participants = new ArrayList<>();
+            for(RoomMember member : members){
+                if(member.state == RoomMember.State.READY){
+                    member.state = RoomMember.State.ANSWERING;
+                    member.answer = null;
+                    participants.add(member);
+                }
+            }
+            ready = 0;
+            pending = participants.size();
+            return participants;
+        }
+        finally {
+            roomLock.unlock();
+        }
+    }
+
+    private void playRound(List<RoomMember> participants) throws InterruptedException {
+        generator.generateQuestion();
+        MultipleChoiceQuestion q = generator.getQuestion();
+        byte[] question = RoomMember.encode(QuizService.sendMessage(QuizService.CATEGORY) + generator.getCategory()
+                + "\n" + q.toString() + QuizService.DELIMITER);
+        for(RoomMember member : participants){
+            member.send(question);
+        }
+
+        int[] players = new int[participants.size()];
+        int[] streaks = new int[participants.size()];
+        int scored = 0;
+        boolean[] correct = new boolean[participants.size()];
+        boolean[] played = new boolean[participants.size()];
+        roomLock.lock();
+        try{
+            long remaining = ROUND_NANOS;
+            while(pending > 0 && remaining > 0){
+                remaining = changed.awaitNanos(remaining);
+            }
+            for(int i = 0; i < participants.size(); i++){
+                RoomMember member = participants.get(i);
+                if(member.state == RoomMember.State.LEFT){
+                    continue;
+                }
+                if(member.state == RoomMember.State.ANSWERED){
+                    correct[i] = isCorrect(q, member.answer);
+                    member.state = RoomMember.State.WAITING_READY;
+                }
+                else if(member.state == RoomMember.State.ANSWERING){
+                    //no answer in time, which counts as incorrect
+                    member.state = RoomMember.State.LATE;
+                }
+                member.streak = correct[i] ? member.streak + 1 : 0;
+                played[i] = true;
+                players[scored] = member.getPlayer();
+                streaks[scored++] = member.streak;
+            }
+            pending = 0;
+            roundsPlayed++;
+            //under the room's lock, so no participant can leave and have their id given to someone else meanwhile
+            leaderBoard.updateAll(players, streaks, scored);
+        }
+        finally {
+            roomLock.unlock();
+        }
+
+        //everything but the streak line is identical for every participant, so it is encoded once
+        byte[] correctMessage = RoomMember.encode(QuizService.sendMessage(QuizService.CORRECT));
+        byte[] incorrectMessage = RoomMember.encode(QuizService.sendMessage(QuizService.INCORRECT) + q.correct()
+                + "\n" + QuizService.DELIMITER);
+        byte[] board = RoomMember.encode(QuizService.CODE_MSG + QuizService.DELIMITER + leaderBoard.prettyPrintTop3());
+        byte[] playAgain = RoomMember.encode(QuizService.sendMessage(QuizService.CODE_PLAYAGAIN));
+        for(int i = 0; i < participants.size(); i++){
+            RoomMember member = participants.get(i);
+            if(!played[i]){
+                continue;
+            }
+            member.send(correct[i] ? correctMessage : incorrectMessage, board,
+                    RoomMember.encode(STREAK_MESSAGE + member.streak + "\n" + QuizService.DELIMITER), playAgain);
+        }
+    }
+
+    private boolean isCorrect(MultipleChoiceQuestion q, String response){
+        return response.matches("\\d{1,9}") && q.evaluate(Integer.parseInt(response));
+    }
+
+    /**
+     * Retrieves the number of rounds this room has played
+     * @return the number of completed rounds
+     */
+    public long getRoundsPlayed(){
+        roomLock.lock();
+        try{
+            return roundsPlayed;
+        }
+        finally {
+            roomLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of members currently in the room
+     * @return the number of members
+     */
+    public int size(){
+        roomLock.lock();
+        try{
+            return members.size();
+        }
+        finally {
+            roomLock.unlock();
+        }
+    }
+
+    /**
+     * Determines whether the room has closed because its last member left
+     * @return true if the room is closed
+     */
+    public boolean isClosed(){
+        roomLock.lock();
+        try{
+            return closed;
+        }
+        finally {
+            roomLock.unlock();
+        }
+    }
+}
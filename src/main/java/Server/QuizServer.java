@@ -1,25 +1,64 @@
 package Server;
 
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.CategoryGenerator;
+import QuizQuestion.CategorySnapshot;
+import QuizQuestion.CorpusSource;
+import QuizQuestion.JeopardyCategory;
+
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A server that runs quiz services in an infinite loop. While running the server persistently keeps track of
  * all user Streak scores with the LeaderBoard object.
+ * In room mode, players are grouped into QuizRooms where each round's question is generated once and shared by
+ * every member of the room, instead of every player running their own QuizService.
+ * Every session is registered with a SessionReaper, which closes sessions whose client stops responding so that
+ * their threads, sockets and leaderboard entries are reclaimed. The time limit of every question is kept by a single
+ * TimingWheel shared by all sessions. Clients which ask to spectate are handed to a single SpectatorHub, which
+ * streams the top 3 to all of them; room mode has no spectators. The versions of the top 3 are numbered on a TopBoard
+ * shared by all sessions, so that clients which accept rank updates are only sent what changed. Unless the config sets
+ * no outbound threads, every connection writes through a bounded OutboundQueue drained by a shared OutboundPump, so
+ * that a client which is slow to read holds up no one else, and is disconnected once it falls too far behind.
+ * If the config names a snapshot file, the categories cached by one run are saved by shutdown and loaded by the next
+ * run before it accepts any connection, so that a restarted server starts warm, with its cache and the tiers of its
+ * TieredQuestionSupply filled. If the config names a corpus file, it is registered as a source of categories behind
+ * the upstream, and is reloaded whenever the file changes while sessions keep playing.
  * A built-n main method is included to construct and launch the QuizServer.
  */
 public class QuizServer {
 
     private final int QUIZ_PORT;
-    private LeaderBoard leaderBoard;
+    private ServerConfig config;
+    private Scorable leaderBoard;
+    private RoomLobby lobby;
+    private CategoryFetcher fetcher;
+    private SessionReaper reaper;
+    private TimingWheel timer;
+    private SpectatorHub spectators;
+    private TopBoard board;
+    private OutboundPump pump;
+    private ServerMetrics metrics;
+    private AdmissionController admission;
+    private CorpusSource corpus;
+    private long corpusModified;
+    private Lock corpusLock;
+    private volatile ServerSocket serverSocket;
 
     /**
      * Constructs QuizServer with default port set to 7777
      */
     public QuizServer(){
-        QUIZ_PORT = 7777;
-        leaderBoard =  new LeaderBoard();
+        this(new ServerConfig(), new LeaderBoard());
     }
 
     /**
@@ -27,36 +66,382 @@ public class QuizServer {
      * @param port the port with which the server will wait for connections
      */
     public QuizServer(int port){
-        QUIZ_PORT = port;
-        leaderBoard = new LeaderBoard();
+        this(port, 0);
+    }
+
+    /**
+     * Constructs QuizServer in room mode with user specified port
+     * @param port the port with which the server will wait for connections
+     * @param roomCapacity the maximum number of players sharing each room
+     */
+    public QuizServer(int port, int roomCapacity){
+        this(port, roomCapacity, new LeaderBoard());
+    }
+
+    /**
+     * Constructs QuizServer with user specified port and leaderboard, for example a ShardedLeaderBoard
+     * @param port the port with which the server will wait for connections
+     * @param roomCapacity the maximum number of players sharing each room, or 0 to give every player their own QuizService
+     * @param leaderBoard the Scorable used to keep track of all user Streak scores
+     */
+    public QuizServer(int port, int roomCapacity, Scorable leaderBoard){
+        this(withPort(port, roomCapacity), leaderBoard);
+    }
+
+    /**
+     * Constructs QuizServer from a ServerConfig, which also sets the session deadlines and heartbeat interval
+     * @param config the server settings
+     * @param leaderBoard the Scorable used to keep track of all user Streak scores
+     */
+    public QuizServer(ServerConfig config, Scorable leaderBoard){
+        QUIZ_PORT = config.getPort();
+        this.config = config;
+        //every streak is also ranked in the windows of the last 5 minutes, hour and day, which clients ask for with TOP
+        this.leaderBoard = leaderBoard instanceof WindowedLeaderBoard ? leaderBoard : new WindowedLeaderBoard(leaderBoard);
+        metrics = new ServerMetrics();
+        if(config.getCategoryURI().equals(CategoryGenerator.DEFAULT_CATEGORY_URI) && config.getCorpusPath() == null){
+            fetcher = CategoryFetcher.getDefault();
+        }
+        else{
+            //a corpus is registered with a fetcher of this server's own rather than the shared one
+            fetcher = new CategoryFetcher(config.getCategoryURI(), CategoryGenerator.DEFAULT_TIMEOUT);
+            corpusLock = new ReentrantLock();
+            loadCorpus();
+        }
+        if(config.getRoomCapacity() > 0){
+            lobby = new RoomLobby(config.getRoomCapacity(), this.leaderBoard, fetcher,
+                    RoomLobby.DEFAULT_LOBBY_MILLIS, RoomLobby.DEFAULT_ROUND_MILLIS);
+        }
+        reaper = new SessionReaper(config, metrics);
+        timer = new TimingWheel();
+        spectators = new SpectatorHub(this.leaderBoard, config, reaper);
+        board = new TopBoard(this.leaderBoard);
+        if(config.getOutboundThreads() > 0){
+            pump = new OutboundPump(config.getOutboundThreads());
+        }
+        QuizService.Dependencies sessions = new QuizService.Dependencies();
+        sessions.setFetcher(fetcher);
+        sessions.setReaper(reaper);
+        sessions.setMetrics(metrics);
+        sessions.setTimer(timer);
+        sessions.setSpectators(spectators);
+        sessions.setBoard(board);
+        sessions.setPump(pump);
+        admission = new AdmissionController(config, metrics, s -> lobby == null
+                ? new QuizService(new SocketTransport(s), this.leaderBoard, config, sessions)
+                : new RoomMember(s, lobby, config, reaper, metrics, pump));
+    }
+
+    private static ServerConfig withPort(int port, int roomCapacity){
+        ServerConfig config = new ServerConfig();
+        config.setPort(port);
+        config.setRoomCapacity(roomCapacity);
+        return config;
     }
 
     /**
      * Launches the server by creating a ServerSocket on a given port and starting a new thread running a QuizService
-     * object for each new client connection. The server will continue to accept new client connections until manually terminated
+     * object for each new client connection, or a RoomMember in room mode.
+     * Every connection first passes through the AdmissionController, which may queue it until a running session
+     * finishes or turn it away with a BUSY response when the server is full.
+     * The server will continue to accept new client connections until stopped or manually terminated
      * @throws IOException if port does not exist
      */
     public void openServer() throws IOException {
-        ServerSocket quizServer = new ServerSocket(QUIZ_PORT);
-        System.out.println("Launching Quiz Server - Waiting for connection. on port: " + QUIZ_PORT);
+        loadSnapshot();
+        serverSocket = new ServerSocket(QUIZ_PORT, config.getAcceptBacklog());
+        System.out.println("Launching Quiz Server - Waiting for connection. on port: " + getLocalPort());
 
-        while(true){
-            Socket s = quizServer.accept();
-            System.out.println("Client has connected.");
-            QuizService quizService = new QuizService(s, leaderBoard);
-            Thread t = new Thread(quizService);
-            t.start();
+        Thread reaperThread = new Thread(reaper);
+        reaperThread.setDaemon(true);
+        reaperThread.start();
+        Thread timerThread = new Thread(timer);
+        timerThread.setDaemon(true);
+        timerThread.start();
+        Thread spectatorThread = new Thread(spectators);
+        spectatorThread.setDaemon(true);
+        spectatorThread.start();
+        Thread statsThread = new Thread(fetcher.getStats());
+        statsThread.setDaemon(true);
+        statsThread.start();
+        if(pump != null){
+            pump.start();
+        }
+        Thread corpusThread = null;
+        if(config.getCorpusPath() != null && config.getCorpusReloadMillis() > 0){
+            corpusThread = new Thread(this::watchCorpus);
+            corpusThread.setDaemon(true);
+            corpusThread.start();
+        }
+        try{
+            while(true){
+                Socket s = serverSocket.accept();
+                System.out.println("Client has connected.");
+                admission.offer(s);
+            }
+        }
+        catch(SocketException e){
+            if(!serverSocket.isClosed()){
+                throw e;
+            }
+        }
+        finally{
+            reaperThread.interrupt();
+            timerThread.interrupt();
+            spectatorThread.interrupt();
+            statsThread.interrupt();
+            if(pump != null){
+                //sessions still running write directly from then on
+                pump.stop();
+            }
+            if(corpusThread != null){
+                corpusThread.interrupt();
+            }
         }
     }
 
     /**
-     * Constructs and launches a default QuizServer
-     * @param args not used in this method
+     * Stops accepting new connections, which makes openServer return. Running sessions are not interrupted.
+     * @throws IOException if the ServerSocket cannot be closed
+     */
+    public void stop() throws IOException {
+        if(serverSocket != null){
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * Shuts the server down gracefully: stops accepting connections, waits up to the drain timeout for running
+     * sessions to finish, closes any which are still running and saves the category cache to the snapshot file.
+     * Intended to be run from a shutdown hook.
+     */
+    public void shutdown(){
+        try{
+            stop();
+            long deadline = System.currentTimeMillis() + config.getDrainTimeoutMillis();
+            while(metrics.getActiveSessions() > 0 && System.currentTimeMillis() < deadline){
+                Thread.sleep(50);
+            }
+            reaper.closeAll();
+            saveSnapshot();
+        }
+        catch(IOException e){
+            e.printStackTrace();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Saves the categories currently cached to the snapshot file, and the difficulty of clues to the statistics file,
+     * if the config names them
+     * @throws IOException if a file cannot be written
+     */
+    public void saveSnapshot() throws IOException {
+        if(config.getSnapshotPath() != null){
+            List<JeopardyCategory> categories = fetcher.getCache().toList();
+            CategorySnapshot.save(categories, Paths.get(config.getSnapshotPath()));
+            System.out.println("Saved " + categories.size() + " categories to " + config.getSnapshotPath());
+        }
+        if(config.getStatsPath() != null){
+            fetcher.getStats().save(Paths.get(config.getStatsPath()));
+            System.out.println("Saved statistics of " + fetcher.getStats().size() + " clues to " + config.getStatsPath());
+        }
+    }
+
+    /**
+     * Loads the categories saved by the previous run into the category cache, and the difficulty of clues it saved. A
+     * missing or unreadable snapshot only means the server starts cold, and missing statistics that it starts without.
+     */
+    private void loadSnapshot(){
+        loadStats();
+        if(config.getSnapshotPath() == null){
+            return;
+        }
+        Path file = Paths.get(config.getSnapshotPath());
+        if(!Files.exists(file)){
+            return;
+        }
+        try{
+            List<JeopardyCategory> categories = CategorySnapshot.load(file);
+            fetcher.warmStart(categories);
+            System.out.println("Loaded " + categories.size() + " categories from " + file);
+        }
+        catch(IOException e){
+            System.out.println("Starting cold, " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers the local corpus, if there is one, as a source of categories behind the upstream. An unreadable
+     * corpus only means the server relies on the upstream and its cache.
+     */
+    private void loadCorpus(){
+        if(config.getCorpusPath() == null){
+            return;
+        }
+        //taken before the file is read, so that a change made while it is read is still picked up
+        corpusModified = lastModified(Paths.get(config.getCorpusPath()));
+        try{
+            corpus = CorpusSource.load(Paths.get(config.getCorpusPath()));
+            fetcher.getSources().register(corpus, 1, 1);
+            System.out.println("Loaded " + corpus.size() + " categories from " + config.getCorpusPath());
+        }
+        catch(IOException e){
+            System.out.println("Starting without a corpus, " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the corpus file again and publishes it in place of the current corpus, or registers it if it could not be
+     * loaded before. Sessions keep playing throughout: the file is read and indexed on the calling thread, and
+     * sessions which already started finish on the old corpus, see CategoryFetcher.reloadCorpus.
+     * @return the Version of the corpus published
+     * @throws IOException if the file cannot be read, in which case the current corpus is kept
+     * @throws IllegalStateException if the config names no corpus
+     */
+    public CorpusSource.Version reloadCorpus() throws IOException {
+        if(config.getCorpusPath() == null){
+            throw new IllegalStateException("the server has no corpus");
+        }
+        corpusLock.lock();
+        try{
+            if(corpus == null){
+                corpus = CorpusSource.load(Paths.get(config.getCorpusPath()));
+                fetcher.getSources().register(corpus, 1, 1);
+                return corpus.getVersion();
+            }
+            return fetcher.reloadCorpus(corpus, Paths.get(config.getCorpusPath()));
+        }
+        finally {
+            corpusLock.unlock();
+        }
+    }
+
+    /**
+     * Checks the corpus file for changes once per reload interval until interrupted, reloading it whenever its
+     * modification time changes from the one it had when it was loaded. A file which cannot be read is tried again
+     * once it changes again.
+     */
+    private void watchCorpus(){
+        Path file = Paths.get(config.getCorpusPath());
+        long seen = corpusModified;
+        try{
+            while(!Thread.currentThread().isInterrupted()){
+                Thread.sleep(config.getCorpusReloadMillis());
+                long modified = lastModified(file);
+                if(modified == seen){
+                    continue;
+                }
+                seen = modified;
+                try{
+                    CorpusSource.Version version = reloadCorpus();
+                    System.out.println("Reloaded " + version.getCategories().size() + " categories from " + file
+                            + " as version " + version.getNumber());
+                }
+                catch(IOException e){
+                    System.out.println("Keeping the current corpus, " + e.getMessage());
+                }
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retrieves the modification time of a file in milliseconds, or -1 if it cannot be read
+     */
+    private static long lastModified(Path file){
+        try{
+            return Files.getLastModifiedTime(file).toMillis();
+        }
+        catch(IOException e){
+            return -1;
+        }
+    }
+
+    /**
+     * Loads the difficulty of clues saved by the previous run, to which this run's answers are added
+     */
+    private void loadStats(){
+        if(config.getStatsPath() == null || !Files.exists(Paths.get(config.getStatsPath()))){
+            return;
+        }
+        try{
+            fetcher.getStats().load(Paths.get(config.getStatsPath()));
+            System.out.println("Loaded statistics of " + fetcher.getStats().size() + " clues from " + config.getStatsPath());
+        }
+        catch(IOException e){
+            System.out.println("Starting without statistics, " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the port the server is listening on, which is useful when the config asked for any free port
+     * @return the local port, or -1 if the server has not been opened yet
+     */
+    public int getLocalPort(){
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    /**
+     * Retrieves the counters describing this server's sessions
+     * @return the server's metrics
+     */
+    public ServerMetrics getMetrics(){
+        return metrics;
+    }
+
+    /**
+     * Retrieves the AdmissionController, for example to observe its queue
+     * @return the server's admission controller
+     */
+    public AdmissionController getAdmission(){
+        return admission;
+    }
+
+    /**
+     * Retrieves the TimingWheel which keeps the time limit of every question
+     * @return the server's timer
+     */
+    public TimingWheel getTimer(){
+        return timer;
+    }
+
+    /**
+     * Retrieves the SpectatorHub which streams the top 3 to spectators
+     * @return the server's spectator hub
+     */
+    public SpectatorHub getSpectators(){
+        return spectators;
+    }
+
+    /**
+     * Retrieves the source of categories shared by all sessions
+     * @return the server's category fetcher
+     */
+    public CategoryFetcher getFetcher(){
+        return fetcher;
+    }
+
+    /**
+     * Constructs and launches a default QuizServer, which keeps its cached categories in quiz-categories.bin and the
+     * difficulty of clues in quiz-stats.bin across restarts and shuts down gracefully when the process is stopped
+     * @param args optionally the room capacity, which launches the server in room mode
      * @throws IOException if port number does not exist
      */
     public static void main(String[] args) throws IOException {
 
-        QuizServer server = new QuizServer();
+        ServerConfig config = new ServerConfig();
+        if(args.length > 0){
+            config.setRoomCapacity(Integer.parseInt(args[0]));
+        }
+        config.setSnapshotPath("quiz-categories.bin");
+        config.setStatsPath("quiz-stats.bin");
+        QuizServer server = new QuizServer(config, new LeaderBoard());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown));
         server.openServer();
     }
 }
@@ -3,130 +3,557 @@ package Server;
 import QuizQuestion.*;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.Socket;
-import java.util.Scanner;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
 
 /**
  * This class is responsible for all Quiz related services and protocols. Protocol uses simple CODE~MESSSAGE~ pattern
  * where ~ acts as a delimiter between codes and messages. The run method is responsible for all communications
- * with client and execution of appropriate commands. A Socket connected to a client and a persistent record of
+ * with client and execution of appropriate commands. A Transport connected to a client and a persistent record of
  * all users' scores is passed through constructor and are updated within the run method.
  * A helper method called sendMessage is used to construct message strings to be sent in the run method,
  * while playAgain method is used to evaluate whether the gameplay loop of the run method should continue or no not.
  * Protocol codes are as follows: MSG - send a message, NAME -  request a name, wait for response,
  * PLAYAGAIN - request response indicating whether player would like to continue, wait for response,
- * QUESTION - send a question, wait for answer to question
+ * QUESTION - send a question, wait for answer to question,
+ * HEARTBEAT - tells the client how often to send a HEARTBEAT back while it is idle, which lets the server detect
+ * clients that vanished without closing their connection,
+ * COMPRESS - offers compressed frames, see FrameCompression,
+ * BUSY - sent by the AdmissionController before closing a connection it turned away, the message is the number of
+ * seconds the client should wait before retrying,
+ * TOP - sent by the client instead of answering PLAYAGAIN, followed by a LeaderBoardWindow such as 1H, asks for the
+ * best streaks of that window, which the server sends back as TOP~RANKING~ before repeating PLAYAGAIN,
+ * TOPIC - sent by the client instead of answering PLAYAGAIN, followed by one or more words such as "rivers", asks for
+ * the next questions to be on that topic, or on any topic if the words are ANY. The server confirms with a MSG
+ * before repeating PLAYAGAIN,
+ * CONTINUOUS - offers continuous play, the message is the code with which the client then quits. A client which
+ * answers CONTINUOUS before its name only answers PLAYAGAIN once: after that every answer is followed by its result,
+ * the leaderboard and the next question in one response, until the client sends QUIT instead of an answer,
+ * BATCH - offers batches of questions, the message is the most questions in a batch. A client which answers
+ * BATCH~N~ before its name is sent QUESTIONS~N~ followed by N QUESTION frames in one response, and answers them all
+ * in one response, such as 2 0 3, which saves a round trip per question on a slow connection. The answers are
+ * evaluated in order and the streak they end on, and the best streak within them, reach the leaderboard in one
+ * update. Answers cannot be learned before they are submitted: the batch carries only the questions and their
+ * shuffled choices, no result is sent until the whole batch is answered, a TOP or TOPIC request in the meantime is
+ * followed by the same batch again rather than a new one, and unless the response holds exactly one number per
+ * question every answer in the batch is incorrect.
+ * If the server has a TimingWheel and a question time limit, every question, or batch, is given a deadline when it is
+ * sent. A deadline which passes counts as an incorrect answer: the expiry resets the player's streak on the
+ * leaderboard at once, and the answer which eventually arrives is told that time is up.
+ * SPECTATE - sent by the client instead of its name, makes the connection a read-only spectator, which is handed to
+ * the server's SpectatorHub and from then on only receives BOARD~TOP3~ whenever the top 3 changes.
+ * RANKS - offers rank updates, the message is the number of ranks on the board. A client which answers RANKS before
+ * its name is sent the top 3 in full as BOARD~TOP3~ once, and after that, wherever the top 3 would be sent, only RANKS
+ * with the lines of the board which changed since the version it was sent last, which is empty if none did (see
+ * TopBoard). The client keeps its own copy of the board, and its streak follows in a MSG of its own.
+ * Every answer which is evaluated is counted towards the difficulty of its clue and category in the CategoryFetcher's
+ * ClueStats, unless the config turns statistics off; answers which ran out of time or came in an incomplete batch are
+ * not counted.
  */
 public class QuizService implements Runnable {
 
     //Protocol codes
-    private final String DELIMITER = "~";
-    private final String CODE_MSG = "MSG";
-    private final String CODE_NAME = "NAME";
-    private final String CODE_PLAYAGAIN = "PLAYAGAIN";
-    private final String CODE_QUESTION = "QUESTION";
+    static final String DELIMITER = "~";
+    static final String CODE_MSG = "MSG";
+    static final String CODE_NAME = "NAME";
+    static final String CODE_PLAYAGAIN = "PLAYAGAIN";
+    static final String CODE_QUESTION = "QUESTION";
+    static final String CODE_HEARTBEAT = "HEARTBEAT";
+    static final String CODE_BUSY = "BUSY";
+    static final String CODE_TOP = "TOP";
+    static final String CODE_TOPIC = "TOPIC";
+    static final String CODE_CONTINUOUS = "CONTINUOUS";
+    static final String CODE_QUIT = "QUIT";
+    static final String CODE_BATCH = "BATCH";
+    static final String CODE_QUESTIONS = "QUESTIONS";
+    static final String CODE_SPECTATE = "SPECTATE";
+    static final String CODE_BOARD = "BOARD";
+    static final String CODE_RANKS = "RANKS";
 
     //Internal codes for use in sendMessage and playAgain methods
-    private final String CORRECT = "CORRECT";
-    private final String INCORRECT = "INCORRECT";
-    private final String CONTINUE = "Y";
-    private final String CATEGORY = "CATEGORY";
-    private final String WAIT = "WAIT";
-    private final String GOODBYE = "GOODBYE";
-    private final String GREETING = "WELCOME TO...\n\n#################\n# ULTIMATE QUIZ #\n#################\n\n";
+    static final String CORRECT = "CORRECT";
+    static final String INCORRECT = "INCORRECT";
+    static final String CONTINUE = "Y";
+    static final String CATEGORY = "CATEGORY";
+    static final String WAIT = "WAIT";
+    static final String TIME_UP = "TIME_UP";
+    static final String GOODBYE = "GOODBYE";
+    static final String UNKNOWN_WINDOW = "Please choose a window of 5M, 1H or 24H\n";
+    static final String ANY_TOPIC = "ANY";
+    static final String GREETING = "WELCOME TO...\n\n#################\n# ULTIMATE QUIZ #\n#################\n\n";
 
-    private Socket socket;
-    private LeaderBoard leaderBoard;
+    private Transport transport;
+    private Scorable leaderBoard;
+    private ServerConfig config;
+    private CategoryFetcher fetcher;
+    private SessionReaper reaper;
+    private SessionReaper.Handle session;
+    private OutboundPump pump;
+    private OutboundQueue outbound;
+    private ServerMetrics metrics;
+    private TimingWheel timer;
+    private TimingWheel.Timeout deadline;
+    private SpectatorHub spectators;
+    private TopBoard board;
+    private TopBoard.Snapshot sentBoard;
+    private StringBuilder scratch;
+    private boolean rankUpdates;
+    private FrameCompression compression;
+    private boolean continuous;
+    private int batch = 1;
+    private MultipleChoiceQuestion[] bundle;
+    private String[] categories;
+
+    /**
+     * The collaborators a QuizService shares with the other sessions of a server. Each is optional: by default a
+     * session draws its categories from the default CategoryFetcher, is counted in metrics of its own, keeps its own
+     * TopBoard, has no read deadlines or question time limits, treats SPECTATE as a name and writes its frames
+     * directly. A server sets the collaborators it has once and passes the same Dependencies to every session.
+     */
+    public static class Dependencies {
+
+        private CategoryFetcher fetcher;
+        private SessionReaper reaper;
+        private ServerMetrics metrics;
+        private TimingWheel timer;
+        private SpectatorHub spectators;
+        private TopBoard board;
+        private OutboundPump pump;
+
+        /**
+         * Sets the source of categories for the sessions' questions
+         * @param fetcher a CategoryFetcher, or null for the default one
+         */
+        public void setFetcher(CategoryFetcher fetcher){
+            this.fetcher = fetcher;
+        }
+
+        /**
+         * Sets the reaper which closes a session if its client goes quiet
+         * @param reaper a SessionReaper, or null for no deadlines
+         */
+        public void setReaper(SessionReaper reaper){
+            this.reaper = reaper;
+        }
+
+        /**
+         * Sets the metrics in which the sessions are counted
+         * @param metrics a ServerMetrics, or null for metrics of each session's own
+         */
+        public void setMetrics(ServerMetrics metrics){
+            this.metrics = metrics;
+        }
+
+        /**
+         * Sets the timer on which question time limits are kept
+         * @param timer a TimingWheel, or null for no time limits
+         */
+        public void setTimer(TimingWheel timer){
+            this.timer = timer;
+        }
+
+        /**
+         * Sets the hub to which a client sending SPECTATE is handed
+         * @param spectators a SpectatorHub, or null to treat SPECTATE as a name
+         */
+        public void setSpectators(SpectatorHub spectators){
+            this.spectators = spectators;
+        }
+
+        /**
+         * Sets the versions of the leaderboard's top 3, from which clients accepting rank updates are sent changes
+         * @param board a TopBoard of the sessions' leaderboard, or null for a TopBoard of each session's own
+         */
+        public void setBoard(TopBoard board){
+            this.board = board;
+        }
+
+        /**
+         * Sets the pump which writes the sessions' frames, so that a session never blocks on a client which is slow
+         * to read
+         * @param pump an OutboundPump, or null to write frames directly
+         */
+        public void setPump(OutboundPump pump){
+            this.pump = pump;
+        }
+    }
 
     /**
      * Constructs a socket using a provided Socket and LeaderBoard object
      * @param socket A Socket connected to a client
-     * @param leaderBoard a LeaderBoard object containing score streak data for all clients
+     * @param leaderBoard a Scorable object, such as a LeaderBoard, containing score streak data for all clients
+     */
+    public QuizService(Socket socket, Scorable leaderBoard){
+        this(new SocketTransport(socket), leaderBoard, new ServerConfig(), new Dependencies());
+    }
+
+    /**
+     * Constructs a QuizService over any Transport, such as a SocketTransport or an in-memory PipeTransport
+     * @param transport the Transport connected to a client
+     * @param leaderBoard a Scorable object, such as a LeaderBoard, containing score streak data for all clients
+     * @param config the server settings, including the deadline for each stage and the question time limit
+     * @param dependencies the collaborators this session shares with the other sessions of its server
      */
-    public QuizService(Socket socket, LeaderBoard leaderBoard){
-        this.socket = socket;
+    public QuizService(Transport transport, Scorable leaderBoard, ServerConfig config, Dependencies dependencies){
+        this.transport = transport;
         this.leaderBoard = leaderBoard;
+        this.config = config;
+        fetcher = dependencies.fetcher == null ? CategoryFetcher.getDefault() : dependencies.fetcher;
+        metrics = dependencies.metrics == null ? new ServerMetrics() : dependencies.metrics;
+        board = dependencies.board == null ? new TopBoard(leaderBoard) : dependencies.board;
+        timer = dependencies.timer;
+        spectators = dependencies.spectators;
+        reaper = dependencies.reaper;
+        pump = dependencies.pump;
+        if(reaper != null){
+            session = reaper.register(transport);
+        }
     }
 
     /**
      * This method runs all communication protocol with client and execution of commands.
-     * Runs initialization of Scanner and PrintWriter for communicating with client via InputStream and OutputStream.
-     * Sends a request for player name (protocol code NAME), which is added to leaderBoard, followed by a request
+     * Runs initialization of a FrameReader and FrameWriter for communicating with client via InputStream and
+     * OutputStream, which are reused for every turn so that a turn creates no objects besides its question, whether
+     * frames are written directly or through an OutboundQueue, unless the client accepted compression.
+     * Sends a request for player name (protocol code NAME), who joins the leaderBoard, followed by a request
      * asking the user if they would like to play again (protocol code PLAYAGAIN). If client responds with 'y' or 'Y'
      * The server enters the main gameplay loop cycling through the pattern: send question, wait for answer,
      * evaluate answer, record result, ask if the user would like to play again.
-     * Gameplay repeats until the client responds to PLAYAGAIN with anything other than 'Y' or 'y'
+     * Gameplay repeats until the client responds to PLAYAGAIN with anything other than 'Y' or 'y'.
+     * If heartbeats are enabled the client is first told how often to send a HEARTBEAT; heartbeats are skipped
+     * wherever a response is expected. Each response must arrive before the deadline of its stage, otherwise the
+     * SessionReaper closes the connection. However the session ends, the player is always removed from the leaderBoard.
+     * If the session has an OutboundPump, every send is queued on the session's OutboundQueue rather than written.
      */
     public void run() {
-
+        metrics.sessionStarted();
+        int player = -1;
+        boolean spectating = false;
         try {
             try {
-                Scanner in = new Scanner(socket.getInputStream());
-                in.useDelimiter(DELIMITER);
-                PrintWriter out = new PrintWriter(socket.getOutputStream());
+                FrameReader in = new FrameReader(transport.getInputStream(), Charset.defaultCharset());
+                if(pump != null){
+                    outbound = new OutboundQueue(transport, pump, config, reaper, metrics);
+                }
+                FrameWriter out = new FrameWriter(outbound != null ? outbound : transport.getOutputStream(),
+                        Charset.defaultCharset());
+                StringBuilder frames = out.frames();
 
-                out.print(sendMessage(CODE_NAME));
-                out.flush();
+                if(session != null && config.getHeartbeatIntervalMillis() > 0){
+                    frames.append(CODE_HEARTBEAT).append(DELIMITER).append(config.getHeartbeatIntervalMillis()).append(DELIMITER);
+                }
+                if(config.isCompression()){
+                    frames.append(FrameCompression.CODE_COMPRESS).append(DELIMITER).append(config.getCompressionThreshold()).append(DELIMITER);
+                }
+                if(config.isContinuousPlay()){
+                    frames.append(CODE_CONTINUOUS).append(DELIMITER).append(CODE_QUIT).append(DELIMITER);
+                }
+                if(config.getMaxBatchSize() > 1){
+                    frames.append(CODE_BATCH).append(DELIMITER).append(config.getMaxBatchSize()).append(DELIMITER);
+                }
+                if(config.isRankUpdates()){
+                    frames.append(CODE_RANKS).append(DELIMITER).append(3).append(DELIMITER);
+                }
+                out.send(sendMessage(CODE_NAME));
 
-                String player = in.next();
+                readResponse(in, out, config.getNameTimeoutMillis());
+                if(spectators != null && in.is(CODE_SPECTATE)){
+                    //the hub keeps the connection open, and this thread is free for a player
+                    spectators.subscribe(transport, outbound);
+                    spectating = true;
+                    return;
+                }
+                //the player joins under an id of their own, so players sharing a name keep separate streaks
+                player = leaderBoard.join(in.asString());
                 int score = 0;
+                //the questions of a batch, with their categories, clues and the answers given
+                bundle = new MultipleChoiceQuestion[batch];
+                categories = new String[batch];
+                int[] clueIds = new int[batch];
+                int[] answers = new int[batch];
+                //every answer evaluated is counted towards the difficulty of its clue, unless statistics are off
+                ClueStats stats = config.isClueStats() ? fetcher.getStats() : null;
+                //a question which runs out of time resets the streak there and then, on the timer's thread
+                int id = player;
+                Runnable expire = () -> {
+                    leaderBoard.update(id, 0);
+                    metrics.questionExpired();
+                };
 
-                leaderBoard.update(player, score);
-
-                out.print(sendMessage(CODE_PLAYAGAIN));
-                out.flush();
+                out.send(sendMessage(CODE_PLAYAGAIN));
 
-                while (playAgain(in.next())) {
-                    //send leaderboard and current score
-                    out.print(CODE_MSG + DELIMITER + leaderBoard.prettyPrintTop3() +
-                            "\nYour current Streak is: " + leaderBoard.get(player) + "\n" + DELIMITER);
-                    out.flush();
-
-                    out.print(sendMessage(WAIT));
-                    out.flush();
+                //one generator for the whole session, every turn only creates its question, and no clue is asked twice
+                QuizGenerator quizGen = new QuizGenerator(fetcher, new ClueBitmap());
+                boolean playing = readPlayAgain(in, out, quizGen).isIgnoreCase(CONTINUE);
+                if(playing){
+                    appendStreak(frames, player);
+                    frames.append(sendMessage(WAIT));
+                    out.send();
+                }
+                while (playing) {
+                    //questions get harder as the streak grows, and a batch is asked at the tier its streak began on
+                    quizGen.setDifficulty(Difficulty.forStreak(score));
+                    for(int i = 0; i < batch; i++){
+                        quizGen.generateQuestion();
+                        bundle[i] = quizGen.getQuestion();
+                        categories[i] = quizGen.getCategory();
+                        clueIds[i] = quizGen.getClueId();
+                    }
 
-                    QuizGenerator quizGen = new QuizGenerator();
-                    quizGen.generateQuestion();
-                    MultipleChoiceQuestion q = quizGen.getQuestion();
+                    //Send quiz questions, after the result of the last ones in continuous play
+                    appendQuestions(frames);
+                    out.send();
+                    deadline = isTimed()
+                            ? timer.schedule(config.getQuestionTimeLimitMillis() * batch, expire) : null;
 
-                    //Send quiz question
-                    out.print(sendMessage(CATEGORY) + quizGen.getCategory() + "\n"
-                            + q.toString() + DELIMITER);
-                    out.flush();
+                    //Check for valid input and evaluate, anything but a number per question is an incorrect answer
+                    readRequest(in, out, quizGen, config.getAnswerTimeoutMillis() * batch, true);
+                    boolean expired = deadline != null && !deadline.cancel();
+                    if(continuous && in.isIgnoreCase(CODE_QUIT)){
+                        break;
+                    }
+                    boolean complete = in.asNumbers(answers) == batch;
+                    int best = 0;
+                    for(int i = 0; i < batch; i++){
+                        if (expired) {
+                            frames.append(sendMessage(TIME_UP));
+                            bundle[i].appendCorrect(frames);
+                            frames.append('\n').append(DELIMITER);
+                            score = 0;
+                        } else if (complete && answers[i] >= 0 && bundle[i].evaluate(answers[i])) {
+                            frames.append(sendMessage(CORRECT));
+                            score++;
+                            best = Math.max(best, score);
+                            if(stats != null){
+                                stats.record(clueIds[i], categories[i], true);
+                            }
+                        } else {
+                            if(stats != null && complete){
+                                stats.record(clueIds[i], categories[i], false);
+                            }
+                            frames.append(sendMessage(INCORRECT));
+                            bundle[i].appendCorrect(frames);
+                            frames.append('\n').append(DELIMITER);
+                            score = 0;
+                        }
+                    }
+                    leaderBoard.updateBatch(player, best, score);
 
-                    //Check for valid input and evaluate
-                    String questionResponse = in.next();
-                    if (!questionResponse.matches("\\d+")){
-                        out.print(sendMessage(INCORRECT) + q.correct() + "\n" + DELIMITER);
-                        out.flush();
-                        score = 0;
-                        leaderBoard.update(player, score);
+                    if(continuous){
+                        //the result, leaderboard and next question all go out in one response
+                        appendStreak(frames, player);
                     }
-                    else if (q.evaluate(Integer.parseInt(questionResponse))) {
-                        out.print(sendMessage(CORRECT));
-                        out.flush();
-                        score++;
-                        leaderBoard.update(player, score);
-                    } else {
-                        out.print(sendMessage(INCORRECT) + q.correct() + "\n" + DELIMITER);
-                        out.flush();
-                        score = 0;
-                        leaderBoard.update(player, score);
+                    else{
+                        frames.append(sendMessage(CODE_PLAYAGAIN));
+                        out.send();
+                        playing = readPlayAgain(in, out, quizGen).isIgnoreCase(CONTINUE);
+                        if(playing){
+                            appendStreak(frames, player);
+                            frames.append(sendMessage(WAIT));
+                            out.send();
+                        }
                     }
-                    out.print(sendMessage(CODE_PLAYAGAIN));
-                    out.flush();
                 }
-                //Send goodbye message and remove player from leaderboard
-                out.print(sendMessage(GOODBYE));
-                out.flush();
-                leaderBoard.delete(player);
+                //Send goodbye message, the player is removed from the leaderboard below
+                out.send(sendMessage(GOODBYE));
             } finally {
-                socket.close();
+                //a question still running must not expire once the player's id may belong to someone else
+                if(deadline != null){
+                    deadline.cancel();
+                }
+                if(player >= 0){
+                    leaderBoard.leave(player);
+                }
+                if(session != null){
+                    session.close();
+                }
+                if(compression != null){
+                    compression.close();
+                }
+                if(!spectating && outbound != null){
+                    //the connection is closed once the frames still queued, such as GOODBYE, have been written
+                    outbound.close();
+                }
+                else if(!spectating){
+                    transport.close();
+                }
+                metrics.sessionEnded();
             }
         } catch (IOException e) {
             e.printStackTrace();
+        } catch (NoSuchElementException e) {
+            //the client disconnected or the session was reaped, everything has been cleaned up above
+        }
+    }
+
+    /**
+     * Waits for the next response from the client, skipping any heartbeats. A client accepting the offer of
+     * compression, continuous play, batches or rank updates is also handled here, since it answers COMPRESS,
+     * CONTINUOUS, BATCH and RANKS before its name.
+     * @param in the FrameReader reading from the client
+     * @param out the FrameWriter writing to the client, which compresses once the client accepts compression
+     * @param timeoutMillis the deadline for this stage, or 0 for no deadline
+     * @return the FrameReader, whose current token is now the response
+     * @throws NoSuchElementException if the client disconnected or the session was reaped
+     */
+    private FrameReader readResponse(FrameReader in, FrameWriter out, long timeoutMillis){
+        if(session != null){
+            session.expectWithin(timeoutMillis);
+        }
+        in.next();
+        while(in.is(CODE_HEARTBEAT) || in.is(FrameCompression.CODE_COMPRESS) || in.is(CODE_CONTINUOUS)
+                || in.is(CODE_BATCH) || in.is(CODE_RANKS)){
+            if(in.is(CODE_HEARTBEAT) && session != null){
+                session.heartbeat();
+            }
+            if(in.is(FrameCompression.CODE_COMPRESS) && config.isCompression() && compression == null){
+                compression = new FrameCompression(config.getCompressionThreshold());
+                out.compress(compression);
+            }
+            if(in.is(CODE_CONTINUOUS) && config.isContinuousPlay()){
+                continuous = true;
+            }
+            if(in.is(CODE_RANKS) && config.isRankUpdates() && scratch == null){
+                rankUpdates = true;
+                scratch = new StringBuilder();
+            }
+            if(in.is(CODE_BATCH)){
+                in.next();
+                //the batch size is only agreed before the name, once the questions of a batch have room for it
+                if(bundle == null && config.getMaxBatchSize() > 1){
+                    batch = Math.max(1, Math.min(in.asNumber(), config.getMaxBatchSize()));
+                }
+            }
+            in.next();
         }
+        if(session != null){
+            session.received();
+        }
+        return in;
+    }
+
+    /**
+     * Waits for the answer to PLAYAGAIN, answering any TOP and TOPIC requests in the meantime, after each of which the
+     * PLAYAGAIN prompt is repeated
+     * @param in the FrameReader reading from the client
+     * @param out the FrameWriter writing to the client
+     * @param quizGen the session's QuizGenerator, whose topic is set by TOPIC requests
+     * @return the FrameReader, whose current token is now the answer to PLAYAGAIN
+     * @throws IOException if a ranking cannot be written
+     * @throws NoSuchElementException if the client disconnected or the session was reaped
+     */
+    private FrameReader readPlayAgain(FrameReader in, FrameWriter out, QuizGenerator quizGen) throws IOException {
+        return readRequest(in, out, quizGen, config.getPlayAgainTimeoutMillis(), false);
+    }
+
+    /**
+     * Waits for the answer to PLAYAGAIN or to the questions, answering any TOP and TOPIC requests in the meantime,
+     * after each of which the PLAYAGAIN prompt or the same questions are repeated
+     * @param in the FrameReader reading from the client
+     * @param out the FrameWriter writing to the client
+     * @param quizGen the session's QuizGenerator, whose topic is set by TOPIC requests
+     * @param timeoutMillis the deadline for this stage
+     * @param answering true when waiting for the answers to the questions, false for the answer to PLAYAGAIN
+     * @return the FrameReader, whose current token is now the answer
+     * @throws IOException if a ranking cannot be written
+     * @throws NoSuchElementException if the client disconnected or the session was reaped
+     */
+    private FrameReader readRequest(FrameReader in, FrameWriter out, QuizGenerator quizGen, long timeoutMillis,
+                                    boolean answering) throws IOException {
+        readResponse(in, out, timeoutMillis);
+        while(in.is(CODE_TOP) || in.is(CODE_TOPIC)){
+            StringBuilder frames = out.frames();
+            if(in.is(CODE_TOP)){
+                LeaderBoardWindow window = LeaderBoardWindow.read(readResponse(in, out, timeoutMillis));
+                frames.append(CODE_TOP).append(DELIMITER);
+                if(window == null){
+                    frames.append(UNKNOWN_WINDOW);
+                }
+                else{
+                    leaderBoard.appendRecentTop(window, frames);
+                }
+            }
+            else{
+                String topic = readResponse(in, out, timeoutMillis).asString().trim();
+                frames.append(CODE_MSG).append(DELIMITER);
+                if(topic.isEmpty() || topic.equalsIgnoreCase(ANY_TOPIC)){
+                    quizGen.setTopic(null);
+                    frames.append("Questions will be on any topic\n");
+                }
+                else{
+                    quizGen.setTopic(topic);
+                    int count = fetcher.getIndex().count(topic);
+                    if(count == 0){
+                        frames.append("No categories on \"").append(topic)
+                                .append("\" yet, questions will be on any topic until there are\n");
+                    }
+                    else{
+                        frames.append("Questions will be on \"").append(topic).append("\", from ").append(count)
+                                .append(count == 1 ? " category\n" : " categories\n");
+                    }
+                }
+            }
+            frames.append(DELIMITER);
+            if(answering){
+                appendQuestions(frames);
+            }
+            else{
+                frames.append(sendMessage(CODE_PLAYAGAIN));
+            }
+            out.send();
+            readResponse(in, out, timeoutMillis);
+        }
+        return in;
+    }
+
+    /**
+     * Appends a MSG with the top 3 streaks and the player's own streak, or if the client accepted rank updates, the
+     * changes to the top 3 since the version last sent followed by a MSG with the player's streak
+     * @param frames the frames being written
+     * @param player the player's id on the leaderBoard
+     */
+    private void appendStreak(StringBuilder frames, int player){
+        if(rankUpdates){
+            TopBoard.Snapshot current = board.refresh(scratch);
+            TopBoard.appendUpdate(sentBoard, current, frames);
+            sentBoard = current;
+            frames.append(CODE_MSG).append(DELIMITER);
+        }
+        else{
+            frames.append(CODE_MSG).append(DELIMITER);
+            leaderBoard.appendTop3(frames);
+        }
+        frames.append("\nYour current Streak is: ").append(leaderBoard.get(player)).append('\n').append(DELIMITER);
+    }
+
+    /**
+     * Appends a QUESTION with the category and choices of each question being asked, after a QUESTIONS header with
+     * their number if they are a batch, and the time allowed after the last of them if questions are timed. The correct
+     * answers stay on the server.
+     * @param frames the frames being written
+     */
+    private void appendQuestions(StringBuilder frames){
+        if(batch > 1){
+            frames.append(CODE_QUESTIONS).append(DELIMITER).append(batch).append(DELIMITER);
+        }
+        for(int i = 0; i < batch; i++){
+            frames.append(sendMessage(CATEGORY)).append(categories[i]).append('\n');
+            bundle[i].appendTo(frames);
+            if(i == batch - 1 && isTimed()){
+                long seconds = (config.getQuestionTimeLimitMillis() * batch + 999) / 1000;
+                frames.append("You have ").append(seconds).append("s to answer\n");
+            }
+            frames.append(DELIMITER);
+        }
+    }
+
+    /**
+     * Tells whether questions have a time limit, which needs both a timer and a limit in the config
+     * @return true if every question is given a deadline
+     */
+    private boolean isTimed(){
+        return timer != null && config.getQuestionTimeLimitMillis() > 0;
     }
 
     /**
@@ -135,7 +562,7 @@ public class QuizService implements Runnable {
      * @param code the code corresponding to the requested message
      * @return A String message formatted in the CODE~MESSAGE~ protocol pattern
      */
-    public String sendMessage(String code){
+    public static String sendMessage(String code){
         String result = "";
         switch (code){
             case CODE_NAME:
@@ -153,6 +580,9 @@ public class QuizService implements Runnable {
             case INCORRECT:
                 result = CODE_MSG + DELIMITER + "Sorry, that's not it! The correct answer is ";
                 break;
+            case TIME_UP:
+                result = CODE_MSG + DELIMITER + "Time's up! The correct answer is ";
+                break;
             case CATEGORY:
                 result = CODE_QUESTION + DELIMITER + "The category is: ";
                 break;
@@ -168,7 +598,7 @@ public class QuizService implements Runnable {
      * @param code a String indicating whether or not a player would like to continue playing the quiz game
      * @return true if code is 'y' or 'Y', or returns false otherwise
      */
-    public boolean playAgain(String code){
+    public static boolean playAgain(String code){
         return code.toUpperCase().equals(CONTINUE);
     }
 }
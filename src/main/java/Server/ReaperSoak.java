@@ -0,0 +1,87 @@
+package Server;
+
+import QuizQuestion.StandInCategoryServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A soak test for the SessionReaper. Clients connect to a QuizServer, enter a name and then abandon their connection
+ * without closing it, as a crashed or disconnected client would. Once their deadlines pass, every abandoned session
+ * should be reaped: its thread finishes, its socket is closed and its leaderboard entry is removed.
+ * This class is provided for testing purposes only and is run from its main method.
+ */
+public class ReaperSoak {
+
+    private static final int CLIENTS = 500;
+    private static final long TIMEOUT_MILLIS = 3000;
+
+    /**
+     * Runs the soak test
+     * @param args not used here
+     * @throws IOException if the server or a client cannot be opened
+     * @throws InterruptedException if interrupted while waiting for sessions to be reaped
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StandInCategoryServer standIn = new StandInCategoryServer();
+        standIn.start();
+
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setCategoryURI(standIn.getCategoryURI());
+        config.setNameTimeoutMillis(TIMEOUT_MILLIS);
+        config.setPlayAgainTimeoutMillis(TIMEOUT_MILLIS);
+        config.setAnswerTimeoutMillis(TIMEOUT_MILLIS);
+        config.setHeartbeatIntervalMillis(0);
+        config.setMaxSessions(CLIENTS);
+        config.setPerIpConnectionsPerSecond(0);
+        LeaderBoard leaderBoard = new LeaderBoard();
+        QuizServer server = new QuizServer(config, leaderBoard);
+        new Thread(() -> {
+            try{
+                server.openServer();
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }).start();
+        while(server.getLocalPort() == -1){
+            Thread.sleep(10);
+        }
+
+        int threadsBefore = Thread.activeCount();
+        List<Socket> abandoned = new ArrayList<>();
+        for(int i = 0; i < CLIENTS; i++){
+            Socket s = new Socket("127.0.0.1", server.getLocalPort());
+            OutputStream out = s.getOutputStream();
+            //half of the clients vanish after entering their name, the rest before
+            if(i % 2 == 0){
+                out.write(("player" + i + "~").getBytes(Charset.defaultCharset()));
+                out.flush();
+            }
+            abandoned.add(s);
+        }
+        Thread.sleep(TIMEOUT_MILLIS / 2);
+        System.out.println("after connecting:   " + server.getMetrics().report()
+                + " leaderboard=" + leaderBoard.size() + " threads=" + Thread.activeCount());
+
+        long start = System.currentTimeMillis();
+        while(server.getMetrics().getActiveSessions() > 0 && System.currentTimeMillis() - start < 10 * TIMEOUT_MILLIS){
+            Thread.sleep(50);
+        }
+        Thread.sleep(100);
+        System.out.println("after the deadline: " + server.getMetrics().report()
+                + " leaderboard=" + leaderBoard.size() + " threads=" + Thread.activeCount()
+                + " (" + threadsBefore + " before connecting)");
+
+        for(Socket s : abandoned){
+            s.close();
+        }
+        server.stop();
+        standIn.stop();
+    }
+}
@@ -0,0 +1,129 @@
+package Server;
+
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.StandInCategoryServer;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Measures how many rounds per second a single QuizRoom plays with 10, 100 and 1000 players. Every player is a bot
+ * connected over a local Socket which answers each question and PLAYAGAIN prompt immediately, and questions are
+ * generated from a StandInCategoryServer, so the result reflects the cost of the room itself.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class RoomBenchmark {
+
+    private static final int[] ROOM_SIZES = {10, 100, 1000};
+    private static final long MEASURE_MILLIS = 5000;
+
+    /**
+     * A bot player which answers 0 to every question and keeps playing until told to stop
+     */
+    private static class Bot implements Runnable {
+
+        private Socket socket;
+        private String name;
+        private volatile boolean stopping;
+
+        Bot(Socket socket, String name){
+            this.socket = socket;
+            this.name = name;
+        }
+
+        public void run(){
+            try{
+                Scanner in = new Scanner(socket.getInputStream());
+                in.useDelimiter(QuizService.DELIMITER);
+                PrintWriter out = new PrintWriter(socket.getOutputStream());
+                while(in.hasNext()){
+                    String code = in.next();
+                    in.next();
+                    switch (code){
+                        case QuizService.CODE_NAME:
+                            out.print(name + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_PLAYAGAIN:
+                            out.print((stopping ? "N" : "Y") + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_QUESTION:
+                            out.print("0" + QuizService.DELIMITER);
+                            break;
+                        default:
+                            continue;
+                    }
+                    out.flush();
+                }
+            }
+            catch(IOException e){
+                //the benchmark is over
+            }
+        }
+    }
+
+    private static void run(int players, CategoryFetcher fetcher) throws IOException, InterruptedException {
+        LeaderBoard leaderBoard = new LeaderBoard();
+        RoomLobby lobby = new RoomLobby(players, leaderBoard, fetcher, 1000, 5000);
+        List<Bot> bots = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+
+        try(ServerSocket server = new ServerSocket(0)){
+            for(int i = 0; i < players; i++){
+                Socket client = new Socket("127.0.0.1", server.getLocalPort());
+                Socket accepted = server.accept();
+                sockets.add(client);
+                sockets.add(accepted);
+                new Thread(new RoomMember(accepted, lobby)).start();
+                Bot bot = new Bot(client, "bot" + i);
+                bots.add(bot);
+                new Thread(bot).start();
+            }
+        }
+
+        //wait for the first full round so that every bot has joined
+        QuizRoom room = null;
+        while(room == null || room.size() < players || room.getRoundsPlayed() < 2){
+            Thread.sleep(10);
+            List<QuizRoom> rooms = lobby.getRooms();
+            room = rooms.isEmpty() ? null : rooms.get(0);
+        }
+
+        long startRounds = room.getRoundsPlayed();
+        long start = System.nanoTime();
+        Thread.sleep(MEASURE_MILLIS);
+        long rounds = room.getRoundsPlayed() - startRounds;
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%5d players: %8.1f rounds/s, %10.1f answers/s, %.4f questions generated per answer%n",
+                players, rounds / seconds, rounds * players / seconds, 1.0 / players);
+
+        for(Bot bot : bots){
+            bot.stopping = true;
+        }
+        for(Socket socket : sockets){
+            socket.close();
+        }
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if a socket or the stand-in server cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the benchmark
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StandInCategoryServer standIn = new StandInCategoryServer();
+        standIn.start();
+        CategoryFetcher fetcher = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofSeconds(1));
+        for(int players : ROOM_SIZES){
+            run(players, fetcher);
+        }
+        standIn.stop();
+    }
+}
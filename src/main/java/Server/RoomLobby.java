@@ -0,0 +1,109 @@
+package Server;
+
+import QuizQuestion.CategoryFetcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Assigns RoomMembers to QuizRooms. A new member joins the first open room with space, and a new room is created and
+ * started on its own thread when every room is full. Rooms close themselves once their last member leaves and are
+ * then forgotten by the lobby.
+ */
+public class RoomLobby {
+
+    public static final long DEFAULT_LOBBY_MILLIS = 2000;
+    public static final long DEFAULT_ROUND_MILLIS = 30000;
+
+    private final int ROOM_CAPACITY;
+    private final long LOBBY_MILLIS;
+    private final long ROUND_MILLIS;
+
+    private Scorable leaderBoard;
+    private CategoryFetcher fetcher;
+    private List<QuizRoom> rooms;
+    private Lock lobbyLock;
+
+    /**
+     * Constructs a RoomLobby with default lobby and round windows
+     * @param roomCapacity the maximum number of members per room
+     * @param leaderBoard the persistent record of all users' streaks
+     */
+    public RoomLobby(int roomCapacity, Scorable leaderBoard){
+        this(roomCapacity, leaderBoard, CategoryFetcher.getDefault(), DEFAULT_LOBBY_MILLIS, DEFAULT_ROUND_MILLIS);
+    }
+
+    /**
+     * Constructs a RoomLobby
+     * @param roomCapacity the maximum number of members per room
+     * @param leaderBoard the persistent record of all users' streaks
+     * @param fetcher the source of categories for every room's questions
+     * @param lobbyMillis once one member is ready, how long a room waits for the others before starting a round
+     * @param roundMillis how long members have to answer each question
+     */
+    public RoomLobby(int roomCapacity, Scorable leaderBoard, CategoryFetcher fetcher, long lobbyMillis, long roundMillis){
+        ROOM_CAPACITY = roomCapacity;
+        LOBBY_MILLIS = lobbyMillis;
+        ROUND_MILLIS = roundMillis;
+        this.leaderBoard = leaderBoard;
+        this.fetcher = fetcher;
+        rooms = new ArrayList<>();
+        lobbyLock = new ReentrantLock();
+    }
+
+    /**
+     * Places a member in a room with space, creating a new room if necessary. The room is picked under the lobby's
+     * lock, and the member is only sent the PLAYAGAIN frame once it has been released, so that a member slow to
+     * receive never holds up the members joining after them.
+     * @param member a member who has entered their name
+     * @return the room the member joined
+     */
+    public QuizRoom join(RoomMember member){
+        QuizRoom joined = null;
+        lobbyLock.lock();
+        try{
+            rooms.removeIf(QuizRoom::isClosed);
+            for(QuizRoom room : rooms){
+                if(room.add(member)){
+                    joined = room;
+                    break;
+                }
+            }
+            if(joined == null){
+                joined = new QuizRoom(ROOM_CAPACITY, leaderBoard, fetcher, LOBBY_MILLIS, ROUND_MILLIS);
+                joined.add(member);
+                rooms.add(joined);
+                new Thread(joined).start();
+            }
+        }
+        finally {
+            lobbyLock.unlock();
+        }
+        joined.welcome(member);
+        return joined;
+    }
+
+    /**
+     * Retrieves the leaderboard which members join and their rooms update
+     * @return the leaderboard
+     */
+    Scorable getLeaderBoard(){
+        return leaderBoard;
+    }
+
+    /**
+     * Retrieves the rooms which are currently open
+     * @return a copy of the list of rooms
+     */
+    public List<QuizRoom> getRooms(){
+        lobbyLock.lock();
+        try{
+            return new ArrayList<>(rooms);
+        }
+        finally {
+            lobbyLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package Server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Scanner;
+
+/**
+ * A single player connected to a QuizRoom. Like a QuizService, a RoomMember runs on its own thread: it asks the
+ * client for a name (protocol code NAME), joins the leaderboard under an id of its own and a room through the
+ * RoomLobby, and from then on reads every response from the client and hands it to its room. Unlike a QuizService it never generates questions itself - its room
+ * broadcasts one question to all of its members each round and writes results back through the send method.
+ */
+public class RoomMember implements Runnable {
+
+    /**
+     * The states a member moves through during each round, see QuizRoom
+     */
+    enum State { JOINING, WAITING_READY, READY, ANSWERING, ANSWERED, LATE, LEFT }
+
+    private Socket socket;
+    private RoomLobby lobby;
+    private OutputStream out;
+    private String name;
+    private int player = -1;
+    private QuizRoom room;
+    private ServerConfig config;
+    private SessionReaper.Handle session;
+    private ServerMetrics metrics;
+    private SessionReaper reaper;
+    private OutboundPump pump;
+
+    //state, answer and streak are guarded by the room's lock
+    State state;
+    String answer;
+    int streak;
+
+    /**
+     * Constructs a RoomMember for a connected client
+     * @param socket A Socket connected to a client
+     * @param lobby the lobby which assigns this member to a room
+     */
+    public RoomMember(Socket socket, RoomLobby lobby){
+        this(socket, lobby, new ServerConfig(), null, new ServerMetrics());
+    }
+
+    /**
+     * Constructs a RoomMember whose read deadlines are enforced by a SessionReaper
+     * @param socket A Socket connected to a client
+     * @param lobby the lobby which assigns this member to a room
+     * @param config the server settings, including the name deadline and the heartbeat interval
+     * @param reaper the reaper which closes this member's socket if its client goes quiet, or null for no deadlines
+     * @param metrics the metrics in which this session is counted
+     */
+    public RoomMember(Socket socket, RoomLobby lobby, ServerConfig config, SessionReaper reaper, ServerMetrics metrics){
+        this(socket, lobby, config, reaper, metrics, null);
+    }
+
+    /**
+     * Constructs a RoomMember whose read deadlines are enforced by a SessionReaper and whose messages are queued for
+     * an OutboundPump to write, so that its room never blocks on a client which is slow to read
+     * @param socket A Socket connected to a client
+     * @param lobby the lobby which assigns this member to a room
+     * @param config the server settings, including the name deadline and the outbound queue's capacity
+     * @param reaper the reaper which closes this member's socket if its client goes quiet, or null for no deadlines
+     * @param metrics the metrics in which this session is counted
+     * @param pump the pump which writes this member's messages, or null to write them directly
+     */
+    public RoomMember(Socket socket, RoomLobby lobby, ServerConfig config, SessionReaper reaper, ServerMetrics metrics,
+                      OutboundPump pump){
+        this.socket = socket;
+        this.lobby = lobby;
+        this.config = config;
+        this.metrics = metrics;
+        this.reaper = reaper;
+        this.pump = pump;
+        if(reaper != null){
+            session = reaper.register(socket);
+        }
+        state = State.JOINING;
+        streak = 0;
+    }
+
+    /**
+     * Requests a name from the client, joins a room and forwards every response from the client to the room until the
+     * client declines to play again, disconnects or is reaped. Heartbeats from the client are skipped, and between
+     * rounds the client has as long as a PLAYAGAIN prompt allows to respond. The member is always removed from its
+     * room and the leaderboard.
+     */
+    public void run() {
+        metrics.sessionStarted();
+        try {
+            try {
+                Scanner in = new Scanner(socket.getInputStream());
+                in.useDelimiter(QuizService.DELIMITER);
+                out = pump == null ? new BufferedOutputStream(socket.getOutputStream())
+                        : new OutboundQueue(socket, pump, config, reaper, metrics);
+
+                if(session != null && config.getHeartbeatIntervalMillis() > 0){
+                    send(encode(QuizService.CODE_HEARTBEAT + QuizService.DELIMITER
+                            + config.getHeartbeatIntervalMillis() + QuizService.DELIMITER));
+                }
+                send(encode(QuizService.sendMessage(QuizService.CODE_NAME)));
+                name = readResponse(in, config.getNameTimeoutMillis());
+                if(name == null){
+                    return;
+                }
+                //the member joins under an id of their own, so members sharing a name keep separate streaks
+                player = lobby.getLeaderBoard().join(name);
+                room = lobby.join(this);
+
+                boolean playing = true;
+                String response;
+                while (playing && (response = readResponse(in, config.getPlayAgainTimeoutMillis())) != null) {
+                    playing = room.receive(this, response);
+                }
+                if(!playing){
+                    send(encode(QuizService.sendMessage(QuizService.GOODBYE)));
+                }
+            } finally {
+                if(room != null){
+                    room.leave(this);
+                }
+                else if(player >= 0){
+                    lobby.getLeaderBoard().leave(player);
+                }
+                if(session != null){
+                    session.close();
+                }
+                if(out instanceof OutboundQueue){
+                    //the socket is closed once the messages still queued, such as GOODBYE, have been written
+                    out.close();
+                }
+                else{
+                    socket.close();
+                }
+                metrics.sessionEnded();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for the next response from the client, skipping any heartbeats
+     * @param in the Scanner reading from the client
+     * @param timeoutMillis the deadline for the response, or 0 for no deadline
+     * @return the response, or null if the client disconnected or the session was reaped
+     */
+    private String readResponse(Scanner in, long timeoutMillis){
+        if(session != null){
+            session.expectWithin(timeoutMillis);
+        }
+        String response = null;
+        while(in.hasNext()){
+            response = in.next();
+            if(!response.equals(QuizService.CODE_HEARTBEAT)){
+                break;
+            }
+            response = null;
+            if(session != null){
+                session.heartbeat();
+            }
+        }
+        if(session != null){
+            session.received();
+        }
+        return response;
+    }
+
+    /**
+     * Writes already encoded messages to the client in a single flush. Messages shared by the whole room are encoded
+     * only once. Write failures are ignored here, the member leaves its room once its reader sees the connection close.
+     * @param messages the encoded messages
+     */
+    public void send(byte[]... messages){
+        synchronized (this){
+            try{
+                for(byte[] message : messages){
+                    out.write(message);
+                }
+                out.flush();
+            }
+            catch(IOException e){
+                //the client has gone away, run() will notice and leave the room
+            }
+        }
+    }
+
+    /**
+     * Retrieves the name this member entered
+     * @return the player name
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Retrieves the id under which this member joined the leaderboard
+     * @return the player's id, or -1 before they have entered a name
+     */
+    int getPlayer(){
+        return player;
+    }
+
+    /**
+     * Encodes a message in the same character set used by QuizService and QuizClient
+     * @param message a message in the CODE~MESSAGE~ protocol pattern
+     * @return the encoded bytes
+     */
+    static byte[] encode(String message){
+        return message.getBytes(Charset.defaultCharset());
+    }
+}
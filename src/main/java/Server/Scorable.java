@@ -1,5 +1,7 @@
 package Server;
 
+import java.util.Map;
+
 /**
  * An interface for a leaderboard which keeps score of player Streaks in a quiz game
  */
@@ -12,6 +14,27 @@ public interface Scorable {
      */
     void update(String name, int streak);
 
+    /**
+     * Updates the streaks of several users at once, for example at the end of a round in a QuizRoom
+     * @param streaks the current number of correct answers in a row, keyed by user
+     */
+    default void updateAll(Map<String, Integer> streaks) {
+        streaks.forEach(this::update);
+    }
+
+    /**
+     * Updates the streaks of several players who joined at once, for example at the end of a round in a QuizRoom.
+     * Players who have left are skipped.
+     * @param ids the players' ids
+     * @param streaks the current number of correct answers in a row of the player at the same index
+     * @param count the number of players to update, from the start of both arrays
+     */
+    default void updateAll(int[] ids, int[] streaks, int count) {
+        for(int i = 0; i < count; i++){
+            update(ids[i], streaks[i]);
+        }
+    }
+
     /**
      * Removes a user from the Server.LeaderBoard
      * @param name the user to be removed
@@ -25,10 +48,76 @@ public interface Scorable {
      */
     int get(String name);
 
+    /**
+     * Adds a player with a streak of 0 under an id of their own, for example when a QuizService learns its player's
+     * name. Unlike players updated by name, players who join are kept apart even if they share a name.
+     * @param name the player's name
+     * @return the player's id, which is only valid until they leave
+     */
+    int join(String name);
+
+    /**
+     * Updates the streak of a player who joined. Once the player has left this does nothing.
+     * @param id the player's id
+     * @param streak The current number of correct answers in a row
+     */
+    void update(int id, int streak);
+
+    /**
+     * Updates the streak of a player who joined after a batch of answers, with a single update, so that nobody sees
+     * the streak partway through the batch. Leaderboards which keep a history record the best streak reached during
+     * the batch, which may be higher than the streak it ended on.
+     * @param id the player's id
+     * @param best the highest streak reached during the batch
+     * @param streak the current number of correct answers in a row, at the end of the batch
+     */
+    default void updateBatch(int id, int best, int streak) {
+        update(id, streak);
+    }
+
+    /**
+     * Gets the active streak of a player who joined
+     * @param id the player's id
+     * @return the current active streak of the player, or 0 if no player has the id
+     */
+    int get(int id);
+
+    /**
+     * Removes a player who joined, after which their id may be given to another player
+     * @param id the player's id
+     */
+    void leave(int id);
+
+    /**
+     * Retrieves the name of a player who joined
+     * @param id the player's id
+     * @return the player's name, or null if no player has the id
+     */
+    String nameOf(int id);
+
     /**
      * Convert the Leaderboard into a snazzy String containing the Top 3 users with their active streaks
      * @return a text version of the top 3 streaks
      */
     String prettyPrintTop3();
 
+    /**
+     * Appends the same text as prettyPrintTop3 to a StringBuilder. Implementations may override this to avoid creating
+     * a new String on every call.
+     * @param out the StringBuilder to append to
+     */
+    default void appendTop3(StringBuilder out) {
+        out.append(prettyPrintTop3());
+    }
+
+    /**
+     * Appends a ranking of the best streaks reached within a recent window of time, such as the last hour.
+     * Leaderboards which only keep the active streaks have no history, and append their top 3 instead.
+     * @param window the window to rank
+     * @param out the StringBuilder to append to
+     */
+    default void appendRecentTop(LeaderBoardWindow window, StringBuilder out) {
+        appendTop3(out);
+    }
+
 }
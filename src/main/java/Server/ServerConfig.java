@@ -0,0 +1,586 @@
+package Server;
+
+import QuizQuestion.CategoryGenerator;
+
+/**
+ * ServerConfig holds the settings of a QuizServer. A new ServerConfig holds the defaults, which can be changed with
+ * its setters before the config is passed to the QuizServer. A timeout of 0 means there is no deadline.
+ */
+public class ServerConfig {
+
+    public static final int DEFAULT_PORT = 7777;
+    public static final long DEFAULT_NAME_TIMEOUT_MILLIS = 60_000;
+    public static final long DEFAULT_PLAYAGAIN_TIMEOUT_MILLIS = 120_000;
+    public static final long DEFAULT_ANSWER_TIMEOUT_MILLIS = 120_000;
+    public static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS = 5_000;
+    public static final long DEFAULT_REAPER_TICK_MILLIS = 250;
+    public static final int DEFAULT_MAX_SESSIONS = 1000;
+    public static final int DEFAULT_ACCEPT_BACKLOG = 50;
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+    public static final long DEFAULT_QUEUE_TIMEOUT_MILLIS = 30_000;
+    public static final int DEFAULT_RETRY_AFTER_SECONDS = 5;
+    public static final int DEFAULT_PER_IP_BURST = 20;
+    public static final double DEFAULT_PER_IP_CONNECTIONS_PER_SECOND = 5;
+    public static final int DEFAULT_IP_TABLE_SIZE = 4096;
+    public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 10_000;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = FrameCompression.DEFAULT_THRESHOLD;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1;
+    public static final long DEFAULT_QUESTION_TIME_LIMIT_MILLIS = 0;
+    public static final long DEFAULT_SPECTATOR_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_SPECTATOR_WRITE_TIMEOUT_MILLIS = 10_000;
+    public static final long DEFAULT_CORPUS_RELOAD_MILLIS = 10_000;
+    public static final int DEFAULT_OUTBOUND_QUEUE_BYTES = 64 * 1024;
+    public static final int DEFAULT_OUTBOUND_THREADS = 2;
+    public static final long DEFAULT_OUTBOUND_WRITE_TIMEOUT_MILLIS = 10_000;
+
+    //a client which has heartbeats enabled is considered gone after this many intervals without one
+    public static final int MISSED_HEARTBEATS = 3;
+
+    private int port;
+    private int roomCapacity;
+    private String categoryURI;
+    private long nameTimeoutMillis;
+    private long playAgainTimeoutMillis;
+    private long answerTimeoutMillis;
+    private long heartbeatIntervalMillis;
+    private long reaperTickMillis;
+    private int maxSessions;
+    private int acceptBacklog;
+    private int queueCapacity;
+    private long queueTimeoutMillis;
+    private int retryAfterSeconds;
+    private int perIpBurst;
+    private double perIpConnectionsPerSecond;
+    private int ipTableSize;
+    private String snapshotPath;
+    private long drainTimeoutMillis;
+    private boolean compression;
+    private int compressionThreshold;
+    private boolean continuousPlay;
+    private int maxBatchSize;
+    private long questionTimeLimitMillis;
+    private long spectatorIntervalMillis;
+    private long spectatorWriteTimeoutMillis;
+    private boolean rankUpdates;
+    private boolean clueStats;
+    private String statsPath;
+    private String corpusPath;
+    private long corpusReloadMillis;
+    private int outboundQueueBytes;
+    private int outboundThreads;
+    private long outboundWriteTimeoutMillis;
+
+    /**
+     * Constructs a ServerConfig with default settings
+     */
+    public ServerConfig(){
+        port = DEFAULT_PORT;
+        roomCapacity = 0;
+        categoryURI = CategoryGenerator.DEFAULT_CATEGORY_URI;
+        nameTimeoutMillis = DEFAULT_NAME_TIMEOUT_MILLIS;
+        playAgainTimeoutMillis = DEFAULT_PLAYAGAIN_TIMEOUT_MILLIS;
+        answerTimeoutMillis = DEFAULT_ANSWER_TIMEOUT_MILLIS;
+        heartbeatIntervalMillis = DEFAULT_HEARTBEAT_INTERVAL_MILLIS;
+        reaperTickMillis = DEFAULT_REAPER_TICK_MILLIS;
+        maxSessions = DEFAULT_MAX_SESSIONS;
+        acceptBacklog = DEFAULT_ACCEPT_BACKLOG;
+        queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        queueTimeoutMillis = DEFAULT_QUEUE_TIMEOUT_MILLIS;
+        retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+        perIpBurst = DEFAULT_PER_IP_BURST;
+        perIpConnectionsPerSecond = DEFAULT_PER_IP_CONNECTIONS_PER_SECOND;
+        ipTableSize = DEFAULT_IP_TABLE_SIZE;
+        snapshotPath = null;
+        drainTimeoutMillis = DEFAULT_DRAIN_TIMEOUT_MILLIS;
+        compression = false;
+        compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+        continuousPlay = false;
+        maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        questionTimeLimitMillis = DEFAULT_QUESTION_TIME_LIMIT_MILLIS;
+        spectatorIntervalMillis = DEFAULT_SPECTATOR_INTERVAL_MILLIS;
+        spectatorWriteTimeoutMillis = DEFAULT_SPECTATOR_WRITE_TIMEOUT_MILLIS;
+        rankUpdates = false;
+        clueStats = true;
+        statsPath = null;
+        corpusPath = null;
+        corpusReloadMillis = DEFAULT_CORPUS_RELOAD_MILLIS;
+        outboundQueueBytes = DEFAULT_OUTBOUND_QUEUE_BYTES;
+        outboundThreads = DEFAULT_OUTBOUND_THREADS;
+        outboundWriteTimeoutMillis = DEFAULT_OUTBOUND_WRITE_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * @return the port with which the server will wait for connections, 0 for any free port
+     */
+    public int getPort(){
+        return port;
+    }
+
+    /**
+     * @param port the port with which the server will wait for connections, 0 for any free port
+     */
+    public void setPort(int port){
+        this.port = port;
+    }
+
+    /**
+     * @return the maximum number of players sharing each room, or 0 if every player has their own QuizService
+     */
+    public int getRoomCapacity(){
+        return roomCapacity;
+    }
+
+    /**
+     * @param roomCapacity the maximum number of players sharing each room, or 0 to give every player their own QuizService
+     */
+    public void setRoomCapacity(int roomCapacity){
+        this.roomCapacity = roomCapacity;
+    }
+
+    /**
+     * @return the base URI from which categories are retrieved
+     */
+    public String getCategoryURI(){
+        return categoryURI;
+    }
+
+    /**
+     * @param categoryURI the base URI from which categories are retrieved, for example a StandInCategoryServer
+     */
+    public void setCategoryURI(String categoryURI){
+        this.categoryURI = categoryURI;
+    }
+
+    /**
+     * @return how long a client has to enter their name
+     */
+    public long getNameTimeoutMillis(){
+        return nameTimeoutMillis;
+    }
+
+    /**
+     * @param nameTimeoutMillis how long a client has to enter their name
+     */
+    public void setNameTimeoutMillis(long nameTimeoutMillis){
+        this.nameTimeoutMillis = nameTimeoutMillis;
+    }
+
+    /**
+     * @return how long a client has to answer the PLAYAGAIN prompt
+     */
+    public long getPlayAgainTimeoutMillis(){
+        return playAgainTimeoutMillis;
+    }
+
+    /**
+     * @param playAgainTimeoutMillis how long a client has to answer the PLAYAGAIN prompt
+     */
+    public void setPlayAgainTimeoutMillis(long playAgainTimeoutMillis){
+        this.playAgainTimeoutMillis = playAgainTimeoutMillis;
+    }
+
+    /**
+     * @return how long a client has to answer a question
+     */
+    public long getAnswerTimeoutMillis(){
+        return answerTimeoutMillis;
+    }
+
+    /**
+     * @param answerTimeoutMillis how long a client has to answer a question
+     */
+    public void setAnswerTimeoutMillis(long answerTimeoutMillis){
+        this.answerTimeoutMillis = answerTimeoutMillis;
+    }
+
+    /**
+     * @return how often clients are asked to send a heartbeat, or 0 if heartbeats are disabled
+     */
+    public long getHeartbeatIntervalMillis(){
+        return heartbeatIntervalMillis;
+    }
+
+    /**
+     * @param heartbeatIntervalMillis how often clients are asked to send a heartbeat, or 0 to disable heartbeats
+     */
+    public void setHeartbeatIntervalMillis(long heartbeatIntervalMillis){
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    /**
+     * @return how often the SessionReaper checks sessions for missed deadlines
+     */
+    public long getReaperTickMillis(){
+        return reaperTickMillis;
+    }
+
+    /**
+     * @param reaperTickMillis how often the SessionReaper checks sessions for missed deadlines
+     */
+    public void setReaperTickMillis(long reaperTickMillis){
+        this.reaperTickMillis = reaperTickMillis;
+    }
+
+    /**
+     * @return the maximum number of sessions running at once
+     */
+    public int getMaxSessions(){
+        return maxSessions;
+    }
+
+    /**
+     * @param maxSessions the maximum number of sessions running at once, further connections are queued
+     */
+    public void setMaxSessions(int maxSessions){
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * @return the number of connections the operating system may hold before the server accepts them
+     */
+    public int getAcceptBacklog(){
+        return acceptBacklog;
+    }
+
+    /**
+     * @param acceptBacklog the number of connections the operating system may hold before the server accepts them
+     */
+    public void setAcceptBacklog(int acceptBacklog){
+        this.acceptBacklog = acceptBacklog;
+    }
+
+    /**
+     * @return the maximum number of accepted connections waiting for a session to finish
+     */
+    public int getQueueCapacity(){
+        return queueCapacity;
+    }
+
+    /**
+     * @param queueCapacity the maximum number of accepted connections waiting for a session to finish, beyond which
+     *                      connections are told the server is busy
+     */
+    public void setQueueCapacity(int queueCapacity){
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return how long a connection may wait in the queue before it is told the server is busy
+     */
+    public long getQueueTimeoutMillis(){
+        return queueTimeoutMillis;
+    }
+
+    /**
+     * @param queueTimeoutMillis how long a connection may wait in the queue before it is told the server is busy
+     */
+    public void setQueueTimeoutMillis(long queueTimeoutMillis){
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    /**
+     * @return how long a client turned away because the server is full is asked to wait before retrying
+     */
+    public int getRetryAfterSeconds(){
+        return retryAfterSeconds;
+    }
+
+    /**
+     * @param retryAfterSeconds how long a client turned away because the server is full is asked to wait before retrying
+     */
+    public void setRetryAfterSeconds(int retryAfterSeconds){
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return how many connections a single IP address may open in a burst
+     */
+    public int getPerIpBurst(){
+        return perIpBurst;
+    }
+
+    /**
+     * @param perIpBurst how many connections a single IP address may open in a burst
+     */
+    public void setPerIpBurst(int perIpBurst){
+        this.perIpBurst = perIpBurst;
+    }
+
+    /**
+     * @return how many connections per second a single IP address may open after its burst, 0 if unlimited
+     */
+    public double getPerIpConnectionsPerSecond(){
+        return perIpConnectionsPerSecond;
+    }
+
+    /**
+     * @param perIpConnectionsPerSecond how many connections per second a single IP address may open after its burst,
+     *                                  or 0 to disable the per IP limit
+     */
+    public void setPerIpConnectionsPerSecond(double perIpConnectionsPerSecond){
+        this.perIpConnectionsPerSecond = perIpConnectionsPerSecond;
+    }
+
+    /**
+     * @return the number of IP addresses the per IP limit keeps track of at once
+     */
+    public int getIpTableSize(){
+        return ipTableSize;
+    }
+
+    /**
+     * @param ipTableSize the number of IP addresses the per IP limit keeps track of at once, rounded up to a power of two
+     */
+    public void setIpTableSize(int ipTableSize){
+        this.ipTableSize = ipTableSize;
+    }
+
+    /**
+     * @return the file in which cached categories are kept across restarts, or null if they are not kept
+     */
+    public String getSnapshotPath(){
+        return snapshotPath;
+    }
+
+    /**
+     * @param snapshotPath the file in which cached categories are kept across restarts, or null to start cold
+     */
+    public void setSnapshotPath(String snapshotPath){
+        this.snapshotPath = snapshotPath;
+    }
+
+    /**
+     * @return how long a shutdown waits for running sessions to finish before closing them
+     */
+    public long getDrainTimeoutMillis(){
+        return drainTimeoutMillis;
+    }
+
+    /**
+     * @param drainTimeoutMillis how long a shutdown waits for running sessions to finish before closing them
+     */
+    public void setDrainTimeoutMillis(long drainTimeoutMillis){
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    /**
+     * @return true if clients are offered compressed frames, see FrameCompression
+     */
+    public boolean isCompression(){
+        return compression;
+    }
+
+    /**
+     * @param compression true to offer clients compressed frames, false to always send plain frames
+     */
+    public void setCompression(boolean compression){
+        this.compression = compression;
+    }
+
+    /**
+     * @return the size in bytes below which frames are sent uncompressed
+     */
+    public int getCompressionThreshold(){
+        return compressionThreshold;
+    }
+
+    /**
+     * @param compressionThreshold the size in bytes below which frames are sent uncompressed
+     */
+    public void setCompressionThreshold(int compressionThreshold){
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * @return true if clients are offered continuous play, in which the next question follows every answer
+     */
+    public boolean isContinuousPlay(){
+        return continuousPlay;
+    }
+
+    /**
+     * @param continuousPlay true to offer clients continuous play, false to always ask PLAYAGAIN after every answer
+     */
+    public void setContinuousPlay(boolean continuousPlay){
+        this.continuousPlay = continuousPlay;
+    }
+
+    /**
+     * @return the most questions sent in one batch to a client which asks for batches, 1 if batches are not offered
+     */
+    public int getMaxBatchSize(){
+        return maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the most questions sent in one batch to a client which asks for batches, or 1 to not
+     *                     offer batches
+     */
+    public void setMaxBatchSize(int maxBatchSize){
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the time a player has to answer a question before it counts as incorrect, 0 for no time limit
+     */
+    public long getQuestionTimeLimitMillis(){
+        return questionTimeLimitMillis;
+    }
+
+    /**
+     * @param questionTimeLimitMillis the time a player has to answer a question before it counts as incorrect, or 0
+     *                                for no time limit. A batch of questions has this much time per question.
+     */
+    public void setQuestionTimeLimitMillis(long questionTimeLimitMillis){
+        this.questionTimeLimitMillis = questionTimeLimitMillis;
+    }
+
+    /**
+     * @return the shortest time between two leaderboard updates sent to spectators
+     */
+    public long getSpectatorIntervalMillis(){
+        return spectatorIntervalMillis;
+    }
+
+    /**
+     * @param spectatorIntervalMillis the shortest time between two leaderboard updates sent to spectators, changes
+     *                                within it are coalesced into one update
+     */
+    public void setSpectatorIntervalMillis(long spectatorIntervalMillis){
+        this.spectatorIntervalMillis = spectatorIntervalMillis;
+    }
+
+    /**
+     * @return the time a spectator has to take an update before it is disconnected
+     */
+    public long getSpectatorWriteTimeoutMillis(){
+        return spectatorWriteTimeoutMillis;
+    }
+
+    /**
+     * @param spectatorWriteTimeoutMillis the time a spectator has to take an update before it is disconnected
+     */
+    public void setSpectatorWriteTimeoutMillis(long spectatorWriteTimeoutMillis){
+        this.spectatorWriteTimeoutMillis = spectatorWriteTimeoutMillis;
+    }
+
+    /**
+     * @return true if clients are offered rank updates, in which the top 3 is only sent in full once and then only
+     * the ranks which changed are sent
+     */
+    public boolean isRankUpdates(){
+        return rankUpdates;
+    }
+
+    /**
+     * @param rankUpdates true to offer clients rank updates, false to always send the full top 3
+     */
+    public void setRankUpdates(boolean rankUpdates){
+        this.rankUpdates = rankUpdates;
+    }
+
+    /**
+     * @return true if every answer is counted towards the difficulty of its clue, which is used to skip clues
+     */
+    public boolean isClueStats(){
+        return clueStats;
+    }
+
+    /**
+     * @param clueStats true to count every answer towards the difficulty of its clue, false to count nothing
+     */
+    public void setClueStats(boolean clueStats){
+        this.clueStats = clueStats;
+    }
+
+    /**
+     * @return the file in which the difficulty of clues is kept across restarts, or null if it is not kept
+     */
+    public String getStatsPath(){
+        return statsPath;
+    }
+
+    /**
+     * @param statsPath the file in which the difficulty of clues is kept across restarts, or null to start without
+     *                  statistics
+     */
+    public void setStatsPath(String statsPath){
+        this.statsPath = statsPath;
+    }
+
+    /**
+     * @return the local corpus file from which categories are drawn when the upstream fails or is slow, or null if
+     * there is none
+     */
+    public String getCorpusPath(){
+        return corpusPath;
+    }
+
+    /**
+     * @param corpusPath a local corpus file, see QuizQuestion.CorpusSource for its formats, from which categories are
+     *                   drawn when the upstream fails or is slow, or null to rely on the upstream and its cache alone
+     */
+    public void setCorpusPath(String corpusPath){
+        this.corpusPath = corpusPath;
+    }
+
+    /**
+     * @return how often the corpus file is checked for changes, which are then loaded without a restart, or 0 if it is
+     * never checked
+     */
+    public long getCorpusReloadMillis(){
+        return corpusReloadMillis;
+    }
+
+    /**
+     * @param corpusReloadMillis how often the corpus file is checked for changes, which are then loaded while sessions
+     *                           keep playing, or 0 to only load it at startup and on QuizServer.reloadCorpus
+     */
+    public void setCorpusReloadMillis(long corpusReloadMillis){
+        this.corpusReloadMillis = corpusReloadMillis;
+    }
+
+    /**
+     * @return the most bytes queued for a client which is slow to read before it is disconnected
+     */
+    public int getOutboundQueueBytes(){
+        return outboundQueueBytes;
+    }
+
+    /**
+     * @param outboundQueueBytes the most bytes queued for a client which is slow to read, beyond which its stale
+     *                           leaderboard updates are dropped and, if that is not enough, it is disconnected
+     */
+    public void setOutboundQueueBytes(int outboundQueueBytes){
+        this.outboundQueueBytes = outboundQueueBytes;
+    }
+
+    /**
+     * @return the number of threads writing queued frames to clients, or 0 if frames are written directly
+     */
+    public int getOutboundThreads(){
+        return outboundThreads;
+    }
+
+    /**
+     * @param outboundThreads the number of threads writing queued frames to clients, or 0 to write frames directly
+     *                        from the thread producing them, which then blocks while a client is slow to read
+     */
+    public void setOutboundThreads(int outboundThreads){
+        this.outboundThreads = outboundThreads;
+    }
+
+    /**
+     * @return the time a client has to take a queued frame before it is disconnected
+     */
+    public long getOutboundWriteTimeoutMillis(){
+        return outboundWriteTimeoutMillis;
+    }
+
+    /**
+     * @param outboundWriteTimeoutMillis the time a client has to take a queued frame before it is disconnected
+     */
+    public void setOutboundWriteTimeoutMillis(long outboundWriteTimeoutMillis){
+        this.outboundWriteTimeoutMillis = outboundWriteTimeoutMillis;
+    }
+}
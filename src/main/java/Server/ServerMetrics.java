@@ -0,0 +1,195 @@
+package Server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ServerMetrics collects counters describing the sessions of a QuizServer so that resource use can be observed and
+ * capacity can be sized. All counters are thread-safe.
+ */
+public class ServerMetrics {
+
+    private AtomicLong activeSessions;
+    private AtomicLong reapedSessions;
+    private AtomicLong reclaimedThreads;
+    private AtomicLong queuedConnections;
+    private AtomicLong rejectedConnections;
+    private AtomicLong rateLimitedConnections;
+    private AtomicLong expiredQuestions;
+    private AtomicLong queuedBytes;
+    private AtomicLong peakQueueBytes;
+    private AtomicLong droppedFrames;
+    private AtomicLong slowConsumers;
+
+    /**
+     * Constructs ServerMetrics with all counters at zero
+     */
+    public ServerMetrics(){
+        activeSessions = new AtomicLong();
+        reapedSessions = new AtomicLong();
+        reclaimedThreads = new AtomicLong();
+        queuedConnections = new AtomicLong();
+        rejectedConnections = new AtomicLong();
+        rateLimitedConnections = new AtomicLong();
+        expiredQuestions = new AtomicLong();
+        queuedBytes = new AtomicLong();
+        peakQueueBytes = new AtomicLong();
+        droppedFrames = new AtomicLong();
+        slowConsumers = new AtomicLong();
+    }
+
+    void sessionStarted(){
+        activeSessions.incrementAndGet();
+    }
+
+    void sessionEnded(){
+        activeSessions.decrementAndGet();
+    }
+
+    void sessionReaped(){
+        reapedSessions.incrementAndGet();
+    }
+
+    void threadReclaimed(){
+        reclaimedThreads.incrementAndGet();
+    }
+
+    void connectionQueued(){
+        queuedConnections.incrementAndGet();
+    }
+
+    void connectionRejected(){
+        rejectedConnections.incrementAndGet();
+    }
+
+    void connectionRateLimited(){
+        rateLimitedConnections.incrementAndGet();
+    }
+
+    void questionExpired(){
+        expiredQuestions.incrementAndGet();
+    }
+
+    void bytesQueued(int bytes, int depth){
+        queuedBytes.addAndGet(bytes);
+        peakQueueBytes.accumulateAndGet(depth, Math::max);
+    }
+
+    void bytesDequeued(int bytes){
+        queuedBytes.addAndGet(-bytes);
+    }
+
+    void frameDropped(){
+        droppedFrames.incrementAndGet();
+    }
+
+    void slowConsumerDisconnected(){
+        slowConsumers.incrementAndGet();
+    }
+
+    /**
+     * Retrieves the number of sessions currently running
+     * @return the number of active sessions
+     */
+    public long getActiveSessions(){
+        return activeSessions.get();
+    }
+
+    /**
+     * Retrieves the number of sessions closed by the SessionReaper because they missed a deadline
+     * @return the number of reaped sessions
+     */
+    public long getReapedSessions(){
+        return reapedSessions.get();
+    }
+
+    /**
+     * Retrieves the number of session threads which finished after their session was reaped
+     * @return the number of reclaimed threads
+     */
+    public long getReclaimedThreads(){
+        return reclaimedThreads.get();
+    }
+
+    /**
+     * Retrieves the number of connections which had to wait in the queue because the server was full
+     * @return the number of queued connections
+     */
+    public long getQueuedConnections(){
+        return queuedConnections.get();
+    }
+
+    /**
+     * Retrieves the number of connections turned away because the server was full and the queue was full, or because
+     * they waited in the queue too long
+     * @return the number of rejected connections
+     */
+    public long getRejectedConnections(){
+        return rejectedConnections.get();
+    }
+
+    /**
+     * Retrieves the number of connections turned away because their IP address opened too many connections
+     * @return the number of rate limited connections
+     */
+    public long getRateLimitedConnections(){
+        return rateLimitedConnections.get();
+    }
+
+    /**
+     * Retrieves the number of questions, or batches of questions, whose time limit passed before they were answered
+     * @return the number of expired questions
+     */
+    public long getExpiredQuestions(){
+        return expiredQuestions.get();
+    }
+
+    /**
+     * Retrieves the number of bytes queued for clients and not yet written, over every connection
+     * @return the number of queued bytes
+     */
+    public long getQueuedBytes(){
+        return queuedBytes.get();
+    }
+
+    /**
+     * Retrieves the deepest any single connection's outbound queue has been, in bytes
+     * @return the peak queue depth
+     */
+    public long getPeakQueueBytes(){
+        return peakQueueBytes.get();
+    }
+
+    /**
+     * Retrieves the number of stale leaderboard frames dropped from the queue of a client which was slow to read
+     * @return the number of dropped frames
+     */
+    public long getDroppedFrames(){
+        return droppedFrames.get();
+    }
+
+    /**
+     * Retrieves the number of clients disconnected because their outbound queue overflowed or a write to them timed out
+     * @return the number of slow consumers disconnected
+     */
+    public long getSlowConsumers(){
+        return slowConsumers.get();
+    }
+
+    /**
+     * Summarizes the metrics on a single line
+     * @return a line of text with every counter
+     */
+    public String report(){
+        return "active=" + getActiveSessions()
+                + " reaped=" + getReapedSessions()
+                + " reclaimedThreads=" + getReclaimedThreads()
+                + " queued=" + getQueuedConnections()
+                + " rejected=" + getRejectedConnections()
+                + " rateLimited=" + getRateLimitedConnections()
+                + " expiredQuestions=" + getExpiredQuestions()
+                + " queuedBytes=" + getQueuedBytes()
+                + " peakQueueBytes=" + getPeakQueueBytes()
+                + " droppedFrames=" + getDroppedFrames()
+                + " slowConsumers=" + getSlowConsumers();
+    }
+}
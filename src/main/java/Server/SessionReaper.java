@@ -0,0 +1,184 @@
+package Server;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionReaper closes sessions whose client has gone quiet. Each session registers its Transport and receives a
+ * Handle, through which it announces a deadline whenever it starts waiting for a response from its client. A single
+ * reaper thread checks every registered session once per tick and closes the Transport of any session which is waiting
+ * past its deadline, or whose heartbeating client has missed several heartbeats in a row. Closing the Transport
+ * unblocks the session's thread, which then cleans up after itself (including its LeaderBoard entry) and exits.
+ */
+public class SessionReaper implements Runnable {
+
+    /**
+     * The reaper's view of a single session
+     */
+    public class Handle {
+
+        private final Transport transport;
+        private volatile long deadline;
+        private volatile long lastHeard;
+        private volatile boolean heartbeating;
+        private volatile boolean reaped;
+
+        private Handle(Transport transport){
+            this.transport = transport;
+            deadline = Long.MAX_VALUE;
+            lastHeard = System.nanoTime();
+        }
+
+        /**
+         * Announces that the session is waiting for a response which must arrive within the given time
+         * @param timeoutMillis the time allowed, or 0 for no deadline
+         */
+        public void expectWithin(long timeoutMillis){
+            lastHeard = System.nanoTime();
+            deadline = timeoutMillis == 0 ? Long.MAX_VALUE : lastHeard + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        /**
+         * Announces that the session is no longer waiting for its client, for example while it prepares a question
+         */
+        public void received(){
+            deadline = Long.MAX_VALUE;
+            lastHeard = System.nanoTime();
+        }
+
+        /**
+         * Records a heartbeat from the client. From then on the client is also reaped if it misses several heartbeats
+         * while the session is waiting for it, even if the stage deadline has not yet passed.
+         */
+        public void heartbeat(){
+            heartbeating = true;
+            lastHeard = System.nanoTime();
+        }
+
+        /**
+         * Unregisters the session, which must be done exactly once when it finishes
+         * @return true if the session finished because it was reaped
+         */
+        public boolean close(){
+            handles.remove(this);
+            if(reaped){
+                metrics.threadReclaimed();
+            }
+            return reaped;
+        }
+
+        private boolean expired(long now){
+            if(deadline == Long.MAX_VALUE){
+                return false;
+            }
+            return now - deadline > 0 || (heartbeating && now - lastHeard > idleNanos);
+        }
+    }
+
+    private final long TICK_MILLIS;
+
+    private Set<Handle> handles;
+    private ServerMetrics metrics;
+    private long idleNanos;
+
+    /**
+     * Constructs a SessionReaper. The reaper does not check any sessions until its run method is started on a thread.
+     * @param config the server settings, from which the tick and heartbeat interval are taken
+     * @param metrics the metrics in which reaped sessions and reclaimed threads are counted
+     */
+    public SessionReaper(ServerConfig config, ServerMetrics metrics){
+        TICK_MILLIS = config.getReaperTickMillis();
+        long heartbeat = config.getHeartbeatIntervalMillis();
+        idleNanos = heartbeat == 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(heartbeat * ServerConfig.MISSED_HEARTBEATS);
+        this.metrics = metrics;
+        handles = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Registers a session
+     * @param socket the session's connection, which is closed if the session is reaped
+     * @return the Handle through which the session reports its deadlines
+     */
+    public Handle register(Socket socket){
+        return register(new SocketTransport(socket));
+    }
+
+    /**
+     * Registers a session
+     * @param transport the session's connection, which is closed if the session is reaped
+     * @return the Handle through which the session reports its deadlines
+     */
+    public Handle register(Transport transport){
+        Handle handle = new Handle(transport);
+        handles.add(handle);
+        return handle;
+    }
+
+    /**
+     * Checks every registered session once per tick until interrupted
+     */
+    public void run(){
+        try{
+            while(!Thread.currentThread().isInterrupted()){
+                Thread.sleep(TICK_MILLIS);
+                reapExpired();
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes every session which has missed its deadline
+     * @return the number of sessions reaped
+     */
+    public int reapExpired(){
+        int reaped = 0;
+        long now = System.nanoTime();
+        for(Handle handle : handles){
+            if(!handle.reaped && handle.expired(now)){
+                handle.reaped = true;
+                handles.remove(handle);
+                metrics.sessionReaped();
+                reaped++;
+                try{
+                    handle.transport.close();
+                }
+                catch(IOException e){
+                    //the connection is being abandoned either way
+                }
+            }
+        }
+        return reaped;
+    }
+
+    /**
+     * Closes the connection of every registered session, for example once a shutdown has waited long enough for them
+     * @return the number of sessions closed
+     */
+    public int closeAll(){
+        int closed = 0;
+        for(Handle handle : handles){
+            try{
+                handle.transport.close();
+                closed++;
+            }
+            catch(IOException e){
+                //the connection is being abandoned either way
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Retrieves the number of sessions currently registered
+     * @return the number of registered sessions
+     */
+    public int size(){
+        return handles.size();
+    }
+}
@@ -0,0 +1,529 @@
+package Server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ShardedLeaderBoard is a thread-safe Scorable for very high update rates. Players are hashed to one of several
+ * independent shards, each with its own lock and its own top 3, so concurrent updates for different players rarely
+ * contend. The global top 3 is found by merging the shards' top 3 lists, and the resulting text is cached until one of
+ * the shards' top 3 changes.
+ * Ties between equal streaks go to the player with the lower id, as in LeaderBoard, so the printed order is
+ * deterministic.
+ * The id of a player who joins holds the index of their shard as well as their id within it, so updates by id go
+ * straight to the right shard without hashing the player's name.
+ */
+public class ShardedLeaderBoard implements Scorable {
+
+    private static final int TOP_K = 3;
+    //how many of its best players each shard keeps in order, so that top players dropping rarely need a scan
+    private static final int TOP_CANDIDATES = 32;
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    /**
+     * One shard of the leaderboard, holding the streaks of every player hashed to it along with its best players.
+     * Players are known within a shard by a local id from its own PlayerRegistry, and streaks are kept in an IntIntMap.
+     * The best TOP_CANDIDATES players are kept in order, so that when a top player's streak drops the next best is
+     * usually already known; the streaks are only scanned again once fewer than 3 candidates are left.
+     * All fields are guarded by the shard's lock.
+     */
+    private class Shard {
+
+        private PlayerRegistry players = new PlayerRegistry();
+        private IntIntMap streaks = new IntIntMap();
+        private Map<String, Integer> idsByName = new HashMap<>();
+        //the best players of the shard in order, which are always the shard's best, though there may be fewer
+        private int[] candidateIds = new int[TOP_CANDIDATES];
+        private int[] candidateStreaks = new int[TOP_CANDIDATES];
+        private int candidates = 0;
+        private Lock shardLock = new ReentrantLock();
+
+        /**
+         * Finds the local id of a player updated by name, giving the name an id if it has none
+         */
+        int idOf(String name){
+            Integer id = idsByName.get(name);
+            if(id == null){
+                id = players.register(name);
+                idsByName.put(name, id);
+            }
+            return id;
+        }
+
+        /**
+         * Retrieves the number of players in the local top 3
+         */
+        int topSize(){
+            return Math.min(TOP_K, candidates);
+        }
+
+        /**
+         * Records a streak and keeps the candidates up to date
+         * @return true if the local top 3 changed
+         */
+        boolean put(int id, int streak){
+            int previous = streaks.put(id, streak, MISSING);
+            if(previous == streak){
+                return false;
+            }
+            int index = indexOfCandidate(id);
+            if(index >= 0){
+                removeCandidateAt(index);
+            }
+            int position = offerCandidate(id, streak);
+            if(refillIfShort()){
+                return true;
+            }
+            return (index >= 0 && index < TOP_K) || (position >= 0 && position < TOP_K);
+        }
+
+        /**
+         * Removes a player, releasing their local id, and keeps the candidates up to date
+         * @return true if the local top 3 changed
+         */
+        boolean remove(int id){
+            if(!streaks.remove(id)){
+                return false;
+            }
+            players.release(id);
+            int index = indexOfCandidate(id);
+            if(index < 0){
+                return false;
+            }
+            removeCandidateAt(index);
+            refillIfShort();
+            return index < TOP_K;
+        }
+
+        private int indexOfCandidate(int id){
+            for(int i = 0; i < candidates; i++){
+                if(candidateIds[i] == id){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void removeCandidateAt(int index){
+            for(int i = index; i < candidates - 1; i++){
+                candidateIds[i] = candidateIds[i + 1];
+                candidateStreaks[i] = candidateStreaks[i + 1];
+            }
+            candidates--;
+        }
+
+        /**
+         * Inserts a player who is not a candidate among the candidates if they belong there. The candidates are the
+         * exact best players of the shard, so the player can only be added where they rank before the last candidate,
+         * or right after it when every other player of the shard is a candidate.
+         * @return the position of the player, or -1 if they were not inserted
+         */
+        private int offerCandidate(int id, int streak){
+            boolean complete = candidates == streaks.size() - 1;
+            if(complete || (candidates > 0
+                    && ranksBefore(id, streak, candidateIds[candidates - 1], candidateStreaks[candidates - 1]))){
+                return insertCandidate(id, streak);
+            }
+            return -1;
+        }
+
+        /**
+         * Inserts a player in order among the candidates, dropping the last candidate when they are full
+         * @return the position of the player, or -1 if they rank after every one of the full candidates
+         */
+        private int insertCandidate(int id, int streak){
+            int position = candidates;
+            while(position > 0 && ranksBefore(id, streak, candidateIds[position - 1], candidateStreaks[position - 1])){
+                position--;
+            }
+            if(position >= TOP_CANDIDATES){
+                return -1;
+            }
+            for(int i = Math.min(candidates, TOP_CANDIDATES - 1); i > position; i--){
+                candidateIds[i] = candidateIds[i - 1];
+                candidateStreaks[i] = candidateStreaks[i - 1];
+            }
+            candidateIds[position] = id;
+            candidateStreaks[position] = streak;
+            candidates = Math.min(TOP_CANDIDATES, candidates + 1);
+            return position;
+        }
+
+        /**
+         * Scans every streak for the best players once fewer than 3 candidates are left but more players
+         * @return true if the candidates were refilled
+         */
+        private boolean refillIfShort(){
+            if(candidates >= TOP_K || candidates >= streaks.size()){
+                return false;
+            }
+            candidates = 0;
+            for(int slot = 0; slot < streaks.capacity(); slot++){
+                if(streaks.keyAt(slot) != IntIntMap.EMPTY){
+                    insertCandidate(streaks.keyAt(slot), streaks.valueAt(slot));
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the printed top 3 and the version of the leaderboard it was built from
+     */
+    private static class Snapshot {
+        final long version;
+        final String text;
+
+        Snapshot(long version, String text){
+            this.version = version;
+            this.text = text;
+        }
+    }
+
+    private Shard[] shards;
+    private int shardBits;
+    private AtomicLong topVersion;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs an empty ShardedLeaderBoard with one shard per available processor
+     */
+    public ShardedLeaderBoard(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an empty ShardedLeaderBoard
+     * @param shardCount the minimum number of shards, rounded up to a power of two
+     */
+    public ShardedLeaderBoard(int shardCount){
+        int count = 1;
+        while(count < shardCount){
+            count <<= 1;
+        }
+        shards = new Shard[count];
+        shardBits = Integer.numberOfTrailingZeros(count);
+        for(int i = 0; i < shards.length; i++){
+            shards[i] = new Shard();
+        }
+        topVersion = new AtomicLong();
+        snapshot = new Snapshot(-1, "");
+    }
+
+    private int shardIndex(String name){
+        int h = name.hashCode();
+        h ^= (h >>> 16);
+        return h & (shards.length - 1);
+    }
+
+    private Shard shardFor(String name){
+        return shards[shardIndex(name)];
+    }
+
+    /**
+     * Ids hold the index of the player's shard in their low bits and the player's local id in the shard above them
+     */
+    private Shard shardOf(int id){
+        return shards[id & (shards.length - 1)];
+    }
+
+    private int localId(int id){
+        return id >>> shardBits;
+    }
+
+    /**
+     * Determines whether one entry ranks before another: higher streaks first, ties going to the lower id. The local
+     * ids of a shard rank as the ids they make up, which share the shard's index in their low bits.
+     */
+    private static boolean ranksBefore(int id, int streak, int otherId, int otherStreak){
+        return streak > otherStreak || (streak == otherStreak && id < otherId);
+    }
+
+    /**
+     * Updates the correct streak of correct answers for a user by taking the user name and their current streak
+     * @param name   The user whose streak is to be updated
+     * @param streak The current number of correct answers in a row
+     */
+    public void update(String name, int streak) {
+        Shard shard = shardFor(name);
+        shard.shardLock.lock();
+        try{
+            if(shard.put(shard.idOf(name), streak)){
+                topVersion.incrementAndGet();
+            }
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streaks of several users, acquiring each shard's lock only once
+     * @param streaks the current number of correct answers in a row, keyed by user
+     */
+    public void updateAll(Map<String, Integer> streaks) {
+        List<List<Map.Entry<String, Integer>>> byShard = new ArrayList<>();
+        for(int i = 0; i < shards.length; i++){
+            byShard.add(new ArrayList<>());
+        }
+        for(Map.Entry<String, Integer> entry : streaks.entrySet()){
+            byShard.get(shardIndex(entry.getKey())).add(entry);
+        }
+        for(int i = 0; i < shards.length; i++){
+            if(byShard.get(i).isEmpty()){
+                continue;
+            }
+            Shard shard = shards[i];
+            boolean changed = false;
+            shard.shardLock.lock();
+            try{
+                for(Map.Entry<String, Integer> entry : byShard.get(i)){
+                    changed |= shard.put(shard.idOf(entry.getKey()), entry.getValue());
+                }
+            }
+            finally {
+                shard.shardLock.unlock();
+            }
+            if(changed){
+                topVersion.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes a user from the LeaderBoard
+     * @param name the user to be removed
+     */
+    public void delete(String name) {
+        Shard shard = shardFor(name);
+        shard.shardLock.lock();
+        try{
+            Integer id = shard.idsByName.remove(name);
+            if(id != null && shard.remove(id)){
+                topVersion.incrementAndGet();
+            }
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the active streak for a given user
+     * @param name name of the user whose streak is to be retrieved. If no such user exists 0 is returned
+     * @return the current active streak of a given user or 0 if the user does not exist
+     */
+    public int get(String name) {
+        Shard shard = shardFor(name);
+        shard.shardLock.lock();
+        try{
+            Integer id = shard.idsByName.get(name);
+            return id == null ? 0 : shard.streaks.get(id, 0);
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a player with a streak of 0 under an id of their own, in the shard their name hashes to
+     * @param name the player's name, which need not be unique
+     * @return the player's id
+     */
+    public int join(String name) {
+        int index = shardIndex(name);
+        Shard shard = shards[index];
+        shard.shardLock.lock();
+        try{
+            int id = shard.players.register(name);
+            if(shard.put(id, 0)){
+                topVersion.incrementAndGet();
+            }
+            return (id << shardBits) | index;
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streak of a player who joined, which does nothing once they have left
+     * @param id the player's id
+     * @param streak The current number of correct answers in a row
+     */
+    public void update(int id, int streak) {
+        Shard shard = shardOf(id);
+        shard.shardLock.lock();
+        try{
+            if(shard.streaks.containsKey(localId(id)) && shard.put(localId(id), streak)){
+                topVersion.incrementAndGet();
+            }
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the streaks of several players who joined, acquiring the lock of each shard they are in only once
+     * @param ids the players' ids
+     * @param streaks the current number of correct answers in a row of the player at the same index
+     * @param count the number of players to update, from the start of both arrays
+     */
+    public void updateAll(int[] ids, int[] streaks, int count) {
+        boolean[] done = new boolean[count];
+        for(int first = 0; first < count; first++){
+            if(done[first]){
+                continue;
+            }
+            Shard shard = shardOf(ids[first]);
+            boolean changed = false;
+            shard.shardLock.lock();
+            try{
+                //every remaining player in the same shard is updated under this one acquisition
+                for(int i = first; i < count; i++){
+                    if(!done[i] && shardOf(ids[i]) == shard){
+                        done[i] = true;
+                        int local = localId(ids[i]);
+                        changed |= shard.streaks.containsKey(local) && shard.put(local, streaks[i]);
+                    }
+                }
+            }
+            finally {
+                shard.shardLock.unlock();
+            }
+            if(changed){
+                topVersion.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Gets the active streak of a player who joined
+     * @param id the player's id
+     * @return the current active streak of the player, or 0 if no player has the id
+     */
+    public int get(int id) {
+        Shard shard = shardOf(id);
+        shard.shardLock.lock();
+        try{
+            return shard.streaks.get(localId(id), 0);
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a player who joined, after which their id may be given to another player
+     * @param id the player's id
+     */
+    public void leave(int id) {
+        Shard shard = shardOf(id);
+        shard.shardLock.lock();
+        try{
+            if(shard.remove(localId(id))){
+                topVersion.incrementAndGet();
+            }
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the name of a player
+     * @param id the player's id
+     * @return the player's name, or null if no player has the id
+     */
+    public String nameOf(int id) {
+        Shard shard = shardOf(id);
+        shard.shardLock.lock();
+        try{
+            return shard.players.nameOf(localId(id));
+        }
+        finally {
+            shard.shardLock.unlock();
+        }
+    }
+
+    /**
+     * Convert the Leaderboard into a snazzy String containing the Top 3 users with their active streaks.
+     * The text is only rebuilt when a shard's top 3 has changed since it was last built, in which case the shards'
+     * top 3 lists are merged.
+     * @return a text version of the top 3 streaks
+     */
+    public String prettyPrintTop3() {
+        Snapshot current = snapshot;
+        long version = topVersion.get();
+        if(current.version == version){
+            return current.text;
+        }
+
+        String[] names = new String[TOP_K];
+        int[] ids = new int[TOP_K];
+        int[] streaks = new int[TOP_K];
+        int size = 0;
+        for(int index = 0; index < shards.length; index++){
+            Shard shard = shards[index];
+            shard.shardLock.lock();
+            try{
+                for(int i = 0; i < shard.topSize(); i++){
+                    int id = (shard.candidateIds[i] << shardBits) | index;
+                    int streak = shard.candidateStreaks[i];
+                    int position = size;
+                    while(position > 0 && ranksBefore(id, streak, ids[position - 1], streaks[position - 1])){
+                        position--;
+                    }
+                    if(position >= TOP_K){
+                        //the shard's list is sorted, so nothing after this entry ranks higher either
+                        break;
+                    }
+                    for(int j = Math.min(size, TOP_K - 1); j > position; j--){
+                        names[j] = names[j - 1];
+                        ids[j] = ids[j - 1];
+                        streaks[j] = streaks[j - 1];
+                    }
+                    names[position] = shard.players.nameOf(shard.candidateIds[i]);
+                    ids[position] = id;
+                    streaks[position] = streak;
+                    size = Math.min(TOP_K, size + 1);
+                }
+            }
+            finally {
+                shard.shardLock.unlock();
+            }
+        }
+
+        StringBuilder result = new StringBuilder(LeaderBoard.LEADERBOARD_HEADER);
+        for(int i = 0; i < size; i++){
+            result.append(names[i]).append(LeaderBoard.COLUMN_SPACER).append(streaks[i]).append('\n');
+        }
+        String text = result.toString();
+        snapshot = new Snapshot(version, text);
+        return text;
+    }
+
+    /**
+     * Retrieves the total number of users currently store in the LeaderBoard
+     * @return the number of users saved in the LeaderBoard
+     */
+    public int size(){
+        int size = 0;
+        for(Shard shard : shards){
+            shard.shardLock.lock();
+            try{
+                size += shard.streaks.size();
+            }
+            finally {
+                shard.shardLock.unlock();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,121 @@
+package Server;
+
+import QuizQuestion.LatencyTracker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how much spectators which stop reading hold up the others. Once per millisecond, a SpectatorHub streams a
+ * top 3 which changes before every broadcast to 40 spectators which read everything, and to 4 which never read and
+ * have small socket buffers, first writing directly with a reaped write timeout, then through OutboundQueues drained
+ * by an OutboundPump. The median, 99th percentile and longest broadcast, the spectators disconnected and the server
+ * metrics of each mode are printed.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class SlowConsumerBenchmark {
+
+    private static final int READERS = 40;
+    private static final int STALLED = 4;
+    private static final int BROADCASTS = 2000;
+    private static final int BUFFER_BYTES = 4096;
+    private static final long WRITE_TIMEOUT_MILLIS = 250;
+
+    /**
+     * Broadcasts a changing top 3 to spectators of which some never read, and records how long each broadcast took
+     * @param queued true to write through OutboundQueues, false to write directly
+     */
+    private static void run(boolean queued) throws IOException, InterruptedException {
+        ServerConfig config = new ServerConfig();
+        config.setReaperTickMillis(25);
+        config.setSpectatorWriteTimeoutMillis(WRITE_TIMEOUT_MILLIS);
+        ServerMetrics metrics = new ServerMetrics();
+        SessionReaper reaper = new SessionReaper(config, metrics);
+        Thread reaperThread = new Thread(reaper);
+        reaperThread.setDaemon(true);
+        reaperThread.start();
+        OutboundPump pump = new OutboundPump(config.getOutboundThreads());
+        pump.start();
+        LeaderBoard leaderBoard = new LeaderBoard();
+        SpectatorHub hub = new SpectatorHub(leaderBoard, config, reaper);
+
+        List<Socket> clients = new ArrayList<>();
+        try(ServerSocket server = new ServerSocket(0)){
+            for(int i = 0; i < READERS + STALLED; i++){
+                boolean stalled = i < STALLED;
+                Socket client = new Socket();
+                if(stalled){
+                    client.setReceiveBufferSize(BUFFER_BYTES);
+                }
+                client.connect(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+                clients.add(client);
+                Socket socket = server.accept();
+                if(stalled){
+                    socket.setSendBufferSize(BUFFER_BYTES);
+                }
+                else{
+                    Thread reader = new Thread(() -> drain(client));
+                    reader.setDaemon(true);
+                    reader.start();
+                }
+                hub.subscribe(socket, queued ? new OutboundQueue(socket, pump, config, reaper, metrics) : null);
+            }
+
+            long[] latencies = new long[BROADCASTS];
+            for(int i = 0; i < BROADCASTS; i++){
+                leaderBoard.update("player" + (i % 10), i);
+                long start = System.nanoTime();
+                hub.broadcast();
+                latencies[i] = System.nanoTime() - start;
+                //paced, so that the run outlasts the write timeout
+                Thread.sleep(1);
+            }
+            long p50 = LatencyTracker.percentile(latencies, 0.5) / 1000;
+            long p99 = LatencyTracker.percentile(latencies, 0.99) / 1000;
+            long max = LatencyTracker.percentile(latencies, 1.0) / 1000;
+            System.out.println((queued ? "queued: " : "direct: ") + "p50=" + p50 + "us p99=" + p99 + "us max=" + max
+                    + "us disconnected=" + hub.getDisconnected() + " " + metrics.report());
+        }
+        finally {
+            for(Socket client : clients){
+                client.close();
+            }
+            pump.stop();
+            reaperThread.interrupt();
+        }
+    }
+
+    /**
+     * Reads and discards everything sent to a spectator until it is disconnected
+     */
+    private static void drain(Socket client){
+        byte[] buffer = new byte[8192];
+        try{
+            InputStream in = client.getInputStream();
+            while(in.read(buffer) != -1){
+                //discarded
+            }
+        }
+        catch(IOException e){
+            //closed at the end of the run
+        }
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if a connection cannot be opened
+     * @throws InterruptedException if interrupted while waiting for a broadcast
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.out.println(READERS + " reading and " + STALLED + " stalled spectators, " + BROADCASTS
+                + " broadcasts, write timeout " + WRITE_TIMEOUT_MILLIS + "ms");
+        run(false);
+        run(true);
+    }
+}
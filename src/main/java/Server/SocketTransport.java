@@ -0,0 +1,46 @@
+package Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * A Transport over a TCP Socket, as accepted by a QuizServer or opened by a QuizClient
+ */
+public class SocketTransport implements Transport {
+
+    private final Socket socket;
+
+    /**
+     * Constructs a SocketTransport
+     * @param socket a connected Socket, which is closed with the transport
+     */
+    public SocketTransport(Socket socket){
+        this.socket = socket;
+    }
+
+    public InputStream getInputStream() throws IOException {
+        return socket.getInputStream();
+    }
+
+    public OutputStream getOutputStream() throws IOException {
+        return socket.getOutputStream();
+    }
+
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    public boolean isClosed(){
+        return socket.isClosed();
+    }
+
+    /**
+     * Retrieves the Socket this transport runs over
+     * @return the Socket
+     */
+    public Socket getSocket(){
+        return socket;
+    }
+}
@@ -0,0 +1,226 @@
+package Server;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Measures whether spectators slow down players. 50 bot players in continuous play answer every question at once,
+ * so the top 3 keeps changing, while the turn latency, from sending an answer to reading the next question, is
+ * recorded. This is measured first with no spectators and then with 10,000, which connect and send SPECTATE in place
+ * of a name and are all read by a single selector thread. The median and 99th percentile turn latency, the updates
+ * sent by the hub and the bytes the spectators received are printed. The number of spectators may be given as the
+ * first argument, for machines which cannot open 20,000 sockets.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class SpectatorBenchmark {
+
+    private static final int PLAYERS = 50;
+    private static final int DEFAULT_SPECTATORS = 10_000;
+    private static final long SPECTATOR_INTERVAL_MILLIS = 100;
+    private static final long MEASURE_MILLIS = 5000;
+
+    /**
+     * A bot player which plays continuously, answering 0 to every question and recording the latency of each turn
+     */
+    private static class Bot implements Runnable {
+
+        private final Socket socket;
+        private final int number;
+        private volatile boolean measuring;
+        private final List<Long> latencies = new ArrayList<>();
+
+        Bot(Socket socket, int number){
+            this.socket = socket;
+            this.number = number;
+        }
+
+        public void run(){
+            try{
+                Scanner in = new Scanner(socket.getInputStream());
+                in.useDelimiter(QuizService.DELIMITER);
+                PrintWriter out = new PrintWriter(socket.getOutputStream());
+                long answered = 0;
+                while(in.hasNext()){
+                    String code = in.next();
+                    in.next();
+                    switch (code){
+                        case QuizService.CODE_CONTINUOUS:
+                            out.print(QuizService.CODE_CONTINUOUS + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_NAME:
+                            out.print("player" + number + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_PLAYAGAIN:
+                            out.print(QuizService.CONTINUE + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_QUESTION:
+                            if(answered != 0 && measuring){
+                                synchronized(latencies){
+                                    latencies.add(System.nanoTime() - answered);
+                                }
+                            }
+                            answered = System.nanoTime();
+                            out.print("0" + QuizService.DELIMITER);
+                            break;
+                        default:
+                            continue;
+                    }
+                    out.flush();
+                }
+            }
+            catch(IOException e){
+                //the benchmark is over
+            }
+        }
+    }
+
+    /**
+     * Connects spectators and reads everything sent to them on a single thread, counting the bytes
+     */
+    private static class Spectators implements Runnable {
+
+        private final Selector selector;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        private volatile long bytes;
+
+        Spectators(int port, int count) throws IOException {
+            selector = Selector.open();
+            byte[] spectate = (QuizService.CODE_SPECTATE + QuizService.DELIMITER).getBytes(StandardCharsets.UTF_8);
+            for(int i = 0; i < count; i++){
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+                //the offers and NAME prompt are skipped on the server, so SPECTATE can be sent at once
+                channel.write(ByteBuffer.wrap(spectate));
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ);
+            }
+        }
+
+        public void run(){
+            try{
+                while(!Thread.currentThread().isInterrupted()){
+                    selector.select(100);
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while(keys.hasNext()){
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        buffer.clear();
+                        int read = ((SocketChannel) key.channel()).read(buffer);
+                        if(read < 0){
+                            key.cancel();
+                            key.channel().close();
+                        }
+                        else{
+                            bytes += read;
+                        }
+                    }
+                }
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }
+
+        void close() throws IOException {
+            for(SelectionKey key : selector.keys()){
+                key.channel().close();
+            }
+            selector.close();
+        }
+    }
+
+    private static void measure(String label, QuizServer server, List<Bot> bots, Spectators spectators)
+            throws InterruptedException {
+        for(Bot bot : bots){
+            synchronized(bot.latencies){
+                bot.latencies.clear();
+            }
+            bot.measuring = true;
+        }
+        SpectatorHub hub = server.getSpectators();
+        long updates = hub.getUpdates();
+        long bytes = spectators == null ? 0 : spectators.bytes;
+        Thread.sleep(MEASURE_MILLIS);
+        List<Long> all = new ArrayList<>();
+        for(Bot bot : bots){
+            bot.measuring = false;
+            synchronized(bot.latencies){
+                all.addAll(bot.latencies);
+            }
+        }
+        long[] latencies = all.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(latencies);
+        System.out.printf("%-16s %7d turns, turn latency p50 %6.3f ms  p99 %6.3f ms, %3d board updates, " +
+                        "%8.1f KB to spectators%n", label, latencies.length, latencies[latencies.length / 2] / 1e6,
+                latencies[latencies.length * 99 / 100] / 1e6, hub.getUpdates() - updates,
+                ((spectators == null ? 0 : spectators.bytes) - bytes) / 1024.0);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args the number of spectators, 10,000 if not given
+     * @throws IOException if a socket cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the benchmark
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SPECTATORS;
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setHeartbeatIntervalMillis(0);
+        config.setContinuousPlay(true);
+        config.setPerIpConnectionsPerSecond(0);
+        config.setMaxSessions(PLAYERS + count);
+        config.setAcceptBacklog(count);
+        config.setSpectatorIntervalMillis(SPECTATOR_INTERVAL_MILLIS);
+        //an unreachable upstream, so every question comes from the offline category
+        config.setCategoryURI("http://127.0.0.1:1/api/category?id=");
+        QuizServer server = new QuizServer(config, new LeaderBoard());
+        new Thread(() -> {
+            try{
+                server.openServer();
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }).start();
+        while(server.getLocalPort() == -1){
+            Thread.sleep(10);
+        }
+
+        List<Bot> bots = new ArrayList<>();
+        for(int i = 0; i < PLAYERS; i++){
+            Bot bot = new Bot(new Socket("127.0.0.1", server.getLocalPort()), i);
+            bots.add(bot);
+            new Thread(bot).start();
+        }
+        //let the players warm up before measuring
+        Thread.sleep(2000);
+        measure("no spectators", server, bots, null);
+
+        Spectators spectators = new Spectators(server.getLocalPort(), count);
+        Thread reader = new Thread(spectators);
+        reader.start();
+        while(server.getSpectators().size() < count){
+            Thread.sleep(50);
+        }
+        Thread.sleep(1000);
+        measure(count + " spectators", server, bots, spectators);
+
+        reader.interrupt();
+        reader.join();
+        spectators.close();
+        server.stop();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,244 @@
+package Server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SpectatorHub streams the live top 3 of a Scorable to read-only spectators, such as screens and dashboards.
+ * A spectator is a connection which answered NAME with SPECTATE. It is handed over to the hub, which frees its session
+ * thread, and is sent BOARD~TOP3~ at once and whenever the top 3 changes after that, but never more than once per
+ * interval: a single hub thread reads the top 3 once per interval, compares it with the last one sent and, only if it
+ * changed, encodes one frame which is written to every spectator in turn. Changes within an interval are coalesced, the
+ * leaderboard is read once per interval however many spectators there are, and players' turns never wait on them.
+ * A spectator which stops taking updates is disconnected by the SessionReaper once a write has been blocked for the
+ * write timeout, so it holds up the others for no longer than that. A spectator whose connection has an OutboundQueue
+ * holds up no one: its update is queued, replacing any older update it has yet to take, and the queue disconnects it
+ * if it falls too far behind. Spectators are never read from.
+ */
+public class SpectatorHub implements Runnable {
+
+    /**
+     * A spectator's connection
+     */
+    private static class Spectator {
+        final Transport transport;
+        final OutputStream out;
+        final OutboundQueue queue;
+        final SessionReaper.Handle handle;
+
+        Spectator(Transport transport, OutboundQueue queue, SessionReaper.Handle handle) throws IOException {
+            this.transport = transport;
+            this.out = queue == null ? transport.getOutputStream() : null;
+            this.queue = queue;
+            this.handle = handle;
+        }
+    }
+
+    private final long INTERVAL_MILLIS;
+    private final long WRITE_TIMEOUT_MILLIS;
+
+    private Scorable leaderBoard;
+    private SessionReaper reaper;
+    private Queue<Spectator> joining;
+    private AtomicInteger size;
+
+    //only used by the hub thread
+    private List<Spectator> spectators;
+    private StringBuilder board;
+    private StringBuilder lastBoard;
+    private byte[] update;
+
+    private volatile long updates;
+    private volatile long disconnected;
+
+    /**
+     * Constructs a SpectatorHub, which sends no updates until its run method is started on a thread
+     * @param leaderBoard the leaderboard whose top 3 is streamed
+     * @param config the server settings, from which the interval and the write timeout are taken
+     * @param reaper the reaper which disconnects spectators that stop taking updates, or null for no write timeout
+     */
+    public SpectatorHub(Scorable leaderBoard, ServerConfig config, SessionReaper reaper){
+        INTERVAL_MILLIS = config.getSpectatorIntervalMillis();
+        WRITE_TIMEOUT_MILLIS = config.getSpectatorWriteTimeoutMillis();
+        this.leaderBoard = leaderBoard;
+        this.reaper = reaper;
+        joining = new ConcurrentLinkedQueue<>();
+        size = new AtomicInteger();
+        spectators = new ArrayList<>();
+        board = new StringBuilder();
+        lastBoard = new StringBuilder();
+    }
+
+    /**
+     * Hands a connection over to the hub, which sends it the current top 3 within an interval and keeps it until it
+     * disconnects
+     * @param socket the spectator's connection
+     * @throws IOException if the connection is already closed
+     */
+    public void subscribe(Socket socket) throws IOException {
+        subscribe(new SocketTransport(socket), null);
+    }
+
+    /**
+     * Hands a connection over to the hub, which sends it the current top 3 within an interval and keeps it until it
+     * disconnects
+     * @param socket the spectator's connection
+     * @param queue the connection's OutboundQueue, on which updates are queued, or null to write them directly
+     * @throws IOException if the connection is already closed
+     */
+    public void subscribe(Socket socket, OutboundQueue queue) throws IOException {
+        subscribe(new SocketTransport(socket), queue);
+    }
+
+    /**
+     * Hands a connection over to the hub, which sends it the current top 3 within an interval and keeps it until it
+     * disconnects
+     * @param transport the spectator's connection
+     * @param queue the connection's OutboundQueue, on which updates are queued, or null to write them directly
+     * @throws IOException if the connection is already closed
+     */
+    public void subscribe(Transport transport, OutboundQueue queue) throws IOException {
+        //a queue enforces the write timeout itself
+        SessionReaper.Handle handle = null;
+        if(queue != null){
+            queue.setWriteTimeoutMillis(WRITE_TIMEOUT_MILLIS);
+        }
+        else if(reaper != null){
+            handle = reaper.register(transport);
+        }
+        joining.add(new Spectator(transport, queue, handle));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Sends updates once per interval until interrupted, then disconnects every spectator
+     */
+    public void run(){
+        try{
+            while(!Thread.currentThread().isInterrupted()){
+                Thread.sleep(INTERVAL_MILLIS);
+                broadcast();
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            Spectator spectator;
+            while((spectator = joining.poll()) != null){
+                spectators.add(spectator);
+            }
+            for(Spectator gone : spectators){
+                disconnect(gone);
+            }
+            spectators.clear();
+        }
+    }
+
+    /**
+     * Sends the top 3 to every spectator if it changed since the last update, and to every spectator which joined since
+     * the last call either way. This is called by run, or directly by a single thread driving a hub which is not run.
+     * @return true if the top 3 changed
+     */
+    public boolean broadcast(){
+        board.setLength(0);
+        leaderBoard.appendTop3(board);
+        boolean changed = update == null || CharSequence.compare(board, lastBoard) != 0;
+        if(changed){
+            lastBoard.setLength(0);
+            lastBoard.append(board);
+            update = (QuizService.CODE_BOARD + QuizService.DELIMITER + board + QuizService.DELIMITER)
+                    .getBytes(Charset.defaultCharset());
+            updates++;
+            for(int i = spectators.size() - 1; i >= 0; i--){
+                if(!send(spectators.get(i))){
+                    //the last spectator takes the place of the one which left, in constant time
+                    spectators.set(i, spectators.get(spectators.size() - 1));
+                    spectators.remove(spectators.size() - 1);
+                }
+            }
+        }
+        Spectator spectator;
+        while((spectator = joining.poll()) != null){
+            if(send(spectator)){
+                spectators.add(spectator);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Retrieves the number of spectators connected
+     * @return the number of spectators
+     */
+    public int size(){
+        return size.get();
+    }
+
+    /**
+     * Retrieves the number of distinct top 3s sent
+     * @return the number of updates
+     */
+    public long getUpdates(){
+        return updates;
+    }
+
+    /**
+     * Retrieves the number of spectators which left or were disconnected
+     * @return the number of spectators which are gone
+     */
+    public long getDisconnected(){
+        return disconnected;
+    }
+
+    private boolean send(Spectator spectator){
+        if(spectator.queue != null){
+            if(spectator.queue.offerLatest(update)){
+                return true;
+            }
+            disconnect(spectator);
+            return false;
+        }
+        try{
+            if(spectator.handle != null){
+                spectator.handle.expectWithin(WRITE_TIMEOUT_MILLIS);
+            }
+            spectator.out.write(update);
+            spectator.out.flush();
+            if(spectator.handle != null){
+                spectator.handle.received();
+            }
+            return true;
+        }
+        catch(IOException e){
+            disconnect(spectator);
+            return false;
+        }
+    }
+
+    private void disconnect(Spectator spectator){
+        if(spectator.handle != null){
+            spectator.handle.close();
+        }
+        if(spectator.queue != null){
+            spectator.queue.close();
+        }
+        else{
+            try{
+                spectator.transport.close();
+            }
+            catch(IOException e){
+                //the connection is being abandoned either way
+            }
+        }
+        size.decrementAndGet();
+        disconnected++;
+    }
+}
@@ -0,0 +1,280 @@
+package Server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A hashed timing wheel, which runs short tasks, such as expiring a question, once their deadline has passed.
+ * Time is divided into ticks, and the wheel is a ring of WHEEL_SIZE buckets, each a list of timeouts. A timeout due
+ * in tick T goes into bucket T modulo WHEEL_SIZE, with the number of times the wheel must still come round before it
+ * is due. A single thread advances the wheel one tick at a time and visits only that tick's bucket, expiring the
+ * timeouts which are due and counting down the others, so scheduling and cancelling cost O(1) and a tick costs
+ * O(1) per timeout in its bucket, however many timeouts are pending. With 100k deadlines spread over a minute and 512
+ * buckets, a tick visits a few hundred timeouts.
+ * Any thread may schedule or cancel a timeout: both only add the timeout to a queue, which the wheel thread drains at
+ * the start of each tick, so the buckets are only ever touched by the wheel thread and need no locks.
+ * A timeout fires up to one tick after its deadline, plus however late the wheel thread wakes up. A wheel thread
+ * which falls behind catches up tick by tick. Tasks run on the wheel thread, so they must be short.
+ */
+public class TimingWheel implements Runnable {
+
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int RUNNING = 2;
+    private static final int EXPIRED = 3;
+
+    /**
+     * A task scheduled on the wheel, which either expires, running its task, or is cancelled, but never both
+     */
+    public class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state;
+        private long rounds;
+        private int bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline){
+            this.task = task;
+            this.deadline = deadline;
+            state = new AtomicInteger(PENDING);
+            bucket = -1;
+        }
+
+        /**
+         * Cancels the timeout unless it has already expired. If its task is running, this waits for the task to
+         * finish, so that the caller sees everything the task did.
+         * @return true if the timeout was cancelled and its task will never run, false if it expired
+         */
+        public boolean cancel(){
+            if(state.compareAndSet(PENDING, CANCELLED)){
+                pending.decrementAndGet();
+                cancelled.add(this);
+                return true;
+            }
+            while(state.get() == RUNNING){
+                Thread.onSpinWait();
+            }
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * Tells whether the timeout has expired
+         * @return true once its task has run
+         */
+        public boolean isExpired(){
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * Retrieves the deadline of the timeout
+         * @return the System.nanoTime after which its task runs
+         */
+        public long getDeadline(){
+            return deadline;
+        }
+    }
+
+    private final long TICK_NANOS;
+    private final int WHEEL_SIZE;
+
+    private Timeout[] buckets;
+    private Queue<Timeout> scheduled;
+    private Queue<Timeout> cancelled;
+    private AtomicLong pending;
+    private long start;
+    private long tick;
+    private volatile long ticks;
+    private volatile long expired;
+    private volatile long busyNanos;
+
+    /**
+     * Constructs a TimingWheel with the default tick and size. The wheel does not expire any timeout until its run
+     * method is started on a thread.
+     */
+    public TimingWheel(){
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Constructs a TimingWheel. The wheel does not expire any timeout until its run method is started on a thread.
+     * @param tickMillis the length of a tick, which is how late a timeout may fire
+     * @param wheelSize the number of buckets, a power of two
+     */
+    public TimingWheel(long tickMillis, int wheelSize){
+        if(Integer.bitCount(wheelSize) != 1){
+            throw new IllegalArgumentException("The wheel size must be a power of two: " + wheelSize);
+        }
+        TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        WHEEL_SIZE = wheelSize;
+        buckets = new Timeout[wheelSize];
+        scheduled = new ConcurrentLinkedQueue<>();
+        cancelled = new ConcurrentLinkedQueue<>();
+        pending = new AtomicLong();
+        start = System.nanoTime();
+    }
+
+    /**
+     * Schedules a task to run once a delay has passed
+     * @param delayMillis the delay
+     * @param task a short task, which runs on the wheel thread
+     * @return the Timeout, through which the task can be cancelled
+     */
+    public Timeout schedule(long delayMillis, Runnable task){
+        Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel once per tick until interrupted, catching up on any ticks it fell behind on
+     */
+    public void run(){
+        try{
+            while(!Thread.currentThread().isInterrupted()){
+                long wait = start + (tick + 1) * TICK_NANOS - System.nanoTime();
+                if(wait > 0){
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+                advance();
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Processes every tick which has ended since the last call, expiring the timeouts which are due. This is called by
+     * run, or directly by a single thread driving a wheel whose run method is not started.
+     * @return the number of timeouts expired
+     */
+    public int advance(){
+        long now = System.nanoTime();
+        int count = 0;
+        while(start + (tick + 1) * TICK_NANOS - now <= 0){
+            unlinkCancelled();
+            placeScheduled();
+            count += expireBucket((int) (tick & (WHEEL_SIZE - 1)));
+            tick++;
+            ticks = tick;
+        }
+        busyNanos += System.nanoTime() - now;
+        return count;
+    }
+
+    /**
+     * Retrieves the number of timeouts which have neither expired nor been cancelled
+     * @return the number of pending timeouts
+     */
+    public long size(){
+        return pending.get();
+    }
+
+    /**
+     * Retrieves the number of ticks processed
+     * @return the number of ticks
+     */
+    public long getTicks(){
+        return ticks;
+    }
+
+    /**
+     * Retrieves the number of timeouts which have expired
+     * @return the number of expired timeouts
+     */
+    public long getExpired(){
+        return expired;
+    }
+
+    /**
+     * Retrieves the time the wheel thread has spent processing ticks, including running tasks
+     * @return the time in nanoseconds
+     */
+    public long getBusyNanos(){
+        return busyNanos;
+    }
+
+    private void unlinkCancelled(){
+        Timeout timeout;
+        while((timeout = cancelled.poll()) != null){
+            //a timeout cancelled before it was placed is skipped by placeScheduled instead
+            if(timeout.bucket >= 0){
+                unlink(timeout);
+            }
+        }
+    }
+
+    private void placeScheduled(){
+        Timeout timeout;
+        while((timeout = scheduled.poll()) != null){
+            if(timeout.state.get() != PENDING){
+                continue;
+            }
+            //the tick in which the deadline falls, which is processed once it ends, or the current tick if it has passed
+            long due = Math.max(tick, (timeout.deadline - start) / TICK_NANOS);
+            timeout.rounds = (due - tick) / WHEEL_SIZE;
+            timeout.bucket = (int) (due & (WHEEL_SIZE - 1));
+            timeout.previous = null;
+            timeout.next = buckets[timeout.bucket];
+            if(timeout.next != null){
+                timeout.next.previous = timeout;
+            }
+            buckets[timeout.bucket] = timeout;
+        }
+    }
+
+    private int expireBucket(int bucket){
+        int count = 0;
+        Timeout timeout = buckets[bucket];
+        while(timeout != null){
+            Timeout next = timeout.next;
+            if(timeout.rounds > 0){
+                timeout.rounds--;
+            }
+            else{
+                unlink(timeout);
+                if(timeout.state.compareAndSet(PENDING, RUNNING)){
+                    pending.decrementAndGet();
+                    try{
+                        timeout.task.run();
+                    }
+                    catch(RuntimeException e){
+                        e.printStackTrace();
+                    }
+                    finally {
+                        timeout.state.set(EXPIRED);
+                    }
+                    expired++;
+                    count++;
+                }
+            }
+            timeout = next;
+        }
+        return count;
+    }
+
+    private void unlink(Timeout timeout){
+        if(timeout.previous == null){
+            buckets[timeout.bucket] = timeout.next;
+        }
+        else{
+            timeout.previous.next = timeout.next;
+        }
+        if(timeout.next != null){
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+}
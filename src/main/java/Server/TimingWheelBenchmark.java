@@ -0,0 +1,177 @@
+package Server;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the overhead and accuracy of keeping 100k question deadlines on a TimingWheel, against a
+ * ScheduledThreadPoolExecutor with one thread, which keeps its tasks in a heap. Deadlines are spread over 2 to 4
+ * seconds, and in a second run 90% of them are cancelled soon after being scheduled, as when most players answer in
+ * time. Both runs are repeated while busy threads compete for the CPU. For each timer the cost of scheduling and
+ * cancelling, the CPU time of the timer's thread and how late the deadlines fired (median, 99th percentile and
+ * maximum) are printed.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class TimingWheelBenchmark {
+
+    private static final int DEADLINES = 100_000;
+    private static final long MIN_DELAY_MILLIS = 2000;
+    private static final long MAX_DELAY_MILLIS = 4000;
+    private static final int CANCEL_PERCENT = 90;
+    private static final int[] BUSY_THREADS = {0, 2};
+
+    /**
+     * The two timers being compared, behind the same methods
+     */
+    private interface Timer {
+        Object schedule(long delayMillis, Runnable task);
+        void cancel(Object timeout);
+        long threadCpuNanos();
+        void stop();
+    }
+
+    private static class WheelTimer implements Timer {
+        private final TimingWheel wheel = new TimingWheel();
+        private final Thread thread = new Thread(wheel);
+
+        WheelTimer(){
+            thread.start();
+        }
+
+        public Object schedule(long delayMillis, Runnable task){
+            return wheel.schedule(delayMillis, task);
+        }
+
+        public void cancel(Object timeout){
+            ((TimingWheel.Timeout) timeout).cancel();
+        }
+
+        public long threadCpuNanos(){
+            return ManagementFactory.getThreadMXBean().getThreadCpuTime(thread.getId());
+        }
+
+        public void stop(){
+            thread.interrupt();
+        }
+    }
+
+    private static class ExecutorTimer implements Timer {
+        private volatile Thread thread;
+        private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            thread = new Thread(r);
+            return thread;
+        });
+
+        ExecutorTimer(){
+            //cancelled tasks leave the heap at once, rather than when they would have run
+            executor.setRemoveOnCancelPolicy(true);
+            executor.prestartAllCoreThreads();
+        }
+
+        public Object schedule(long delayMillis, Runnable task){
+            return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        public void cancel(Object timeout){
+            ((ScheduledFuture<?>) timeout).cancel(false);
+        }
+
+        public long threadCpuNanos(){
+            return ManagementFactory.getThreadMXBean().getThreadCpuTime(thread.getId());
+        }
+
+        public void stop(){
+            executor.shutdownNow();
+        }
+    }
+
+    private static void run(String label, Timer timer, boolean cancelling) throws InterruptedException {
+        Random random = new Random(43);
+        long[] deadlines = new long[DEADLINES];
+        long[] lateness = new long[DEADLINES];
+        Object[] timeouts = new Object[DEADLINES];
+        AtomicInteger fired = new AtomicInteger();
+        long cpuBefore = timer.threadCpuNanos();
+
+        long start = System.nanoTime();
+        for(int i = 0; i < DEADLINES; i++){
+            int index = i;
+            long delay = MIN_DELAY_MILLIS + random.nextInt((int) (MAX_DELAY_MILLIS - MIN_DELAY_MILLIS));
+            deadlines[i] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            timeouts[i] = timer.schedule(delay, () -> {
+                lateness[index] = System.nanoTime() - deadlines[index];
+                fired.incrementAndGet();
+            });
+        }
+        long scheduleNanos = System.nanoTime() - start;
+
+        int expected = DEADLINES;
+        long cancelNanos = 0;
+        if(cancelling){
+            start = System.nanoTime();
+            for(int i = 0; i < DEADLINES; i++){
+                if(random.nextInt(100) < CANCEL_PERCENT){
+                    timer.cancel(timeouts[i]);
+                    lateness[i] = -1;
+                    expected--;
+                }
+            }
+            cancelNanos = System.nanoTime() - start;
+        }
+
+        while(fired.get() < expected){
+            Thread.sleep(50);
+        }
+        long cpu = timer.threadCpuNanos() - cpuBefore;
+
+        long[] late = Arrays.stream(lateness).filter(l -> l >= 0).sorted().toArray();
+        System.out.printf("  %-9s %s schedule %5.0f ns, cancel %5.0f ns, timer thread CPU %6.1f ms (%5.2f us per " +
+                        "deadline), late by p50 %5.1f ms  p99 %5.1f ms  max %6.1f ms%n", label,
+                cancelling ? "90% cancelled" : "all expire   ", (double) scheduleNanos / DEADLINES,
+                cancelling ? (double) cancelNanos / (DEADLINES - expected) : 0.0, cpu / 1e6, cpu / 1000.0 / DEADLINES,
+                late[late.length / 2] / 1e6, late[late.length * 99 / 100] / 1e6, late[late.length - 1] / 1e6);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws InterruptedException if interrupted while waiting for the deadlines
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.setThreadCpuTimeEnabled(true);
+        for(int busy : BUSY_THREADS){
+            Thread[] spinners = new Thread[busy];
+            for(int i = 0; i < busy; i++){
+                spinners[i] = new Thread(() -> {
+                    long x = 0;
+                    while(!Thread.currentThread().isInterrupted()){
+                        x += System.nanoTime() & 1;
+                    }
+                });
+                spinners[i].setDaemon(true);
+                spinners[i].start();
+            }
+            System.out.println(DEADLINES + " deadlines with " + busy + " busy threads");
+            for(int round = 0; round < 2; round++){
+                for(boolean cancelling : new boolean[]{false, true}){
+                    Timer wheel = new WheelTimer();
+                    run("wheel", wheel, cancelling);
+                    wheel.stop();
+                    Timer executor = new ExecutorTimer();
+                    run("executor", executor, cancelling);
+                    executor.stop();
+                }
+            }
+            for(Thread spinner : spinners){
+                spinner.interrupt();
+            }
+        }
+    }
+}
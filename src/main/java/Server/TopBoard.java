@@ -0,0 +1,111 @@
+package Server;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TopBoard numbers the versions of a Scorable's top 3, so that a session can send only what changed since the board
+ * it last sent. Every turn a session refreshes the board, which reads the top 3 into the session's own StringBuilder
+ * and compares it with the latest Snapshot; only if the text differs is a new immutable Snapshot published under the
+ * lock, with the next version, so a turn in which the top 3 did not change creates no objects and takes no lock.
+ * Versions only grow, and every version is a top 3 which the leaderboard really held.
+ * A session keeps the Snapshot it last sent and sends one of:
+ * RANKS~~ - the top 3 is the one sent last time.
+ * RANKS~N\nI LINE\n...~ - the board now has N lines, of which line I (counting from 0, with the header first) now
+ * reads LINE, once per line which changed. Lines beyond N are gone.
+ * BOARD~TOP3~ - the full top 3, the first time or whenever the changes would be longer.
+ */
+public class TopBoard {
+
+    /**
+     * An immutable version of the top 3, with its text split into lines
+     */
+    static final class Snapshot {
+        final long version;
+        final String text;
+        final String[] lines;
+
+        Snapshot(long version, String text){
+            this.version = version;
+            this.text = text;
+            lines = text.isEmpty() ? new String[0] : text.split("\n");
+        }
+    }
+
+    private Scorable leaderBoard;
+    private Lock boardLock;
+    private volatile Snapshot latest;
+
+    /**
+     * Constructs a TopBoard, at version 0 with no lines
+     * @param leaderBoard the leaderboard whose top 3 is versioned
+     */
+    public TopBoard(Scorable leaderBoard){
+        this.leaderBoard = leaderBoard;
+        boardLock = new ReentrantLock();
+        latest = new Snapshot(0, "");
+    }
+
+    /**
+     * Reads the top 3 and publishes it as the next version if it changed
+     * @param scratch a StringBuilder owned by the caller, into which the top 3 is read
+     * @return the latest Snapshot
+     */
+    Snapshot refresh(StringBuilder scratch){
+        scratch.setLength(0);
+        leaderBoard.appendTop3(scratch);
+        Snapshot current = latest;
+        if(CharSequence.compare(scratch, current.text) == 0){
+            return current;
+        }
+        boardLock.lock();
+        try{
+            current = latest;
+            if(CharSequence.compare(scratch, current.text) != 0){
+                current = new Snapshot(current.version + 1, scratch.toString());
+                latest = current;
+            }
+            return current;
+        }
+        finally {
+            boardLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the version of the latest top 3, as of the last refresh
+     * @return the version, which starts at 0
+     */
+    public long getVersion(){
+        return latest.version;
+    }
+
+    /**
+     * Appends the frame which brings a client holding one version of the top 3 up to another
+     * @param sent the Snapshot the client holds, or null if it holds none
+     * @param current the Snapshot to bring it up to
+     * @param frames the frames being written
+     */
+    static void appendUpdate(Snapshot sent, Snapshot current, StringBuilder frames){
+        if(sent == current){
+            frames.append(QuizService.CODE_RANKS).append(QuizService.DELIMITER).append(QuizService.DELIMITER);
+            return;
+        }
+        if(sent != null){
+            int start = frames.length();
+            frames.append(QuizService.CODE_RANKS).append(QuizService.DELIMITER).append(current.lines.length).append('\n');
+            for(int i = 0; i < current.lines.length; i++){
+                if(i >= sent.lines.length || !current.lines[i].equals(sent.lines[i])){
+                    frames.append(i).append(' ').append(current.lines[i]).append('\n');
+                }
+            }
+            frames.append(QuizService.DELIMITER);
+            if(frames.length() - start < current.text.length()){
+                return;
+            }
+            frames.setLength(start);
+        }
+        frames.append(QuizService.CODE_BOARD).append(QuizService.DELIMITER).append(current.text)
+                .append(QuizService.DELIMITER);
+    }
+}
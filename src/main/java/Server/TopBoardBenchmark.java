@@ -0,0 +1,82 @@
+package Server;
+
+import java.util.Random;
+
+/**
+ * Measures the bytes of leaderboard frames sent per turn with 1,000 and 10,000 players, when the full top 3 is sent
+ * every turn and when only the changes since the version a session last sent are sent through a TopBoard. Every turn
+ * one player chosen at random answers, correctly one time in four as when guessing, which updates their streak, and
+ * then the frames their session would send are built: MSG~TOP3 STREAK~ in full, or the board update followed by
+ * MSG~STREAK~. The average bytes per turn and the share of turns sending nothing, the changed lines or the full board
+ * are printed.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class TopBoardBenchmark {
+
+    private static final int[] PLAYERS = {1000, 10_000};
+    private static final int TURNS = 50_000;
+
+    private static void run(int playerCount){
+        Random random = new Random(45);
+        LeaderBoard leaderBoard = new LeaderBoard();
+        TopBoard board = new TopBoard(leaderBoard);
+        int[] ids = new int[playerCount];
+        int[] streaks = new int[playerCount];
+        TopBoard.Snapshot[] sent = new TopBoard.Snapshot[playerCount];
+        for(int i = 0; i < playerCount; i++){
+            ids[i] = leaderBoard.join("player" + i);
+        }
+
+        StringBuilder frames = new StringBuilder();
+        StringBuilder scratch = new StringBuilder();
+        long fullBytes = 0;
+        long updateBytes = 0;
+        int unchanged = 0;
+        int changed = 0;
+        int whole = 0;
+        for(int turn = 0; turn < TURNS; turn++){
+            int player = random.nextInt(playerCount);
+            streaks[player] = random.nextInt(4) == 0 ? streaks[player] + 1 : 0;
+            leaderBoard.update(ids[player], streaks[player]);
+
+            frames.setLength(0);
+            frames.append(QuizService.CODE_MSG).append(QuizService.DELIMITER);
+            leaderBoard.appendTop3(frames);
+            frames.append("\nYour current Streak is: ").append(streaks[player]).append('\n')
+                    .append(QuizService.DELIMITER);
+            fullBytes += frames.length();
+
+            frames.setLength(0);
+            TopBoard.Snapshot current = board.refresh(scratch);
+            TopBoard.appendUpdate(sent[player], current, frames);
+            if(frames.charAt(0) == 'B'){
+                whole++;
+            }
+            else if(frames.length() == QuizService.CODE_RANKS.length() + 2){
+                unchanged++;
+            }
+            else{
+                changed++;
+            }
+            sent[player] = current;
+            frames.append(QuizService.CODE_MSG).append(QuizService.DELIMITER)
+                    .append("\nYour current Streak is: ").append(streaks[player]).append('\n')
+                    .append(QuizService.DELIMITER);
+            updateBytes += frames.length();
+        }
+        System.out.printf("%6d players: full board %6.1f bytes/turn, rank updates %6.1f bytes/turn (%4.1f%% unchanged, " +
+                        "%4.1f%% changed lines, %4.1f%% full board), %d versions%n", playerCount,
+                (double) fullBytes / TURNS, (double) updateBytes / TURNS, 100.0 * unchanged / TURNS,
+                100.0 * changed / TURNS, 100.0 * whole / TURNS, board.getVersion());
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     */
+    public static void main(String[] args){
+        for(int players : PLAYERS){
+            run(players);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A connection between a client and the server, over which they exchange the CODE~MESSAGE~ protocol as a stream of
+ * bytes in each direction. A SocketTransport carries it over TCP, while a PipeTransport connects both ends within one
+ * JVM, so that sessions can be driven without the network. QuizService, SessionReaper, OutboundQueue, SpectatorHub and
+ * QuizClient run over either.
+ * Closing a transport, from any thread, ends both directions: a read blocked on it returns or fails, and the other end
+ * reads the end of the stream once it has read what was already sent.
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * Retrieves the stream of bytes from the other end
+     * @return the InputStream, the same one on every call
+     * @throws IOException if the transport is closed
+     */
+    InputStream getInputStream() throws IOException;
+
+    /**
+     * Retrieves the stream of bytes to the other end
+     * @return the OutputStream, the same one on every call
+     * @throws IOException if the transport is closed
+     */
+    OutputStream getOutputStream() throws IOException;
+
+    /**
+     * Closes both directions of the transport, which may be done more than once
+     * @throws IOException if the transport cannot be closed
+     */
+    void close() throws IOException;
+
+    /**
+     * Tells whether this end of the transport was closed
+     * @return true if closed
+     */
+    boolean isClosed();
+}
@@ -0,0 +1,174 @@
+package Server;
+
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.CorpusSource;
+import QuizQuestion.JeopardyCategory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many turns per second QuizService plays when many sessions run at once, over in-memory PipeTransports
+ * and over loopback sockets. Every session is a QuizService on its own thread, as a QuizServer runs it, played by a
+ * bot which accepts continuous play, answers a fixed number of questions and quits. The sessions share a LeaderBoard,
+ * a TopBoard and a CategoryFetcher whose questions come from a corpus of the offline category, so that no turn waits
+ * on the network. Both runs play the same turns through the same code, apart from the transport, so the pipe run is
+ * the cost of the protocol and the game engine alone and the difference between the runs is the cost of the sockets.
+ * The number of sessions may be given as the first argument, 500 by default.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class TransportBenchmark {
+
+    private static final int DEFAULT_SESSIONS = 500;
+    private static final int QUESTIONS = 200;
+
+    /**
+     * A bot player which accepts continuous play, answers 0 to QUESTIONS questions and then quits, counting the
+     * questions it answers
+     */
+    private static class Bot implements Runnable {
+
+        private final Transport transport;
+        private final AtomicLong turns;
+
+        Bot(Transport transport, AtomicLong turns){
+            this.transport = transport;
+            this.turns = turns;
+        }
+
+        public void run(){
+            try{
+                Scanner in = new Scanner(transport.getInputStream());
+                in.useDelimiter(QuizService.DELIMITER);
+                PrintWriter out = new PrintWriter(transport.getOutputStream());
+                int answered = 0;
+                String quitCode = null;
+                while(in.hasNext()){
+                    String code = in.next();
+                    String message = in.next();
+                    switch (code){
+                        case QuizService.CODE_CONTINUOUS:
+                            quitCode = message;
+                            out.print(QuizService.CODE_CONTINUOUS + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_NAME:
+                            out.print("bot" + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_PLAYAGAIN:
+                            out.print(QuizService.CONTINUE + QuizService.DELIMITER);
+                            break;
+                        case QuizService.CODE_QUESTION:
+                            answered++;
+                            out.print((answered > QUESTIONS ? quitCode : "0") + QuizService.DELIMITER);
+                            break;
+                        default:
+                            continue;
+                    }
+                    out.flush();
+                }
+                turns.addAndGet(Math.min(answered, QUESTIONS));
+                transport.close();
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Builds a fetcher whose questions come from a corpus of the offline category, tried before an upstream which is
+     * never reachable
+     */
+    private static CategoryFetcher offlineFetcher(){
+        CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(200));
+        List<JeopardyCategory> categories = new ArrayList<>();
+        categories.add(new JeopardyCategory(CategoryFetcher.OFFLINE_CATEGORY));
+        fetcher.getSources().register(new CorpusSource("offline", categories), -1, 1);
+        return fetcher;
+    }
+
+    /**
+     * Plays every session to the end, each between the server's end of a transport and a bot on the other end at the
+     * same index, and prints the turns played per second
+     */
+    private static void run(String name, List<Transport> transports, List<Transport> bots, ServerConfig config,
+                            CategoryFetcher fetcher) throws InterruptedException {
+        LeaderBoard leaderBoard = new LeaderBoard();
+        TopBoard board = new TopBoard(leaderBoard);
+        ServerMetrics metrics = new ServerMetrics();
+        AtomicLong turns = new AtomicLong();
+        QuizService.Dependencies sessions = new QuizService.Dependencies();
+        sessions.setFetcher(fetcher);
+        sessions.setMetrics(metrics);
+        sessions.setBoard(board);
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < transports.size(); i++){
+            QuizService service = new QuizService(transports.get(i), leaderBoard, config, sessions);
+            threads.add(new Thread(service));
+            threads.add(new Thread(new Bot(bots.get(i), turns)));
+        }
+        long start = System.nanoTime();
+        for(Thread thread : threads){
+            thread.start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-8s %5d sessions: %8d turns in %6.2f s, %9.0f turns/s%n", name, transports.size(),
+                turns.get(), seconds, turns.get() / seconds);
+    }
+
+    private static void runPipes(int sessions, ServerConfig config, CategoryFetcher fetcher)
+            throws InterruptedException {
+        List<Transport> transports = new ArrayList<>();
+        List<Transport> bots = new ArrayList<>();
+        for(int i = 0; i < sessions; i++){
+            PipeTransport bot = new PipeTransport();
+            bots.add(bot);
+            transports.add(bot.getPeer());
+        }
+        run("pipe", transports, bots, config, fetcher);
+    }
+
+    private static void runSockets(int sessions, ServerConfig config, CategoryFetcher fetcher)
+            throws IOException, InterruptedException {
+        List<Transport> transports = new ArrayList<>();
+        List<Transport> bots = new ArrayList<>();
+        try(ServerSocket server = new ServerSocket(0, sessions, InetAddress.getLoopbackAddress())){
+            for(int i = 0; i < sessions; i++){
+                bots.add(new SocketTransport(new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())));
+                transports.add(new SocketTransport(server.accept()));
+            }
+        }
+        run("socket", transports, bots, config, fetcher);
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args the number of sessions, optionally
+     * @throws IOException if a socket cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the sessions
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        ServerConfig config = new ServerConfig();
+        config.setHeartbeatIntervalMillis(0);
+        config.setContinuousPlay(true);
+        CategoryFetcher fetcher = offlineFetcher();
+        System.out.println(sessions + " concurrent sessions of " + QUESTIONS + " questions each");
+
+        for(int round = 0; round < 3; round++){
+            runPipes(sessions, config, fetcher);
+            runSockets(sessions, config, fetcher);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package Server;
+
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.MultipleChoiceQuestion;
+import QuizQuestion.QuizGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.time.Duration;
+
+/**
+ * Measures the bytes allocated per steady-state turn of a QuizService: reading the answer, evaluating it, updating
+ * the streak, rendering the result, leaderboard and question, and writing the frames. Questions are generated up
+ * front, since creating a question is the one part of a turn which is expected to allocate.
+ * The turn is driven through the same FrameReader, FrameWriter, LeaderBoard and MultipleChoiceQuestion calls a
+ * QuizService makes, without a socket, and allocations are read from the JVM's per-thread allocation counter.
+ * Turns are measured twice: written straight to the stream, as a session without an OutboundPump writes them, and
+ * through an OutboundQueue drained by a pump, whose thread writes the frames. Compression is off in both, since
+ * compressing a frame creates objects.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class TurnAllocationBenchmark {
+
+    private static final int QUESTIONS = 256;
+    private static final int TURNS = 200_000;
+    private static final int ROUNDS = 5;
+
+    /**
+     * Discards everything written to it, standing in for the client's socket
+     */
+    private static class Discard extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    /**
+     * Stands in for a client's connection which takes every frame at once, for turns written through an OutboundQueue
+     */
+    private static class DiscardTransport implements Transport {
+        private final OutputStream out = new Discard();
+
+        public InputStream getInputStream(){
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        public OutputStream getOutputStream(){
+            return out;
+        }
+
+        public void close(){
+        }
+
+        public boolean isClosed(){
+            return false;
+        }
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException never, the frames are discarded
+     * @throws InterruptedException if interrupted while waiting for the pump to write the last frames
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        //an unreachable upstream, so every question comes from the offline category
+        CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(100));
+        QuizGenerator quizGen = new QuizGenerator(fetcher);
+        MultipleChoiceQuestion[] questions = new MultipleChoiceQuestion[QUESTIONS];
+        String[] categories = new String[QUESTIONS];
+        for(int i = 0; i < QUESTIONS; i++){
+            quizGen.generateQuestion();
+            questions[i] = quizGen.getQuestion();
+            categories[i] = quizGen.getCategory();
+        }
+
+        LeaderBoard leaderBoard = new LeaderBoard();
+        String[] players = {"Benjamin", "Katherine", "Alexander", "Maximilian", "Genevieve"};
+        for(int i = 0; i < players.length; i++){
+            leaderBoard.update(players[i], i * 3);
+        }
+        int player = leaderBoard.join("Benjamin");
+
+        //every turn the client answers and then asks to play again
+        StringBuilder responses = new StringBuilder();
+        for(int i = 0; i < TURNS; i++){
+            responses.append(i % 4).append(QuizService.DELIMITER).append(QuizService.CONTINUE).append(QuizService.DELIMITER);
+        }
+        byte[] input = responses.toString().getBytes(Charset.defaultCharset());
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        OutboundPump pump = new OutboundPump(1);
+        pump.start();
+        ServerConfig config = new ServerConfig();
+        //the pump may fall behind on a single processor, which must not count as a slow consumer
+        config.setOutboundQueueBytes(Integer.MAX_VALUE);
+        for(int round = 0; round < 2 * ROUNDS; round++){
+            boolean queued = round >= ROUNDS;
+            OutboundQueue queue = queued
+                    ? new OutboundQueue(new DiscardTransport(), pump, config, null, new ServerMetrics())
+                    : null;
+            FrameReader in = new FrameReader(new ByteArrayInputStream(input), Charset.defaultCharset());
+            FrameWriter out = new FrameWriter(queued ? queue : new Discard(), Charset.defaultCharset());
+            StringBuilder frames = out.frames();
+            int score = 0;
+            long start = threads.getThreadAllocatedBytes(thread);
+            long startNanos = System.nanoTime();
+            for(int i = 0; i < TURNS; i++){
+                MultipleChoiceQuestion q = questions[i % QUESTIONS];
+
+                frames.append(QuizService.CODE_MSG).append(QuizService.DELIMITER);
+                leaderBoard.appendTop3(frames);
+                frames.append("\nYour current Streak is: ").append(leaderBoard.get(player)).append('\n')
+                        .append(QuizService.DELIMITER);
+                frames.append(QuizService.sendMessage(QuizService.WAIT));
+                out.send();
+
+                frames.append(QuizService.sendMessage(QuizService.CATEGORY)).append(categories[i % QUESTIONS]).append('\n');
+                q.appendTo(frames);
+                frames.append(QuizService.DELIMITER);
+                out.send();
+                //a client answers once it has the question, by when the queue has written it
+                while(queued && queue.depth() > 0){
+                    Thread.yield();
+                }
+
+                in.next();
+                int answer = in.asNumber();
+                if(answer >= 0 && q.evaluate(answer)){
+                    frames.append(QuizService.sendMessage(QuizService.CORRECT));
+                    score++;
+                }
+                else{
+                    frames.append(QuizService.sendMessage(QuizService.INCORRECT));
+                    q.appendCorrect(frames);
+                    frames.append('\n').append(QuizService.DELIMITER);
+                    score = 0;
+                }
+                leaderBoard.update(player, score);
+                frames.append(QuizService.sendMessage(QuizService.CODE_PLAYAGAIN));
+                out.send();
+
+                in.next();
+                if(!in.isIgnoreCase(QuizService.CONTINUE)){
+                    throw new IllegalStateException("unexpected response");
+                }
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - start;
+            long nanos = System.nanoTime() - startNanos;
+            System.out.printf("round %d, %s: %6.2f bytes/turn, %5.2f us/turn%n", round % ROUNDS,
+                    queued ? "queued" : "direct", (double) allocated / TURNS, nanos / 1000.0 / TURNS);
+            if(queued){
+                queue.close();
+                while(!queue.isClosed()){
+                    Thread.sleep(1);
+                }
+            }
+        }
+        pump.stop();
+    }
+}
@@ -0,0 +1,134 @@
+package Server;
+
+import QuizQuestion.StandInCategoryServer;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the time to first question for a wave of players connecting as soon as a QuizServer starts, first after a
+ * cold start and then after a restart which loads the categories the first run saved on shutdown.
+ * The upstream is a StandInCategoryServer with the latency of a remote jService.
+ * This class is provided for benchmarking purposes only and is run from its main method.
+ */
+public class WarmRestartBenchmark {
+
+    private static final int PLAYERS = 50;
+    private static final int UPSTREAM_LATENCY_MILLIS = 300;
+    private static final int CATEGORIES_BEFORE_SHUTDOWN = 100;
+
+    private static QuizServer start(ServerConfig config) throws InterruptedException {
+        QuizServer server = new QuizServer(config, new LeaderBoard());
+        new Thread(() -> {
+            try{
+                server.openServer();
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }).start();
+        while(server.getLocalPort() == -1){
+            Thread.sleep(1);
+        }
+        return server;
+    }
+
+    /**
+     * Connects every player at once and measures how long each waits from connecting until its first question
+     * @return the waits in milliseconds, sorted
+     */
+    private static long[] firstQuestionMillis(QuizServer server) throws InterruptedException {
+        long[] waits = new long[PLAYERS];
+        CountDownLatch done = new CountDownLatch(PLAYERS);
+        for(int i = 0; i < PLAYERS; i++){
+            int player = i;
+            new Thread(() -> {
+                long start = System.nanoTime();
+                try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+                    Scanner in = new Scanner(s.getInputStream()).useDelimiter(QuizService.DELIMITER);
+                    PrintWriter out = new PrintWriter(s.getOutputStream());
+                    out.print("player" + player + QuizService.DELIMITER + QuizService.CONTINUE + QuizService.DELIMITER);
+                    out.flush();
+                    while(!in.next().equals(QuizService.CODE_QUESTION)){
+                        //skip to the first question
+                    }
+                    waits[player] = (System.nanoTime() - start) / 1_000_000;
+                }
+                catch(IOException e){
+                    e.printStackTrace();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        Arrays.sort(waits);
+        return waits;
+    }
+
+    private static String summary(long[] waits){
+        return "median=" + waits[waits.length / 2] + "ms p90=" + waits[waits.length * 9 / 10]
+                + "ms max=" + waits[waits.length - 1] + "ms";
+    }
+
+    /**
+     * Runs the benchmark
+     * @param args not used here
+     * @throws IOException if a server or the snapshot file cannot be opened
+     * @throws InterruptedException if interrupted while waiting for players
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        StandInCategoryServer standIn = new StandInCategoryServer();
+        standIn.setBaseLatency(UPSTREAM_LATENCY_MILLIS);
+        standIn.start();
+        Path snapshot = Files.createTempFile("quiz-categories", ".bin");
+        Files.delete(snapshot);
+
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setCategoryURI(standIn.getCategoryURI());
+        config.setPerIpConnectionsPerSecond(0);
+        config.setHeartbeatIntervalMillis(0);
+        config.setDrainTimeoutMillis(0);
+        config.setSnapshotPath(snapshot.toString());
+
+        QuizServer cold = start(config);
+        long[] coldWaits = firstQuestionMillis(cold);
+        System.out.println("cold start: " + summary(coldWaits) + "  " + cold.getFetcher().report());
+        //keep the first run going until it has cached a realistic number of categories
+        List<Thread> fillers = new ArrayList<>();
+        for(int i = 0; i < 10; i++){
+            Thread filler = new Thread(() -> {
+                while(cold.getFetcher().getCache().size() < CATEGORIES_BEFORE_SHUTDOWN){
+                    cold.getFetcher().fetch();
+                }
+            });
+            filler.start();
+            fillers.add(filler);
+        }
+        for(Thread filler : fillers){
+            filler.join();
+        }
+        long start = System.nanoTime();
+        cold.shutdown();
+        System.out.println("shutdown took " + (System.nanoTime() - start) / 1_000_000 + "ms, snapshot is "
+                + Files.size(snapshot) + " bytes");
+
+        start = System.nanoTime();
+        QuizServer warm = start(config);
+        System.out.println("warm start loaded the snapshot and opened in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        long[] warmWaits = firstQuestionMillis(warm);
+        System.out.println("warm start: " + summary(warmWaits) + "  " + warm.getFetcher().report());
+
+        warm.shutdown();
+        Files.deleteIfExists(snapshot);
+        standIn.stop();
+    }
+}
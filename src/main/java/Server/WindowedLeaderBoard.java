@@ -0,0 +1,321 @@
+package Server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A Scorable which, besides keeping the active streaks in another Scorable, ranks the best streaks reached within the
+ * last 5 minutes, hour and day (see LeaderBoardWindow), which players keep even after they disconnect.
+ * Streaks are recorded in two rings of time buckets, 60 one-minute buckets and 24 one-hour buckets. Each bucket keeps
+ * only its best TOP_K players with their best streak in that bucket, and is cleared when the ring comes back round to
+ * it, so memory stays bounded however many players and updates there are. A window's ranking merges the few buckets
+ * it covers, which gives the exact top TOP_K, since a player in the window's top TOP_K is also in the top TOP_K of the
+ * bucket in which they reached their best streak.
+ * So that sessions recording streaks do not all wait on one lock, the rings are split into stripes, each with its own
+ * lock, and a player's streaks are always recorded in the stripe their name hashes to. Every player is then in one
+ * stripe only, so merging the buckets of every stripe still gives the exact top TOP_K.
+ * Windows outlive the ids of the players in them, so they rank players by name. The names of players who joined are
+ * kept alongside their ids, so an update by id records the name without asking the active Scorable for it.
+ */
+public class WindowedLeaderBoard implements Scorable {
+
+    public static final long MINUTE_MILLIS = 60_000;
+    public static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    public static final int DEFAULT_TOP_K = 10;
+    public static final int DEFAULT_STRIPES = 16;
+
+    private static final String NO_STREAKS = "No streaks yet, be the first!\n";
+
+    /**
+     * A ring of time buckets, each holding the best TOP_K players recorded in its time
+     */
+    private static class Ring {
+        final long bucketMillis;
+        final long[] bucketOf;
+        final int[] sizes;
+        final String[][] names;
+        final int[][] streaks;
+
+        Ring(long bucketMillis, int buckets, int topK){
+            this.bucketMillis = bucketMillis;
+            bucketOf = new long[buckets];
+            sizes = new int[buckets];
+            names = new String[buckets][topK];
+            streaks = new int[buckets][topK];
+            Arrays.fill(bucketOf, Long.MIN_VALUE);
+        }
+
+        void record(String name, int streak, long now){
+            long bucket = now / bucketMillis;
+            int slot = (int) (bucket % bucketOf.length);
+            if(bucketOf[slot] != bucket){
+                //the ring has come back round, so this slot still holds an expired bucket
+                bucketOf[slot] = bucket;
+                sizes[slot] = 0;
+                Arrays.fill(names[slot], null);
+            }
+            String[] slotNames = names[slot];
+            int[] slotStreaks = streaks[slot];
+            int size = sizes[slot];
+            int lowest = 0;
+            for(int i = 0; i < size; i++){
+                if(slotNames[i].equals(name)){
+                    slotStreaks[i] = Math.max(slotStreaks[i], streak);
+                    return;
+                }
+                if(slotStreaks[i] < slotStreaks[lowest]){
+                    lowest = i;
+                }
+            }
+            if(size < slotNames.length){
+                slotNames[size] = name;
+                slotStreaks[size] = streak;
+                sizes[slot] = size + 1;
+            }
+            else if(streak > slotStreaks[lowest]){
+                slotNames[lowest] = name;
+                slotStreaks[lowest] = streak;
+            }
+        }
+
+        void merge(int buckets, long now, Map<String, Integer> best){
+            long current = now / bucketMillis;
+            for(long bucket = current - buckets + 1; bucket <= current; bucket++){
+                int slot = (int) (bucket % bucketOf.length);
+                if(bucket < 0 || bucketOf[slot] != bucket){
+                    continue;
+                }
+                for(int i = 0; i < sizes[slot]; i++){
+                    best.merge(names[slot][i], streaks[slot][i], Math::max);
+                }
+            }
+        }
+    }
+
+    /**
+     * The rings of the players whose names hash to one stripe, guarded by the stripe's lock
+     */
+    private static class Stripe {
+        final Ring minutes;
+        final Ring hours;
+        final Lock lock;
+
+        Stripe(int topK){
+            minutes = new Ring(MINUTE_MILLIS, (int) (HOUR_MILLIS / MINUTE_MILLIS), topK);
+            hours = new Ring(HOUR_MILLIS, LeaderBoardWindow.DAY.getBuckets(), topK);
+            lock = new ReentrantLock();
+        }
+
+        Ring ringOf(LeaderBoardWindow window){
+            return window.getBucketMillis() == HOUR_MILLIS ? hours : minutes;
+        }
+    }
+
+    private final int TOP_K;
+
+    private Scorable active;
+    private LongSupplier clock;
+    private Stripe[] stripes;
+    private Map<Integer, String> names;
+
+    /**
+     * Constructs a WindowedLeaderBoard keeping the DEFAULT_TOP_K best streaks of each window
+     * @param active the Scorable keeping the active streaks, such as a LeaderBoard
+     */
+    public WindowedLeaderBoard(Scorable active){
+        this(active, DEFAULT_TOP_K, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a WindowedLeaderBoard with DEFAULT_STRIPES stripes
+     * @param active the Scorable keeping the active streaks, such as a LeaderBoard
+     * @param topK the number of best streaks ranked in each window
+     * @param clock the current time in milliseconds, which tests may control
+     */
+    public WindowedLeaderBoard(Scorable active, int topK, LongSupplier clock){
+        this(active, topK, clock, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructs a WindowedLeaderBoard
+     * @param active the Scorable keeping the active streaks, such as a LeaderBoard
+     * @param topK the number of best streaks ranked in each window
+     * @param clock the current time in milliseconds, which tests may control
+     * @param stripes the number of stripes, which is rounded up to a power of two
+     */
+    public WindowedLeaderBoard(Scorable active, int topK, LongSupplier clock, int stripes){
+        TOP_K = topK;
+        this.active = active;
+        this.clock = clock;
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[stripes <= 1 ? 1 : count];
+        for(int i = 0; i < this.stripes.length; i++){
+            this.stripes[i] = new Stripe(topK);
+        }
+        names = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void update(String name, int streak) {
+        active.update(name, streak);
+        record(name, streak);
+    }
+
+    @Override
+    public void updateAll(Map<String, Integer> streaks) {
+        active.updateAll(streaks);
+        streaks.forEach(this::record);
+    }
+
+    /**
+     * Removes a user from the active streaks, while their best streaks stay in the windows until they expire
+     * @param name the user to be removed
+     */
+    @Override
+    public void delete(String name) {
+        active.delete(name);
+    }
+
+    @Override
+    public int get(String name) {
+        return active.get(name);
+    }
+
+    @Override
+    public int join(String name) {
+        int id = active.join(name);
+        names.put(id, name);
+        return id;
+    }
+
+    @Override
+    public void update(int id, int streak) {
+        active.update(id, streak);
+        recordJoined(id, streak);
+    }
+
+    @Override
+    public void updateBatch(int id, int best, int streak) {
+        active.updateBatch(id, best, streak);
+        recordJoined(id, best);
+    }
+
+    @Override
+    public void updateAll(int[] ids, int[] streaks, int count) {
+        active.updateAll(ids, streaks, count);
+        for(int i = 0; i < count; i++){
+            recordJoined(ids[i], streaks[i]);
+        }
+    }
+
+    @Override
+    public int get(int id) {
+        return active.get(id);
+    }
+
+    /**
+     * Removes a player who joined from the active streaks, while their best streaks stay in the windows until they
+     * expire
+     * @param id the player's id
+     */
+    @Override
+    public void leave(int id) {
+        active.leave(id);
+        names.remove(id);
+    }
+
+    @Override
+    public String nameOf(int id) {
+        return active.nameOf(id);
+    }
+
+    @Override
+    public String prettyPrintTop3() {
+        return active.prettyPrintTop3();
+    }
+
+    @Override
+    public void appendTop3(StringBuilder out) {
+        active.appendTop3(out);
+    }
+
+    /**
+     * Ranks the best streaks reached within a window, each player once with their best streak, highest first and
+     * ties in alphabetical order
+     * @param window the window to rank
+     * @return up to TOP_K names, with their streaks
+     */
+    public List<Map.Entry<String, Integer>> top(LeaderBoardWindow window){
+        Map<String, Integer> best = new HashMap<>();
+        long now = clock.getAsLong();
+        for(Stripe stripe : stripes){
+            stripe.lock.lock();
+            try{
+                stripe.ringOf(window).merge(window.getBuckets(), now, best);
+            }
+            finally {
+                stripe.lock.unlock();
+            }
+        }
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(best.entrySet());
+        ranked.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return ranked.subList(0, Math.min(TOP_K, ranked.size()));
+    }
+
+    /**
+     * Appends a snazzy ranking of the best streaks reached within a window, in the same layout as prettyPrintTop3
+     * @param window the window to rank
+     * @param out the StringBuilder to append to
+     */
+    @Override
+    public void appendRecentTop(LeaderBoardWindow window, StringBuilder out) {
+        String title = "* Best Streaks, Last " + window.getDescription() + " *\n";
+        String border = "*".repeat(title.length() - 1) + "\n";
+        out.append(border).append(title).append(border);
+        List<Map.Entry<String, Integer>> ranked = top(window);
+        if(ranked.isEmpty()){
+            out.append(NO_STREAKS);
+        }
+        for(Map.Entry<String, Integer> entry : ranked){
+            out.append(entry.getKey()).append(LeaderBoard.COLUMN_SPACER).append(entry.getValue()).append('\n');
+        }
+    }
+
+    /**
+     * Records the streak of a player who joined under the name they joined with
+     */
+    private void recordJoined(int id, int streak){
+        if(streak > 0){
+            String name = names.get(id);
+            if(name != null){
+                record(name, streak);
+            }
+        }
+    }
+
+    private void record(String name, int streak){
+        //a streak of 0 is a wrong answer, which ranks no one
+        if(streak <= 0){
+            return;
+        }
+        long now = clock.getAsLong();
+        int hash = name.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        stripe.lock.lock();
+        try{
+            stripe.minutes.record(name, streak, now);
+            stripe.hours.record(name, streak, now);
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+    }
+}
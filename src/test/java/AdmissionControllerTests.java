@@ -0,0 +1,136 @@
+import QuizQuestion.StandInCategoryServer;
+import Server.IpTokenBuckets;
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.AdmissionController and Server.IpTokenBuckets, run against a QuizServer with room for one
+ * session and one queued connection
+ */
+public class AdmissionControllerTests {
+
+    private final String DELIMITER = "~";
+    private final String CODE_MSG = "MSG";
+    private final String CODE_NAME = "NAME";
+    private final String CODE_BUSY = "BUSY";
+    private final int RETRY_AFTER_SECONDS = 7;
+
+    private StandInCategoryServer standIn;
+    private QuizServer server;
+
+    @BeforeEach
+    public void init() throws IOException, InterruptedException {
+        standIn = new StandInCategoryServer();
+        standIn.start();
+        ServerConfig config = TestServers.baseline();
+        config.setCategoryURI(standIn.getCategoryURI());
+        config.setMaxSessions(1);
+        config.setQueueCapacity(1);
+        config.setRetryAfterSeconds(RETRY_AFTER_SECONDS);
+        config.setPerIpBurst(3);
+        config.setPerIpConnectionsPerSecond(0.01);
+        server = TestServers.start(config, new LeaderBoard());
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        server.stop();
+        standIn.stop();
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket("127.0.0.1", server.getLocalPort());
+    }
+
+    private Scanner scan(Socket s) throws IOException {
+        Scanner in = new Scanner(s.getInputStream());
+        in.useDelimiter(DELIMITER);
+        return in;
+    }
+
+    @Test
+    @DisplayName("Connections beyond the maximum are queued, then turned away, then rate limited per IP")
+    public void admissionTest() throws IOException, InterruptedException {
+        //the first connection is closed halfway through, so it is not a resource of the try
+        Socket first = connect();
+        try(Socket second = connect(); Socket third = connect()){
+            Scanner firstIn = scan(first);
+            assertEquals(CODE_NAME, firstIn.next());
+            firstIn.next();
+
+            //the queue has room for the second connection but not the third
+            Scanner thirdIn = scan(third);
+            assertEquals(CODE_MSG, thirdIn.next());
+            assertTrue(thirdIn.next().contains("busy"));
+            assertEquals(CODE_BUSY, thirdIn.next());
+            assertEquals("" + RETRY_AFTER_SECONDS, thirdIn.next());
+            assertFalse(thirdIn.hasNext());
+            assertEquals(1, server.getMetrics().getQueuedConnections());
+            assertEquals(1, server.getMetrics().getRejectedConnections());
+            assertEquals(1, server.getAdmission().getQueueLength());
+
+            //the second connection starts once the first session finishes
+            first.close();
+            Scanner secondIn = scan(second);
+            assertEquals(CODE_NAME, secondIn.next());
+            secondIn.next();
+            PrintWriter out = new PrintWriter(second.getOutputStream());
+            out.print("Ben" + DELIMITER + "N" + DELIMITER);
+            out.flush();
+            while(secondIn.hasNext()){
+                secondIn.next();
+            }
+
+            //this IP address has used its burst of 3 connections
+            try(Socket fourth = connect()){
+                Scanner fourthIn = scan(fourth);
+                assertEquals(CODE_MSG, fourthIn.next());
+                fourthIn.next();
+                assertEquals(CODE_BUSY, fourthIn.next());
+                assertTrue(Integer.parseInt(fourthIn.next()) > RETRY_AFTER_SECONDS);
+                assertEquals(1, server.getMetrics().getRateLimitedConnections());
+            }
+        }
+        finally {
+            first.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Each IP address has its own bucket, which refills over time")
+    public void tokenBucketTest() throws IOException, InterruptedException {
+        IpTokenBuckets buckets = new IpTokenBuckets(16, 2, 20);
+        InetAddress first = InetAddress.getByName("10.0.0.1");
+        InetAddress second = InetAddress.getByName("::1");
+        assertTrue(buckets.tryAcquire(first));
+        assertTrue(buckets.tryAcquire(first));
+        assertFalse(buckets.tryAcquire(first));
+        assertTrue(buckets.millisUntilToken(first) > 0);
+        assertTrue(buckets.tryAcquire(second));
+        Thread.sleep(100);
+        assertTrue(buckets.tryAcquire(first));
+    }
+
+    @Test
+    @DisplayName("A full table reuses the slot of the address heard from longest ago")
+    public void evictionTest() throws IOException {
+        IpTokenBuckets buckets = new IpTokenBuckets(8, 1, 0.001);
+        for(int i = 0; i < 100; i++){
+            assertTrue(buckets.tryAcquire(InetAddress.getByName("10.0.1." + i)));
+        }
+        assertFalse(buckets.tryAcquire(InetAddress.getByName("10.0.1.99")));
+    }
+}
@@ -0,0 +1,137 @@
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for batches, in which QuizService sends several questions in one response and evaluates their answers
+ * together
+ */
+public class BatchPlayTests {
+
+    private final int MAX_BATCH_SIZE = 5;
+
+    private QuizServer server;
+
+    @BeforeEach
+    public void init() throws InterruptedException {
+        ServerConfig config = TestServers.baseline();
+        config.setContinuousPlay(true);
+        config.setMaxBatchSize(MAX_BATCH_SIZE);
+        server = TestServers.start(config, new LeaderBoard());
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        server.stop();
+    }
+
+    /**
+     * Accepts the offers of continuous play, if asked to, and of batches of 3, then starts playing
+     */
+    private void join(Scanner in, PrintWriter out, boolean continuous){
+        assertEquals("CONTINUOUS", in.next());
+        in.next();
+        assertEquals("BATCH", in.next());
+        assertEquals(String.valueOf(MAX_BATCH_SIZE), in.next());
+        assertEquals("NAME", in.next());
+        in.next();
+        out.print((continuous ? "CONTINUOUS~" : "") + "BATCH~3~Alice~");
+        out.flush();
+        assertEquals("PLAYAGAIN", in.next());
+        in.next();
+        out.print("Y~");
+        out.flush();
+    }
+
+    /**
+     * Reads frames until a batch of questions, failing on a PLAYAGAIN on the way
+     * @return the text of each question in the batch
+     */
+    private List<String> readBatch(Scanner in){
+        String code = in.next();
+        while(!code.equals("QUESTIONS")){
+            assertNotEquals("PLAYAGAIN", code);
+            in.next();
+            code = in.next();
+        }
+        assertEquals("3", in.next());
+        List<String> questions = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            assertEquals("QUESTION", in.next());
+            String question = in.next();
+            assertTrue(question.contains("grub, shrub or beelzebub"));
+            assertFalse(question.contains("correct answer"));
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    @Test
+    @DisplayName("A batch of questions is answered in one response, whose results all come back before PLAYAGAIN")
+    public void batchTest() throws IOException {
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            join(in, out, false);
+            readBatch(in);
+
+            out.print("0 1 2~");
+            out.flush();
+            for(int i = 0; i < 3; i++){
+                assertEquals("MSG", in.next());
+                String result = in.next();
+                assertTrue(result.startsWith("That's correct!") || result.startsWith("Sorry, that's not it!"));
+            }
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("N~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().startsWith("Thanks for playing"));
+        }
+    }
+
+    @Test
+    @DisplayName("A request repeats the same batch, and a response without an answer per question gets every answer wrong")
+    public void protectionTest() throws IOException {
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            join(in, out, true);
+            List<String> batch = readBatch(in);
+
+            out.print("TOP~1H~");
+            out.flush();
+            assertEquals("TOP", in.next());
+            in.next();
+            assertEquals(batch, readBatch(in));
+
+            out.print("0 0~");
+            out.flush();
+            for(int i = 0; i < 3; i++){
+                assertEquals("MSG", in.next());
+                assertTrue(in.next().startsWith("Sorry, that's not it!"));
+            }
+            readBatch(in);
+            out.print("QUIT~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().startsWith("Thanks for playing"));
+        }
+    }
+}
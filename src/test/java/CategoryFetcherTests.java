@@ -0,0 +1,143 @@
+import QuizQuestion.AdaptiveLimiter;
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.CircuitBreaker;
+import QuizQuestion.JeopardyCategory;
+import QuizQuestion.StandInCategoryServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuizQuestion.CategoryFetcher and the limiter and breaker guarding it, using a local stand-in server
+ */
+public class CategoryFetcherTests {
+
+    private final String OFFLINE_NAME = "grub, shrub or beelzebub";
+    private final String STAND_IN_NAME = "stand-in category";
+    private final int WINDOW = 10;
+
+    private StandInCategoryServer standIn;
+    private CategoryFetcher fetcher;
+
+    @BeforeEach
+    public void init() throws IOException {
+        standIn = new StandInCategoryServer();
+        standIn.start();
+        fetcher = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofMillis(300),
+                new AdaptiveLimiter(4, 1, 50, 150), new CircuitBreaker(WINDOW, 0.5, 150, 60000));
+    }
+
+    @AfterEach
+    public void stop(){
+        standIn.stop();
+    }
+
+    @Test
+    @DisplayName("Fetch from a healthy upstream")
+    public void healthyFetchTest(){
+        JeopardyCategory category = fetcher.fetch();
+        assertTrue(category.getName().startsWith(STAND_IN_NAME));
+        assertTrue(category.isPlayable());
+        assertEquals(CircuitBreaker.State.CLOSED, fetcher.getBreaker().getState());
+        assertEquals(0, fetcher.getFallbacks());
+        assertEquals(1, fetcher.getCache().size());
+    }
+
+    @Test
+    @DisplayName("Breaker opens on failures and falls back to the offline category")
+    public void failingUpstreamOfflineTest(){
+        standIn.setFailureRate(1.0);
+        for(int i = 0; i < WINDOW; i++){
+            assertEquals(OFFLINE_NAME, fetcher.fetch().getName());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, fetcher.getBreaker().getState());
+
+        long calls = fetcher.getUpstreamCalls();
+        assertEquals(OFFLINE_NAME, fetcher.fetch().getName());
+        assertEquals(calls, fetcher.getUpstreamCalls());
+    }
+
+    @Test
+    @DisplayName("Breaker opens on slow responses and falls back to cached categories")
+    public void slowUpstreamCachedTest(){
+        fetcher.fetch();
+        standIn.setBaseLatency(200);
+        for(int i = 0; i < WINDOW; i++){
+            assertTrue(fetcher.fetch().getName().startsWith(STAND_IN_NAME));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, fetcher.getBreaker().getState());
+        assertTrue(fetcher.fetch().getName().startsWith(STAND_IN_NAME));
+        assertEquals(1, fetcher.getLimiter().getLimit());
+    }
+
+    @Test
+    @DisplayName("Hedged requests stay within their budget")
+    public void hedgingBudgetTest(){
+        standIn.setTailLatency(100, 0.5);
+        fetcher.enableHedging(0.5, 0.1);
+        int fetches = 60;
+        for(int i = 0; i < fetches; i++){
+            assertTrue(fetcher.fetch().isPlayable());
+        }
+        assertTrue(fetcher.getHedges() > 0);
+        assertTrue(fetcher.getHedges() <= fetches * 0.1 + 1);
+        assertEquals(fetches + fetcher.getHedges(), fetcher.getUpstreamCalls());
+    }
+
+    @Test
+    @DisplayName("Breaker closes again after a successful probe")
+    public void halfOpenProbeTest() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 0.5, 1000, 50);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertFalse(breaker.allowRequest());
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        breaker.recordSuccess(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Limiter rejects requests beyond its limit and backs off on drops")
+    public void limiterTest() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 100);
+        assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        assertFalse(limiter.acquire(10, TimeUnit.MILLISECONDS));
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.onDropped();
+        assertEquals(1, limiter.getLimit());
+        assertEquals(1, limiter.getInFlight());
+        assertFalse(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        limiter.onSuccess(0);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Waiting for a limiter slot in vain does not count against the upstream's breaker")
+    public void limiterContentionTest() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 150);
+        CircuitBreaker breaker = new CircuitBreaker(2, 0.5, 150, 60000);
+        CategoryFetcher contended = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofMillis(300), limiter,
+                breaker);
+        assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        for(int i = 0; i < 3; i++){
+            assertEquals(OFFLINE_NAME, contended.fetch().getName());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, contended.getUpstreamCalls());
+
+        limiter.onIgnored();
+        assertTrue(contended.fetch().getName().startsWith(STAND_IN_NAME));
+    }
+}
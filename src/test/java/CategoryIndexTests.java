@@ -0,0 +1,133 @@
+import QuizQuestion.CategoryIndex;
+import QuizQuestion.JeopardyCategory;
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuizQuestion.CategoryIndex and the TOPIC protocol request
+ */
+public class CategoryIndexTests {
+
+    private int nextClueId;
+
+    private JeopardyCategory category(String name, String... clues){
+        List<String> questions = new ArrayList<>();
+        List<String> answers = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for(String clue : clues){
+            questions.add(clue);
+            answers.add("answer " + nextClueId);
+            ids.add(nextClueId++);
+        }
+        return new JeopardyCategory(name, questions, answers, ids);
+    }
+
+    private List<String> names(List<JeopardyCategory> categories){
+        List<String> names = new ArrayList<>();
+        for(JeopardyCategory category : categories){
+            names.add(category.getName());
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("Topics match whole words and prefixes of every word of a title, ignoring case and punctuation")
+    public void searchTest(){
+        CategoryIndex index = new CategoryIndex(false);
+        index.add(category("RIVERS OF EUROPE", "The Danube"));
+        index.add(category("WORLD RIVERS", "The Nile"));
+        index.add(category("SCIENCE & NATURE", "Photosynthesis"));
+        index.add(category("\"S\"CIENCE FICTION", "Dune"));
+        index.add(category("WORLD CAPITALS", "Ottawa"));
+
+        assertEquals(Arrays.asList("RIVERS OF EUROPE", "WORLD RIVERS"), names(index.search("rivers")));
+        assertEquals(Arrays.asList("RIVERS OF EUROPE", "WORLD RIVERS"), names(index.search("Riv")));
+        assertEquals(Arrays.asList("WORLD RIVERS"), names(index.search("world riv")));
+        assertEquals(Arrays.asList("SCIENCE & NATURE"), names(index.search("science")));
+        assertEquals(Arrays.asList("\"S\"CIENCE FICTION"), names(index.search("fiction")));
+        assertEquals(2, index.count("w"));
+        assertEquals(1, index.count("w r"));
+        assertEquals(0, index.count("oceans"));
+        assertEquals(0, index.count("  ~ "));
+        assertNull(index.random("oceans"));
+        assertEquals("WORLD CAPITALS", index.random("capital").getName());
+        //clues are not indexed
+        assertEquals(0, index.count("danube"));
+    }
+
+    @Test
+    @DisplayName("Categories are added incrementally, once each, and clues match only when no title does")
+    public void incrementalTest(){
+        CategoryIndex index = new CategoryIndex(true);
+        JeopardyCategory potpourri = category("POTPOURRI", "The longest river in Africa");
+        assertTrue(index.add(potpourri));
+        assertFalse(index.add(potpourri));
+        assertTrue(index.add(category("POTPOURRI", "A river runs through it")));
+        assertEquals(2, index.size());
+        assertEquals(2, index.count("potpourri"));
+        assertEquals(2, index.count("river"));
+
+        index.add(category("RIVER CITIES", "Budapest"));
+        assertEquals(Arrays.asList("RIVER CITIES"), names(index.search("river")));
+        assertEquals(Arrays.asList("POTPOURRI"), names(index.search("afric")));
+    }
+
+    @Test
+    @DisplayName("A client answering PLAYAGAIN with TOPIC is told how many categories match and gets questions on it")
+    public void protocolTest() throws IOException, InterruptedException {
+        ServerConfig config = TestServers.baseline();
+        //an unreachable upstream, so only the offline category is indexed
+        QuizServer server = TestServers.start(config, new LeaderBoard());
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            assertEquals("NAME", in.next());
+            in.next();
+            out.print("Alice~");
+            out.flush();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("TOPIC~beelzebub~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().contains("from 1 category"));
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("TOPIC~oceans~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().contains("No categories on \"oceans\""));
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("TOPIC~grub~Y~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            in.next();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            String code = in.next();
+            while(!code.equals("QUESTION")){
+                in.next();
+                code = in.next();
+            }
+            assertTrue(in.next().contains("grub, shrub or beelzebub"));
+        }
+        finally {
+            server.stop();
+        }
+    }
+}
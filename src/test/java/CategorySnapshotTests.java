@@ -0,0 +1,111 @@
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.CategorySnapshot;
+import QuizQuestion.Difficulty;
+import QuizQuestion.JeopardyCategory;
+import QuizQuestion.StandInCategoryServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuizQuestion.CategorySnapshot and warm starting a CategoryFetcher from it
+ */
+public class CategorySnapshotTests {
+
+    private final int CATEGORIES = 20;
+
+    private StandInCategoryServer standIn;
+    private CategoryFetcher fetcher;
+    private Path file;
+
+    @BeforeEach
+    public void init() throws IOException {
+        standIn = new StandInCategoryServer();
+        standIn.start();
+        fetcher = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofSeconds(1));
+        file = Files.createTempFile("categories", ".bin");
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        standIn.stop();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Saved categories load back unchanged, in order")
+    public void roundTripTest() throws IOException {
+        for(int i = 0; i < CATEGORIES; i++){
+            fetcher.fetch();
+        }
+        List<JeopardyCategory> saved = fetcher.getCache().toList();
+        saved.add(new JeopardyCategory("\u00fcn\u00efc\u00f6d\u00e9 category", Arrays.asList("q1", "q2", "q3", "q4"),
+                Arrays.asList("a1", "a2", "a3", "a4")));
+        CategorySnapshot.save(saved, file);
+
+        List<JeopardyCategory> loaded = CategorySnapshot.load(file);
+        assertEquals(saved.size(), loaded.size());
+        for(int i = 0; i < saved.size(); i++){
+            assertEquals(saved.get(i).getName(), loaded.get(i).getName());
+            assertEquals(saved.get(i).getQuestions(), loaded.get(i).getQuestions());
+            assertEquals(saved.get(i).getAnswers(), loaded.get(i).getAnswers());
+            assertEquals(saved.get(i).getClueIds(), loaded.get(i).getClueIds());
+            assertEquals(saved.get(i).getValues(), loaded.get(i).getValues());
+            assertTrue(loaded.get(i).isPlayable());
+        }
+    }
+
+    @Test
+    @DisplayName("A truncated or foreign file is rejected with an IOException")
+    public void corruptedFileTest() throws IOException {
+        for(int i = 0; i < CATEGORIES; i++){
+            fetcher.fetch();
+        }
+        CategorySnapshot.save(fetcher.getCache().toList(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> CategorySnapshot.load(file));
+        Files.write(file, "not a snapshot".getBytes());
+        assertThrows(IOException.class, () -> CategorySnapshot.load(file));
+    }
+
+    @Test
+    @DisplayName("A warm started fetcher serves its first fetches without calling the upstream")
+    public void warmStartTest() throws IOException {
+        for(int i = 0; i < CATEGORIES; i++){
+            fetcher.fetch();
+        }
+        CategorySnapshot.save(fetcher.getCache().toList(), file);
+
+        CategoryFetcher restarted = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofSeconds(1));
+        List<JeopardyCategory> saved = CategorySnapshot.load(file);
+        restarted.warmStart(saved);
+        //the tiers of the supply start with every saved clue, so tiered questions need no upstream either
+        int clues = 0;
+        for(JeopardyCategory category : saved){
+            clues += category.getQuestions().size();
+        }
+        int depth = 0;
+        for(Difficulty difficulty : Difficulty.values()){
+            depth += restarted.getSupply().depth(difficulty);
+        }
+        assertEquals(clues, depth);
+        for(int i = 0; i < CATEGORIES; i++){
+            assertTrue(restarted.fetch().isPlayable());
+        }
+        assertEquals(0, restarted.getUpstreamCalls());
+        assertEquals(CATEGORIES, restarted.getWarmHits());
+        restarted.fetch();
+        assertEquals(1, restarted.getUpstreamCalls());
+    }
+}
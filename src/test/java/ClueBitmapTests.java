@@ -0,0 +1,133 @@
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.ClueBitmap;
+import QuizQuestion.JeopardyCategory;
+import QuizQuestion.QuizGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuizQuestion.ClueBitmap and QuizGenerator skipping the clues it has seen
+ */
+public class ClueBitmapTests {
+
+    private final int CATEGORIES = 20;
+    private final int CLUES = 5;
+
+    /**
+     * Serves the same few categories over and over, standing in for a small corpus
+     */
+    private static class FixedFetcher extends CategoryFetcher {
+        private final List<JeopardyCategory> categories;
+        private final Random random = new Random(38);
+
+        FixedFetcher(List<JeopardyCategory> categories){
+            super("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(100));
+            this.categories = categories;
+        }
+
+        @Override
+        public JeopardyCategory fetch(){
+            return categories.get(random.nextInt(categories.size()));
+        }
+    }
+
+    @Test
+    @DisplayName("Ids match a HashSet, across sparse and dense containers")
+    public void matchesHashSetTest(){
+        ClueBitmap bitmap = new ClueBitmap();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(38);
+        for(int i = 0; i < 50000; i++){
+            //mostly jService-like ids, with one dense block which turns into a bitmap container
+            int id = i % 5 == 0 ? random.nextInt() : random.nextInt(i % 2 == 0 ? 250000 : 6000);
+            assertEquals(expected.add(id), bitmap.add(id));
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        for(int i = 0; i < 50000; i++){
+            int id = i % 5 == 0 ? random.nextInt() : random.nextInt(250000);
+            assertEquals(expected.contains(id), bitmap.contains(id));
+        }
+        for(int id : expected){
+            assertTrue(bitmap.contains(id));
+        }
+
+        bitmap.clear();
+        assertEquals(0, bitmap.cardinality());
+        assertFalse(bitmap.contains(expected.iterator().next()));
+    }
+
+    @Test
+    @DisplayName("A bitmap written and read back holds the same ids, and 8000 clues take under 20KB")
+    public void roundTripTest() throws IOException {
+        ClueBitmap bitmap = new ClueBitmap();
+        Random random = new Random(38);
+        for(int i = 0; i < 3000; i++){
+            bitmap.add(random.nextInt(250000));
+        }
+        for(int i = 0; i < 5000; i++){
+            bitmap.add(300000 + i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.writeTo(new DataOutputStream(bytes));
+        ClueBitmap read = ClueBitmap.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(bitmap.cardinality(), read.cardinality());
+        for(int id = 0; id < 310000; id++){
+            assertEquals(bitmap.contains(id), read.contains(id));
+        }
+        assertTrue(bitmap.sizeInBytes() < 20 * 1024, "bytes: " + bitmap.sizeInBytes());
+    }
+
+    @Test
+    @DisplayName("A QuizGenerator asks every clue once before repeating any, then settles for seen clues")
+    public void skipsSeenCluesTest(){
+        List<JeopardyCategory> categories = new ArrayList<>();
+        for(int c = 0; c < CATEGORIES; c++){
+            List<String> questions = new ArrayList<>();
+            List<String> answers = new ArrayList<>();
+            List<Integer> ids = new ArrayList<>();
+            for(int i = 0; i < CLUES; i++){
+                questions.add("q" + c + "-" + i);
+                answers.add("a" + c + "-" + i);
+                ids.add(c * CLUES + i);
+            }
+            categories.add(new JeopardyCategory("category " + c, questions, answers, ids));
+        }
+        ClueBitmap seen = new ClueBitmap();
+        QuizGenerator generator = new QuizGenerator(new FixedFetcher(categories), seen);
+
+        Set<Integer> asked = new HashSet<>();
+        for(int i = 0; i < CATEGORIES * CLUES; i++){
+            generator.generateQuestion();
+            int id = generator.getClueId();
+            assertTrue(seen.contains(id));
+            assertTrue(generator.getQuestion().toString().contains("q" + id / CLUES + "-" + id % CLUES + "\n"));
+            asked.add(id);
+        }
+        //picking at random would ask about 63 different clues, only the last few unseen clues may take more than
+        //MAX_UNSEEN_ATTEMPTS categories to find
+        assertTrue(asked.size() >= 80, "different clues: " + asked.size());
+        assertEquals(asked.size(), seen.cardinality());
+
+        //with everything seen a question is still generated
+        for(int i = 0; i < CATEGORIES * CLUES; i++){
+            seen.add(i);
+        }
+        generator.generateQuestion();
+        assertNotNull(generator.getQuestion());
+    }
+}
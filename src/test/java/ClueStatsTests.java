@@ -0,0 +1,151 @@
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.ClueStats;
+import QuizQuestion.QuizGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuizQuestion.ClueStats and the clues QuizGenerator skips because of them
+ */
+public class ClueStatsTests {
+
+    private final int THREADS = 4;
+    private final int ANSWERS = 10_000;
+    private final int CLUES = 40;
+
+    @Test
+    @DisplayName("Answers recorded on several threads are all counted once the stripes are folded")
+    public void concurrentTest() throws InterruptedException {
+        ClueStats stats = new ClueStats(ClueStats.DEFAULT_FOLD_INTERVAL_MILLIS, THREADS, 64);
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            Thread thread = new Thread(() -> {
+                for(int i = 0; i < ANSWERS; i++){
+                    //every fourth answer is correct
+                    stats.record(i % CLUES, "category " + (i % 2), i % 4 == 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        //folding while answers are recorded sees some of them, and never more
+        stats.fold();
+        assertTrue(stats.getAttempts(0) <= (long) THREADS * ANSWERS / CLUES);
+        for(Thread thread : threads){
+            thread.join();
+        }
+        stats.fold();
+
+        assertEquals(CLUES, stats.size());
+        assertEquals(0, stats.getDropped());
+        for(int clue = 0; clue < CLUES; clue++){
+            assertEquals((long) THREADS * ANSWERS / CLUES, stats.getAttempts(clue));
+        }
+        //clues 0, 4, 8... are always answered correctly and the odd clues never
+        assertEquals(0, stats.getScore(0));
+        assertEquals(100, stats.getScore(1));
+        assertEquals(50, stats.getCategoryScore("category 0"));
+        assertEquals(100, stats.getCategoryScore("category 1"));
+        assertEquals(ClueStats.UNKNOWN, stats.getScore(CLUES));
+        assertEquals(ClueStats.UNKNOWN, stats.getCategoryScore("category 2"));
+    }
+
+    @Test
+    @DisplayName("Only clues with enough answers, nearly all right or nearly all wrong, are skipped")
+    public void skipTest(){
+        ClueStats stats = new ClueStats(ClueStats.DEFAULT_FOLD_INTERVAL_MILLIS, 1, 64);
+        for(int i = 0; i < ClueStats.MIN_ATTEMPTS; i++){
+            stats.record(1, "c", true);
+            stats.record(2, "c", false);
+            stats.record(3, "c", i % 3 == 0);
+        }
+        for(int i = 0; i < ClueStats.MIN_ATTEMPTS - 1; i++){
+            stats.record(4, "c", true);
+        }
+        assertFalse(stats.isSkipped(1));
+        stats.fold();
+        assertTrue(stats.isSkipped(1));
+        assertTrue(stats.isSkipped(2));
+        assertFalse(stats.isSkipped(3));
+        assertFalse(stats.isSkipped(4));
+        assertEquals(ClueStats.UNKNOWN, stats.getScore(4));
+        assertFalse(stats.isSkipped(5));
+        assertThrows(IllegalArgumentException.class, () -> new ClueStats(1000, 1, 100));
+    }
+
+    @Test
+    @DisplayName("A stripe without room for a clue drops the answer and counts it")
+    public void fullTest(){
+        ClueStats stats = new ClueStats(ClueStats.DEFAULT_FOLD_INTERVAL_MILLIS, 1, 4);
+        for(int clue = 0; clue < 6; clue++){
+            stats.record(clue, "c", true);
+        }
+        stats.fold();
+        assertEquals(4, stats.size());
+        assertEquals(2, stats.getDropped());
+    }
+
+    @Test
+    @DisplayName("Saved totals are loaded by new ClueStats, which keep counting on top of them")
+    public void saveLoadTest() throws IOException {
+        Path file = Files.createTempFile("clue-stats", ".bin");
+        try{
+            ClueStats stats = new ClueStats(ClueStats.DEFAULT_FOLD_INTERVAL_MILLIS, 2, 64);
+            for(int i = 0; i < 30; i++){
+                stats.record(45766, "grub, shrub or beelzebub", i < 10);
+            }
+            stats.save(file);
+
+            ClueStats restarted = new ClueStats(ClueStats.DEFAULT_FOLD_INTERVAL_MILLIS, 2, 64);
+            restarted.load(file);
+            assertEquals(30, restarted.getAttempts(45766));
+            assertEquals(10, restarted.getCorrect(45766));
+            assertEquals(67, restarted.getScore(45766));
+            assertEquals(67, restarted.getCategoryScore("grub, shrub or beelzebub"));
+            for(int i = 0; i < 10; i++){
+                restarted.record(45766, "grub, shrub or beelzebub", true);
+            }
+            restarted.fold();
+            assertEquals(40, restarted.getAttempts(45766));
+            assertEquals(20, restarted.getCorrect(45766));
+
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6});
+            assertThrows(IOException.class, () -> restarted.load(file));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("QuizGenerator does not ask clues which are skipped while the category has others")
+    public void selectionTest(){
+        //an unreachable upstream, so every question comes from the offline category
+        CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(100));
+        ClueStats stats = fetcher.getStats();
+        //every clue of the offline category but Azalea, whose id is 45766, is answered by everybody
+        int[] skipped = {45760, 45772, 45778, 45784};
+        for(int clue : skipped){
+            for(int i = 0; i < ClueStats.MIN_ATTEMPTS; i++){
+                stats.record(clue, "grub, shrub or beelzebub", true);
+            }
+        }
+        stats.fold();
+
+        QuizGenerator generator = new QuizGenerator(fetcher);
+        for(int i = 0; i < 20; i++){
+            generator.generateQuestion();
+            assertEquals(45766, generator.getClueId());
+            assertTrue(generator.getQuestion().toString().contains("Azalea"));
+        }
+    }
+}
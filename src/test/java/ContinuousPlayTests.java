@@ -0,0 +1,123 @@
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for continuous play, in which QuizService sends the next question straight after every answer
+ */
+public class ContinuousPlayTests {
+
+    private QuizServer server;
+
+    @BeforeEach
+    public void init() throws InterruptedException {
+        ServerConfig config = TestServers.baseline();
+        config.setContinuousPlay(true);
+        server = TestServers.start(config, new LeaderBoard());
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        server.stop();
+    }
+
+    /**
+     * Reads frames until a QUESTION, failing on a PLAYAGAIN on the way
+     */
+    private void skipToQuestion(Scanner in){
+        String code = in.next();
+        while(!code.equals("QUESTION")){
+            assertNotEquals("PLAYAGAIN", code);
+            in.next();
+            code = in.next();
+        }
+        assertTrue(in.next().contains("grub, shrub or beelzebub"));
+    }
+
+    @Test
+    @DisplayName("A client accepting CONTINUOUS gets the next question after every answer, until it sends QUIT")
+    public void continuousTest() throws IOException {
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            assertEquals("CONTINUOUS", in.next());
+            assertEquals("QUIT", in.next());
+            out.print("CONTINUOUS~");
+            out.flush();
+            assertEquals("NAME", in.next());
+            in.next();
+            out.print("Alice~");
+            out.flush();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("Y~");
+            out.flush();
+            skipToQuestion(in);
+
+            for(int i = 0; i < 5; i++){
+                out.print("0~");
+                out.flush();
+                assertEquals("MSG", in.next());
+                String result = in.next();
+                assertTrue(result.startsWith("That's correct!") || result.startsWith("Sorry, that's not it!"));
+                skipToQuestion(in);
+            }
+
+            //a ranking asked for instead of an answer is followed by the same question again
+            out.print("TOP~1H~");
+            out.flush();
+            assertEquals("TOP", in.next());
+            in.next();
+            skipToQuestion(in);
+
+            out.print("QUIT~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().startsWith("Thanks for playing"));
+            assertFalse(in.hasNext());
+        }
+    }
+
+    @Test
+    @DisplayName("A client ignoring the offer is asked PLAYAGAIN after every answer, as before")
+    public void classicTest() throws IOException {
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            assertEquals("CONTINUOUS", in.next());
+            in.next();
+            assertEquals("NAME", in.next());
+            in.next();
+            out.print("Bob~");
+            out.flush();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("Y~");
+            out.flush();
+            skipToQuestion(in);
+            out.print("QUIT~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().startsWith("Sorry, that's not it!"));
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("N~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().startsWith("Thanks for playing"));
+        }
+    }
+}
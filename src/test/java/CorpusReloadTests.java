@@ -0,0 +1,194 @@
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.CorpusSource;
+import QuizQuestion.JeopardyCategory;
+import QuizQuestion.QuizGenerator;
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for reloading a QuizQuestion.CorpusSource while categories are being drawn from it
+ */
+public class CorpusReloadTests {
+
+    private final int RELOADS = 50;
+
+    private Path dir;
+
+    @BeforeEach
+    public void init() throws IOException {
+        dir = Files.createTempDirectory("corpus");
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        for(Path file : Files.list(dir).toArray(Path[]::new)){
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Builds a playable category
+     */
+    private JeopardyCategory category(String name){
+        return new JeopardyCategory(name, Arrays.asList(name + " q1", name + " q2", name + " q3", name + " q4"),
+                Arrays.asList("a1", "a2", "a3", "a4"));
+    }
+
+    /**
+     * Writes a trivia dump with a single category of four clues
+     */
+    private void writeDump(Path file, String name) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("category\tquestion\tanswer");
+        for(int i = 1; i <= 4; i++){
+            lines.add(name + "\t" + name + " clue " + i + "\tanswer " + i);
+        }
+        Files.write(file, lines);
+    }
+
+    @Test
+    @DisplayName("A published corpus replaces the current one, while the old version stays intact for whoever holds it")
+    public void publishTest(){
+        CorpusSource corpus = new CorpusSource("corpus", List.of(category("OLD")));
+        CorpusSource.Version old = corpus.getVersion();
+        assertEquals(1, old.getNumber());
+
+        CorpusSource.Version next = corpus.publish(List.of(category("NEW"), category("NEWER"),
+                new JeopardyCategory("UNPLAYABLE", List.of("q"), List.of("a"))));
+        assertEquals(2, next.getNumber());
+        assertSame(next, corpus.getVersion());
+        assertEquals(2, corpus.size());
+        assertTrue(corpus.fetch().join().getName().startsWith("NEW"));
+        assertEquals("OLD", old.getCategories().get(0).getName());
+        assertEquals(1, old.getCategories().size());
+        assertThrows(UnsupportedOperationException.class, () -> next.getCategories().add(category("X")));
+    }
+
+    @Test
+    @DisplayName("Categories drawn while the corpus is reloaded over and over always come whole from one version")
+    public void concurrentReloadTest() throws InterruptedException {
+        CorpusSource corpus = new CorpusSource("corpus", List.of(category("V1")));
+        AtomicInteger bad = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            for(int i = 0; i < 100_000; i++){
+                JeopardyCategory category = corpus.fetch().join();
+                if(category == null || !category.isPlayable()){
+                    bad.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for(int i = 2; i <= RELOADS; i++){
+            List<JeopardyCategory> categories = new ArrayList<>();
+            for(int j = 0; j < i; j++){
+                categories.add(category("V" + i + " " + j));
+            }
+            corpus.publish(categories);
+        }
+        reader.join();
+        assertEquals(0, bad.get());
+        assertEquals(RELOADS, corpus.getVersion().getNumber());
+    }
+
+    @Test
+    @DisplayName("A fetcher reloading its corpus indexes the new categories and releases the old version")
+    public void fetcherReloadTest() throws IOException {
+        CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(200));
+        CorpusSource corpus = new CorpusSource("corpus", List.of(category("RIVERS")));
+        fetcher.getSources().register(corpus, 1, 1);
+        assertEquals("RIVERS", fetcher.fetch().getName());
+        assertEquals("RIVERS", fetcher.fetch("rivers").getName());
+
+        WeakReference<CorpusSource.Version> old = new WeakReference<>(corpus.getVersion());
+        Path dump = dir.resolve("dump.tsv");
+        writeDump(dump, "MOUNTAINS");
+        CorpusSource.Version version = fetcher.reloadCorpus(corpus, dump);
+        assertEquals(2, version.getNumber());
+        //the new corpus is searchable at once, and the old corpus is no longer, though it is still cached
+        assertEquals("MOUNTAINS", fetcher.fetch("mountains").getName());
+        assertNull(fetcher.fetch("rivers"));
+        assertEquals("MOUNTAINS", fetcher.fetch().getName());
+
+        for(int i = 0; i < 50 && old.get() != null; i++){
+            System.gc();
+        }
+        assertNull(old.get(), "the old version is still referenced");
+
+        //a file which cannot be read leaves the corpus as it was
+        assertThrows(IOException.class, () -> fetcher.reloadCorpus(corpus, dir.resolve("missing.tsv")));
+        assertSame(version, corpus.getVersion());
+        assertEquals("MOUNTAINS", fetcher.fetch("mountains").getName());
+    }
+
+    @Test
+    @DisplayName("A session which started before a reload finishes on its corpus, while new sessions use the new one")
+    public void sessionSnapshotTest() throws IOException {
+        CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(200));
+        CorpusSource corpus = new CorpusSource("corpus", List.of(category("RIVERS")));
+        fetcher.getSources().register(corpus, 1, 1);
+        QuizGenerator started = new QuizGenerator(fetcher);
+        started.generateQuestion();
+        assertEquals("RIVERS", started.getCategory());
+
+        Path dump = dir.resolve("dump.tsv");
+        writeDump(dump, "MOUNTAINS");
+        fetcher.reloadCorpus(corpus, dump);
+        QuizGenerator next = new QuizGenerator(fetcher);
+        for(int i = 0; i < 10; i++){
+            started.generateQuestion();
+            assertEquals("RIVERS", started.getCategory());
+            next.generateQuestion();
+            assertEquals("MOUNTAINS", next.getCategory());
+        }
+        //the old corpus was not put back into the index by the session still playing it
+        assertNull(fetcher.fetch("rivers"));
+    }
+
+    @Test
+    @DisplayName("A server reloads its corpus file when the file changes")
+    public void serverReloadTest() throws IOException, InterruptedException {
+        Path dump = dir.resolve("dump.tsv");
+        writeDump(dump, "RIVERS");
+        ServerConfig config = TestServers.baseline();
+        config.setCorpusPath(dump.toString());
+        config.setCorpusReloadMillis(20);
+        QuizServer server = TestServers.start(config, new LeaderBoard());
+        try{
+            CorpusSource corpus = (CorpusSource) server.getFetcher().getSources().getRoutes().get(1).getSource();
+            assertEquals(1, corpus.getVersion().getNumber());
+
+            writeDump(dump, "MOUNTAINS");
+            //the modification time is only as fine as the file system keeps it
+            Files.setLastModifiedTime(dump, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            long deadline = System.currentTimeMillis() + 5000;
+            while(corpus.getVersion().getNumber() == 1 && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+            assertEquals(2, corpus.getVersion().getNumber());
+            assertEquals("MOUNTAINS", corpus.fetch().join().getName());
+            assertEquals(3, server.reloadCorpus().getNumber());
+        }
+        finally {
+            server.stop();
+        }
+    }
+}
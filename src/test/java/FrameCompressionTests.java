@@ -0,0 +1,99 @@
+import QuizQuestion.StandInCategoryServer;
+import Server.FrameCompression;
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.FrameCompression and its negotiation between a QuizServer and a client
+ */
+public class FrameCompressionTests {
+
+    private final String DELIMITER = "~";
+    private final String QUESTION_FRAME = "QUESTION~The category is: grub, shrub or beelzebub\n"
+            + "%%%%%%%%%%%%%%%%%%%%%%%%%\nHasenpfeffer?\n%%%%%%%%%%%%%%%%%%%%%%%%%\n"
+            + "0: Shrub\n1: Grub (rabbit stew)\n2: Beelzebub\n3: Grub\n%%%%%%%%%%%%%%%%%%%%%%%%%\n~";
+    private final int THRESHOLD = 64;
+
+    @Test
+    @DisplayName("Compressed frames decompress unchanged and are much smaller")
+    public void roundTripTest(){
+        FrameCompression server = new FrameCompression(THRESHOLD);
+        FrameCompression client = new FrameCompression(THRESHOLD);
+        String zipped = server.compress(QUESTION_FRAME);
+        assertTrue(zipped.startsWith(FrameCompression.CODE_ZIP + DELIMITER));
+        assertTrue(zipped.length() < QUESTION_FRAME.length() * 2 / 3, zipped.length() + " bytes");
+        String payload = zipped.substring(4, zipped.length() - 1);
+        assertFalse(payload.contains(DELIMITER));
+        assertEquals(QUESTION_FRAME, client.decompress(payload));
+        //every payload is independent, so they can be decompressed in any order
+        String second = server.compress("MSG~\u00e9t\u00e9 " + QUESTION_FRAME);
+        assertEquals("MSG~\u00e9t\u00e9 " + QUESTION_FRAME, client.decompress(second.substring(4, second.length() - 1)));
+        assertEquals(client.decompress(payload), QUESTION_FRAME);
+    }
+
+    @Test
+    @DisplayName("Frames below the threshold are sent as they are")
+    public void thresholdTest(){
+        FrameCompression compression = new FrameCompression(THRESHOLD);
+        String small = "MSG~That's correct! Well done!\n~";
+        assertSame(small, compression.compress(small));
+        assertEquals(small.length(), compression.getSentBytes());
+        assertEquals(small.length(), compression.getPlainBytes());
+    }
+
+    @Test
+    @DisplayName("A client accepting the offer receives its question in a ZIP frame")
+    public void negotiationTest() throws IOException, InterruptedException {
+        StandInCategoryServer standIn = new StandInCategoryServer();
+        standIn.start();
+        ServerConfig config = TestServers.baseline();
+        config.setCategoryURI(standIn.getCategoryURI());
+        config.setCompression(true);
+        config.setCompressionThreshold(THRESHOLD);
+        QuizServer server = TestServers.start(config, new LeaderBoard());
+        FrameCompression compression = new FrameCompression(THRESHOLD);
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream()).useDelimiter(DELIMITER);
+            PrintWriter out = new PrintWriter(s.getOutputStream());
+            String code = in.next();
+            while(!code.equals(FrameCompression.CODE_COMPRESS)){
+                in.next();
+                code = in.next();
+            }
+            assertEquals("" + THRESHOLD, in.next());
+            out.print(FrameCompression.CODE_COMPRESS + DELIMITER + "Ben" + DELIMITER + "Y" + DELIMITER);
+            out.flush();
+
+            String question = null;
+            while(question == null){
+                code = in.next();
+                String message = in.next();
+                if(code.equals(FrameCompression.CODE_ZIP)){
+                    String frames = compression.decompress(message);
+                    if(frames.startsWith("QUESTION~")){
+                        question = frames;
+                    }
+                }
+                else{
+                    assertNotEquals("QUESTION", code);
+                }
+            }
+            assertTrue(question.contains("stand-in category"));
+            assertTrue(question.endsWith(DELIMITER));
+        }
+        finally {
+            server.stop();
+            standIn.stop();
+        }
+    }
+}
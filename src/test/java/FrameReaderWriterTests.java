@@ -0,0 +1,132 @@
+import QuizQuestion.MultipleChoiceQuestion;
+import Server.FrameReader;
+import Server.FrameWriter;
+import Server.LeaderBoard;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.FrameReader, Server.FrameWriter and the append methods they are used with
+ */
+public class FrameReaderWriterTests {
+
+    private FrameReader reader(String input){
+        return new FrameReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Tokens are compared, parsed and converted like the Scanner they replace")
+    public void readTest(){
+        FrameReader in = reader("HEARTBEAT~y~2~007~12a~~1234567890~Ren\u00e9e~");
+        in.next();
+        assertTrue(in.is("HEARTBEAT"));
+        assertFalse(in.is("HEARTBEATS"));
+        in.next();
+        assertTrue(in.isIgnoreCase("Y"));
+        assertFalse(in.is("Y"));
+        in.next();
+        assertEquals(2, in.asNumber());
+        in.next();
+        assertEquals(7, in.asNumber());
+        in.next();
+        assertEquals(-1, in.asNumber());
+        in.next();
+        assertEquals(-1, in.asNumber());
+        assertEquals("", in.asString());
+        in.next();
+        assertEquals(-1, in.asNumber());
+        in.next();
+        assertEquals("Ren\u00e9e", in.asString());
+        assertThrows(NoSuchElementException.class, in::next);
+    }
+
+    @Test
+    @DisplayName("The answers to a batch are parsed from one token, and counted even when they do not fit")
+    public void numbersTest(){
+        FrameReader in = reader("2 0 3~1,x,,12~~1 2 3 4~");
+        int[] numbers = new int[3];
+        in.next();
+        assertEquals(3, in.asNumbers(numbers));
+        assertArrayEquals(new int[]{2, 0, 3}, numbers);
+        in.next();
+        assertEquals(3, in.asNumbers(numbers));
+        assertArrayEquals(new int[]{1, -1, 12}, numbers);
+        in.next();
+        assertEquals(0, in.asNumbers(numbers));
+        in.next();
+        assertEquals(4, in.asNumbers(numbers));
+        assertArrayEquals(new int[]{1, 2, 3}, numbers);
+    }
+
+    @Test
+    @DisplayName("Tokens longer than the buffers are read whole")
+    public void longTokenTest(){
+        StringBuilder name = new StringBuilder();
+        for(int i = 0; i < 10000; i++){
+            name.append((char) ('a' + i % 26));
+        }
+        FrameReader in = reader(name + "~N~");
+        in.next();
+        assertEquals(name.toString(), in.asString());
+        in.next();
+        assertTrue(in.isIgnoreCase("n"));
+    }
+
+    @Test
+    @DisplayName("Sent frames are written once each, leaving nothing pending, whatever their size")
+    public void writeTest() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FrameWriter out = new FrameWriter(bytes, StandardCharsets.UTF_8);
+        out.frames().append("MSG~").append(42).append("~");
+        out.send("PLAYAGAIN~\u00e9t\u00e9?~");
+        assertEquals("MSG~42~PLAYAGAIN~\u00e9t\u00e9?~", bytes.toString(StandardCharsets.UTF_8));
+        assertEquals(0, out.frames().length());
+
+        bytes.reset();
+        StringBuilder large = new StringBuilder("MSG~");
+        for(int i = 0; i < 5000; i++){
+            large.append('\u00e9');
+        }
+        large.append('~');
+        out.send(large.toString());
+        assertEquals(large.toString(), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Appended leaderboards and questions match their Strings")
+    public void appendTest(){
+        LeaderBoard leaderBoard = new LeaderBoard();
+        StringBuilder out = new StringBuilder();
+        leaderBoard.appendTop3(out);
+        assertEquals(leaderBoard.prettyPrintTop3(), out.toString());
+        String[] players = {"Ben", "Alice", "Bob", "Carol", "Dave", "Erin"};
+        int[] streaks = {3, 7, 3, 0, 7, 3};
+        for(int i = 0; i < players.length; i++){
+            leaderBoard.update(players[i], streaks[i]);
+            out.setLength(0);
+            leaderBoard.appendTop3(out);
+            assertEquals(leaderBoard.prettyPrintTop3(), out.toString());
+        }
+
+        MultipleChoiceQuestion q = new MultipleChoiceQuestion();
+        q.setQuestionText("Hasenpfeffer?");
+        q.addChoice("Grub", true);
+        q.addChoice("Shrub", false);
+        q.addChoice("Beelzebub", false);
+        q.addChoice("Club", false);
+        out.setLength(0);
+        q.appendTo(out);
+        assertEquals(q.toString(), out.toString());
+        out.setLength(0);
+        q.appendCorrect(out);
+        assertEquals(q.correct(), out.toString());
+    }
+}
@@ -0,0 +1,66 @@
+import Server.IntIntMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Server.IntIntMap class
+ */
+public class IntIntMapTests {
+
+    private final int MISSING = -7;
+
+    @Test
+    @DisplayName("Put, get, replace and remove behave like a HashMap")
+    public void basicTest(){
+        IntIntMap map = new IntIntMap();
+        assertEquals(MISSING, map.put(3, 30, MISSING));
+        assertEquals(30, map.put(3, 31, MISSING));
+        assertEquals(31, map.get(3, MISSING));
+        assertEquals(MISSING, map.get(4, MISSING));
+        assertFalse(map.replace(4, 40));
+        assertFalse(map.containsKey(4));
+        assertTrue(map.replace(3, 32));
+        assertEquals(32, map.get(3, MISSING));
+        assertTrue(map.remove(3));
+        assertFalse(map.remove(3));
+        assertEquals(0, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, 0, MISSING));
+    }
+
+    @Test
+    @DisplayName("Random puts and removes through several resizes match a HashMap")
+    public void randomTest(){
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(36);
+        for(int i = 0; i < 200000; i++){
+            int key = random.nextInt(5000);
+            if(random.nextInt(3) == 0){
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            }
+            else{
+                int value = random.nextInt();
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? MISSING : previous, map.put(key, value, MISSING));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        int found = 0;
+        for(int slot = 0; slot < map.capacity(); slot++){
+            if(map.keyAt(slot) != IntIntMap.EMPTY){
+                assertEquals(expected.get(map.keyAt(slot)), map.valueAt(slot));
+                found++;
+            }
+        }
+        assertEquals(expected.size(), found);
+        for(int key = 0; key < 5000; key++){
+            assertEquals(expected.getOrDefault(key, MISSING), map.get(key, MISSING));
+        }
+    }
+}
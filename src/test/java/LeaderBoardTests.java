@@ -7,6 +7,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Unit tests for the Server.LeaderBoard class
@@ -208,4 +210,34 @@ public class LeaderBoardTests {
                 + COLUMN_SPACER + "10\n2" + COLUMN_SPACER + "10\n", leaderBoard.prettyPrintTop3() );
     }
 
+    @Test
+    @DisplayName("Players who join with the same name keep separate streaks")
+    public void joinSameNameTest(){
+        int first = leaderBoard.join(DEFAULT_USER);
+        int second = leaderBoard.join(DEFAULT_USER);
+        assertNotEquals(first, second);
+        leaderBoard.update(first, DEFAULT_STREAK);
+        leaderBoard.update(second, 2);
+        assertEquals(DEFAULT_STREAK, leaderBoard.get(first));
+        assertEquals(2, leaderBoard.get(second));
+        assertEquals(DEFAULT_USER, leaderBoard.nameOf(second));
+        assertEquals(LEADERBOARD_HEADER + DEFAULT_USER + COLUMN_SPACER + DEFAULT_STREAK + "\n"
+                + DEFAULT_USER + COLUMN_SPACER + "2\n", leaderBoard.prettyPrintTop3());
+        assertEquals(2, leaderBoard.size());
+    }
+
+    @Test
+    @DisplayName("A player who leaves is removed, and later updates with their id are ignored")
+    public void leaveTest(){
+        int id = leaderBoard.join(DEFAULT_USER);
+        leaderBoard.leave(id);
+        leaderBoard.update(id, DEFAULT_STREAK);
+        assertEquals(0, leaderBoard.size());
+        assertEquals(0, leaderBoard.get(id));
+        assertNull(leaderBoard.nameOf(id));
+        //ids are reused, so the table stays as small as the number of players
+        assertEquals(id, leaderBoard.join("Alice"));
+        assertEquals("Alice", leaderBoard.nameOf(id));
+    }
+
 }
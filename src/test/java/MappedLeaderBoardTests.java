@@ -0,0 +1,129 @@
+import Server.LeaderBoard;
+import Server.MappedLeaderBoard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Server.MappedLeaderBoard class
+ */
+public class MappedLeaderBoardTests {
+
+    private final String LEADERBOARD_HEADER = "************************\n* Top 3 Active Streaks *\n************************\n";
+    private final String COLUMN_SPACER = ":   ";
+    private final int CAPACITY = 1000;
+
+    private Path file;
+
+    @BeforeEach
+    public void init() throws IOException {
+        file = Files.createTempFile("leaderboard", ".bin");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Players by name and by id are kept like a LeaderBoard keeps them")
+    public void basicTest(){
+        MappedLeaderBoard leaderBoard = new MappedLeaderBoard(CAPACITY);
+        assertEquals(LEADERBOARD_HEADER, leaderBoard.prettyPrintTop3());
+        leaderBoard.update("Ben", 4);
+        leaderBoard.update("Ann", 2);
+        leaderBoard.update("Ben", 5);
+        int first = leaderBoard.join("Ben");
+        int second = leaderBoard.join("Ben");
+        leaderBoard.update(second, 3);
+        assertEquals(5, leaderBoard.get("Ben"));
+        assertEquals(0, leaderBoard.get(first));
+        assertEquals(3, leaderBoard.get(second));
+        assertEquals("Ben", leaderBoard.nameOf(second));
+        assertEquals(4, leaderBoard.size());
+        assertEquals(LEADERBOARD_HEADER + "Ben" + COLUMN_SPACER + "5\nBen" + COLUMN_SPACER + "3\nAnn"
+                + COLUMN_SPACER + "2\n", leaderBoard.prettyPrintTop3());
+
+        leaderBoard.delete("Ben");
+        leaderBoard.leave(second);
+        leaderBoard.update(second, 9);
+        assertEquals(0, leaderBoard.get("Ben"));
+        assertNull(leaderBoard.nameOf(second));
+        assertEquals(2, leaderBoard.size());
+        assertEquals(LEADERBOARD_HEADER + "Ann" + COLUMN_SPACER + "2\nBen"
+                + COLUMN_SPACER + "0\n", leaderBoard.prettyPrintTop3());
+    }
+
+    @Test
+    @DisplayName("Players updated by name survive reopening the file, players who joined do not")
+    public void reopenTest() throws IOException {
+        MappedLeaderBoard leaderBoard = new MappedLeaderBoard(file, CAPACITY);
+        leaderBoard.update("\u00c9mile", 7);
+        leaderBoard.update("Ann", 2);
+        leaderBoard.join("Ben");
+        leaderBoard.close();
+
+        leaderBoard = new MappedLeaderBoard(file, CAPACITY);
+        assertEquals(2, leaderBoard.size());
+        assertEquals(7, leaderBoard.get("\u00c9mile"));
+        assertEquals(LEADERBOARD_HEADER + "\u00c9mile" + COLUMN_SPACER + "7\nAnn" + COLUMN_SPACER + "2\n",
+                leaderBoard.prettyPrintTop3());
+        leaderBoard.close();
+
+        assertThrows(IOException.class, () -> new MappedLeaderBoard(file, CAPACITY * 2));
+    }
+
+    @Test
+    @DisplayName("Top 3 streaks match a LeaderBoard after random updates and deletes, until it is full")
+    public void matchesLeaderBoardTest(){
+        MappedLeaderBoard leaderBoard = new MappedLeaderBoard(CAPACITY);
+        LeaderBoard expected = new LeaderBoard();
+        Random random = new Random(37);
+        for(int i = 0; i < 100000; i++){
+            String name = "" + random.nextInt(CAPACITY);
+            if(random.nextInt(4) == 0){
+                leaderBoard.delete(name);
+                expected.delete(name);
+            }
+            else{
+                //mostly streaks which grow by one or drop to 0, as in a game
+                int streak = random.nextInt(3) == 0 ? 0 : expected.get(name) + 1;
+                leaderBoard.update(name, streak);
+                expected.update(name, streak);
+            }
+            if(i % 100 == 0){
+                assertEquals(streaksOf(expected.prettyPrintTop3()), streaksOf(leaderBoard.prettyPrintTop3()));
+            }
+        }
+        assertEquals(expected.size(), leaderBoard.size());
+
+        for(int i = leaderBoard.size(); i < CAPACITY; i++){
+            leaderBoard.join("player" + i);
+        }
+        assertThrows(IllegalStateException.class, () -> leaderBoard.join("one too many"));
+    }
+
+    /**
+     * Extracts the streak column of a printed leaderboard, since ties may be printed in a different order
+     */
+    private List<String> streaksOf(String printed){
+        List<String> streaks = new ArrayList<>();
+        for(String line : printed.substring(LEADERBOARD_HEADER.length()).split("\n")){
+            if(!line.isEmpty()){
+                streaks.add(line.substring(line.indexOf(COLUMN_SPACER)));
+            }
+        }
+        return streaks;
+    }
+}
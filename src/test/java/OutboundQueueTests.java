@@ -0,0 +1,239 @@
+import Server.LeaderBoard;
+import Server.OutboundPump;
+import Server.OutboundQueue;
+import Server.ServerConfig;
+import Server.ServerMetrics;
+import Server.SessionReaper;
+import Server.SpectatorHub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.OutboundQueue and Server.OutboundPump, using clients which deliberately never read
+ */
+public class OutboundQueueTests {
+
+    private final int CAPACITY = 4096;
+    private final int FRAME_BYTES = 1000;
+    //far more than the socket buffers of a client which never reads can hold, so writing it blocks
+    private final int BLOCKING_BYTES = 8 * 1024 * 1024;
+
+    private ServerSocket server;
+    private OutboundPump pump;
+    private ServerMetrics metrics;
+    private ServerConfig config;
+    private List<Socket> sockets;
+
+    @BeforeEach
+    public void init() throws IOException {
+        server = new ServerSocket(0);
+        pump = new OutboundPump(2);
+        pump.start();
+        metrics = new ServerMetrics();
+        config = new ServerConfig();
+        config.setOutboundQueueBytes(CAPACITY);
+        config.setReaperTickMillis(20);
+        sockets = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        pump.stop();
+        for(Socket socket : sockets){
+            socket.close();
+        }
+        server.close();
+    }
+
+    /**
+     * Connects a client with small socket buffers, returning the client's end, and the server's end through accepted
+     */
+    private Socket connect(List<Socket> accepted) throws IOException {
+        Socket client = new Socket();
+        client.setReceiveBufferSize(4096);
+        client.connect(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+        Socket socket = server.accept();
+        socket.setSendBufferSize(4096);
+        sockets.add(client);
+        sockets.add(socket);
+        accepted.add(socket);
+        return client;
+    }
+
+    /**
+     * Reads from a client until the server closes the connection
+     */
+    private int readToEnd(Socket client) throws IOException {
+        InputStream in = client.getInputStream();
+        byte[] buffer = new byte[8192];
+        int total = 0;
+        int read;
+        while((read = in.read(buffer)) != -1){
+            total += read;
+        }
+        return total;
+    }
+
+    @Test
+    @DisplayName("Frames written in the buffers the queue reuses reach a client which reads them whole and in order")
+    public void reuseTest() throws IOException {
+        List<Socket> accepted = new ArrayList<>();
+        Socket client = connect(accepted);
+        config.setOutboundQueueBytes(1024 * 1024);
+        OutboundQueue queue = new OutboundQueue(accepted.get(0), pump, config, null, metrics);
+        StringBuilder expected = new StringBuilder();
+        for(int i = 0; i < 500; i++){
+            //frames of many sizes, some larger than the buffers first handed out
+            String frame = ("frame " + i + " ").repeat(1 + i % 200) + "~";
+            byte[] bytes = frame.getBytes(StandardCharsets.UTF_8);
+            queue.write(bytes, 0, bytes.length / 2);
+            queue.write(bytes, bytes.length / 2, bytes.length - bytes.length / 2);
+            queue.flush();
+            expected.append(frame);
+        }
+        queue.close();
+
+        InputStream in = client.getInputStream();
+        String received = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(expected.toString(), received);
+        assertEquals(0, metrics.getQueuedBytes());
+    }
+
+    @Test
+    @DisplayName("A client which never reads is disconnected once its queue overflows, without blocking the writer")
+    public void overflowTest() throws IOException {
+        List<Socket> accepted = new ArrayList<>();
+        Socket client = connect(accepted);
+        OutboundQueue queue = new OutboundQueue(accepted.get(0), pump, config, null, metrics);
+        byte[] frame = new byte[FRAME_BYTES];
+        Arrays.fill(frame, (byte) 'x');
+
+        long start = System.nanoTime();
+        int queued = 0;
+        SocketException closed = null;
+        try{
+            while(queued < 100_000){
+                queue.write(frame);
+                queue.flush();
+                queued++;
+                assertTrue(queue.depth() <= CAPACITY);
+            }
+        }
+        catch(SocketException e){
+            closed = e;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertNotNull(closed, "the slow consumer was never disconnected");
+        assertTrue(millis < 2000, "the writer was held up for " + millis + "ms");
+        assertTrue(queue.isClosed());
+        assertEquals(0, queue.depth());
+        assertEquals(1, metrics.getSlowConsumers());
+        assertEquals(0, metrics.getQueuedBytes());
+        assertTrue(metrics.getPeakQueueBytes() <= CAPACITY);
+        //the frames queued when it overflowed were discarded, and the connection was closed
+        assertTrue(readToEnd(client) < queued * FRAME_BYTES);
+        assertFalse(queue.offerLatest(frame));
+    }
+
+    @Test
+    @DisplayName("Stale leaderboard frames are replaced rather than queued, so the queue of a slow client stays bounded")
+    public void latestTest() throws IOException {
+        List<Socket> accepted = new ArrayList<>();
+        Socket client = connect(accepted);
+        //room for the frame the pump is blocked on, and for a single update after it
+        config.setOutboundQueueBytes(BLOCKING_BYTES + FRAME_BYTES);
+        OutboundQueue queue = new OutboundQueue(accepted.get(0), pump, config, null, metrics);
+        //the pump is blocked writing this until the client reads
+        queue.write(new byte[BLOCKING_BYTES]);
+        queue.flush();
+        for(int i = 0; i < 1000; i++){
+            assertTrue(queue.offerLatest(("BOARD~" + i + "~").getBytes(StandardCharsets.UTF_8)));
+            assertTrue(queue.depth() <= BLOCKING_BYTES + FRAME_BYTES);
+        }
+        assertEquals(999, metrics.getDroppedFrames());
+        assertEquals(0, metrics.getSlowConsumers());
+
+        //once the client catches up it is sent the latest frame only, and the queue closes gracefully after it
+        queue.close();
+        InputStream in = client.getInputStream();
+        assertEquals(BLOCKING_BYTES, in.readNBytes(BLOCKING_BYTES).length);
+        assertEquals("BOARD~999~", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(0, metrics.getQueuedBytes());
+    }
+
+    @Test
+    @DisplayName("A write the client does not take within the write timeout is reaped, which frees the pump thread")
+    public void writeTimeoutTest() throws IOException, InterruptedException {
+        config.setOutboundWriteTimeoutMillis(200);
+        SessionReaper reaper = new SessionReaper(config, metrics);
+        Thread reaperThread = new Thread(reaper);
+        reaperThread.setDaemon(true);
+        reaperThread.start();
+        try{
+            List<Socket> accepted = new ArrayList<>();
+            connect(accepted);
+            OutboundQueue queue = new OutboundQueue(accepted.get(0), pump, config, reaper, metrics);
+            //a single frame larger than the queue is let through while the queue is empty
+            queue.write(new byte[BLOCKING_BYTES]);
+            queue.flush();
+            long deadline = System.currentTimeMillis() + 5000;
+            while(metrics.getSlowConsumers() == 0 && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+            assertTrue(queue.isClosed());
+            assertEquals(1, metrics.getSlowConsumers());
+            assertEquals(1, metrics.getReapedSessions());
+            assertEquals(0, reaper.size());
+            assertEquals(0, pump.size());
+        }
+        finally {
+            reaperThread.interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("A spectator which never reads does not hold up the updates of one which does")
+    public void spectatorTest() throws IOException {
+        LeaderBoard leaderBoard = new LeaderBoard();
+        SpectatorHub hub = new SpectatorHub(leaderBoard, config, null);
+        List<Socket> accepted = new ArrayList<>();
+        connect(accepted);
+        Socket reading = connect(accepted);
+        config.setOutboundQueueBytes(BLOCKING_BYTES + FRAME_BYTES);
+        OutboundQueue stalled = new OutboundQueue(accepted.get(0), pump, config, null, metrics);
+        stalled.write(new byte[BLOCKING_BYTES]);
+        stalled.flush();
+        hub.subscribe(accepted.get(0), stalled);
+        hub.subscribe(accepted.get(1), new OutboundQueue(accepted.get(1), pump, config, null, metrics));
+
+        Scanner in = new Scanner(reading.getInputStream()).useDelimiter("~");
+        long start = System.nanoTime();
+        for(int i = 1; i <= 200; i++){
+            leaderBoard.update("Alice", i);
+            assertTrue(hub.broadcast());
+            assertEquals("BOARD", in.next());
+            assertTrue(in.next().contains(Integer.toString(i)));
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 5000, "took " + millis + "ms");
+        assertEquals(2, hub.size());
+        assertTrue(metrics.getDroppedFrames() >= 198);
+        assertEquals(0, metrics.getSlowConsumers());
+    }
+}
@@ -0,0 +1,147 @@
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.StandInCategoryServer;
+import Server.LeaderBoard;
+import Server.RoomLobby;
+import Server.RoomMember;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.QuizRoom, played by two players connected through local sockets
+ */
+public class QuizRoomTests {
+
+    private final String DELIMITER = "~";
+    private final String CODE_MSG = "MSG";
+    private final String CODE_NAME = "NAME";
+    private final String CODE_PLAYAGAIN = "PLAYAGAIN";
+    private final String CODE_QUESTION = "QUESTION";
+
+    private StandInCategoryServer standIn;
+    private ServerSocket server;
+    private LeaderBoard leaderBoard;
+    private RoomLobby lobby;
+
+    @BeforeEach
+    public void init() throws IOException {
+        standIn = new StandInCategoryServer();
+        standIn.start();
+        server = new ServerSocket(0);
+        leaderBoard = new LeaderBoard();
+        lobby = new RoomLobby(2, leaderBoard, new CategoryFetcher(standIn.getCategoryURI(), Duration.ofSeconds(1)),
+                2000, 2000);
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        server.close();
+        standIn.stop();
+    }
+
+    private Socket connect() throws IOException {
+        Socket client = new Socket("127.0.0.1", server.getLocalPort());
+        new Thread(new RoomMember(server.accept(), lobby)).start();
+        return client;
+    }
+
+    /**
+     * Reads frames until one with the given code arrives
+     * @return the message of that frame
+     */
+    private String expect(Scanner in, String code){
+        while(true){
+            String received = in.next();
+            String message = in.next();
+            if(received.equals(code)){
+                return message;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Every member of a room receives the same question and streaks are updated together")
+    public void sharedRoundTest() throws IOException {
+        try(Socket alice = connect(); Socket bob = connect()){
+            Scanner aliceIn = new Scanner(alice.getInputStream()).useDelimiter(DELIMITER);
+            Scanner bobIn = new Scanner(bob.getInputStream()).useDelimiter(DELIMITER);
+            PrintWriter aliceOut = new PrintWriter(alice.getOutputStream(), true);
+            PrintWriter bobOut = new PrintWriter(bob.getOutputStream(), true);
+
+            expect(aliceIn, CODE_NAME);
+            aliceOut.print("alice" + DELIMITER);
+            aliceOut.flush();
+            expect(bobIn, CODE_NAME);
+            bobOut.print("bob" + DELIMITER);
+            bobOut.flush();
+
+            //both must have joined before either is ready, otherwise alice's round could start without bob
+            expect(aliceIn, CODE_PLAYAGAIN);
+            expect(bobIn, CODE_PLAYAGAIN);
+            aliceOut.print("Y" + DELIMITER);
+            aliceOut.flush();
+            bobOut.print("Y" + DELIMITER);
+            bobOut.flush();
+
+            String aliceQuestion = expect(aliceIn, CODE_QUESTION);
+            String bobQuestion = expect(bobIn, CODE_QUESTION);
+            assertEquals(aliceQuestion, bobQuestion);
+
+            aliceOut.print("0" + DELIMITER);
+            aliceOut.flush();
+            bobOut.print("0" + DELIMITER);
+            bobOut.flush();
+
+            assertTrue(expect(aliceIn, CODE_MSG).length() > 0);
+            expect(aliceIn, CODE_PLAYAGAIN);
+            expect(bobIn, CODE_PLAYAGAIN);
+            assertEquals(2, leaderBoard.size());
+            assertEquals(leaderBoard.get("alice"), leaderBoard.get("bob"));
+
+            bobOut.print("N" + DELIMITER);
+            bobOut.flush();
+            assertTrue(expect(bobIn, CODE_MSG).startsWith("Thanks for playing"));
+            assertFalse(bobIn.hasNext());
+            assertEquals(1, leaderBoard.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Members of a room who share a name keep separate entries on the leaderboard")
+    public void duplicateNameTest() throws IOException {
+        try(Socket first = connect(); Socket second = connect()){
+            Scanner firstIn = new Scanner(first.getInputStream()).useDelimiter(DELIMITER);
+            Scanner secondIn = new Scanner(second.getInputStream()).useDelimiter(DELIMITER);
+            PrintWriter firstOut = new PrintWriter(first.getOutputStream(), true);
+            PrintWriter secondOut = new PrintWriter(second.getOutputStream(), true);
+
+            expect(firstIn, CODE_NAME);
+            firstOut.print("sam" + DELIMITER);
+            firstOut.flush();
+            expect(secondIn, CODE_NAME);
+            secondOut.print("sam" + DELIMITER);
+            secondOut.flush();
+            expect(firstIn, CODE_PLAYAGAIN);
+            expect(secondIn, CODE_PLAYAGAIN);
+            assertEquals(2, leaderBoard.size());
+
+            //the first sam leaving takes only their own entry with them
+            firstOut.print("N" + DELIMITER);
+            firstOut.flush();
+            assertTrue(expect(firstIn, CODE_MSG).startsWith("Thanks for playing"));
+            assertFalse(firstIn.hasNext());
+            assertEquals(1, leaderBoard.size());
+            assertTrue(leaderBoard.prettyPrintTop3().contains("sam"));
+        }
+    }
+}
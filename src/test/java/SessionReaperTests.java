@@ -0,0 +1,147 @@
+import QuizQuestion.StandInCategoryServer;
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.SessionReaper, run against a QuizServer with short deadlines
+ */
+public class SessionReaperTests {
+
+    private final String DELIMITER = "~";
+    private final String CODE_NAME = "NAME";
+    private final String CODE_PLAYAGAIN = "PLAYAGAIN";
+    private final String CODE_HEARTBEAT = "HEARTBEAT";
+    private final long TIMEOUT_MILLIS = 600;
+    private final long HEARTBEAT_MILLIS = 100;
+
+    private StandInCategoryServer standIn;
+    private LeaderBoard leaderBoard;
+    private QuizServer server;
+
+    @BeforeEach
+    public void init() throws IOException, InterruptedException {
+        standIn = new StandInCategoryServer();
+        standIn.start();
+        ServerConfig config = TestServers.baseline();
+        config.setCategoryURI(standIn.getCategoryURI());
+        config.setNameTimeoutMillis(TIMEOUT_MILLIS);
+        config.setPlayAgainTimeoutMillis(TIMEOUT_MILLIS);
+        config.setAnswerTimeoutMillis(TIMEOUT_MILLIS);
+        config.setHeartbeatIntervalMillis(HEARTBEAT_MILLIS);
+        config.setReaperTickMillis(50);
+        leaderBoard = new LeaderBoard();
+        server = TestServers.start(config, leaderBoard);
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        server.stop();
+        standIn.stop();
+    }
+
+    /**
+     * Reads frames until one with the given code arrives
+     * @return the message of that frame
+     */
+    private String await(Scanner in, String code){
+        while(true){
+            if(in.next().equals(code)){
+                return in.next();
+            }
+            in.next();
+        }
+    }
+
+    private void awaitSessionsEnded() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while(server.getMetrics().getActiveSessions() > 0 && System.currentTimeMillis() - start < 5 * TIMEOUT_MILLIS){
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    @DisplayName("A silent client is reaped and removed from the leaderboard")
+    public void silentClientTest() throws IOException, InterruptedException {
+        try(Socket client = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(client.getInputStream());
+            in.useDelimiter(DELIMITER);
+            PrintWriter out = new PrintWriter(client.getOutputStream());
+            assertEquals("" + HEARTBEAT_MILLIS, await(in, CODE_HEARTBEAT));
+            await(in, CODE_NAME);
+            out.print("Ben" + DELIMITER);
+            out.flush();
+            await(in, CODE_PLAYAGAIN);
+            assertEquals(1, leaderBoard.size());
+
+            awaitSessionsEnded();
+            assertEquals(0, server.getMetrics().getActiveSessions());
+            assertEquals(1, server.getMetrics().getReapedSessions());
+            assertEquals(1, server.getMetrics().getReclaimedThreads());
+            assertEquals(0, leaderBoard.size());
+            assertFalse(in.hasNext());
+        }
+    }
+
+    @Test
+    @DisplayName("Heartbeats do not count as a response to the stage deadline")
+    public void heartbeatTest() throws IOException, InterruptedException {
+        try(Socket client = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(client.getInputStream());
+            in.useDelimiter(DELIMITER);
+            PrintWriter out = new PrintWriter(client.getOutputStream());
+            await(in, CODE_NAME);
+            long start = System.currentTimeMillis();
+            while(System.currentTimeMillis() - start < TIMEOUT_MILLIS / 2){
+                out.print(CODE_HEARTBEAT + DELIMITER);
+                out.flush();
+                Thread.sleep(HEARTBEAT_MILLIS);
+            }
+            out.print("Ben" + DELIMITER);
+            out.flush();
+            await(in, CODE_PLAYAGAIN);
+            assertEquals(0, server.getMetrics().getReapedSessions());
+            assertEquals(1, leaderBoard.size());
+
+            //a client which keeps heartbeating but never answers is still reaped at the deadline
+            start = System.currentTimeMillis();
+            while(server.getMetrics().getReapedSessions() == 0 && System.currentTimeMillis() - start < 5 * TIMEOUT_MILLIS){
+                out.print(CODE_HEARTBEAT + DELIMITER);
+                out.flush();
+                Thread.sleep(HEARTBEAT_MILLIS);
+            }
+            awaitSessionsEnded();
+            assertEquals(1, server.getMetrics().getReapedSessions());
+            assertEquals(0, leaderBoard.size());
+        }
+    }
+
+    @Test
+    @DisplayName("A client which stops heartbeating is reaped before the stage deadline")
+    public void missedHeartbeatsTest() throws IOException, InterruptedException {
+        try(Socket client = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(client.getInputStream());
+            in.useDelimiter(DELIMITER);
+            PrintWriter out = new PrintWriter(client.getOutputStream());
+            await(in, CODE_NAME);
+            out.print(CODE_HEARTBEAT + DELIMITER);
+            out.flush();
+            long start = System.currentTimeMillis();
+            awaitSessionsEnded();
+            long elapsed = System.currentTimeMillis() - start;
+            assertEquals(1, server.getMetrics().getReapedSessions());
+            assertTrue(elapsed < TIMEOUT_MILLIS, "reaped after " + elapsed + "ms");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import Server.LeaderBoard;
+import Server.ShardedLeaderBoard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for the Server.ShardedLeaderBoard class
+ */
+public class ShardedLeaderBoardTests {
+
+    private final String LEADERBOARD_HEADER = "************************\n* Top 3 Active Streaks *\n************************\n";
+    private final String COLUMN_SPACER = ":   ";
+    private final int SHARDS = 8;
+    private final int THREADS = 16;
+    private final int REPETITIONS = 1000;
+
+    private ShardedLeaderBoard leaderBoard;
+
+    @BeforeEach
+    public void init(){
+        leaderBoard = new ShardedLeaderBoard(SHARDS);
+    }
+
+    @Test
+    @DisplayName("Print empty leaderboard")
+    public void printEmptyLeaderBoard(){
+        assertEquals(LEADERBOARD_HEADER, leaderBoard.prettyPrintTop3());
+    }
+
+    @Test
+    @DisplayName("Correctly print top 3 of 5 players")
+    public void printTop3Of5(){
+        for(int i = 0; i < 5; i++){
+            leaderBoard.update("" + i, i);
+        }
+        assertEquals(LEADERBOARD_HEADER + "4" + COLUMN_SPACER + "4\n3"
+                + COLUMN_SPACER + "3\n2" + COLUMN_SPACER + "2\n", leaderBoard.prettyPrintTop3());
+        assertEquals(5, leaderBoard.size());
+    }
+
+    @Test
+    @DisplayName("A top player losing their streak or leaving is replaced in the top 3")
+    public void topPlayerDropsTest(){
+        for(int i = 0; i < 5; i++){
+            leaderBoard.update("" + i, i);
+        }
+        leaderBoard.prettyPrintTop3();
+        leaderBoard.update("4", 0);
+        leaderBoard.delete("3");
+        assertEquals(LEADERBOARD_HEADER + "2" + COLUMN_SPACER + "2\n1"
+                + COLUMN_SPACER + "1\n0" + COLUMN_SPACER + "0\n", leaderBoard.prettyPrintTop3());
+        assertEquals(0, leaderBoard.get("3"));
+    }
+
+    @Test
+    @DisplayName("The printed top 3 is reused until it changes")
+    public void cachedPrintTest(){
+        leaderBoard.update("Ben", 10);
+        String first = leaderBoard.prettyPrintTop3();
+        assertSame(first, leaderBoard.prettyPrintTop3());
+        leaderBoard.update("Ann", 11);
+        assertEquals(LEADERBOARD_HEADER + "Ann" + COLUMN_SPACER + "11\nBen" + COLUMN_SPACER + "10\n",
+                leaderBoard.prettyPrintTop3());
+    }
+
+    @Test
+    @DisplayName("Bulk updates match individual updates")
+    public void updateAllTest(){
+        Map<String, Integer> streaks = new HashMap<>();
+        for(int i = 0; i < REPETITIONS; i++){
+            streaks.put("" + i, i % 7);
+        }
+        leaderBoard.updateAll(streaks);
+        assertEquals(REPETITIONS, leaderBoard.size());
+        assertEquals(6, leaderBoard.get("6"));
+
+        //players are given the same ids when updated one at a time in the same order, so ties are printed alike
+        ShardedLeaderBoard individual = new ShardedLeaderBoard(SHARDS);
+        for(Map.Entry<String, Integer> entry : streaks.entrySet()){
+            individual.update(entry.getKey(), entry.getValue());
+        }
+        assertEquals(individual.prettyPrintTop3(), leaderBoard.prettyPrintTop3());
+        assertEquals(List.of(COLUMN_SPACER + "6", COLUMN_SPACER + "6", COLUMN_SPACER + "6"),
+                streaksOf(leaderBoard.prettyPrintTop3()));
+    }
+
+    @Test
+    @DisplayName("Bulk updates of joined players keep players sharing a name apart and skip those who left")
+    public void updateAllJoinedTest(){
+        int[] ids = new int[REPETITIONS];
+        int[] streaks = new int[REPETITIONS];
+        for(int i = 0; i < REPETITIONS; i++){
+            ids[i] = leaderBoard.join(i < 2 ? "twin" : "" + i);
+            streaks[i] = i % 7;
+        }
+        leaderBoard.leave(ids[6]);
+        streaks[1] = 9;
+        leaderBoard.updateAll(ids, streaks, REPETITIONS);
+        assertEquals(REPETITIONS - 1, leaderBoard.size());
+        assertEquals(0, leaderBoard.get(ids[0]));
+        assertEquals(9, leaderBoard.get(ids[1]));
+        assertEquals(0, leaderBoard.get(ids[6]));
+        assertEquals(6, leaderBoard.get(ids[13]));
+
+        //ties go to the lower id, as in LeaderBoard
+        int first = -1;
+        int second = -1;
+        for(int i = 0; i < REPETITIONS; i++){
+            if(streaks[i] == 6 && i != 6){
+                if(first == -1 || ids[i] < ids[first]){
+                    second = first;
+                    first = i;
+                }
+                else if(second == -1 || ids[i] < ids[second]){
+                    second = i;
+                }
+            }
+        }
+        assertEquals(LEADERBOARD_HEADER + "twin" + COLUMN_SPACER + "9\n" + first + COLUMN_SPACER + "6\n" + second
+                + COLUMN_SPACER + "6\n", leaderBoard.prettyPrintTop3());
+    }
+
+    @Test
+    @DisplayName("Top players dropping are replaced by the next best, whether or not they were among the candidates")
+    public void candidatesTest(){
+        for(int i = 0; i < 100; i++){
+            leaderBoard.update("" + i, i);
+        }
+        //every player but the 4 at the bottom drops, one at a time from the top, so candidates keep running out
+        for(int i = 99; i >= 4; i--){
+            leaderBoard.update("" + i, 0);
+            assertEquals(LEADERBOARD_HEADER + (i - 1) + COLUMN_SPACER + (i - 1) + "\n" + (i - 2) + COLUMN_SPACER
+                    + (i - 2) + "\n" + (i - 3) + COLUMN_SPACER + (i - 3) + "\n", leaderBoard.prettyPrintTop3());
+        }
+        leaderBoard.update("50", 7);
+        assertEquals(LEADERBOARD_HEADER + "50" + COLUMN_SPACER + "7\n3" + COLUMN_SPACER + "3\n2" + COLUMN_SPACER
+                + "2\n", leaderBoard.prettyPrintTop3());
+    }
+
+    @Test
+    @DisplayName("Top 3 streaks match a LeaderBoard after random concurrent updates and deletes")
+    public void matchesLeaderBoardTest() throws InterruptedException {
+        LeaderBoard expected = new LeaderBoard();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                Random r = new Random(seed);
+                for(int i = 0; i < REPETITIONS; i++){
+                    String name = "" + (seed * REPETITIONS + r.nextInt(50));
+                    if(r.nextInt(10) == 0){
+                        leaderBoard.delete(name);
+                        expected.delete(name);
+                    }
+                    else{
+                        int streak = r.nextInt(100);
+                        leaderBoard.update(name, streak);
+                        expected.update(name, streak);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        assertEquals(expected.size(), leaderBoard.size());
+        assertEquals(streaksOf(expected.prettyPrintTop3()), streaksOf(leaderBoard.prettyPrintTop3()));
+    }
+
+    /**
+     * Extracts the streak column of a printed leaderboard, since ties may be printed in a different order
+     */
+    private List<String> streaksOf(String printed){
+        List<String> streaks = new ArrayList<>();
+        for(String line : printed.substring(LEADERBOARD_HEADER.length()).split("\n")){
+            streaks.add(line.substring(line.indexOf(COLUMN_SPACER)));
+        }
+        return streaks;
+    }
+}
@@ -0,0 +1,214 @@
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.CategorySnapshot;
+import QuizQuestion.CorpusSource;
+import QuizQuestion.JServiceSource;
+import QuizQuestion.JeopardyCategory;
+import QuizQuestion.SourceRouter;
+import QuizQuestion.StandInCategoryServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuizQuestion.SourceRouter and the QuestionSources registered with it, using a local stand-in server
+ * and corpora held in memory
+ */
+public class SourceRouterTests {
+
+    private final String STAND_IN_NAME = "stand-in category";
+    private final long FAILOVER_MILLIS = 100;
+    private final int FETCHES = 2000;
+
+    private StandInCategoryServer standIn;
+
+    @BeforeEach
+    public void init() throws IOException {
+        standIn = new StandInCategoryServer();
+        standIn.start();
+    }
+
+    @AfterEach
+    public void stop(){
+        standIn.stop();
+    }
+
+    /**
+     * Builds a corpus of one playable category, named after the corpus
+     */
+    private CorpusSource corpus(String name){
+        JeopardyCategory category = new JeopardyCategory(name, Arrays.asList("q1", "q2", "q3", "q4"),
+                Arrays.asList("a1", "a2", "a3", "a4"));
+        return new CorpusSource(name, List.of(category));
+    }
+
+    @Test
+    @DisplayName("Sources of a lower priority are only used while the higher priority sources are unavailable")
+    public void priorityTest(){
+        SourceRouter router = new SourceRouter(FAILOVER_MILLIS);
+        SourceRouter.Route primary = router.register(corpus("primary"), 0, 1);
+        SourceRouter.Route backup = router.register(corpus("backup"), 1, 100);
+        for(int i = 0; i < 100; i++){
+            assertEquals("primary", router.fetch().getName());
+        }
+        assertEquals(100, primary.getCalls());
+        assertEquals(0, backup.getCalls());
+        assertEquals(1.0, primary.getYield());
+
+        SourceRouter empty = new SourceRouter(FAILOVER_MILLIS);
+        SourceRouter.Route none = empty.register(new CorpusSource("empty", new ArrayList<>()), 0, 1);
+        empty.register(corpus("backup"), 1, 1);
+        assertEquals("backup", empty.fetch().getName());
+        assertEquals(1, none.getFailures());
+        assertNull(new SourceRouter(FAILOVER_MILLIS).fetch());
+    }
+
+    @Test
+    @DisplayName("Sources of equal priority share the requests in proportion to their weights")
+    public void weightTest(){
+        SourceRouter router = new SourceRouter(FAILOVER_MILLIS);
+        router.register(corpus("heavy"), 0, 3);
+        router.register(corpus("light"), 0, 1);
+        int heavy = 0;
+        for(int i = 0; i < FETCHES; i++){
+            if(router.fetch().getName().equals("heavy")){
+                heavy++;
+            }
+        }
+        assertTrue(heavy > FETCHES * 0.65 && heavy < FETCHES * 0.85, "heavy got " + heavy);
+        assertThrows(IllegalArgumentException.class, () -> router.register(corpus("negative"), 0, -1));
+    }
+
+    @Test
+    @DisplayName("A failing source fails over to the next at once, and its breaker opens")
+    public void failingSourceTest(){
+        standIn.setFailureRate(1.0);
+        //long enough that no failing request is mistaken for a slow one
+        SourceRouter router = new SourceRouter(5000);
+        SourceRouter.Route remote = router.register(new JServiceSource("stand-in", standIn.getCategoryURI(),
+                Duration.ofSeconds(1)), 0, 1);
+        SourceRouter.Route backup = router.register(corpus("backup"), 1, 1);
+        for(int i = 0; i < 30; i++){
+            assertEquals("backup", router.fetch().getName());
+        }
+        //the breaker opened after a window of 20 failures, after which the source was not called any more
+        assertEquals(20, remote.getCalls());
+        assertEquals(20, remote.getFailures());
+        assertEquals(0, remote.getFailovers());
+        assertEquals(0.0, remote.getYield());
+        assertEquals(30, backup.getPlayable());
+        assertTrue(router.report().contains("breaker=OPEN"));
+    }
+
+    @Test
+    @DisplayName("A slow source is raced against the next after the failover delay, and the slow request is cancelled")
+    public void slowSourceTest(){
+        standIn.setBaseLatency(2000);
+        SourceRouter router = new SourceRouter(FAILOVER_MILLIS);
+        SourceRouter.Route remote = router.register(new JServiceSource("stand-in", standIn.getCategoryURI(),
+                Duration.ofSeconds(5)), 0, 1);
+        router.register(corpus("backup"), 1, 1);
+        long start = System.nanoTime();
+        assertEquals("backup", router.fetch().getName());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis >= FAILOVER_MILLIS && millis < 1000, "took " + millis + "ms");
+        assertEquals(1, remote.getCalls());
+        assertEquals(1, remote.getFailovers());
+        //the cancelled request neither failed nor completed
+        assertEquals(0, remote.getFailures());
+        assertEquals(0.0, remote.getYield());
+    }
+
+    @Test
+    @DisplayName("A fetcher whose upstream is unreachable draws from a registered corpus before its cache")
+    public void fetcherTest(){
+        CategoryFetcher fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(200));
+        fetcher.getSources().register(corpus("corpus"), 1, 1);
+        JeopardyCategory category = fetcher.fetch();
+        assertEquals("corpus", category.getName());
+        assertEquals(0, fetcher.getFallbacks());
+        assertEquals(1, fetcher.getCache().size());
+        assertEquals("corpus", fetcher.fetch("corpus").getName());
+
+        SourceRouter.Route upstream = fetcher.getSources().getRoutes().get(0);
+        assertEquals(CategoryFetcher.UPSTREAM_SOURCE, upstream.getSource().getName());
+        assertNull(upstream.getBreaker());
+
+        CategoryFetcher healthy = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofMillis(500));
+        healthy.getSources().register(corpus("corpus"), 1, 1);
+        for(int i = 0; i < 10; i++){
+            assertTrue(healthy.fetch().getName().startsWith(STAND_IN_NAME));
+        }
+        assertEquals(10, healthy.getSources().getRoutes().get(0).getPlayable());
+        assertEquals(0, healthy.getSources().getRoutes().get(1).getCalls());
+    }
+
+    @Test
+    @DisplayName("A slow hedged upstream is raced against a corpus after the failover delay, rather than waited on")
+    public void hedgedFetcherTest(){
+        standIn.setBaseLatency(5000);
+        CategoryFetcher fetcher = new CategoryFetcher(standIn.getCategoryURI(), Duration.ofSeconds(2));
+        fetcher.enableHedging(0.9, 0.1);
+        fetcher.getSources().register(corpus("corpus"), 1, 1);
+        long start = System.nanoTime();
+        assertEquals("corpus", fetcher.fetch().getName());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis >= 1000 && millis < 1800, "took " + millis + "ms");
+        assertEquals(1, fetcher.getSources().getRoutes().get(0).getFailovers());
+    }
+
+    @Test
+    @DisplayName("Corpora are read from trivia dumps, jService categories and category snapshots")
+    public void corpusFormatTest() throws IOException {
+        Path dir = Files.createTempDirectory("corpus");
+        try{
+            Path tsv = dir.resolve("dump.tsv");
+            Files.write(tsv, List.of(
+                    "round\tvalue\tcategory\tquestion\tanswer",
+                    "1\t$200\tRIVERS\tFlows through Cairo\tthe Nile",
+                    "1\t$200\tBIRDS\tCan't fly, lives in NZ\tthe kiwi",
+                    "1\t$400\tRIVERS\tFlows through Baghdad\tthe Tigris",
+                    "1\t$600\tRIVERS\tFlows through Vienna\tthe Danube",
+                    "1\t$1,000\tRIVERS\tFlows through Paris\tthe Seine",
+                    ""));
+            CorpusSource dump = CorpusSource.load(tsv);
+            //BIRDS has a single clue and is not playable
+            assertEquals(1, dump.size());
+            JeopardyCategory rivers = dump.fetch().join();
+            assertEquals("RIVERS", rivers.getName());
+            assertEquals(List.of(200, 400, 600, 1000), rivers.getValues());
+            assertEquals("dump.tsv", dump.getName());
+
+            Path jsonl = dir.resolve("categories.jsonl");
+            Files.write(jsonl, List.of(CategoryFetcher.OFFLINE_CATEGORY, "", standIn.categoryJSON(7)));
+            CorpusSource json = CorpusSource.load(jsonl);
+            assertEquals(2, json.size());
+            assertTrue(json.fetch().join().isPlayable());
+
+            Path snapshot = dir.resolve("quiz-categories.bin");
+            CategorySnapshot.save(List.of(rivers), snapshot);
+            assertEquals("RIVERS", CorpusSource.load(snapshot).fetch().join().getName());
+
+            Path bad = dir.resolve("bad.tsv");
+            Files.write(bad, List.of("category\tclue"));
+            assertThrows(IOException.class, () -> CorpusSource.load(bad));
+            assertThrows(IOException.class, () -> CorpusSource.load(dir.resolve("missing.bin")));
+        }
+        finally {
+            for(Path file : Files.list(dir).toArray(Path[]::new)){
+                Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import Server.SpectatorHub;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.SpectatorHub and the spectators QuizService hands to it
+ */
+public class SpectatorTests {
+
+    private final int SPECTATORS = 3;
+
+    @Test
+    @DisplayName("Spectators are sent the top 3 when they join and when it changes, with changes in between coalesced")
+    public void broadcastTest() throws IOException {
+        LeaderBoard leaderBoard = new LeaderBoard();
+        SpectatorHub hub = new SpectatorHub(leaderBoard, new ServerConfig(), null);
+        List<Socket> clients = new ArrayList<>();
+        List<Scanner> readers = new ArrayList<>();
+        try(ServerSocket server = new ServerSocket(0)){
+            for(int i = 0; i < SPECTATORS; i++){
+                Socket client = new Socket("127.0.0.1", server.getLocalPort());
+                clients.add(client);
+                readers.add(new Scanner(client.getInputStream()).useDelimiter("~"));
+                hub.subscribe(server.accept());
+            }
+            assertEquals(SPECTATORS, hub.size());
+
+            assertTrue(hub.broadcast());
+            for(Scanner in : readers){
+                assertEquals("BOARD", in.next());
+                in.next();
+            }
+            assertFalse(hub.broadcast());
+
+            leaderBoard.update("Alice", 1);
+            leaderBoard.update("Alice", 2);
+            leaderBoard.update("Bob", 1);
+            assertTrue(hub.broadcast());
+            assertFalse(hub.broadcast());
+            for(Scanner in : readers){
+                assertEquals("BOARD", in.next());
+                String board = in.next();
+                assertTrue(board.contains("Alice") && board.contains("Bob"));
+                assertTrue(board.indexOf("Alice") < board.indexOf("Bob"));
+            }
+            assertEquals(2, hub.getUpdates());
+            //nothing else was sent while the board was unchanged
+            for(Socket client : clients){
+                assertEquals(0, client.getInputStream().available());
+            }
+
+            //a spectator joining gets the board at once, though it has not changed
+            Socket late = new Socket("127.0.0.1", server.getLocalPort());
+            hub.subscribe(server.accept());
+            assertFalse(hub.broadcast());
+            Scanner lateIn = new Scanner(late.getInputStream()).useDelimiter("~");
+            assertEquals("BOARD", lateIn.next());
+            assertTrue(lateIn.next().contains("Alice"));
+            late.close();
+        }
+        finally {
+            for(Socket client : clients){
+                client.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A client sending SPECTATE instead of its name is streamed the board without joining the leaderboard")
+    public void protocolTest() throws IOException, InterruptedException {
+        ServerConfig config = TestServers.baseline();
+        config.setSpectatorIntervalMillis(20);
+        LeaderBoard leaderBoard = new LeaderBoard();
+        leaderBoard.update("Alice", 4);
+        QuizServer server = TestServers.start(config, leaderBoard);
+
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            assertEquals("NAME", in.next());
+            in.next();
+            out.print("SPECTATE~");
+            out.flush();
+            assertEquals("BOARD", in.next());
+            assertTrue(in.next().contains("Alice"));
+            assertEquals(1, server.getSpectators().size());
+            assertEquals(1, leaderBoard.size());
+
+            //the session thread is gone, while the spectator stays connected
+            long deadline = System.currentTimeMillis() + 2000;
+            while(server.getMetrics().getActiveSessions() > 0 && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+            assertEquals(0, server.getMetrics().getActiveSessions());
+            leaderBoard.update("Bob", 5);
+            assertEquals("BOARD", in.next());
+            String board = in.next();
+            assertTrue(board.indexOf("Bob") < board.indexOf("Alice"));
+        }
+        finally {
+            server.stop();
+        }
+    }
+}
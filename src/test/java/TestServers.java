@@ -0,0 +1,51 @@
+import Server.QuizServer;
+import Server.Scorable;
+import Server.ServerConfig;
+
+import java.io.IOException;
+
+/**
+ * Starts the QuizServers which tests play against. Every test starts from the same baseline config and changes only
+ * the settings it is about, so a new optional feature of the server never needs earlier tests to turn it off.
+ */
+public class TestServers {
+
+    //an unreachable upstream, so every question comes from the offline category
+    public static final String OFFLINE_URI = "http://127.0.0.1:1/api/category?id=";
+
+    /**
+     * Creates the config tests start from: the defaults of a ServerConfig, but on any free port, without heartbeats
+     * and with questions from the offline category
+     * @return a new baseline ServerConfig
+     */
+    public static ServerConfig baseline(){
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setHeartbeatIntervalMillis(0);
+        config.setCategoryURI(OFFLINE_URI);
+        return config;
+    }
+
+    /**
+     * Starts a QuizServer on a thread of its own and waits until it accepts connections
+     * @param config the server settings, usually a baseline with a few changes
+     * @param leaderBoard the leaderboard of the server
+     * @return the running server, which the test stops
+     * @throws InterruptedException if interrupted while waiting for the server
+     */
+    public static QuizServer start(ServerConfig config, Scorable leaderBoard) throws InterruptedException {
+        QuizServer server = new QuizServer(config, leaderBoard);
+        new Thread(() -> {
+            try{
+                server.openServer();
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        }).start();
+        while(server.getLocalPort() == -1){
+            Thread.sleep(10);
+        }
+        return server;
+    }
+}
@@ -0,0 +1,199 @@
+import QuizQuestion.CategoryFetcher;
+import QuizQuestion.Difficulty;
+import QuizQuestion.JeopardyCategory;
+import QuizQuestion.QuizGenerator;
+import QuizQuestion.TieredQuestionSupply;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuizQuestion.Difficulty and QuizQuestion.TieredQuestionSupply
+ */
+public class TieredQuestionSupplyTests {
+
+    private final int CAPACITY = 16;
+
+    /**
+     * Serves the given categories in turn, counting how many it served
+     */
+    private static class FixedFetcher extends CategoryFetcher {
+        private final List<JeopardyCategory> categories;
+        private int fetches;
+
+        FixedFetcher(List<JeopardyCategory> categories){
+            super("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(100));
+            this.categories = categories;
+        }
+
+        @Override
+        public JeopardyCategory fetch(){
+            return categories.get(fetches++ % categories.size());
+        }
+    }
+
+    private JeopardyCategory category(int number, Integer... values){
+        List<String> questions = new ArrayList<>();
+        List<String> answers = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for(int i = 0; i < values.length; i++){
+            questions.add("q" + number + "-" + i);
+            answers.add("a" + number + "-" + i);
+            ids.add(number * 10 + i);
+        }
+        return new JeopardyCategory("category " + number, questions, answers, ids, Arrays.asList(values));
+    }
+
+    @Test
+    @DisplayName("Clue values and streaks map to tiers, and values are parsed from jService")
+    public void difficultyTest(){
+        assertEquals(Difficulty.EASY, Difficulty.of(100));
+        assertEquals(Difficulty.EASY, Difficulty.of(200));
+        assertEquals(Difficulty.MEDIUM, Difficulty.of(400));
+        assertEquals(Difficulty.MEDIUM, Difficulty.of(0));
+        assertEquals(Difficulty.MEDIUM, Difficulty.of(700));
+        assertEquals(Difficulty.HARD, Difficulty.of(1000));
+        assertEquals(Difficulty.HARD, Difficulty.of(2000));
+
+        assertEquals(Difficulty.EASY, Difficulty.forStreak(0));
+        assertEquals(Difficulty.EASY, Difficulty.forStreak(2));
+        assertEquals(Difficulty.MEDIUM, Difficulty.forStreak(3));
+        assertEquals(Difficulty.HARD, Difficulty.forStreak(6));
+        assertEquals(Difficulty.HARD, Difficulty.forStreak(100));
+
+        JeopardyCategory offline = new JeopardyCategory(CategoryFetcher.OFFLINE_CATEGORY);
+        assertEquals(Arrays.asList(200, 100, 300, 400, 500), offline.getValues());
+    }
+
+    @Test
+    @DisplayName("Clues are taken from their own tier, which refills independently, and starvations are counted")
+    public void takeTest(){
+        //a newer game, then an older game without HARD clues
+        FixedFetcher fetcher = new FixedFetcher(Arrays.asList(category(1, 200, 400, 600, 800, 1000),
+                category(2, 100, 200, 300, 400, 500)));
+        //refills run at once on the taking thread, so the depths below are exact
+        TieredQuestionSupply supply = new TieredQuestionSupply(fetcher, CAPACITY, Runnable::run);
+
+        TieredQuestionSupply.Clue clue = supply.take(Difficulty.HARD);
+        assertEquals(Difficulty.HARD, Difficulty.of(clue.getCategory().getValues().get(clue.getIndex())));
+        assertEquals(1, supply.getStarvations(Difficulty.HARD));
+        assertEquals(1, supply.depth(Difficulty.HARD));
+        assertEquals(1, supply.depth(Difficulty.EASY));
+        assertEquals(2, supply.depth(Difficulty.MEDIUM));
+
+        for(int i = 0; i < 100; i++){
+            clue = supply.take(Difficulty.EASY);
+            assertEquals(Difficulty.EASY, Difficulty.of(clue.getCategory().getValues().get(clue.getIndex())));
+            assertTrue(supply.depth(Difficulty.EASY) <= CAPACITY);
+            assertTrue(supply.depth(Difficulty.MEDIUM) <= CAPACITY);
+        }
+        assertEquals(100, supply.getTaken(Difficulty.EASY));
+        assertEquals(0, supply.getStarvations(Difficulty.EASY));
+
+        //only the older game from now on, so HARD starves and is served MEDIUM clues
+        TieredQuestionSupply older = new TieredQuestionSupply(new FixedFetcher(Arrays.asList(category(2, 100, 200, 300,
+                400, 500))), CAPACITY, Runnable::run);
+        clue = older.take(Difficulty.HARD);
+        assertEquals(Difficulty.MEDIUM, Difficulty.of(clue.getCategory().getValues().get(clue.getIndex())));
+        assertEquals(1, older.getStarvations(Difficulty.HARD));
+        assertTrue(older.report().startsWith("EASY="));
+    }
+
+    @Test
+    @DisplayName("Takes never wait on a fetch, which runs on the refiller with at most one refill in flight")
+    public void asyncRefillTest() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger fetches = new AtomicInteger();
+        CategoryFetcher blocked = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(100)){
+            @Override
+            public JeopardyCategory fetch(){
+                fetches.incrementAndGet();
+                try{
+                    release.await();
+                }
+                catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+                return category(1, 200, 400, 600, 800, 1000);
+            }
+        };
+        ExecutorService refiller = Executors.newSingleThreadExecutor();
+        try{
+            TieredQuestionSupply supply = new TieredQuestionSupply(blocked, CAPACITY, refiller);
+            for(int i = 0; i < 100; i++){
+                assertNull(supply.take(Difficulty.EASY));
+            }
+            assertEquals(100, supply.getStarvations(Difficulty.EASY));
+            //a refill is started at most once while another is in flight
+            long deadline = System.currentTimeMillis() + 5000;
+            while(fetches.get() == 0 && System.currentTimeMillis() < deadline){
+                Thread.sleep(5);
+            }
+            assertEquals(1, fetches.get());
+
+            release.countDown();
+            TieredQuestionSupply.Clue clue = null;
+            while(clue == null && System.currentTimeMillis() < deadline){
+                Thread.sleep(5);
+                clue = supply.take(Difficulty.EASY);
+            }
+            assertNotNull(clue);
+        }
+        finally {
+            refiller.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Clues a session passes over stay in the supply for other sessions")
+    public void acceptTest(){
+        FixedFetcher fetcher = new FixedFetcher(Arrays.asList(category(1, 100, 200)));
+        TieredQuestionSupply supply = new TieredQuestionSupply(fetcher, CAPACITY, command -> { });
+        supply.offer(category(1, 100, 200));
+        supply.offer(category(2, 100, 200));
+        assertEquals(4, supply.depth(Difficulty.EASY));
+
+        //the first three clues are passed over, and remain
+        TieredQuestionSupply.Clue clue = supply.take(Difficulty.EASY, id -> id == 21, 3);
+        assertEquals(21, clue.getId());
+        assertEquals(3, supply.depth(Difficulty.EASY));
+        assertEquals(11, supply.take(Difficulty.EASY).getId());
+
+        //beyond the most clues to pass over, the front clue is taken anyway
+        assertEquals(20, supply.take(Difficulty.EASY, id -> id == 10, 0).getId());
+        assertEquals(10, supply.take(Difficulty.EASY, id -> false, 3).getId());
+        assertEquals(0, supply.depth(Difficulty.EASY));
+    }
+
+    @Test
+    @DisplayName("A QuizGenerator with a Difficulty asks clues of that tier")
+    public void generatorTest(){
+        FixedFetcher fetcher = new FixedFetcher(Arrays.asList(category(1, 200, 400, 600, 800, 1000),
+                category(2, 200, 400, 600, 800, 1000)));
+        //enough clues of both tiers for every question, whether or not the background refills keep up
+        for(int i = 0; i < 20; i++){
+            fetcher.getSupply().offer(category(1, 200, 400, 600, 800, 1000));
+        }
+        QuizGenerator generator = new QuizGenerator(fetcher);
+        generator.setDifficulty(Difficulty.HARD);
+        for(int i = 0; i < 20; i++){
+            generator.generateQuestion();
+            assertTrue(generator.getClueId() % 10 >= 3, "clue " + generator.getClueId());
+        }
+        generator.setDifficulty(Difficulty.EASY);
+        for(int i = 0; i < 20; i++){
+            generator.generateQuestion();
+            assertEquals(0, generator.getClueId() % 10);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import Server.TimingWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.TimingWheel and the question time limits kept on it
+ */
+public class TimingWheelTests {
+
+    private final int TIMEOUTS = 200;
+
+    @Test
+    @DisplayName("Timeouts expire after their deadline, including those beyond one turn of the wheel, unless cancelled")
+    public void expiryTest() throws InterruptedException {
+        //8 buckets of 1 ms, so most of the deadlines are several turns of the wheel away
+        TimingWheel wheel = new TimingWheel(1, 8);
+        Thread thread = new Thread(wheel);
+        thread.start();
+        AtomicLongArray fired = new AtomicLongArray(TIMEOUTS);
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+        for(int i = 0; i < TIMEOUTS; i++){
+            int index = i;
+            timeouts.add(wheel.schedule(i % 50, () -> fired.set(index, System.nanoTime())));
+        }
+        for(int i = 0; i < TIMEOUTS; i += 2){
+            timeouts.get(i).cancel();
+        }
+        while(wheel.size() > 0){
+            Thread.sleep(5);
+        }
+        thread.interrupt();
+
+        for(int i = 0; i < TIMEOUTS; i++){
+            TimingWheel.Timeout timeout = timeouts.get(i);
+            if(fired.get(i) == 0){
+                assertFalse(timeout.isExpired());
+                assertTrue(timeout.cancel(), "timeout " + i);
+            }
+            else{
+                assertTrue(timeout.isExpired());
+                assertFalse(timeout.cancel());
+                assertTrue(fired.get(i) >= timeout.getDeadline(), "timeout " + i + " fired early");
+            }
+        }
+        //every timeout cancelled before it was due never ran
+        assertTrue(wheel.getExpired() >= TIMEOUTS / 2);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("A wheel driven without its thread expires nothing before the deadline's tick has ended")
+    public void advanceTest() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(20, 4);
+        long[] ran = new long[1];
+        TimingWheel.Timeout timeout = wheel.schedule(100, () -> ran[0]++);
+        assertEquals(0, wheel.advance());
+        assertEquals(1, wheel.size());
+        while(System.nanoTime() < timeout.getDeadline()){
+            wheel.advance();
+            assertEquals(0, ran[0]);
+            Thread.sleep(5);
+        }
+        Thread.sleep(25);
+        assertEquals(1, wheel.advance());
+        assertEquals(1, ran[0]);
+        assertEquals(0, wheel.size());
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(10, 100));
+    }
+
+    @Test
+    @DisplayName("A question answered after its time limit is incorrect and resets the streak")
+    public void protocolTest() throws IOException, InterruptedException {
+        ServerConfig config = TestServers.baseline();
+        config.setQuestionTimeLimitMillis(200);
+        QuizServer server = TestServers.start(config, new LeaderBoard());
+
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            assertEquals("NAME", in.next());
+            in.next();
+            out.print("Alice~");
+            out.flush();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("Y~");
+            out.flush();
+            String code = in.next();
+            while(!code.equals("QUESTION")){
+                in.next();
+                code = in.next();
+            }
+            assertTrue(in.next().endsWith("You have 1s to answer\n"));
+
+            Thread.sleep(600);
+            assertEquals(1, server.getMetrics().getExpiredQuestions());
+            out.print("0~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().startsWith("Time's up! The correct answer is "));
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("N~");
+            out.flush();
+            assertEquals("MSG", in.next());
+            assertTrue(in.next().startsWith("Thanks for playing"));
+        }
+        finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import Server.LeaderBoard;
+import Server.QuizServer;
+import Server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for rank updates, in which QuizService sends the top 3 in full once and then only the lines which changed
+ */
+public class TopBoardTests {
+
+    private QuizServer server;
+    private LeaderBoard leaderBoard;
+
+    @BeforeEach
+    public void init() throws InterruptedException {
+        ServerConfig config = TestServers.baseline();
+        config.setRankUpdates(true);
+        leaderBoard = new LeaderBoard();
+        server = TestServers.start(config, leaderBoard);
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        server.stop();
+    }
+
+    /**
+     * Reads frames until the given code, failing on a QUESTION on the way
+     * @return the message of the frame with that code
+     */
+    private String readUntil(Scanner in, String code){
+        String next = in.next();
+        while(!next.equals(code)){
+            assertNotEquals("QUESTION", next);
+            in.next();
+            next = in.next();
+        }
+        return in.next();
+    }
+
+    /**
+     * Answers the question sent next with an answer which is never correct, then asks to play again
+     */
+    private void answerWrong(Scanner in, PrintWriter out){
+        readUntil(in, "QUESTION");
+        out.print("9~");
+        out.flush();
+        assertEquals("MSG", in.next());
+        assertTrue(in.next().startsWith("Sorry, that's not it!"));
+        assertEquals("PLAYAGAIN", in.next());
+        in.next();
+        out.print("Y~");
+        out.flush();
+    }
+
+    @Test
+    @DisplayName("A client accepting RANKS is sent the board once, then only the lines which changed, then nothing")
+    public void rankUpdateTest() throws IOException {
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            assertEquals("RANKS", in.next());
+            assertEquals("3", in.next());
+            assertEquals("NAME", in.next());
+            in.next();
+            out.print("RANKS~Alice~");
+            out.flush();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("Y~");
+            out.flush();
+
+            String board = readUntil(in, "BOARD");
+            assertTrue(board.startsWith("************************\n* Top 3 Active Streaks *"));
+            assertTrue(board.endsWith("Alice:   0\n"));
+            assertEquals("MSG", in.next());
+            assertEquals("\nYour current Streak is: 0\n", in.next());
+
+            leaderBoard.update("Zed", 50);
+            leaderBoard.update("Yan", 40);
+            answerWrong(in, out);
+            assertEquals("6\n3 Zed:   50\n4 Yan:   40\n5 Alice:   0\n", readUntil(in, "RANKS"));
+
+            answerWrong(in, out);
+            assertEquals("", readUntil(in, "RANKS"));
+
+            leaderBoard.delete("Yan");
+            answerWrong(in, out);
+            assertEquals("5\n4 Alice:   0\n", readUntil(in, "RANKS"));
+        }
+    }
+
+    @Test
+    @DisplayName("A client which does not accept RANKS is sent the full board in every MSG, as before")
+    public void classicTest() throws IOException {
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            readUntil(in, "NAME");
+            out.print("Alice~");
+            out.flush();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("Y~");
+            out.flush();
+            String message = readUntil(in, "MSG");
+            assertTrue(message.contains("Top 3 Active Streaks"));
+            assertTrue(message.endsWith("Your current Streak is: 0\n"));
+            answerWrong(in, out);
+            assertTrue(readUntil(in, "MSG").contains("Top 3 Active Streaks"));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import Client.QuizClient;
+import QuizQuestion.CategoryFetcher;
+import Server.LeaderBoard;
+import Server.PipeTransport;
+import Server.QuizService;
+import Server.ServerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Server.PipeTransport, and for QuizService and QuizClient playing a session over one
+ */
+public class TransportTests {
+
+    private final int CAPACITY = 16;
+
+    private LeaderBoard leaderBoard;
+    private ServerConfig config;
+    private CategoryFetcher fetcher;
+
+    @BeforeEach
+    public void init(){
+        leaderBoard = new LeaderBoard();
+        config = new ServerConfig();
+        config.setHeartbeatIntervalMillis(0);
+        //an unreachable upstream, so every question comes from the offline category
+        fetcher = new CategoryFetcher("http://127.0.0.1:1/api/category?id=", Duration.ofMillis(200));
+    }
+
+    /**
+     * Starts a QuizService on the server's end of a pipe
+     */
+    private Thread serve(PipeTransport client){
+        QuizService.Dependencies dependencies = new QuizService.Dependencies();
+        dependencies.setFetcher(fetcher);
+        QuizService service = new QuizService(client.getPeer(), leaderBoard, config, dependencies);
+        Thread thread = new Thread(service);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Reads frames until one with the given code, and returns its message
+     */
+    private String skipTo(Scanner in, String code){
+        while(!in.next().equals(code)){
+            in.next();
+        }
+        return in.next();
+    }
+
+    @Test
+    @DisplayName("Bytes written to one end of a pipe are read from the other, in both directions")
+    public void roundTripTest() throws IOException {
+        PipeTransport client = new PipeTransport(CAPACITY);
+        PipeTransport server = client.getPeer();
+        assertSame(client, server.getPeer());
+
+        //more than the capacity wraps around the buffer
+        byte[] message = "a message longer than the pipe".getBytes(StandardCharsets.UTF_8);
+        Thread writer = new Thread(() -> {
+            try{
+                client.getOutputStream().write(message);
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        });
+        writer.start();
+        assertArrayEquals(message, server.getInputStream().readNBytes(message.length));
+
+        server.getOutputStream().write(7);
+        assertEquals(1, client.getInputStream().available());
+        assertEquals(7, client.getInputStream().read());
+    }
+
+    @Test
+    @DisplayName("Closing one end lets the other read what was sent and then the end of the stream")
+    public void closeTest() throws IOException, InterruptedException {
+        PipeTransport client = new PipeTransport(CAPACITY);
+        PipeTransport server = client.getPeer();
+        client.getOutputStream().write(new byte[]{1, 2, 3});
+        client.close();
+        assertTrue(client.isClosed());
+        assertFalse(server.isClosed());
+        assertThrows(IOException.class, client::getInputStream);
+
+        InputStream in = server.getInputStream();
+        assertArrayEquals(new byte[]{1, 2, 3}, in.readNBytes(3));
+        assertEquals(-1, in.read());
+        assertThrows(IOException.class, () -> server.getOutputStream().write(4));
+
+        //a read blocked on an end is ended by closing that end
+        PipeTransport other = new PipeTransport(CAPACITY);
+        int[] read = {0};
+        Thread reader = new Thread(() -> {
+            try{
+                read[0] = other.getInputStream().read();
+            }
+            catch(IOException e){
+                read[0] = -2;
+            }
+        });
+        reader.start();
+        Thread.sleep(50);
+        other.close();
+        reader.join(5000);
+        assertFalse(reader.isAlive());
+        assertEquals(-1, read[0]);
+    }
+
+    @Test
+    @DisplayName("A write to a full pipe blocks until the other end reads")
+    public void backPressureTest() throws IOException, InterruptedException {
+        PipeTransport client = new PipeTransport(CAPACITY);
+        OutputStream out = client.getOutputStream();
+        out.write(new byte[CAPACITY]);
+        Thread writer = new Thread(() -> {
+            try{
+                out.write(1);
+            }
+            catch(IOException e){
+                e.printStackTrace();
+            }
+        });
+        writer.start();
+        Thread.sleep(100);
+        assertTrue(writer.isAlive());
+
+        InputStream in = client.getPeer().getInputStream();
+        assertEquals(CAPACITY, in.readNBytes(CAPACITY).length);
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertEquals(1, in.read());
+    }
+
+    @Test
+    @DisplayName("A QuizService plays a whole session over a pipe, without a socket")
+    public void serviceTest() throws IOException, InterruptedException {
+        PipeTransport client = new PipeTransport();
+        Thread service = serve(client);
+        Scanner in = new Scanner(client.getInputStream());
+        in.useDelimiter("~");
+        PrintWriter out = new PrintWriter(client.getOutputStream(), true);
+        assertEquals("NAME", in.next());
+        in.next();
+        out.print("Alice~");
+        out.flush();
+        assertEquals("PLAYAGAIN", in.next());
+        in.next();
+        out.print("Y~");
+        out.flush();
+        assertTrue(skipTo(in, "QUESTION").contains("grub, shrub or beelzebub"));
+        assertEquals(1, leaderBoard.size());
+        out.print("0~");
+        out.flush();
+        skipTo(in, "PLAYAGAIN");
+        out.print("N~");
+        out.flush();
+        assertEquals("MSG", in.next());
+        assertTrue(in.next().contains("Thanks for playing"));
+
+        //the server closes its end once the session ends
+        assertFalse(in.hasNext());
+        service.join(5000);
+        assertFalse(service.isAlive());
+        assertTrue(client.getPeer().isClosed());
+        assertEquals(0, leaderBoard.size());
+        client.close();
+    }
+
+    @Test
+    @DisplayName("A QuizClient plays against a QuizService over a pipe")
+    public void clientTest() throws IOException, InterruptedException {
+        Deque<String> inputs = new ArrayDeque<>(Arrays.asList("Bob", "Y", "0", "N"));
+        QuizClient quizClient = new QuizClient(){
+            @Override
+            public String getInput(){
+                return inputs.isEmpty() ? "N" : inputs.poll();
+            }
+        };
+        PipeTransport client = new PipeTransport();
+        Thread service = serve(client);
+        quizClient.play(client);
+        service.join(5000);
+        assertFalse(service.isAlive());
+        assertTrue(inputs.isEmpty());
+        assertTrue(client.isClosed());
+        assertEquals(0, leaderBoard.size());
+    }
+}
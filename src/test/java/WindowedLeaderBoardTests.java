@@ -0,0 +1,197 @@
+import Server.LeaderBoard;
+import Server.LeaderBoardWindow;
+import Server.QuizServer;
+import Server.ServerConfig;
+import Server.WindowedLeaderBoard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the Server.WindowedLeaderBoard class, driven by a clock the tests control
+ */
+public class WindowedLeaderBoardTests {
+
+    private final long MINUTE = WindowedLeaderBoard.MINUTE_MILLIS;
+    private final long HOUR = WindowedLeaderBoard.HOUR_MILLIS;
+    private final int TOP_K = 3;
+
+    private long now;
+    private LeaderBoard active;
+    private WindowedLeaderBoard leaderBoard;
+
+    @BeforeEach
+    public void init(){
+        now = 1000 * HOUR;
+        active = new LeaderBoard();
+        leaderBoard = new WindowedLeaderBoard(active, TOP_K, () -> now);
+    }
+
+    private String ranking(LeaderBoardWindow window){
+        StringBuilder out = new StringBuilder();
+        for(Map.Entry<String, Integer> entry : leaderBoard.top(window)){
+            out.append(entry.getKey()).append('=').append(entry.getValue()).append(' ');
+        }
+        return out.toString().trim();
+    }
+
+    @Test
+    @DisplayName("Best streaks stay ranked after a player disconnects, until they leave the window")
+    public void expiryTest(){
+        leaderBoard.update("Ben", 4);
+        leaderBoard.update("Ben", 0);
+        leaderBoard.delete("Ben");
+        assertEquals(0, active.size());
+        assertEquals("Ben=4", ranking(LeaderBoardWindow.FIVE_MINUTES));
+
+        now += 4 * MINUTE;
+        leaderBoard.update("Alice", 2);
+        assertEquals("Ben=4 Alice=2", ranking(LeaderBoardWindow.FIVE_MINUTES));
+        now += MINUTE;
+        assertEquals("Alice=2", ranking(LeaderBoardWindow.FIVE_MINUTES));
+        assertEquals("Ben=4 Alice=2", ranking(LeaderBoardWindow.HOUR));
+
+        now += HOUR;
+        assertEquals("", ranking(LeaderBoardWindow.HOUR));
+        assertEquals("Ben=4 Alice=2", ranking(LeaderBoardWindow.DAY));
+        now += 24 * HOUR;
+        assertEquals("", ranking(LeaderBoardWindow.DAY));
+
+        //the ring has come back round to the slots Ben and Alice were recorded in
+        leaderBoard.update("Carol", 1);
+        assertEquals("Carol=1", ranking(LeaderBoardWindow.DAY));
+        assertEquals("Carol=1", ranking(LeaderBoardWindow.FIVE_MINUTES));
+    }
+
+    @Test
+    @DisplayName("A batch of answers is one update to the active streak, and its best streak is still ranked")
+    public void batchTest(){
+        int ben = leaderBoard.join("Ben");
+        leaderBoard.updateBatch(ben, 4, 0);
+        assertEquals(0, leaderBoard.get(ben));
+        assertEquals(0, active.get(ben));
+        assertEquals("Ben=4", ranking(LeaderBoardWindow.FIVE_MINUTES));
+        leaderBoard.updateBatch(ben, 0, 0);
+        assertEquals("Ben=4", ranking(LeaderBoardWindow.FIVE_MINUTES));
+    }
+
+    @Test
+    @DisplayName("Merged buckets give the same top K as ranking every update in the window")
+    public void exactTopKTest(){
+        Random random = new Random(35);
+        Map<String, Integer> best = new HashMap<>();
+        long start = now;
+        for(int i = 0; i < 20000; i++){
+            now = start + i * 300;
+            String name = "player" + random.nextInt(200);
+            int streak = random.nextInt(1000);
+            leaderBoard.update(name, streak);
+            if(now / MINUTE > (start + 20000 * 300 - 1) / MINUTE - 60){
+                best.merge(name, streak, Math::max);
+            }
+        }
+        List<Map.Entry<String, Integer>> top = leaderBoard.top(LeaderBoardWindow.HOUR);
+        assertEquals(TOP_K, top.size());
+        int[] expected = best.values().stream().sorted((a, b) -> b - a).mapToInt(Integer::intValue).limit(TOP_K).toArray();
+        for(int i = 0; i < TOP_K; i++){
+            assertEquals(expected[i], (int) top.get(i).getValue());
+            assertEquals(best.get(top.get(i).getKey()), top.get(i).getValue());
+        }
+    }
+
+    @Test
+    @DisplayName("Players updated by id from many threads at once are ranked under their names across the stripes")
+    public void concurrentTest() throws InterruptedException {
+        int threads = 8;
+        int[] ids = new int[threads * 10];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = leaderBoard.join("player" + i);
+        }
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++){
+            int first = t * 10;
+            workers[t] = new Thread(() -> {
+                for(int streak = 1; streak <= 100; streak++){
+                    for(int i = first; i < first + 10; i++){
+                        leaderBoard.update(ids[i], streak + i);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for(Thread worker : workers){
+            worker.join();
+        }
+        int last = ids.length - 1;
+        assertEquals("player" + last + "=" + (100 + last) + " player" + (last - 1) + "=" + (99 + last) + " player"
+                + (last - 2) + "=" + (98 + last), ranking(LeaderBoardWindow.FIVE_MINUTES));
+
+        //the name is kept only while the player is joined
+        leaderBoard.leave(ids[last]);
+        leaderBoard.update(ids[last], 1000);
+        assertEquals(100 + last, (int) leaderBoard.top(LeaderBoardWindow.FIVE_MINUTES).get(0).getValue());
+    }
+
+    @Test
+    @DisplayName("Rankings are printed in the layout of the active leaderboard")
+    public void printTest(){
+        StringBuilder out = new StringBuilder();
+        leaderBoard.appendRecentTop(LeaderBoardWindow.HOUR, out);
+        assertTrue(out.toString().contains("* Best Streaks, Last Hour *"));
+        assertTrue(out.toString().endsWith("No streaks yet, be the first!\n"));
+
+        leaderBoard.update("Ben", 10);
+        leaderBoard.update("Alice", 10);
+        out.setLength(0);
+        leaderBoard.appendRecentTop(LeaderBoardWindow.HOUR, out);
+        assertTrue(out.toString().endsWith("Alice:   10\nBen:   10\n"), out.toString());
+        assertEquals(active.prettyPrintTop3(), leaderBoard.prettyPrintTop3());
+    }
+
+    @Test
+    @DisplayName("A client answering PLAYAGAIN with TOP receives the ranking of a window and PLAYAGAIN again")
+    public void protocolTest() throws IOException, InterruptedException {
+        leaderBoard.update("Ben", 6);
+        ServerConfig config = TestServers.baseline();
+        QuizServer server = TestServers.start(config, leaderBoard);
+        try(Socket s = new Socket("127.0.0.1", server.getLocalPort())){
+            Scanner in = new Scanner(s.getInputStream());
+            in.useDelimiter("~");
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            assertEquals("NAME", in.next());
+            in.next();
+            out.print("Alice~");
+            out.flush();
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("TOP~1h~");
+            out.flush();
+            assertEquals("TOP", in.next());
+            assertTrue(in.next().endsWith("Ben:   6\n"));
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            out.print("TOP~1W~N~");
+            out.flush();
+            assertEquals("TOP", in.next());
+            assertTrue(in.next().contains("5M, 1H or 24H"));
+            assertEquals("PLAYAGAIN", in.next());
+            in.next();
+            assertEquals("MSG", in.next());
+        }
+        finally {
+            server.stop();
+        }
+    }
+}